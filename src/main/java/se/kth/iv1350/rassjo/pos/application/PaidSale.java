@@ -0,0 +1,95 @@
+package se.kth.iv1350.rassjo.pos.application;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.CashPaymentDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.Mapper;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.SaleDTO;
+import se.kth.iv1350.rassjo.pos.model.CashPayment;
+import se.kth.iv1350.rassjo.pos.model.Sale;
+
+/**
+ * A sale whose payment has been recorded, waiting to be processed by the
+ * {@link PostPaymentPipeline}. The sale is no longer modified once it's paid, so it
+ * can safely be read by the pipeline's workers.
+ * <p>
+ * The DTOs are created the first time they're needed, and then shared by all stages.
+ */
+class PaidSale {
+
+    private final LaneIdentifierDTO laneId;
+    private final Sale sale;
+    private final CashPayment payment;
+    private final PaymentService paymentService;
+    private volatile SaleDTO saleInformation;
+    private volatile CashPaymentDTO paymentInformation;
+
+    /**
+     * Creates a new {@link PaidSale}.
+     *
+     * @param laneId         the identifier of the lane the sale was made on.
+     * @param sale           the paid {@link Sale}.
+     * @param payment        the {@link CashPayment} of the sale.
+     * @param paymentService the {@link PaymentService} of the lane the sale was made on.
+     */
+    PaidSale(LaneIdentifierDTO laneId, Sale sale, CashPayment payment, PaymentService paymentService) {
+        this.laneId = laneId;
+        this.sale = sale;
+        this.payment = payment;
+        this.paymentService = paymentService;
+    }
+
+    /**
+     * Retrieves the identifier of the lane the sale was made on.
+     *
+     * @return the {@link LaneIdentifierDTO} of the lane.
+     */
+    LaneIdentifierDTO getLaneId() {
+        return laneId;
+    }
+
+    /**
+     * Retrieves the payment service of the lane the sale was made on.
+     *
+     * @return the lane's {@link PaymentService}.
+     */
+    PaymentService getPaymentService() {
+        return paymentService;
+    }
+
+    /**
+     * Retrieves the paid sale itself, for stages that read its amounts in öre.
+     *
+     * @return the paid {@link Sale}.
+     */
+    Sale getSale() {
+        return sale;
+    }
+
+    /**
+     * Retrieves the information about the paid sale.
+     *
+     * @return a {@link SaleDTO} representing the sale.
+     */
+    SaleDTO getSaleInformation() {
+        SaleDTO result = saleInformation;
+        if (result == null) {
+            result = Mapper.toDTO(sale);
+            saleInformation = result;
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the information about the payment of the sale.
+     *
+     * @return a {@link CashPaymentDTO} representing the payment.
+     */
+    CashPaymentDTO getPaymentInformation() {
+        CashPaymentDTO result = paymentInformation;
+        if (result == null) {
+            result = Mapper.toDTO(payment);
+            paymentInformation = result;
+        }
+        return result;
+    }
+}
@@ -1,11 +1,12 @@
 package se.kth.iv1350.rassjo.pos.application;
 
-import se.kth.iv1350.rassjo.pos.integration.DTOs.Mapper;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.CashPaymentDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.SaleDTO;
 import se.kth.iv1350.rassjo.pos.integration.ReceiptPrinter;
+import se.kth.iv1350.rassjo.pos.model.Amount;
 import se.kth.iv1350.rassjo.pos.model.CashPayment;
 import se.kth.iv1350.rassjo.pos.model.CashRegisterTracker;
 import se.kth.iv1350.rassjo.pos.integration.DTOs.ReceiptDTO;
-import se.kth.iv1350.rassjo.pos.model.Sale;
 
 /**
  * The PaymentService class is responsible for processing and finalizing payments
@@ -28,22 +29,50 @@ public class PaymentService {
         this.receiptPrinter = receiptPrinter;
     }
 
+    /**
+     * Creates an instance of the PaymentService for a cash register that took in cash before
+     * the system was restarted.
+     *
+     * @param receiptPrinter the {@link ReceiptPrinter} responsible for printing
+     *                       receipts for processed payments.
+     * @param cashTakenIn    the {@link Amount} of cash the register took in before the restart.
+     */
+    public PaymentService(ReceiptPrinter receiptPrinter, Amount cashTakenIn) {
+        this.cashRegisterTracker = new CashRegisterTracker(cashTakenIn);
+        this.receiptPrinter = receiptPrinter;
+    }
+
     /**
      * Processes the payment for the given sale.
      * <p>
-     * This will update the cash register, dispense any change,
-     * and print a receipt.
+     * This will update the cash register and dispense any change. The receipt
+     * is printed separately with {@link #printReceipt}, once the payment has been recorded.
      *
-     * @param sale    the {@link Sale} object providing details about the sale.
      * @param payment the {@link CashPayment} object containing information
      *                about the payment.
      */
-    public void processPayment(Sale sale, CashPayment payment) {
+    public void processPayment(CashPayment payment) {
         // Here there would be logic for calling the actual cash register, not just its tracker
         cashRegisterTracker.addPayment(payment);
-        cashRegisterTracker.dispenseChange(payment.getPaidAmount());
+        cashRegisterTracker.dispenseChange(payment.getChange());
+    }
 
-        ReceiptDTO receipt = new ReceiptDTO(Mapper.toDTO(sale), Mapper.toDTO(payment));
-        receiptPrinter.printReceipt(receipt);
+    /**
+     * Retrieves the current balance of the cash register.
+     *
+     * @return the current balance.
+     */
+    public Amount getCashBalance() {
+        return cashRegisterTracker.getBalance();
+    }
+
+    /**
+     * Prints the receipt for a paid sale.
+     *
+     * @param sale    the {@link SaleDTO} providing details about the sale.
+     * @param payment the {@link CashPaymentDTO} containing information about the payment.
+     */
+    public void printReceipt(SaleDTO sale, CashPaymentDTO payment) {
+        receiptPrinter.printReceipt(new ReceiptDTO(sale, payment));
     }
 }
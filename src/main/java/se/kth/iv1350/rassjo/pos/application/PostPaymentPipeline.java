@@ -0,0 +1,243 @@
+package se.kth.iv1350.rassjo.pos.application;
+
+import se.kth.iv1350.rassjo.pos.utils.concurrent.Uninterruptibles;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Processes paid sales after the customer has received their change, e.g. printing the
+ * receipt and updating the external inventory and accounting systems.
+ * <p>
+ * Every stage has its own bounded queue and its own pool of worker threads. When a stage's
+ * queue is full, {@link #submit} blocks until there is room, which pushes back on the lanes
+ * instead of letting the backlog grow without bounds. A stage that fails is retried with an
+ * increasing delay, so every paid sale is delivered to every stage at least once. A sale that a
+ * stage still fails after {@value #MAX_ATTEMPTS} attempts is parked in a dead-letter queue of that
+ * stage, where it stays until {@link #retryDeadLetters} hands it to the stage again, e.g. once the
+ * external system is reachable again.
+ */
+class PostPaymentPipeline implements AutoCloseable {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 10;
+
+    private final List<Stage> stages;
+    private final Queue<DeadLetter> deadLetters;
+    private final AtomicInteger pendingSales;
+    private final ReentrantReadWriteLock lifecycleLock;
+    private final FileLogger logger;
+    private boolean closed;
+
+    /**
+     * Creates a new {@link PostPaymentPipeline} without any stages.
+     */
+    PostPaymentPipeline() {
+        stages = new ArrayList<>();
+        deadLetters = new ConcurrentLinkedQueue<>();
+        pendingSales = new AtomicInteger();
+        lifecycleLock = new ReentrantReadWriteLock();
+        logger = FileLogger.getInstance();
+        closed = false;
+    }
+
+    /**
+     * Adds a stage to the pipeline and starts its workers. Every sale submitted after
+     * this call will be processed by the stage.
+     *
+     * @param name          the name of the stage, used in logs and thread names.
+     * @param queueCapacity the maximum number of sales waiting to be processed by the stage.
+     * @param workerCount   the number of sales the stage processes in parallel.
+     * @param action        the processing performed by the stage for each paid sale.
+     * @return this pipeline, to allow method chaining.
+     */
+    PostPaymentPipeline addStage(String name, int queueCapacity, int workerCount, Consumer<PaidSale> action) {
+        Stage stage = new Stage(name, queueCapacity, action);
+        for (int i = 0; i < workerCount; i++) {
+            stage.workers.add(Thread.ofVirtual().name("post-payment-" + name + "-" + i).start(() -> runWorker(stage)));
+        }
+        stages.add(stage);
+        return this;
+    }
+
+    /**
+     * Takes the payment of a sale and queues the paid sale for processing by all stages, blocking
+     * while any stage's queue is full. The payment is only taken if the pipeline accepts sales,
+     * and the pipeline can't be closed in between, so a paid sale is never left unprocessed.
+     * For the same reason, the wait for room in a queue can't be interrupted; the interrupt is
+     * kept for the caller.
+     *
+     * @param payment takes the payment of the sale and returns the {@link PaidSale} to process.
+     * @return a {@link CompletableFuture} that is completed when all stages have processed the sale,
+     *         or completed exceptionally if any stage failed to process it.
+     * @throws RejectedExecutionException if the pipeline has been closed. The payment isn't taken then.
+     */
+    CompletableFuture<Void> submit(Supplier<PaidSale> payment) {
+        lifecycleLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("The post-payment pipeline has been closed.");
+            }
+            PaidSale sale = payment.get();
+            CompletableFuture<?>[] stageResults = new CompletableFuture<?>[stages.size()];
+            pendingSales.incrementAndGet();
+            for (int i = 0; i < stageResults.length; i++) {
+                stageResults[i] = enqueue(stages.get(i), sale);
+            }
+            CompletableFuture<Void> result = CompletableFuture.allOf(stageResults);
+            result.whenComplete((ignored, e) -> pendingSales.decrementAndGet());
+            return result;
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of paid sales that haven't been processed by all stages yet.
+     *
+     * @return the number of pending sales.
+     */
+    int getPendingCount() {
+        return pendingSales.get();
+    }
+
+    /**
+     * Retrieves the number of sales parked in the dead-letter queues, i.e. the sales that a
+     * stage failed to process in every attempt and that haven't been retried since.
+     *
+     * @return the number of parked sales, counted once for every stage they failed in.
+     */
+    int getDeadLetterCount() {
+        return deadLetters.size();
+    }
+
+    /**
+     * Hands every sale parked in the dead-letter queues to the stage it failed in again, blocking
+     * uninterruptibly while a stage's queue is full. A sale that fails again in every attempt is
+     * parked again.
+     *
+     * @return a {@link CompletableFuture} that is completed when all the retried sales have been
+     *         processed, or completed exceptionally if any of them failed again.
+     * @throws RejectedExecutionException if the pipeline has been closed.
+     */
+    CompletableFuture<Void> retryDeadLetters() {
+        lifecycleLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("The post-payment pipeline has been closed.");
+            }
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+            for (DeadLetter deadLetter = deadLetters.poll(); deadLetter != null; deadLetter = deadLetters.poll()) {
+                pendingSales.incrementAndGet();
+                CompletableFuture<Void> result = enqueue(deadLetter.stage, deadLetter.sale);
+                result.whenComplete((ignored, e) -> pendingSales.decrementAndGet());
+                results.add(result);
+            }
+            return CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new));
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops accepting new sales and waits until all queued sales have been processed by every stage.
+     * The sales that are still parked in the dead-letter queues are logged. An interrupt doesn't
+     * cut the wait short, since queued sales would go unprocessed; it is kept for the caller.
+     */
+    @Override
+    public void close() {
+        lifecycleLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Stage stage : stages) {
+                for (int i = 0; i < stage.workers.size(); i++) {
+                    Uninterruptibles.put(stage.queue, Job.STOP);
+                }
+            }
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        for (Stage stage : stages) {
+            for (Thread worker : stage.workers) {
+                Uninterruptibles.join(worker);
+            }
+        }
+        for (DeadLetter deadLetter : deadLetters) {
+            logger.error("Post-payment stage '" + deadLetter.stage.name + "' never processed sale "
+                    + deadLetter.sale.getSaleInformation().saleId() + " on lane " + deadLetter.sale.getLaneId() + ".");
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(Stage stage, PaidSale sale) {
+        Job job = new Job(sale, new CompletableFuture<>());
+        Uninterruptibles.put(stage.queue, job);
+        return job.result;
+    }
+
+    private void runWorker(Stage stage) {
+        try {
+            for (Job job = stage.queue.take(); job != Job.STOP; job = stage.queue.take()) {
+                process(stage, job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(Stage stage, Job job) throws InterruptedException {
+        long retryDelay = INITIAL_RETRY_DELAY_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                stage.action.accept(job.sale);
+                job.result.complete(null);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    logger.error("Post-payment stage '" + stage.name + "' failed for a sale on lane "
+                            + job.sale.getLaneId() + " after " + attempt + " attempts, the sale is parked until it is retried.", e);
+                    deadLetters.add(new DeadLetter(stage, job.sale));
+                    job.result.completeExceptionally(e);
+                    return;
+                }
+                logger.warn("Post-payment stage '" + stage.name + "' failed on attempt " + attempt + ", retrying.");
+                Thread.sleep(retryDelay);
+                retryDelay *= 2;
+            }
+        }
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final BlockingQueue<Job> queue;
+        private final Consumer<PaidSale> action;
+        private final List<Thread> workers;
+
+        private Stage(String name, int queueCapacity, Consumer<PaidSale> action) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.action = action;
+            this.workers = new ArrayList<>();
+        }
+    }
+
+    private record Job(PaidSale sale, CompletableFuture<Void> result) {
+        private static final Job STOP = new Job(null, null);
+    }
+
+    private record DeadLetter(Stage stage, PaidSale sale) {
+    }
+}
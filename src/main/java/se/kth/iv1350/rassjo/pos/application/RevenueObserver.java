@@ -1,5 +1,6 @@
 package se.kth.iv1350.rassjo.pos.application;
 
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
 import se.kth.iv1350.rassjo.pos.integration.DTOs.CashPaymentDTO;
 
 /**
@@ -15,4 +16,14 @@ public interface RevenueObserver {
      * @param payment the {@link CashPaymentDTO} object containing details of the cash payment.
      */
     void paymentReceived(CashPaymentDTO payment);
+
+    /**
+     * Notifies the observer of the total revenue of the sales made before the system was
+     * started, which the total revenue continues from. Called once, when the observer is
+     * registered. Observers that don't keep a total can ignore it.
+     *
+     * @param totalRevenue the {@link AmountDTO} of the revenue made before the system was started.
+     */
+    default void revenueRestored(AmountDTO totalRevenue) {
+    }
 }
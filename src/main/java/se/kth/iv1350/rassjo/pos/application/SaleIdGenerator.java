@@ -0,0 +1,30 @@
+package se.kth.iv1350.rassjo.pos.application;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+
+/**
+ * Generates the unique identifiers of new sales.
+ * <p>
+ * Implementations must be thread-safe, since sales are started on many lanes at once.
+ */
+public interface SaleIdGenerator {
+
+    /**
+     * Generates a new, unique sale id for a sale started on the specified lane.
+     *
+     * @param laneId the identifier of the lane the sale is started on.
+     * @return the generated sale id.
+     */
+    String nextId(LaneIdentifierDTO laneId);
+
+    /**
+     * Checks that ids can be generated for sales started on the specified lane, so that a lane
+     * that isn't supported is refused when it is opened rather than when its first sale is
+     * started. Every lane is supported unless the implementation says otherwise.
+     *
+     * @param laneId the identifier of the lane.
+     * @throws IllegalArgumentException if no ids can be generated for the lane.
+     */
+    default void checkLane(LaneIdentifierDTO laneId) {
+    }
+}
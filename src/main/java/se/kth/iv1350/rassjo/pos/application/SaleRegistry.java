@@ -0,0 +1,54 @@
+package se.kth.iv1350.rassjo.pos.application;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.Mapper;
+import se.kth.iv1350.rassjo.pos.integration.ReceiptPrinter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the {@link SaleSession} of every checkout lane. A session is created
+ * the first time a lane is used.
+ * <p>
+ * The registry itself is thread-safe and doesn't use a global lock, so operations on
+ * different lanes can run in parallel.
+ */
+class SaleRegistry {
+
+    private final ConcurrentMap<Integer, SaleSession> sessions;
+    private final ReceiptPrinter receiptPrinter;
+    private final Map<LaneIdentifierDTO, AmountDTO> recoveredCash;
+
+    /**
+     * Creates a new, empty {@link SaleRegistry}.
+     *
+     * @param receiptPrinter the {@link ReceiptPrinter} used by the payment service of each lane.
+     * @param recoveredCash  the cash taken in by the register of every lane before the system was
+     *                       restarted, which the register of the lane starts with.
+     */
+    SaleRegistry(ReceiptPrinter receiptPrinter, Map<LaneIdentifierDTO, AmountDTO> recoveredCash) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.receiptPrinter = receiptPrinter;
+        this.recoveredCash = recoveredCash;
+    }
+
+    /**
+     * Retrieves the session of the specified lane, creating it if the lane hasn't been used before.
+     *
+     * @param laneId the identifier of the lane.
+     * @return the {@link SaleSession} of the lane.
+     */
+    SaleSession getSession(LaneIdentifierDTO laneId) {
+        return sessions.computeIfAbsent(laneId.id(), id -> new SaleSession(laneId, createPaymentService(laneId)));
+    }
+
+    private PaymentService createPaymentService(LaneIdentifierDTO laneId) {
+        AmountDTO cashTakenIn = recoveredCash.get(laneId);
+        return cashTakenIn == null
+                ? new PaymentService(receiptPrinter)
+                : new PaymentService(receiptPrinter, Mapper.toDomain(cashTakenIn));
+    }
+}
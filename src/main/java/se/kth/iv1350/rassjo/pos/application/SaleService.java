@@ -11,173 +11,421 @@ import se.kth.iv1350.rassjo.pos.integration.exceptions.ItemNotFoundException;
 import se.kth.iv1350.rassjo.pos.integration.exceptions.ServiceUnavailableException;
 import se.kth.iv1350.rassjo.pos.model.CashPayment;
 import se.kth.iv1350.rassjo.pos.model.Sale;
+import se.kth.iv1350.rassjo.pos.model.SaleItem;
 import se.kth.iv1350.rassjo.pos.model.SaleStatus;
 import se.kth.iv1350.rassjo.pos.model.exceptions.ExecutionOrderException;
 import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * The SaleService class provides methods for managing the lifecycle of a sale, including
  * starting a sale, adding items to the sale, applying discounts, processing payments,
  * and finalizing the sale.
+ * <p>
+ * One service can drive the sales of many checkout lanes at once. Every lane has its own
+ * current sale; operations on different lanes run in parallel, while operations on the same
+ * lane are serialized. The methods that don't take a {@link LaneIdentifierDTO} operate on
+ * the {@link #DEFAULT_LANE default lane}.
  */
 public class SaleService {
 
-    private final PaymentService paymentService;
+    /**
+     * The lane used by the operations that don't specify a lane.
+     */
+    public static final LaneIdentifierDTO DEFAULT_LANE = new LaneIdentifierDTO(1);
+
+    private static final int STAGE_QUEUE_CAPACITY = 1024;
+    private static final int RECEIPT_WORKERS = 1;
+    private static final int INVENTORY_WORKERS = 4;
+    private static final int ACCOUNTING_WORKERS = 4;
+    private static final int REVENUE_WORKERS = 1;
+
+    private final SaleRegistry saleRegistry;
+    private final SaleIdGenerator saleIdGenerator;
+    private final PostPaymentPipeline postPaymentPipeline;
     private final InventoryHandler inventoryHandler;
     private final AccountingHandler accountingHandler;
     private final DiscountHandler discountHandler;
     private final FileLogger logger;
     private final List<RevenueObserver> observers;
-    private Sale currentSale;
+    private final AmountDTO recoveredRevenue;
 
     /**
      * Constructs an instance of the {@link SaleService} class, which is responsible
-     * for managing the lifecycle of a sale.
+     * for managing the lifecycle of a sale. The ids of new sales follow the id of the last
+     * sale recorded before the system was started.
      *
      * @param handlerFactory the {@link HandlerFactory} instance used to retrieve the
      *                       necessary handlers the service depend on.
      */
     public SaleService(HandlerFactory handlerFactory) {
-        observers = new ArrayList<>();
-        paymentService = new PaymentService(handlerFactory.getReceiptPrinter());
+        this(handlerFactory, createSaleIdGenerator(handlerFactory));
+    }
+
+    /**
+     * Constructs an instance of the {@link SaleService} class that uses the specified
+     * generator for the ids of new sales. The cash registers of the lanes and the revenue
+     * observers start from the state recovered from the sales recorded before the system
+     * was started.
+     *
+     * @param handlerFactory  the {@link HandlerFactory} instance used to retrieve the
+     *                        necessary handlers the service depend on.
+     * @param saleIdGenerator the {@link SaleIdGenerator} used to generate the id of every new sale.
+     */
+    public SaleService(HandlerFactory handlerFactory, SaleIdGenerator saleIdGenerator) {
+        this.saleIdGenerator = saleIdGenerator;
+        observers = new CopyOnWriteArrayList<>();
         inventoryHandler = handlerFactory.getInventoryHandler();
         accountingHandler = handlerFactory.getAccountingHandler();
+        RecoveredSalesDTO recoveredSales = accountingHandler.getRecoveredSales();
+        saleRegistry = new SaleRegistry(handlerFactory.getReceiptPrinter(), recoveredSales.cashPerLane());
+        recoveredRevenue = recoveredSales.totalRevenue();
         discountHandler = handlerFactory.getDiscountHandler();
+        postPaymentPipeline = new PostPaymentPipeline()
+                .addStage("receipt", STAGE_QUEUE_CAPACITY, RECEIPT_WORKERS,
+                        sale -> sale.getPaymentService().printReceipt(sale.getSaleInformation(), sale.getPaymentInformation()))
+                .addStage("inventory", STAGE_QUEUE_CAPACITY, INVENTORY_WORKERS,
+                        sale -> inventoryHandler.updateInventory(sale.getSaleInformation()))
+                .addStage("accounting", STAGE_QUEUE_CAPACITY, ACCOUNTING_WORKERS,
+                        sale -> accountingHandler.recordSale(sale.getLaneId(), sale.getSale()))
+                .addStage("revenue", STAGE_QUEUE_CAPACITY, REVENUE_WORKERS,
+                        sale -> notifyObservers(sale.getPaymentInformation()));
         logger = FileLogger.getInstance();
-        currentSale = null;
         logger.info("New SaleService instance created.");
     }
 
     /**
-     * Retrieves the currently active sale in the system.
+     * Opens the specified lane, checking that sales can be made on it before any sale is started.
+     * Lanes don't have to be opened, but a lane that isn't supported is then only refused when
+     * its first sale is started.
+     *
+     * @param laneId the identifier of the lane.
+     * @throws IllegalArgumentException if sales can't be made on the lane, e.g. because the sale
+     * id generator can't generate ids for it.
+     */
+    public void openLane(LaneIdentifierDTO laneId) {
+        saleIdGenerator.checkLane(laneId);
+        saleRegistry.getSession(laneId);
+    }
+
+    /**
+     * Retrieves the currently active sale on the default lane.
      *
      * @return a {@link SaleDTO} representing the current active sale, or null if no sale is active.
      */
     public SaleDTO getCurrentSale() {
-        return currentSale == null ? null : Mapper.toDTO(currentSale);
+        return getCurrentSale(DEFAULT_LANE);
     }
 
     /**
-     * Initiates a new sale by creating a {@link Sale} instance with the current date and time
-     * and generating a unique id for it.
+     * Retrieves the currently active sale on the specified lane.
+     *
+     * @param laneId the identifier of the lane.
+     * @return a {@link SaleDTO} representing the current active sale, or null if no sale is active.
+     */
+    public SaleDTO getCurrentSale(LaneIdentifierDTO laneId) {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
+        try {
+            Sale currentSale = session.getCurrentSale();
+            return currentSale == null ? null : Mapper.toDTO(currentSale);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    /**
+     * Initiates a new sale on the default lane.
      *
      * @throws UncheckedOperationFailedException if there already is an active sale.
+     * @see #startSale(LaneIdentifierDTO)
      */
     public void startSale() {
-        if (currentSale != null) {
-            handleExecutionOrderException(null, "Starting of sale");
-        }
-        currentSale = new Sale.Builder()
-                .saleId(generateSaleId())
-                .startTime(LocalDateTime.now())
-                .build();
-        logger.info("New sale started.");
+        startSale(DEFAULT_LANE);
     }
 
-    private String generateSaleId() {
-        return UUID.randomUUID().toString();
+    /**
+     * Initiates a new sale on the specified lane by creating a {@link Sale} instance with
+     * the current date and time and generating a unique id for it.
+     *
+     * @param laneId the identifier of the lane.
+     * @throws UncheckedOperationFailedException if there already is an active sale on the lane.
+     */
+    public void startSale(LaneIdentifierDTO laneId) {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
+        try {
+            if (session.getCurrentSale() != null) {
+                handleExecutionOrderException(null, "Starting of sale");
+            }
+            session.setCurrentSale(new Sale.Builder()
+                    .saleId(saleIdGenerator.nextId(laneId))
+                    .startTime(LocalDateTime.now())
+                    .build());
+        } finally {
+            session.unlock();
+        }
+        logger.info("New sale started on lane " + laneId + ".");
     }
 
     /**
-     * Ends the current sale and returns the total cost of the sale, which
-     * includes VAT and any applied discounts.
+     * Ends the current sale on the default lane.
      *
      * @return an {@link AmountDTO} representing the total cost of the sale.
      * @throws UncheckedOperationFailedException if there is no active sale, or if the sale couldn't
      * be ended due to an invalid order of operations.
+     * @see #endSale(LaneIdentifierDTO)
      */
     public AmountDTO endSale() {
-        ensureActiveSale();
+        return endSale(DEFAULT_LANE);
+    }
+
+    /**
+     * Ends the current sale on the specified lane and returns the total cost of the sale,
+     * which includes VAT and any applied discounts.
+     *
+     * @param laneId the identifier of the lane.
+     * @return an {@link AmountDTO} representing the total cost of the sale.
+     * @throws UncheckedOperationFailedException if there is no active sale, or if the sale couldn't
+     * be ended due to an invalid order of operations.
+     */
+    public AmountDTO endSale(LaneIdentifierDTO laneId) {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
         try {
-            currentSale.end();
-        } catch (ExecutionOrderException e) {
-            handleExecutionOrderException(e, "Ending of sale");
+            Sale currentSale = ensureActiveSale(session);
+            try {
+                currentSale.end();
+            } catch (ExecutionOrderException e) {
+                handleExecutionOrderException(e, "Ending of sale");
+            }
+            logger.info("Sale ended on lane " + laneId + ".");
+            return Mapper.toDTO(currentSale.getTotalCost());
+        } finally {
+            session.unlock();
         }
-        logger.info("Sale ended.");
-        return Mapper.toDTO(currentSale.getTotalCost());
     }
 
     /**
-     * Cancel the current sale.
+     * Cancel the current sale on the default lane.
+     *
+     * @throws UncheckedOperationFailedException if there is no active sale, or if the sale couldn't
+     * be cancelled due to an invalid order of operations.
+     * @see #cancelSale(LaneIdentifierDTO)
+     */
+    public void cancelSale() {
+        cancelSale(DEFAULT_LANE);
+    }
+
+    /**
+     * Cancel the current sale on the specified lane.
      * </p>
      * Marks the current sale as {@link SaleStatus#CANCELLED CANCELLED} and then removes the reference to it.
      *
+     * @param laneId the identifier of the lane.
      * @throws UncheckedOperationFailedException if there is no active sale, or if the sale couldn't
      * be cancelled due to an invalid order of operations.
      */
-    public void cancelSale() {
-        ensureActiveSale();
+    public void cancelSale(LaneIdentifierDTO laneId) {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
         try {
-            currentSale.cancel();
-        } catch (ExecutionOrderException e) {
-            handleExecutionOrderException(e, "Sale cancellation");
+            Sale currentSale = ensureActiveSale(session);
+            try {
+                currentSale.cancel();
+            } catch (ExecutionOrderException e) {
+                handleExecutionOrderException(e, "Sale cancellation");
+            }
+            session.setCurrentSale(null);
+        } finally {
+            session.unlock();
         }
-        currentSale = null;
-        logger.info("Sale cancelled.");
+        logger.info("Sale cancelled on lane " + laneId + ".");
     }
 
     /**
-     * Adds an item to the current sale with a specified quantity. If the
+     * Adds an item to the current sale on the default lane.
+     *
+     * @param itemId   the identifier of the item that will be added to the sale.
+     * @param quantity the quantity of the item that is being added.
+     * @return an {@link ItemAddedDTO} containing the added item and the new totals of the sale. The
+     * full state of the sale can be retrieved with {@link #getCurrentSale()}.
+     * @throws ItemNotFoundException if the item with the specified identifier doesn't exist.
+     * @throws UncheckedOperationFailedException if there is no active sale, or if the item couldn't
+     * be added due to an invalid order of operations.
+     * @see #addItem(LaneIdentifierDTO, ItemIdentifierDTO, int)
+     */
+    public ItemAddedDTO addItem(ItemIdentifierDTO itemId, int quantity) throws ItemNotFoundException {
+        return addItem(DEFAULT_LANE, itemId, quantity);
+    }
+
+    /**
+     * Adds an item to the current sale on the specified lane with a specified quantity. If the
      * item already exists in the sale, its quantity is updated.
      *
+     * @param laneId   the identifier of the lane.
      * @param itemId   the identifier of the item that will be added to the sale.
      * @param quantity the quantity of the item that is being added.
-     * @return a {@link SaleDTO} representing the current state of the sale after adding the item.
+     * @return an {@link ItemAddedDTO} containing the added item and the new totals of the sale. The
+     * full state of the sale can be retrieved with {@link #getCurrentSale(LaneIdentifierDTO)}.
      * @throws ItemNotFoundException if the item with the specified identifier doesn't exist.
      * @throws UncheckedOperationFailedException if there is no active sale, or if the item couldn't
      * be added due to an invalid order of operations.
      */
-    public SaleDTO addItem(ItemIdentifierDTO itemId, int quantity) throws ItemNotFoundException {
-        ensureActiveSale();
+    public ItemAddedDTO addItem(LaneIdentifierDTO laneId, ItemIdentifierDTO itemId, int quantity) throws ItemNotFoundException {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
         try {
-            if (currentSale.containsItemWithId(itemId)) {
-                currentSale.increaseItemWithId(itemId, quantity);
-                logger.info("Quantity of item with id " + itemId.id() + " increased by " + quantity + " units.");
+            Sale currentSale = ensureActiveSale(session);
+            try {
+                if (currentSale.increaseItemWithId(itemId, quantity)) {
+                    logger.info("Quantity of item with id " + itemId.id() + " increased by " + quantity + " units on lane " + laneId + ".");
+                }
+                else {
+                    ItemDTO itemInformation = inventoryHandler.getItemInformation(itemId);
+                    currentSale.addItem(itemInformation, quantity);
+                    logger.info("Item with id " + itemId.id() + " added to sale on lane " + laneId + ".");
+                }
+            } catch (ExecutionOrderException e) {
+                handleExecutionOrderException(e, "Addition of item");
             }
-            else {
-                ItemDTO itemInformation = inventoryHandler.getItemInformation(itemId);
-                currentSale.addItem(itemInformation, quantity);
-                logger.info("Item with id " + itemId.id() + " added to sale.");
+            return Mapper.toItemAddedDTO(currentSale);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    /**
+     * Adds a batch of scanned items to the current sale on the default lane.
+     *
+     * @param scannedItems the scanned items and their quantities, in the order they were scanned.
+     * @return an {@link ItemsAddedDTO} containing the added items, the identifiers that couldn't
+     * be found, and the new totals of the sale.
+     * @throws UncheckedOperationFailedException if there is no active sale, or if the sale isn't in the
+     * {@link SaleStatus#REGISTERING REGISTERING} state.
+     * @see #addItems(LaneIdentifierDTO, List)
+     */
+    public ItemsAddedDTO addItems(List<ScannedItemDTO> scannedItems) {
+        return addItems(DEFAULT_LANE, scannedItems);
+    }
+
+    /**
+     * Adds a batch of scanned items to the current sale on the specified lane. The state of the
+     * sale is validated once for the whole batch, and all items that aren't already in the sale
+     * are looked up in the inventory in a single batched lookup. Items that can't be found are
+     * reported in the result instead of failing the batch; all other items are added.
+     *
+     * @param laneId       the identifier of the lane.
+     * @param scannedItems the scanned items and their quantities, in the order they were scanned.
+     * @return an {@link ItemsAddedDTO} containing the added items, the identifiers that couldn't
+     * be found, and the new totals of the sale.
+     * @throws UncheckedOperationFailedException if there is no active sale, or if the sale isn't in the
+     * {@link SaleStatus#REGISTERING REGISTERING} state.
+     */
+    public ItemsAddedDTO addItems(LaneIdentifierDTO laneId, List<ScannedItemDTO> scannedItems) {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
+        try {
+            Sale currentSale = ensureActiveSale(session);
+            try {
+                currentSale.ensureRegistering();
+            } catch (ExecutionOrderException e) {
+                handleExecutionOrderException(e, "Addition of items");
             }
-        } catch (ExecutionOrderException e) {
-            handleExecutionOrderException(e, "Addition of item");
+
+            Set<ItemIdentifierDTO> unknownIds = new LinkedHashSet<>();
+            for (ScannedItemDTO scannedItem : scannedItems) {
+                if (!currentSale.containsItemWithId(scannedItem.itemId())) {
+                    unknownIds.add(scannedItem.itemId());
+                }
+            }
+            Map<ItemIdentifierDTO, ItemDTO> itemInformation = unknownIds.isEmpty()
+                    ? Map.of()
+                    : inventoryHandler.getItemsInformation(unknownIds);
+
+            Map<ItemIdentifierDTO, SaleItem> addedItems = new LinkedHashMap<>();
+            List<ItemIdentifierDTO> notFoundItems = new ArrayList<>();
+            for (ScannedItemDTO scannedItem : scannedItems) {
+                ItemIdentifierDTO itemId = scannedItem.itemId();
+                if (!currentSale.increaseItemWithId(itemId, scannedItem.quantity())) {
+                    ItemDTO information = itemInformation.get(itemId);
+                    if (information == null) {
+                        notFoundItems.add(itemId);
+                        continue;
+                    }
+                    currentSale.addItem(information, scannedItem.quantity());
+                }
+                addedItems.putIfAbsent(itemId, currentSale.getLastAddedItem());
+            }
+
+            logger.info(scannedItems.size() + " scanned items added to sale on lane " + laneId + ", "
+                    + notFoundItems.size() + " could not be found.");
+            return Mapper.toItemsAddedDTO(currentSale, new ArrayList<>(addedItems.values()), notFoundItems);
+        } finally {
+            session.unlock();
         }
-        return Mapper.toDTO(currentSale);
     }
 
     /**
-     * Applies a discount to the current sale based on the provided customer's information and the
-     * current sale. If a discount is successfully applied, the total cost of the sale is updated and returned.
+     * Applies a discount to the current sale on the default lane.
      *
      * @param customerId the identifier of the customer for whom the discount is being sought.
      * @return an {@link AmountDTO} representing the total cost of the sale after applying the discount.
      * @throws OperationFailedException if the discount service is unavailable.
      * @throws UncheckedOperationFailedException if there is no active sale, or if the sale isn't in the
      * {@link SaleStatus#AWAITING_PAYMENT AWAITING_PAYMENT} state
+     * @see #applyDiscount(LaneIdentifierDTO, CustomerIdentifierDTO)
      */
     public AmountDTO applyDiscount(CustomerIdentifierDTO customerId) throws OperationFailedException {
-        ensureActiveSale();
+        return applyDiscount(DEFAULT_LANE, customerId);
+    }
+
+    /**
+     * Applies a discount to the current sale on the specified lane based on the provided customer's
+     * information and the current sale. If a discount is successfully applied, the total cost of the
+     * sale is updated and returned.
+     *
+     * @param laneId     the identifier of the lane.
+     * @param customerId the identifier of the customer for whom the discount is being sought.
+     * @return an {@link AmountDTO} representing the total cost of the sale after applying the discount.
+     * @throws OperationFailedException if the discount service is unavailable.
+     * @throws UncheckedOperationFailedException if there is no active sale, or if the sale isn't in the
+     * {@link SaleStatus#AWAITING_PAYMENT AWAITING_PAYMENT} state
+     */
+    public AmountDTO applyDiscount(LaneIdentifierDTO laneId, CustomerIdentifierDTO customerId) throws OperationFailedException {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
         try {
-            currentSale.ensureAwaitingPayment();
-            DiscountRequestDTO discountRequest = createDiscountRequest(customerId);
-            DiscountDTO discount = discountHandler.getDiscount(discountRequest);
-            currentSale.applyDiscount(discount);
-        } catch (ExecutionOrderException e) {
-            handleExecutionOrderException(e, "Application of discount");
-        } catch (ServiceUnavailableException e) {
-            logger.error("Discount service is unavailable.", e);
-            throw new OperationFailedException("Could not apply discount at this time. Try again later.", e);
+            Sale currentSale = ensureActiveSale(session);
+            try {
+                currentSale.ensureAwaitingPayment();
+                DiscountRequestDTO discountRequest = createDiscountRequest(currentSale, customerId);
+                DiscountDTO discount = discountHandler.getDiscount(discountRequest);
+                currentSale.applyDiscount(discount);
+            } catch (ExecutionOrderException e) {
+                handleExecutionOrderException(e, "Application of discount");
+            } catch (ServiceUnavailableException e) {
+                logger.error("Discount service is unavailable.", e);
+                throw new OperationFailedException("Could not apply discount at this time. Try again later.", e);
+            }
+            logger.info("Discount applied to sale on lane " + laneId + ".");
+            return Mapper.toDTO(currentSale.getTotalCost());
+        } finally {
+            session.unlock();
         }
-        logger.info("Discount applied to sale.");
-        return Mapper.toDTO(currentSale.getTotalCost());
     }
 
-    private DiscountRequestDTO createDiscountRequest(CustomerIdentifierDTO customerId) {
+    private DiscountRequestDTO createDiscountRequest(Sale currentSale, CustomerIdentifierDTO customerId) {
         return new DiscountRequestDTO(
                 customerId,
                 Mapper.toDTO(currentSale.getTotalCost()),
@@ -185,61 +433,188 @@ public class SaleService {
     }
 
     /**
-     * Processes a cash payment for the current sale, updates the system with payment details,
-     * and adjusts the inventory and accounting systems accordingly.
+     * Processes a cash payment for the current sale on the default lane.
      *
      * @param paidAmount an {@link AmountDTO} representing the cash amount paid by the customer.
      * @return an {@link AmountDTO} representing the change to be returned to the customer.
      * @throws UncheckedOperationFailedException if there is no active sale, or if the payment couldn't
      * be processed due to an invalid order of operations.
+     * @see #processCashPayment(LaneIdentifierDTO, AmountDTO)
      */
     public AmountDTO processCashPayment(AmountDTO paidAmount) {
-        ensureActiveSale();
-        try {
-            currentSale.ensureAwaitingPayment();
-        } catch (ExecutionOrderException e) {
-            handleExecutionOrderException(e, "Payment");
-        }
-        CashPayment payment = new CashPayment(currentSale.getTotalCost(), Mapper.toDomain(paidAmount));
-        paymentService.processPayment(currentSale, payment);
+        return processCashPayment(DEFAULT_LANE, paidAmount);
+    }
 
-        // Since the AWAITING_PAYMENT state has been ensured, we don't need a try-catch here
-        currentSale.recordPayment(payment);
+    /**
+     * Processes a cash payment for the current sale on the specified lane, updates the system with
+     * payment details, and adjusts the inventory and accounting systems accordingly.
+     * <p>
+     * The method returns as soon as the payment has been recorded. Printing the receipt, updating
+     * the inventory and accounting systems, and notifying the revenue observers is done
+     * asynchronously afterwards. Use {@link #shutdown()} to wait for that processing to finish.
+     * After shutdown, payments are refused before they are taken, and the sale stays awaiting payment.
+     *
+     * @param laneId     the identifier of the lane.
+     * @param paidAmount an {@link AmountDTO} representing the cash amount paid by the customer.
+     * @return an {@link AmountDTO} representing the change to be returned to the customer.
+     * @throws UncheckedOperationFailedException if there is no active sale, if the payment couldn't
+     * be processed due to an invalid order of operations, or if the service has been shut down.
+     */
+    public AmountDTO processCashPayment(LaneIdentifierDTO laneId, AmountDTO paidAmount) {
+        SaleSession session = saleRegistry.getSession(laneId);
+        CashPayment payment;
+        session.lock();
+        try {
+            Sale currentSale = ensureActiveSale(session);
+            try {
+                currentSale.ensureAwaitingPayment();
+            } catch (ExecutionOrderException e) {
+                handleExecutionOrderException(e, "Payment");
+            }
+            payment = new CashPayment(currentSale.getTotalCost(), Mapper.toDomain(paidAmount));
+            try {
+                postPaymentPipeline.submit(() -> {
+                    session.getPaymentService().processPayment(payment);
 
-        inventoryHandler.updateInventory(Mapper.toDTO(currentSale));
-        accountingHandler.recordSale(Mapper.toDTO(currentSale));
+                    // Since the AWAITING_PAYMENT state has been ensured, we don't need a try-catch here
+                    currentSale.recordPayment(payment);
+                    session.setCurrentSale(null);
+                    return new PaidSale(laneId, currentSale, payment, session.getPaymentService());
+                });
+            } catch (RejectedExecutionException e) {
+                String errorMsg = "Payment can't be taken after the sale service has been shut down.";
+                logger.error(errorMsg, e);
+                throw new UncheckedOperationFailedException(errorMsg, e);
+            }
+        } finally {
+            session.unlock();
+        }
 
-        currentSale = null;
+        logger.info("Payment processed for sale on lane " + laneId + ".");
 
-        notifyObservers(payment);
+        return Mapper.toDTO(payment.getChange());
+    }
 
-        logger.info("Payment processed for sale.");
+    /**
+     * Searches the inventory for items by name, e.g. for items without a readable barcode.
+     *
+     * @param query      the name, or part of the name, to search for.
+     * @param maxResults the maximum number of items to return.
+     * @return the best matching items, the best match first.
+     */
+    public List<ItemDTO> searchItems(String query, int maxResults) {
+        return inventoryHandler.searchItems(query, maxResults);
+    }
 
-        return Mapper.toDTO(payment.getChange());
+    /**
+     * Retrieves the balance of the cash register of the specified lane.
+     *
+     * @param laneId the identifier of the lane.
+     * @return an {@link AmountDTO} representing the balance of the lane's cash register.
+     */
+    public AmountDTO getCashBalance(LaneIdentifierDTO laneId) {
+        SaleSession session = saleRegistry.getSession(laneId);
+        session.lock();
+        try {
+            return Mapper.toDTO(session.getPaymentService().getCashBalance());
+        } finally {
+            session.unlock();
+        }
     }
 
     /**
-     * Registers an observer that will be notified when a payment is received.
+     * Registers an observer that will be notified when a payment is received. The observer is
+     * first told the revenue of the sales recorded before the system was started.
      *
      * @param observer the observer to be registered, which will be notified
      *                 of revenue updates.
      */
     public void addRevenueObserver(RevenueObserver observer) {
+        observer.revenueRestored(recoveredRevenue);
         observers.add(observer);
     }
 
-    private void notifyObservers(CashPayment payment) {
+    /**
+     * Retrieves the number of paid sales whose receipt printing, inventory and accounting
+     * updates, or revenue notifications haven't completed yet.
+     *
+     * @return the number of paid sales still being processed.
+     */
+    public int getPendingPostPaymentCount() {
+        return postPaymentPipeline.getPendingCount();
+    }
+
+    /**
+     * Retrieves the number of paid sales whose receipt printing, inventory or accounting update,
+     * or revenue notification failed in every attempt. These sales are kept until they are
+     * retried with {@link #retryFailedPostPayments()}.
+     *
+     * @return the number of failed deliveries, counted once for every step a sale failed in.
+     */
+    public int getFailedPostPaymentCount() {
+        return postPaymentPipeline.getDeadLetterCount();
+    }
+
+    /**
+     * Retries the steps that failed for paid sales in every attempt, e.g. once an external
+     * system is reachable again. A step that fails again is kept for the next retry.
+     *
+     * @throws UncheckedOperationFailedException if the service has been shut down.
+     */
+    public void retryFailedPostPayments() {
+        try {
+            postPaymentPipeline.retryDeadLetters();
+        } catch (RejectedExecutionException e) {
+            String errorMsg = "Failed post-payment steps can't be retried after shutdown.";
+            logger.error(errorMsg, e);
+            throw new UncheckedOperationFailedException(errorMsg, e);
+        }
+        logger.info("Failed post-payment steps handed back to the pipeline.");
+    }
+
+    /**
+     * Stops accepting payments and waits until all paid sales have been fully processed,
+     * i.e. their receipts printed, the external systems updated and the observers notified.
+     * The stock changes that are still waiting to be sent to the inventory system are sent too,
+     * and the recorded sales are written to disk. The handlers can be shared with other services,
+     * so they are left open; they are closed with {@link HandlerFactory#close}.
+     *
+     * @throws UncheckedIOException if the stock changes can't be sent to the inventory system.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        postPaymentPipeline.close();
+        try {
+            inventoryHandler.flushStockChanges();
+        } finally {
+            accountingHandler.flushSales();
+        }
+        logger.info("SaleService shut down.");
+    }
+
+    private static SaleIdGenerator createSaleIdGenerator(HandlerFactory handlerFactory) {
+        TimeOrderedSaleIdGenerator generator = new TimeOrderedSaleIdGenerator(0);
+        String highestSaleId = handlerFactory.getAccountingHandler().getRecoveredSales().highestSaleId();
+        if (highestSaleId != null) {
+            generator.advancePast(highestSaleId);
+        }
+        return generator;
+    }
+
+    private void notifyObservers(CashPaymentDTO payment) {
         for (RevenueObserver observer : observers) {
-            observer.paymentReceived(Mapper.toDTO(payment));
+            observer.paymentReceived(payment);
         }
     }
 
-    private void ensureActiveSale() {
+    private Sale ensureActiveSale(SaleSession session) {
+        Sale currentSale = session.getCurrentSale();
         if (currentSale == null) {
             String errorMsg = "The attempted operation can't be performed when there isn't an active sale in progress.";
             logger.error(errorMsg);
             throw new UncheckedOperationFailedException(errorMsg);
         }
+        return currentSale;
     }
 
     private void handleExecutionOrderException(IllegalStateException e, String operationName) {
@@ -247,4 +622,4 @@ public class SaleService {
         logger.error(errorMsg, e);
         throw new UncheckedOperationFailedException(errorMsg, e);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package se.kth.iv1350.rassjo.pos.application;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.model.Sale;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the state of a single checkout lane: its current sale and the payment service
+ * for its cash register.
+ * <p>
+ * All operations on a session must be performed while holding its lock, which serializes
+ * the operations on one lane without blocking any other lane. A {@link ReentrantLock} is used
+ * rather than {@code synchronized} so that lanes running on virtual threads aren't pinned to
+ * their carrier thread while waiting on external systems.
+ */
+class SaleSession {
+
+    private final LaneIdentifierDTO laneId;
+    private final PaymentService paymentService;
+    private final ReentrantLock lock;
+    private Sale currentSale;
+
+    /**
+     * Creates a new {@link SaleSession} for the specified lane, without an active sale.
+     *
+     * @param laneId         the identifier of the lane.
+     * @param paymentService the {@link PaymentService} for the lane's cash register.
+     */
+    SaleSession(LaneIdentifierDTO laneId, PaymentService paymentService) {
+        this.laneId = laneId;
+        this.paymentService = paymentService;
+        this.lock = new ReentrantLock();
+        this.currentSale = null;
+    }
+
+    /**
+     * Acquires the lock of this session, waiting until it's available.
+     */
+    void lock() {
+        lock.lock();
+    }
+
+    /**
+     * Releases the lock of this session.
+     */
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Retrieves the identifier of the lane this session belongs to.
+     *
+     * @return the {@link LaneIdentifierDTO} of the lane.
+     */
+    LaneIdentifierDTO getLaneId() {
+        return laneId;
+    }
+
+    /**
+     * Retrieves the payment service for the cash register of this lane.
+     *
+     * @return the lane's {@link PaymentService}.
+     */
+    PaymentService getPaymentService() {
+        return paymentService;
+    }
+
+    /**
+     * Retrieves the currently active sale of this lane.
+     *
+     * @return the active {@link Sale}, or {@code null} if there isn't one.
+     */
+    Sale getCurrentSale() {
+        return currentSale;
+    }
+
+    /**
+     * Sets the currently active sale of this lane.
+     *
+     * @param sale the new active {@link Sale}, or {@code null} to mark that there isn't one.
+     */
+    void setCurrentSale(Sale sale) {
+        this.currentSale = sale;
+    }
+}
@@ -0,0 +1,147 @@
+package se.kth.iv1350.rassjo.pos.application;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates sale ids that are ordered by the time they were generated, so that sales can be
+ * stored and range-scanned in id order.
+ * <p>
+ * Each id is a 63-bit number made up of, from the most significant bit:
+ * <ul>
+ *     <li>41 bits: milliseconds since {@link #EPOCH},</li>
+ *     <li>18 bits: a sequence number within the millisecond,</li>
+ *     <li>4 bits: the node (store or server) that generated the id.</li>
+ * </ul>
+ * The lane isn't part of the id. The timestamp and sequence of every id generated by one node
+ * are unique on their own, so ids can be generated for any number of lanes.
+ * The number is rendered as 13 characters of Crockford's base 32, so comparing two ids as
+ * strings gives the same order as comparing them as numbers.
+ * <p>
+ * The timestamp and sequence are kept in a single {@link AtomicLong} that is only ever
+ * increased, so the generator is lock-free and its ids are strictly increasing even if the
+ * clock goes backwards. If more than 262,144 ids are requested in the same millisecond, the
+ * sequence carries over into the timestamp, borrowing from the next millisecond.
+ */
+public class TimeOrderedSaleIdGenerator implements SaleIdGenerator {
+
+    /**
+     * The point in time that the timestamps of the ids are counted from.
+     */
+    public static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    /**
+     * The length of every generated id.
+     */
+    public static final int ID_LENGTH = 13;
+
+    private static final int NODE_BITS = 4;
+    private static final int SEQUENCE_BITS = 18;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final int TICK_SHIFT = NODE_BITS;
+    private static final int BITS_PER_CHARACTER = 5;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final Clock clock;
+    private final long epochMillis;
+    private final long nodeBits;
+    private final AtomicLong lastTick;
+
+    /**
+     * Creates a new {@link TimeOrderedSaleIdGenerator} for the specified node, using the system clock.
+     *
+     * @param nodeId the identifier of the node generating ids, between 0 and 15.
+     * @throws IllegalArgumentException if the node identifier is out of range.
+     */
+    public TimeOrderedSaleIdGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a new {@link TimeOrderedSaleIdGenerator} for the specified node, using the specified clock.
+     *
+     * @param nodeId the identifier of the node generating ids, between 0 and 15.
+     * @param clock  the {@link Clock} the timestamps of the ids are read from.
+     * @throws IllegalArgumentException if the node identifier is out of range.
+     */
+    public TimeOrderedSaleIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId + ".");
+        }
+        this.clock = clock;
+        this.epochMillis = EPOCH.toEpochMilli();
+        this.nodeBits = nodeId;
+        this.lastTick = new AtomicLong();
+    }
+
+    @Override
+    public String nextId(LaneIdentifierDTO laneId) {
+        return render(nextTick() << TICK_SHIFT | nodeBits);
+    }
+
+    /**
+     * Retrieves the lowest id that can be generated at the specified point in time. All ids
+     * generated at or after that time are greater than or equal to it, which makes it
+     * suitable as a bound when range-scanning ids.
+     *
+     * @param time the point in time.
+     * @return the lowest id for the point in time.
+     */
+    public static String lowestIdAt(Instant time) {
+        long millis = Math.max(0, time.toEpochMilli() - EPOCH.toEpochMilli());
+        return render(millis << (SEQUENCE_BITS + TICK_SHIFT));
+    }
+
+    /**
+     * Makes sure that every id generated from now on is greater than the specified id, even if
+     * the clock is behind the time the id was generated at, e.g. after a restart. Ids that
+     * weren't generated by this class are ignored.
+     *
+     * @param saleId the id of a sale, typically the last one recorded before a restart.
+     */
+    public void advancePast(String saleId) {
+        long value = parse(saleId);
+        if (value >= 0) {
+            lastTick.accumulateAndGet(value >>> TICK_SHIFT, Math::max);
+        }
+    }
+
+    private long nextTick() {
+        long now = (clock.millis() - epochMillis) << SEQUENCE_BITS;
+        while (true) {
+            long last = lastTick.get();
+            long next = now > last ? now : last + 1;
+            if (lastTick.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static long parse(String id) {
+        if (id.length() != ID_LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < ID_LENGTH; i++) {
+            int digit = Arrays.binarySearch(ALPHABET, id.charAt(i));
+            if (digit < 0 || value > Long.MAX_VALUE >>> BITS_PER_CHARACTER) {
+                return -1;
+            }
+            value = value << BITS_PER_CHARACTER | digit;
+        }
+        return value;
+    }
+
+    private static String render(long value) {
+        char[] characters = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            characters[i] = ALPHABET[(int) (value & (ALPHABET.length - 1))];
+            value >>>= BITS_PER_CHARACTER;
+        }
+        return new String(characters);
+    }
+}
@@ -5,6 +5,7 @@ package se.kth.iv1350.rassjo.pos.application.exceptions;
  * certain operation in the sale. Exception contains a descriptive message of the failure.
  */
 public class OperationFailedException extends Exception {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Constructs a new {@link OperationFailedException} with the specified detail message.
@@ -6,6 +6,7 @@ package se.kth.iv1350.rassjo.pos.application.exceptions;
  * it to propagate unchecked without requiring explicit handling.
  */
 public class UncheckedOperationFailedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Constructs a new {@link UncheckedOperationFailedException} with the specified detail message.
@@ -0,0 +1,119 @@
+package se.kth.iv1350.rassjo.pos.controller;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cashier's session on one checkout lane. Commands submitted to the lane are queued
+ * and executed one at a time, in order, on the lane's own virtual thread.
+ * <p>
+ * Lanes are created and shut down by a {@link LaneExecutor}.
+ */
+public class Lane {
+
+    private final LaneIdentifierDTO laneId;
+    private final SaleController controller;
+    private final BlockingQueue<Runnable> commands;
+    private final ReentrantLock submitLock;
+    private final Runnable stopSignal;
+    private boolean accepting;
+
+    /**
+     * Creates a new {@link Lane} that accepts commands.
+     *
+     * @param laneId     the identifier of the lane.
+     * @param controller the {@link SaleController} the lane's commands are performed with.
+     */
+    Lane(LaneIdentifierDTO laneId, SaleController controller) {
+        this.laneId = laneId;
+        this.controller = controller;
+        this.commands = new LinkedBlockingQueue<>();
+        this.submitLock = new ReentrantLock();
+        this.stopSignal = () -> { };
+        this.accepting = true;
+    }
+
+    /**
+     * Retrieves the identifier of this lane.
+     *
+     * @return the {@link LaneIdentifierDTO} of the lane.
+     */
+    public LaneIdentifierDTO getLaneId() {
+        return laneId;
+    }
+
+    /**
+     * Retrieves the number of commands waiting to be executed on this lane.
+     *
+     * @return the current queue depth of the lane.
+     */
+    public int getQueueDepth() {
+        return commands.size();
+    }
+
+    /**
+     * Queues a command to be executed on this lane after all previously submitted commands.
+     *
+     * @param command the {@link LaneCommand} to execute.
+     * @param <T>     the type of the command's result.
+     * @return a {@link CompletableFuture} that is completed with the result of the command, or
+     *         completed exceptionally with the exception thrown by the command.
+     * @throws RejectedExecutionException if the lane has been shut down.
+     */
+    public <T> CompletableFuture<T> submit(LaneCommand<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                result.complete(command.execute(controller, laneId));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        };
+
+        submitLock.lock();
+        try {
+            if (!accepting) {
+                throw new RejectedExecutionException("Lane " + laneId + " has been shut down.");
+            }
+            commands.add(task);
+        } finally {
+            submitLock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Executes the queued commands until the lane is shut down. All commands submitted
+     * before the shutdown are executed before this method returns.
+     */
+    void run() {
+        try {
+            for (Runnable command = commands.take(); command != stopSignal; command = commands.take()) {
+                command.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the lane from accepting new commands, and signals it to stop once
+     * all previously submitted commands have been executed.
+     */
+    void shutdown() {
+        submitLock.lock();
+        try {
+            if (accepting) {
+                accepting = false;
+                commands.add(stopSignal);
+            }
+        } finally {
+            submitLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package se.kth.iv1350.rassjo.pos.controller;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+
+/**
+ * An operation that is performed on a {@link Lane}, on the lane's own thread.
+ *
+ * @param <T> the type of the result of the operation.
+ */
+@FunctionalInterface
+public interface LaneCommand<T> {
+
+    /**
+     * Performs the operation.
+     *
+     * @param controller the {@link SaleController} to perform the operation with.
+     * @param laneId     the identifier of the lane the operation is performed on.
+     * @return the result of the operation.
+     * @throws Exception if the operation fails.
+     */
+    T execute(SaleController controller, LaneIdentifierDTO laneId) throws Exception;
+}
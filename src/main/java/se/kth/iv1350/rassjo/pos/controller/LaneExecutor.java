@@ -0,0 +1,116 @@
+package se.kth.iv1350.rassjo.pos.controller;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.utils.concurrent.Uninterruptibles;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs every checkout {@link Lane} on its own virtual thread, so that lanes blocked on
+ * external systems (e.g. inventory lookups or receipt printing) don't occupy a platform
+ * thread. Thousands of lanes can therefore be hosted in the same process.
+ * <p>
+ * Shutdown is structured: {@link #close()} stops all lanes from accepting commands, lets
+ * them finish the commands already queued, and returns once every lane thread has ended.
+ */
+public class LaneExecutor implements AutoCloseable {
+
+    private final SaleController controller;
+    private final ConcurrentMap<Integer, LaneThread> lanes;
+    private final ReentrantLock lifecycleLock;
+    private final FileLogger logger;
+    private boolean closed;
+
+    private record LaneThread(Lane lane, Thread thread) {
+    }
+
+    /**
+     * Creates a new {@link LaneExecutor} without any open lanes.
+     *
+     * @param controller the {@link SaleController} shared by all lanes.
+     */
+    public LaneExecutor(SaleController controller) {
+        this.controller = controller;
+        this.lanes = new ConcurrentHashMap<>();
+        this.lifecycleLock = new ReentrantLock();
+        this.logger = FileLogger.getInstance();
+        this.closed = false;
+    }
+
+    /**
+     * Opens the specified lane, starting its virtual thread. If the lane is already open,
+     * the existing lane is returned.
+     *
+     * @param laneId the identifier of the lane to open.
+     * @return the open {@link Lane}.
+     * @throws RejectedExecutionException if the executor has been closed.
+     * @throws IllegalArgumentException if sales can't be made on the lane.
+     */
+    public Lane openLane(LaneIdentifierDTO laneId) {
+        lifecycleLock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Lanes can't be opened after the executor has been closed.");
+            }
+            return lanes.computeIfAbsent(laneId.id(), id -> {
+                controller.openLane(laneId);
+                Lane lane = new Lane(laneId, controller);
+                Thread thread = Thread.ofVirtual().name("lane-" + laneId).start(lane::run);
+                logger.info("Lane " + laneId + " opened.");
+                return new LaneThread(lane, thread);
+            }).lane();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of open lanes.
+     *
+     * @return the number of lanes.
+     */
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Retrieves the number of commands waiting to be executed on each lane.
+     *
+     * @return a map from each lane to its current queue depth, ordered by lane identifier.
+     */
+    public Map<LaneIdentifierDTO, Integer> getQueueDepths() {
+        Map<LaneIdentifierDTO, Integer> depths = new LinkedHashMap<>();
+        lanes.keySet().stream().sorted().forEach(id -> {
+            Lane lane = lanes.get(id).lane();
+            depths.put(lane.getLaneId(), lane.getQueueDepth());
+        });
+        return depths;
+    }
+
+    /**
+     * Shuts down all lanes and waits until the commands already queued have been executed. An
+     * interrupt doesn't cut the wait short; it is kept for the caller.
+     */
+    @Override
+    public void close() {
+        lifecycleLock.lock();
+        try {
+            closed = true;
+            for (LaneThread laneThread : lanes.values()) {
+                laneThread.lane().shutdown();
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+        for (LaneThread laneThread : lanes.values()) {
+            Uninterruptibles.join(laneThread.thread());
+        }
+        logger.info(lanes.size() + " lanes shut down.");
+    }
+}
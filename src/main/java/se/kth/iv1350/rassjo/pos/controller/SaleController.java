@@ -7,14 +7,25 @@ import se.kth.iv1350.rassjo.pos.application.exceptions.OperationFailedException;
 import se.kth.iv1350.rassjo.pos.application.exceptions.UncheckedOperationFailedException;
 import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
 import se.kth.iv1350.rassjo.pos.integration.DTOs.CustomerIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemAddedDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
 import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemsAddedDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
 import se.kth.iv1350.rassjo.pos.integration.DTOs.SaleDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ScannedItemDTO;
 import se.kth.iv1350.rassjo.pos.integration.HandlerFactory;
 import se.kth.iv1350.rassjo.pos.integration.exceptions.ItemNotFoundException;
 
+import java.util.List;
+
 /**
  * The SaleController class serves as the primary interface between the view
  * and business logic layer, facilitating management of sales operations.
+ * <p>
+ * Every operation exists in a lane-aware variant taking a {@link LaneIdentifierDTO}, which
+ * lets one controller serve many checkout lanes at once. The variants without a lane operate
+ * on the {@link SaleService#DEFAULT_LANE default lane}.
  */
 public class SaleController {
 
@@ -29,7 +40,17 @@ public class SaleController {
      */
     public SaleController(HandlerFactory handlerFactory) {
         saleService = new SaleService(handlerFactory);
-        addRevenueObserver(new TotalRevenueFileOutput());
+        saleService.addRevenueObserver(new TotalRevenueFileOutput());
+    }
+
+    /**
+     * Opens the specified lane, checking that sales can be made on it.
+     *
+     * @param laneId the identifier of the lane.
+     * @throws IllegalArgumentException if sales can't be made on the lane.
+     */
+    public void openLane(LaneIdentifierDTO laneId) {
+        saleService.openLane(laneId);
     }
 
     /**
@@ -41,6 +62,16 @@ public class SaleController {
         saleService.startSale();
     }
 
+    /**
+     * Initiates a new sale operation session on the specified lane.
+     *
+     * @param laneId the identifier of the lane.
+     * @throws UncheckedOperationFailedException if there already is an active sale in progress on the lane.
+     */
+    public void startSale(LaneIdentifierDTO laneId) {
+        saleService.startSale(laneId);
+    }
+
     /**
      * Ends the current sale and retrieves the total cost of the sale (including VAT).
      *
@@ -52,6 +83,18 @@ public class SaleController {
         return saleService.endSale();
     }
 
+    /**
+     * Ends the current sale on the specified lane and retrieves the total cost of the sale (including VAT).
+     *
+     * @param laneId the identifier of the lane.
+     * @return an {@link AmountDTO} representing the total cost of the sale (including VAT).
+     * @throws UncheckedOperationFailedException if there is no active sale on the lane, or if the sale
+     *                                  couldn't be ended due to an invalid order of operations.
+     */
+    public AmountDTO endSale(LaneIdentifierDTO laneId) {
+        return saleService.endSale(laneId);
+    }
+
     /**
      * Cancels the current sale session.
      *
@@ -62,16 +105,27 @@ public class SaleController {
         saleService.cancelSale();
     }
 
+    /**
+     * Cancels the current sale session on the specified lane.
+     *
+     * @param laneId the identifier of the lane.
+     * @throws UncheckedOperationFailedException if there is no active sale on the lane, or if the sale
+     *                                  couldn't be cancelled due to an invalid order of operations.
+     */
+    public void cancelSale(LaneIdentifierDTO laneId) {
+        saleService.cancelSale(laneId);
+    }
+
     /**
      * Adds one unit of the item with the specified identifier to the current sale.
      *
      * @param itemId the identifier of the item to be added to the sale.
-     * @return a {@link SaleDTO} representing the updated state of the sale after the item is added.
+     * @return an {@link ItemAddedDTO} containing the added item and the updated totals of the sale.
      * @throws ItemNotFoundException if the item with the specified identifier doesn't exist.
      * @throws UncheckedOperationFailedException if there is no active sale, or if the item couldn't be
      *                                  added to the sale due to an invalid order of operations.
      */
-    public SaleDTO addItem(ItemIdentifierDTO itemId) throws ItemNotFoundException {
+    public ItemAddedDTO addItem(ItemIdentifierDTO itemId) throws ItemNotFoundException {
         return saleService.addItem(itemId, 1);
     }
 
@@ -80,15 +134,90 @@ public class SaleController {
      *
      * @param itemId the {@link ItemIdentifierDTO} the identifier of the item to be added to the sale.
      * @param quantity the quantity of the item to be added to the sale.
-     * @return a {@link SaleDTO} representing the updated state of the sale after adding the item.
+     * @return an {@link ItemAddedDTO} containing the added item and the updated totals of the sale.
      * @throws ItemNotFoundException if the item with the specified identifier doesn't exist.
      * @throws UncheckedOperationFailedException if there is no active sale, or if the item couldn't be
      *                                  added to the sale due to an invalid order of operations.
      */
-    public SaleDTO addItem(ItemIdentifierDTO itemId, int quantity) throws ItemNotFoundException {
+    public ItemAddedDTO addItem(ItemIdentifierDTO itemId, int quantity) throws ItemNotFoundException {
         return saleService.addItem(itemId, quantity);
     }
 
+    /**
+     * Adds the given quantity of the item with the specified identifier to the current sale on the specified lane.
+     *
+     * @param laneId the identifier of the lane.
+     * @param itemId the {@link ItemIdentifierDTO} the identifier of the item to be added to the sale.
+     * @param quantity the quantity of the item to be added to the sale.
+     * @return an {@link ItemAddedDTO} containing the added item and the updated totals of the sale.
+     * @throws ItemNotFoundException if the item with the specified identifier doesn't exist.
+     * @throws UncheckedOperationFailedException if there is no active sale on the lane, or if the item
+     *                                  couldn't be added to the sale due to an invalid order of operations.
+     */
+    public ItemAddedDTO addItem(LaneIdentifierDTO laneId, ItemIdentifierDTO itemId, int quantity) throws ItemNotFoundException {
+        return saleService.addItem(laneId, itemId, quantity);
+    }
+
+    /**
+     * Adds a burst of scanned items, e.g. from a scanner gun or a self-checkout basket, to the
+     * current sale. Items that can't be found are reported in the result instead of failing the batch.
+     *
+     * @param scannedItems the scanned items and their quantities, in the order they were scanned.
+     * @return an {@link ItemsAddedDTO} containing the added items, the identifiers that couldn't be
+     *         found, and the updated totals of the sale.
+     * @throws UncheckedOperationFailedException if there is no active sale, or if the items couldn't be
+     *                                  added to the sale due to an invalid order of operations.
+     */
+    public ItemsAddedDTO addItems(List<ScannedItemDTO> scannedItems) {
+        return saleService.addItems(scannedItems);
+    }
+
+    /**
+     * Adds a burst of scanned items to the current sale on the specified lane. Items that can't be
+     * found are reported in the result instead of failing the batch.
+     *
+     * @param laneId the identifier of the lane.
+     * @param scannedItems the scanned items and their quantities, in the order they were scanned.
+     * @return an {@link ItemsAddedDTO} containing the added items, the identifiers that couldn't be
+     *         found, and the updated totals of the sale.
+     * @throws UncheckedOperationFailedException if there is no active sale on the lane, or if the items
+     *                                  couldn't be added to the sale due to an invalid order of operations.
+     */
+    public ItemsAddedDTO addItems(LaneIdentifierDTO laneId, List<ScannedItemDTO> scannedItems) {
+        return saleService.addItems(laneId, scannedItems);
+    }
+
+    /**
+     * Searches the inventory for items by name, e.g. for items without a readable barcode.
+     * The found items can then be added to the sale by their identifiers.
+     *
+     * @param query      the name, or part of the name, to search for.
+     * @param maxResults the maximum number of items to return.
+     * @return the best matching items, the best match first.
+     */
+    public List<ItemDTO> searchItems(String query, int maxResults) {
+        return saleService.searchItems(query, maxResults);
+    }
+
+    /**
+     * Retrieves a full snapshot of the current sale, including all registered items.
+     *
+     * @return a {@link SaleDTO} representing the current sale, or {@code null} if no sale is active.
+     */
+    public SaleDTO getCurrentSale() {
+        return saleService.getCurrentSale();
+    }
+
+    /**
+     * Retrieves a full snapshot of the current sale on the specified lane, including all registered items.
+     *
+     * @param laneId the identifier of the lane.
+     * @return a {@link SaleDTO} representing the current sale, or {@code null} if no sale is active on the lane.
+     */
+    public SaleDTO getCurrentSale(LaneIdentifierDTO laneId) {
+        return saleService.getCurrentSale(laneId);
+    }
+
     /**
      * Requests a discount for the current sale based on the provided customer identifier and current sale.
      *
@@ -102,6 +231,20 @@ public class SaleController {
         return saleService.applyDiscount(customerId);
     }
 
+    /**
+     * Requests a discount for the current sale on the specified lane based on the provided customer identifier.
+     *
+     * @param laneId the identifier of the lane.
+     * @param customerId the identifier of the customer for whom the discount is requested.
+     * @return an {@link AmountDTO} representing the total cost of the sale after applying the discount.
+     * @throws OperationFailedException if the discount cannot be applied due to a system failure.
+     * @throws UncheckedOperationFailedException if there is no active sale on the lane, or if the discount
+     * couldn't be applied due to an invalid order of operations
+     */
+    public AmountDTO requestDiscount(LaneIdentifierDTO laneId, CustomerIdentifierDTO customerId) throws OperationFailedException {
+        return saleService.applyDiscount(laneId, customerId);
+    }
+
     /**
      * Processes a cash payment for the current sale.
      *
@@ -114,6 +257,19 @@ public class SaleController {
         return saleService.processCashPayment(paidAmount);
     }
 
+    /**
+     * Processes a cash payment for the current sale on the specified lane.
+     *
+     * @param laneId the identifier of the lane.
+     * @param paidAmount an {@link AmountDTO} representing the cash amount paid by the customer.
+     * @return an {@link AmountDTO} representing the change to be returned to the customer.
+     * @throws UncheckedOperationFailedException if there is no active sale on the lane, or if the payment
+     *                                  couldn't be processed due to an invalid order of operations.
+     */
+    public AmountDTO processCashPayment(LaneIdentifierDTO laneId, AmountDTO paidAmount) {
+        return saleService.processCashPayment(laneId, paidAmount);
+    }
+
     /**
      * Adds a revenue observer to the system.
      *
@@ -123,4 +279,14 @@ public class SaleController {
     public void addRevenueObserver(RevenueObserver observer) {
         saleService.addRevenueObserver(observer);
     }
+
+    /**
+     * Shuts down the sale handling, waiting until all paid sales have been fully processed
+     * (receipts printed, external systems updated and revenue observers notified).
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        saleService.shutdown();
+    }
 }
@@ -1,26 +1,262 @@
 package se.kth.iv1350.rassjo.pos.integration;
 
-import se.kth.iv1350.rassjo.pos.integration.DTOs.SaleDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.Mapper;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecordedItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecordedSaleDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecoveredSalesDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.SaleJournalStatisticsDTO;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleHistory;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleJournal;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleJournalRecovery;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleRecord;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleRecordCodec;
+import se.kth.iv1350.rassjo.pos.model.Amount;
+import se.kth.iv1350.rassjo.pos.model.Sale;
+import se.kth.iv1350.rassjo.pos.model.SaleItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Handles operations related to the accounting system, including updating the accounting
- * system with information about completed sales.
+ * system with information about completed sales. Every completed sale is written to a
+ * {@link SaleJournal}, which commits the sales of all lanes to disk in groups. The sales are
+ * encoded with {@link SaleRecordCodec}, straight from the öre amounts of the paid {@link Sale},
+ * into buffers that every recording thread reuses.
+ * <p>
+ * When the handler opens a journal that already holds sales, the running state of those sales
+ * is first rebuilt with a {@link SaleJournalRecovery}, so that it survives a restart. The
+ * recovery runs only once the journal has locked its directory, so it can't cut into the
+ * segments of a journal that another process is still writing to. The
+ * checkpoint of the recovery is kept up to date with every finished segment of the journal. Recorded
+ * sales can be looked up by time or sale id through the journal's {@link SaleHistory}.
+ * <p>
+ * Without a journal directory, the handler keeps the recorded sales in memory instead.
  */
 public class AccountingHandler {
 
     /**
-     * Creates a new instance of the AccountingHandler class.
+     * The directory of the sale journal that the application writes the recorded sales to.
+     */
+    public static final Path SALE_JOURNAL_DIRECTORY = Path.of("logs", "sales");
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    private final SaleJournal journal;
+    private final RecoveredSalesDTO recoveredSales;
+    private final SaleHistory saleHistory;
+    private final ThreadLocal<SaleEncoder> encoders;
+    private final Queue<RecordedSaleDTO> inMemorySales;
+
+    /**
+     * Creates a new instance of the AccountingHandler class, which keeps the recorded sales in
+     * memory only, for running without an accounting system. Nothing is written to disk, and the
+     * sales don't survive a restart.
      */
     AccountingHandler() {
+        this.journal = null;
+        this.recoveredSales = RecoveredSalesDTO.empty();
+        this.saleHistory = null;
+        this.encoders = null;
+        this.inMemorySales = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Creates a new instance of the AccountingHandler class, which recovers the sales in the
+     * sale journal in the specified directory and writes new sales to it.
+     *
+     * @param journalDirectory the directory of the sale journal.
+     * @throws UncheckedIOException if the sale journal can't be recovered or opened, e.g. because
+     *                              another journal is open in the directory.
+     */
+    AccountingHandler(Path journalDirectory) {
+        this(openJournal(journalDirectory));
+    }
+
+    /**
+     * Creates a new instance of the AccountingHandler class, which writes sales to the specified
+     * journal. The sales already in the journal aren't recovered.
+     *
+     * @param journal the {@link SaleJournal} that completed sales are written to.
+     */
+    AccountingHandler(SaleJournal journal) {
+        this(RecoveredSalesDTO.empty(), journal);
+    }
+
+    private AccountingHandler(RecoveredJournal recoveredJournal) {
+        this(recoveredJournal.recoveredSales(), recoveredJournal.journal());
+    }
+
+    private AccountingHandler(RecoveredSalesDTO recoveredSales, SaleJournal journal) {
+        this.journal = journal;
+        this.recoveredSales = recoveredSales;
+        this.saleHistory = new SaleHistory(journal.getDirectory());
+        this.encoders = ThreadLocal.withInitial(SaleEncoder::new);
+        this.inMemorySales = null;
+    }
+
+    /**
+     * Records the details of a completed sale in the accounting system. The sale is appended
+     * to the sale journal and written to disk together with the sales of other lanes within
+     * the journal's durability window, so this method doesn't wait for the disk.
+     *
+     * @param laneId the identifier of the lane the sale was made on.
+     * @param sale   the completed {@link Sale}, which must not be changed anymore.
+     * @throws UncheckedIOException if the sale journal has failed.
+     */
+    public void recordSale(LaneIdentifierDTO laneId, Sale sale) {
+        if (journal == null) {
+            inMemorySales.add(toRecordedSale(laneId, sale));
+            return;
+        }
+        journal.append(encoders.get().encode(laneId, sale));
+    }
+
+    /**
+     * Waits until every sale recorded so far has been written to disk.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void flushSales() throws InterruptedException {
+        if (journal != null) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Retrieves the number of sales recorded and written to disk, and how long writing them has taken.
+     *
+     * @return a {@link SaleJournalStatisticsDTO} with the current statistics.
+     */
+    public SaleJournalStatisticsDTO getJournalStatistics() {
+        if (journal == null) {
+            long saleCount = inMemorySales.size();
+            return new SaleJournalStatisticsDTO(saleCount, saleCount, 0, Duration.ZERO, Duration.ZERO);
+        }
+        return journal.getStatistics();
+    }
+
+    /**
+     * Retrieves the running state rebuilt from the sales that were recorded before the handler
+     * was created.
+     *
+     * @return a {@link RecoveredSalesDTO} with the recovered state.
+     */
+    public RecoveredSalesDTO getRecoveredSales() {
+        return recoveredSales;
+    }
+
+    /**
+     * Finds the recorded sales that were started within the specified period on the specified
+     * lane. Sales that haven't been written to disk yet aren't found; see {@link #flushSales}.
+     *
+     * @param from   the start of the period.
+     * @param to     the end of the period, exclusive.
+     * @param laneId the lane of the sales, or {@code null} for any lane.
+     * @return the sales, in the order they were recorded.
+     * @throws UncheckedIOException if the sale journal can't be read.
+     */
+    public List<RecordedSaleDTO> findSales(LocalDateTime from, LocalDateTime to, LaneIdentifierDTO laneId) {
+        if (journal == null) {
+            return inMemorySales.stream()
+                    .filter(sale -> !sale.startTime().isBefore(from) && sale.startTime().isBefore(to))
+                    .filter(sale -> laneId == null || sale.laneId().equals(laneId))
+                    .toList();
+        }
+        try {
+            return saleHistory.findSales(from, to, laneId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't search the sale journal.", e);
+        }
     }
 
     /**
-     * Records the details of a completed sale in the accounting system. This method updates
-     * the necessary records to reflect the sale information provided.
+     * Finds the recorded sale with the specified sale id. Sales that haven't been written to
+     * disk yet aren't found; see {@link #flushSales}.
      *
-     * @param saleInformation the {@code SaleDTO} containing details about the completed sale.
+     * @param saleId the id of the sale.
+     * @return the sale, or {@code null} if no sale with the id has been recorded.
+     * @throws UncheckedIOException if the sale journal can't be read.
      */
-    public void recordSale(SaleDTO saleInformation) {
+    public RecordedSaleDTO findSale(String saleId) {
+        if (journal == null) {
+            return inMemorySales.stream().filter(sale -> sale.saleId().equals(saleId)).findFirst().orElse(null);
+        }
+        try {
+            return saleHistory.findSale(saleId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't search the sale journal.", e);
+        }
+    }
+
+    /**
+     * Writes the sales that are still waiting to disk, and stops accepting new ones. An interrupt
+     * doesn't stop the sales from being written; it is kept for the caller.
+     */
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private static RecordedSaleDTO toRecordedSale(LaneIdentifierDTO laneId, Sale sale) {
+        List<SaleItem> saleItems = sale.getItems();
+        List<RecordedItemDTO> items = new ArrayList<>(saleItems.size());
+        for (SaleItem item : saleItems) {
+            items.add(new RecordedItemDTO(item.getId(), item.getQuantity(), Mapper.toDTO(item.getFinalTotalPrice())));
+        }
+        AmountDTO paidAmount = Mapper.toDTO(sale.getPayment() == null ? Amount.ofMinorUnits(0) : sale.getPayment().getPaidAmount());
+        return new RecordedSaleDTO(sale.getSaleId(), laneId, sale.getStartTime(), Mapper.toDTO(sale.getTotalCost()),
+                Mapper.toDTO(sale.getTotalVat()), paidAmount, List.copyOf(items));
+    }
+
+    private static RecoveredJournal openJournal(Path directory) {
+        SaleJournalRecovery recovery = new SaleJournalRecovery();
+        AtomicReference<RecoveredSalesDTO> recoveredSales = new AtomicReference<>();
+        try {
+            SaleJournal journal = SaleJournal.open(directory,
+                    journalDirectory -> recoveredSales.set(recovery.recover(journalDirectory)),
+                    SaleJournalRecovery::checkpoint);
+            return new RecoveredJournal(recoveredSales.get(), journal);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't recover and open the sale journal.", e);
+        }
+    }
+
+    /**
+     * A journal that has been opened, and the sales that were recovered from it while it was locked.
+     */
+    private record RecoveredJournal(RecoveredSalesDTO recoveredSales, SaleJournal journal) {
+    }
+
+    /**
+     * The record and buffer that one thread encodes sales with.
+     */
+    private static final class SaleEncoder {
+
+        private final SaleRecord record = new SaleRecord();
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
 
+        private ByteBuffer encode(LaneIdentifierDTO laneId, Sale sale) {
+            record.fill(laneId, sale);
+            int maxSize = SaleRecordCodec.maxEncodedSize(record);
+            if (buffer.capacity() < maxSize) {
+                buffer = ByteBuffer.allocate(Math.max(maxSize, buffer.capacity() * 2));
+            }
+            buffer.clear();
+            SaleRecordCodec.encode(record, buffer);
+            return buffer.flip();
+        }
     }
 }
@@ -0,0 +1,23 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+/**
+ * A snapshot of the statistics of a cache.
+ *
+ * @param hits        the number of lookups that were answered from the cache.
+ * @param misses      the number of lookups that had to be forwarded to the backing system.
+ * @param evictions   the number of entries removed to keep the cache within its maximum size.
+ * @param expirations the number of entries removed because their time to live had passed.
+ * @param size        the number of entries currently in the cache.
+ */
+public record CacheStatisticsDTO(long hits, long misses, long evictions, long expirations, int size) {
+
+    /**
+     * Retrieves the share of lookups that were answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there haven't been any lookups.
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
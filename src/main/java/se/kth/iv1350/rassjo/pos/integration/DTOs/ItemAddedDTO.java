@@ -0,0 +1,12 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+/**
+ * Represents the result of adding an item to a sale. Contains only the item that was
+ * added and the new running totals, not the full state of the sale.
+ *
+ * @param lastAddedItem the item that was added, including its updated quantity.
+ * @param totalCost     the total cost of the sale after the item was added, including VAT.
+ * @param totalVat      the total value-added tax (VAT) for the sale after the item was added.
+ */
+public record ItemAddedDTO(SaleItemDTO lastAddedItem, AmountDTO totalCost, AmountDTO totalVat) {
+}
@@ -4,14 +4,31 @@ package se.kth.iv1350.rassjo.pos.integration.DTOs;
  * Represents the static information for an item as retrieved from the external inventory system.
  *
  * <p>When a cashier enters an item identifier, this DTO carries the item’s name,
- * description, net price (before VAT), and applicable VAT rate returned by the inventory system.</p>
+ * description, net price (before VAT), and applicable VAT rate returned by the inventory system,
+ * along with the unit price in öre that is computed from them when the item is read.</p>
  *
  * @param itemId      the unique identifier of the item in the inventory system.
  * @param name        the name of the item.
  * @param description a brief description of the item.
  * @param baseNetPrice    the price per unit before VAT.
  * @param vatRate     the VAT percentage applied to the item.
+ * @param price       the net price, gross price and VAT per unit in öre.
  */
 public record ItemDTO(ItemIdentifierDTO itemId, String name, String description, AmountDTO baseNetPrice,
-                      PercentageDTO vatRate) {
+                      PercentageDTO vatRate, ItemPriceDTO price) {
+
+    /**
+     * Creates a new {@link ItemDTO}, computing its unit price in öre from the net price and VAT rate.
+     *
+     * @param itemId       the unique identifier of the item in the inventory system.
+     * @param name         the name of the item.
+     * @param description  a brief description of the item.
+     * @param baseNetPrice the price per unit before VAT.
+     * @param vatRate      the VAT percentage applied to the item.
+     * @throws NumberFormatException if the net price isn't a valid amount.
+     */
+    public ItemDTO(ItemIdentifierDTO itemId, String name, String description, AmountDTO baseNetPrice,
+                   PercentageDTO vatRate) {
+        this(itemId, name, description, baseNetPrice, vatRate, ItemPriceDTO.of(baseNetPrice, vatRate));
+    }
 }
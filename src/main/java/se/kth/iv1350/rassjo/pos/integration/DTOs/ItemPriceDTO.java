@@ -0,0 +1,40 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+import se.kth.iv1350.rassjo.pos.model.Amount;
+import se.kth.iv1350.rassjo.pos.model.PercentageFactor;
+
+/**
+ * The unit price of an item in öre, computed once when the item is read into a catalog so that
+ * registering the item in a sale needs no parsing or VAT arithmetic.
+ *
+ * @param netPrice   the price per unit before VAT.
+ * @param grossPrice the price per unit including VAT, rounded half up to whole öre.
+ * @param vat        the VAT per unit, i.e. the difference between the gross and net price.
+ */
+public record ItemPriceDTO(long netPrice, long grossPrice, long vat) {
+
+    /**
+     * Computes the unit price of an item with the specified net price and VAT rate.
+     *
+     * @param netPrice the price per unit before VAT, in öre.
+     * @param vatRate  the VAT rate of the item.
+     * @return the {@link ItemPriceDTO} of the item.
+     * @throws ArithmeticException if the gross price overflows.
+     */
+    public static ItemPriceDTO of(long netPrice, PercentageDTO vatRate) {
+        long grossPrice = PercentageFactor.increaseOf(vatRate).applyTo(netPrice);
+        return new ItemPriceDTO(netPrice, grossPrice, grossPrice - netPrice);
+    }
+
+    /**
+     * Computes the unit price of an item with the specified net price and VAT rate.
+     *
+     * @param netPrice the price per unit before VAT.
+     * @param vatRate  the VAT rate of the item.
+     * @return the {@link ItemPriceDTO} of the item.
+     * @throws NumberFormatException if the net price isn't a valid amount.
+     */
+    public static ItemPriceDTO of(AmountDTO netPrice, PercentageDTO vatRate) {
+        return of(Amount.parseMinorUnits(netPrice.amount()), vatRate);
+    }
+}
@@ -0,0 +1,18 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+import java.util.List;
+
+/**
+ * Represents the result of adding a batch of scanned items to a sale. Contains the items
+ * that were added, the identifiers that couldn't be found, and the new running totals.
+ *
+ * @param addedItems    the items that were added or increased, with their updated quantities,
+ *                      in the order they were first scanned in the batch.
+ * @param notFoundItems the identifiers of the scanned items that couldn't be found in the inventory,
+ *                      in the order they were scanned.
+ * @param totalCost     the total cost of the sale after the items were added, including VAT.
+ * @param totalVat      the total value-added tax (VAT) for the sale after the items were added.
+ */
+public record ItemsAddedDTO(List<SaleItemDTO> addedItems, List<ItemIdentifierDTO> notFoundItems,
+                            AmountDTO totalCost, AmountDTO totalVat) {
+}
@@ -0,0 +1,19 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+/**
+ * Represents the identifier of a checkout lane, i.e. a cashier's register, in the store.
+ *
+ * @param id the identifier of the lane.
+ */
+public record LaneIdentifierDTO(int id) {
+
+    /**
+     * Returns the string representation of the identifier.
+     *
+     * @return a string representation of the lane identifier.
+     */
+    @Override
+    public String toString() {
+        return String.valueOf(id);
+    }
+}
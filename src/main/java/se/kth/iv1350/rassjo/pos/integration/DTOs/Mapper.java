@@ -59,6 +59,36 @@ public class Mapper {
                 sale.getStatus());
     }
 
+    /**
+     * Converts the provided {@link Sale} object to an {@link ItemAddedDTO}, containing
+     * only the last added item and the current totals of the sale.
+     *
+     * @param sale the sale that an item was just added to.
+     * @return the {@link ItemAddedDTO} representing the result of the addition.
+     */
+    public static ItemAddedDTO toItemAddedDTO(Sale sale) {
+        return new ItemAddedDTO(
+                toDTO(sale.getLastAddedItem()),
+                toDTO(sale.getTotalCost()),
+                toDTO(sale.getTotalVat()));
+    }
+
+    /**
+     * Converts the result of adding a batch of items to a {@link Sale} to an {@link ItemsAddedDTO}.
+     *
+     * @param sale          the sale that the items were just added to.
+     * @param addedItems    the items in the sale that were added or increased by the batch.
+     * @param notFoundItems the identifiers in the batch that couldn't be found.
+     * @return the {@link ItemsAddedDTO} representing the result of the addition.
+     */
+    public static ItemsAddedDTO toItemsAddedDTO(Sale sale, List<SaleItem> addedItems, List<ItemIdentifierDTO> notFoundItems) {
+        return new ItemsAddedDTO(
+                toDTO(addedItems),
+                List.copyOf(notFoundItems),
+                toDTO(sale.getTotalCost()),
+                toDTO(sale.getTotalVat()));
+    }
+
     /**
      * Converts the provided list of {@link SaleItem} objects into a list of {@link SaleItemDTO} objects.
      *
@@ -0,0 +1,11 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+/**
+ * An item of a recorded sale, as it was sold.
+ *
+ * @param id         the unique identifier of the item in the inventory system.
+ * @param quantity   the sold quantity.
+ * @param totalPrice the total price of the sold quantity, including VAT and discounts.
+ */
+public record RecordedItemDTO(ItemIdentifierDTO id, int quantity, AmountDTO totalPrice) {
+}
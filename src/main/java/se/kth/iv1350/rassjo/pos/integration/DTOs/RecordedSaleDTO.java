@@ -0,0 +1,19 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A paid sale as it was recorded in the accounting system, e.g. to handle a return or a dispute.
+ *
+ * @param saleId     the unique identifier of the sale.
+ * @param laneId     the identifier of the lane the sale was made on.
+ * @param startTime  the time the sale was started.
+ * @param totalCost  the total cost of the sale, including VAT.
+ * @param totalVat   the total VAT of the sale.
+ * @param paidAmount the amount paid by the customer.
+ * @param items      the sold items, in the order they were registered.
+ */
+public record RecordedSaleDTO(String saleId, LaneIdentifierDTO laneId, LocalDateTime startTime, AmountDTO totalCost,
+                              AmountDTO totalVat, AmountDTO paidAmount, List<RecordedItemDTO> items) {
+}
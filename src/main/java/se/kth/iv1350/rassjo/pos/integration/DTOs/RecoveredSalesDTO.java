@@ -0,0 +1,36 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The running state rebuilt from the sales recorded before the system was started.
+ *
+ * @param saleCount        the number of recorded sales.
+ * @param totalRevenue     the total cost of all recorded sales, including VAT.
+ * @param totalVat         the total VAT of all recorded sales.
+ * @param cashPerLane      the cash taken in by the register of every lane, i.e. the paid amounts
+ *                         minus the change given back.
+ * @param soldQuantities   the total quantity sold of every item.
+ * @param highestSaleId    the highest id of the recorded sales, compared as strings, or
+ *                         {@code null} if there are none.
+ * @param replayedSegments the number of journal segments that had to be replayed, i.e. that
+ *                         weren't covered by a checkpoint.
+ * @param recoveryTime     the time it took to rebuild the state.
+ */
+public record RecoveredSalesDTO(long saleCount, AmountDTO totalRevenue, AmountDTO totalVat,
+                                Map<LaneIdentifierDTO, AmountDTO> cashPerLane,
+                                Map<ItemIdentifierDTO, Long> soldQuantities, String highestSaleId,
+                                int replayedSegments, Duration recoveryTime) {
+
+    private static final AmountDTO ZERO = new AmountDTO("0.00");
+
+    /**
+     * Creates the state of a system without any recorded sales.
+     *
+     * @return a {@link RecoveredSalesDTO} without sales.
+     */
+    public static RecoveredSalesDTO empty() {
+        return new RecoveredSalesDTO(0, ZERO, ZERO, Map.of(), Map.of(), null, 0, Duration.ZERO);
+    }
+}
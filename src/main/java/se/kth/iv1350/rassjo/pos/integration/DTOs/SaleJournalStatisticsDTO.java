@@ -0,0 +1,16 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the statistics of the sale journal.
+ *
+ * @param appendedRecords   the number of records appended so far.
+ * @param durableRecords    the number of appended records that have been forced to disk.
+ * @param commits           the number of group commits, i.e. writes followed by a force to disk.
+ * @param lastCommitLatency the time it took to write and force the most recent commit.
+ * @param maxCommitLatency  the longest time it has taken to write and force a commit.
+ */
+public record SaleJournalStatisticsDTO(long appendedRecords, long durableRecords, long commits,
+                                       Duration lastCommitLatency, Duration maxCommitLatency) {
+}
@@ -0,0 +1,10 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+/**
+ * Represents one entry in a batch of scanned items, e.g. from a scanner gun or a self-checkout basket.
+ *
+ * @param itemId   the identifier of the scanned item.
+ * @param quantity the scanned quantity of the item.
+ */
+public record ScannedItemDTO(ItemIdentifierDTO itemId, int quantity) {
+}
@@ -0,0 +1,16 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the statistics of the batched stock updates sent to the inventory system.
+ *
+ * @param queueDepth       the number of items with stock changes waiting to be flushed.
+ * @param flushedBatches   the number of batches flushed so far.
+ * @param flushedChanges   the number of item stock changes flushed so far, summed over all batches.
+ * @param lastFlushLatency the time it took to flush the most recent batch.
+ * @param maxFlushLatency  the longest time it has taken to flush a batch.
+ */
+public record StockUpdateStatisticsDTO(int queueDepth, long flushedBatches, long flushedChanges,
+                                       Duration lastFlushLatency, Duration maxFlushLatency) {
+}
@@ -0,0 +1,18 @@
+package se.kth.iv1350.rassjo.pos.integration.DTOs;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * A summary of a written Z-report, i.e. the end-of-day report of all paid sales of a day.
+ *
+ * @param day             the day of the report.
+ * @param saleCount       the number of paid sales during the day.
+ * @param totalRevenue    the total cost of the sales, including VAT.
+ * @param totalVat        the total VAT of the sales.
+ * @param scannedSegments the number of sale journal segments that were scanned.
+ * @param reportTime      the time it took to aggregate the sales and write the report.
+ */
+public record ZReportSummaryDTO(LocalDate day, long saleCount, AmountDTO totalRevenue, AmountDTO totalVat,
+                                int scannedSegments, Duration reportTime) {
+}
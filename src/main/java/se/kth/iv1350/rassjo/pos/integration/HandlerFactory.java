@@ -1,5 +1,11 @@
 package se.kth.iv1350.rassjo.pos.integration;
 
+import se.kth.iv1350.rassjo.pos.integration.catalog.ItemCatalog;
+import se.kth.iv1350.rassjo.pos.integration.inventory.WriteBehindStockUpdater;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleJournal;
+
+import java.nio.file.Path;
+
 /**
  * Factory class responsible for creating and providing access to various handler instances
  * used in the POS system. These handlers encapsulate the logic for interacting with
@@ -13,11 +19,83 @@ public class HandlerFactory {
     private final ReceiptPrinter receiptPrinter;
 
     /**
-     * Initializes a new {@link HandlerFactory} instance.
+     * Initializes a new {@link HandlerFactory} instance, where the inventory contains a small
+     * catalog of sample items. Stock changes and completed sales are only kept in memory.
      */
     public HandlerFactory() {
-        inventoryHandler = new InventoryHandler();
-        accountingHandler = new AccountingHandler();
+        this(new InventoryHandler(), new AccountingHandler());
+    }
+
+    /**
+     * Initializes a new {@link HandlerFactory} instance, where the inventory reads item details
+     * from the specified catalog. Stock changes and completed sales are only kept in memory.
+     *
+     * @param itemCatalog the {@link ItemCatalog} containing the items of the store.
+     */
+    public HandlerFactory(ItemCatalog itemCatalog) {
+        this(new InventoryHandler(itemCatalog), new AccountingHandler());
+    }
+
+    /**
+     * Initializes a new {@link HandlerFactory} instance, where the inventory reads item details
+     * from the specified catalog and sends stock changes through the specified updater.
+     * Completed sales are only kept in memory.
+     *
+     * @param itemCatalog  the {@link ItemCatalog} containing the items of the store.
+     * @param stockUpdater the {@link WriteBehindStockUpdater} that stock changes are sent through.
+     */
+    public HandlerFactory(ItemCatalog itemCatalog, WriteBehindStockUpdater stockUpdater) {
+        this(new InventoryHandler(itemCatalog, stockUpdater), new AccountingHandler());
+    }
+
+    /**
+     * Initializes a new {@link HandlerFactory} instance, where the inventory reads item details
+     * from the specified catalog and sends stock changes through the specified updater, and
+     * completed sales are written to the specified journal.
+     *
+     * @param itemCatalog  the {@link ItemCatalog} containing the items of the store.
+     * @param stockUpdater the {@link WriteBehindStockUpdater} that stock changes are sent through.
+     * @param saleJournal  the {@link SaleJournal} that completed sales are written to.
+     */
+    public HandlerFactory(ItemCatalog itemCatalog, WriteBehindStockUpdater stockUpdater, SaleJournal saleJournal) {
+        this(new InventoryHandler(itemCatalog, stockUpdater), new AccountingHandler(saleJournal));
+    }
+
+    /**
+     * Initializes a new {@link HandlerFactory} instance, where the inventory contains a small
+     * catalog of sample items and sends stock changes through the specified updater, and
+     * completed sales are written to the sale journal in the specified directory. The sales
+     * already in the journal are recovered first, and the stock levels are decreased by the
+     * quantities they sold.
+     *
+     * @param stockUpdater     the {@link WriteBehindStockUpdater} that stock changes are sent through.
+     * @param journalDirectory the directory of the sale journal.
+     * @throws java.io.UncheckedIOException if the sale journal can't be recovered or opened.
+     */
+    public HandlerFactory(WriteBehindStockUpdater stockUpdater, Path journalDirectory) {
+        this(new InventoryHandler(stockUpdater), new AccountingHandler(journalDirectory));
+    }
+
+    /**
+     * Initializes a new {@link HandlerFactory} instance, where the inventory reads item details
+     * from the specified catalog and sends stock changes through the specified updater, and
+     * completed sales are written to the sale journal in the specified directory. The sales
+     * already in the journal are recovered first, and the stock levels are decreased by the
+     * quantities they sold.
+     *
+     * @param itemCatalog      the {@link ItemCatalog} containing the items of the store.
+     * @param stockUpdater     the {@link WriteBehindStockUpdater} that stock changes are sent through.
+     * @param journalDirectory the directory of the sale journal.
+     * @throws java.io.UncheckedIOException if the sale journal can't be recovered or opened.
+     */
+    public HandlerFactory(ItemCatalog itemCatalog, WriteBehindStockUpdater stockUpdater, Path journalDirectory) {
+        this(new InventoryHandler(itemCatalog, stockUpdater), new AccountingHandler(journalDirectory));
+    }
+
+    private HandlerFactory(InventoryHandler inventoryHandler, AccountingHandler accountingHandler) {
+        this.inventoryHandler = inventoryHandler;
+        this.accountingHandler = accountingHandler;
+        inventoryHandler.restoreSoldQuantities(accountingHandler.getRecoveredSales().soldQuantities());
         discountHandler = new DiscountHandler();
         receiptPrinter = new ReceiptPrinter();
     }
@@ -61,4 +139,18 @@ public class HandlerFactory {
     public ReceiptPrinter getReceiptPrinter() {
         return receiptPrinter;
     }
+
+    /**
+     * Closes the handlers that write to external systems: the stock changes that are still
+     * waiting are sent before the stock updater stops, and the sale journal is closed, which
+     * finishes its last segment. Should be called once the sales have been shut down. An
+     * interrupt doesn't cut the writing short; it is kept for the caller.
+     */
+    public void close() {
+        try {
+            inventoryHandler.close();
+        } finally {
+            accountingHandler.close();
+        }
+    }
 }
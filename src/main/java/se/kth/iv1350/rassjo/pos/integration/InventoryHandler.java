@@ -1,25 +1,98 @@
 package se.kth.iv1350.rassjo.pos.integration;
 
 import se.kth.iv1350.rassjo.pos.integration.DTOs.*;
+import se.kth.iv1350.rassjo.pos.integration.catalog.InMemoryItemCatalog;
+import se.kth.iv1350.rassjo.pos.integration.catalog.ItemCatalog;
+import se.kth.iv1350.rassjo.pos.integration.catalog.ItemNameIndex;
+import se.kth.iv1350.rassjo.pos.integration.catalog.VersionedItemCatalog;
 import se.kth.iv1350.rassjo.pos.integration.exceptions.ItemNotFoundException;
+import se.kth.iv1350.rassjo.pos.integration.inventory.LowStockObserver;
+import se.kth.iv1350.rassjo.pos.integration.inventory.StockTable;
+import se.kth.iv1350.rassjo.pos.integration.inventory.WriteBehindStockUpdater;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
 
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Handles operations related to the inventory system, including retrieving item details
- * and updating the inventory based on completed sales transactions.
+ * and updating the inventory based on completed sales transactions. Item details are read
+ * from an {@link ItemCatalog}, which can be replaced while sales are in progress. The stock
+ * levels are tracked in memory in a {@link StockTable}, and the stock changes of completed
+ * sales are sent in batches through a {@link WriteBehindStockUpdater}.
+ * <p>
+ * The stock table is built from the catalog on a background thread when the handler is created,
+ * so a large catalog doesn't hold up the startup. Operations on the stock levels wait for it.
+ * <p>
+ * The stock table only holds the items of the catalog that the handler was created with, and
+ * isn't rebuilt when the catalog is replaced. Items that only a later catalog has are still
+ * sent to the inventory system when they are sold, but their stock levels aren't tracked in
+ * memory and they never raise a low-stock warning.
  */
 public class InventoryHandler {
 
-    private final Map<ItemIdentifierDTO, ItemDTO> inventory;
+    /**
+     * The file of the stock change log that the application writes the stock changes to.
+     */
+    public static final Path STOCK_CHANGE_LOG = Path.of("logs", "stock-changes.log");
+
+    private static final long INITIAL_STOCK_LEVEL = 100;
+    private static final long LOW_STOCK_THRESHOLD = 10;
+
+    private final VersionedItemCatalog catalog;
+    private volatile CompletableFuture<StockTable> stockTable;
+    private final WriteBehindStockUpdater stockUpdater;
+    private final ReentrantLock nameIndexLock;
+    private volatile ItemNameIndex nameIndex;
 
     /**
-     * Creates a new instance of the {@link InventoryHandler}.
+     * Creates a new instance of the {@link InventoryHandler} with a small catalog of sample items,
+     * whose stock changes aren't stored anywhere.
      */
     InventoryHandler() {
-        inventory = new HashMap<>();
-        loadMockData();
+        this(createMockCatalog());
+    }
+
+    /**
+     * Creates a new instance of the {@link InventoryHandler} with a small catalog of sample items,
+     * which sends stock changes through the specified updater.
+     *
+     * @param stockUpdater the {@link WriteBehindStockUpdater} that the stock changes of completed sales are sent through.
+     */
+    InventoryHandler(WriteBehindStockUpdater stockUpdater) {
+        this(createMockCatalog(), stockUpdater);
+    }
+
+    /**
+     * Creates a new instance of the {@link InventoryHandler} that reads item details from the specified catalog.
+     * The stock changes are only tracked in memory, and aren't stored anywhere.
+     *
+     * @param catalog the {@link ItemCatalog} containing the items of the store.
+     */
+    InventoryHandler(ItemCatalog catalog) {
+        this(catalog, WriteBehindStockUpdater.start());
+    }
+
+    /**
+     * Creates a new instance of the {@link InventoryHandler} that reads item details from the specified catalog
+     * and sends stock changes through the specified updater.
+     *
+     * @param catalog      the {@link ItemCatalog} containing the items of the store.
+     * @param stockUpdater the {@link WriteBehindStockUpdater} that the stock changes of completed sales are sent through.
+     */
+    InventoryHandler(ItemCatalog catalog, WriteBehindStockUpdater stockUpdater) {
+        this.catalog = new VersionedItemCatalog(catalog);
+        this.stockTable = CompletableFuture.supplyAsync(() -> createStockTable(catalog),
+                task -> Thread.ofVirtual().name("stock-table-builder").start(task));
+        this.stockUpdater = stockUpdater;
+        this.nameIndexLock = new ReentrantLock();
     }
 
     /**
@@ -31,90 +104,275 @@ public class InventoryHandler {
      * @throws ItemNotFoundException if the item with the specified identifier is not found in the inventory.
      */
     public ItemDTO getItemInformation(ItemIdentifierDTO itemId) throws ItemNotFoundException {
-        if (inventory.containsKey(itemId)) {
-            return inventory.get(itemId);
+        ItemDTO item = catalog.findItem(itemId);
+        if (item == null) {
+            throw new ItemNotFoundException(itemId);
         }
-        throw new ItemNotFoundException(itemId);
+        return item;
     }
 
     /**
-     * Updates the inventory system with the details of a completed sale.
+     * Retrieves information about several items from the inventory system in one lookup.
+     * Identifiers that aren't found in the inventory are left out of the result.
+     *
+     * @param itemIds the identifiers of the items for which information is requested.
+     * @return a map from each found {@link ItemIdentifierDTO} to the {@link ItemDTO} with the item's details.
+     */
+    public Map<ItemIdentifierDTO, ItemDTO> getItemsInformation(Collection<ItemIdentifierDTO> itemIds) {
+        return catalog.findItems(itemIds);
+    }
+
+    /**
+     * Searches the inventory for the items whose names best match the specified query, for items
+     * that can't be scanned. The search tolerates misspellings, and the last word of the query may
+     * be the beginning of a word.
+     * <p>
+     * The name index is built from the catalog on the first search.
+     *
+     * @param query      the name, or part of the name, to search for.
+     * @param maxResults the maximum number of items to return.
+     * @return the best matching items, the best match first.
+     */
+    public List<ItemDTO> searchItems(String query, int maxResults) {
+        return getNameIndex().search(query, maxResults);
+    }
+
+    /**
+     * Replaces the catalog that item details are read from, e.g. when a new price file has
+     * arrived. The new catalog must be completely built before it is passed to this method.
+     * Lookups never see a partly replaced catalog, and items that ongoing sales have already
+     * looked up keep their old details. The name index is rebuilt on the next search.
+     * <p>
+     * The stock table isn't rebuilt, so stock levels are still only tracked for the items of the
+     * catalog that the handler was created with.
+     *
+     * @param newCatalog the {@link ItemCatalog} to read item details from from now on.
+     * @return the version number of the new catalog.
+     */
+    public long reloadCatalog(ItemCatalog newCatalog) {
+        long version = catalog.publish(newCatalog);
+        nameIndexLock.lock();
+        try {
+            nameIndex = null;
+        } finally {
+            nameIndexLock.unlock();
+        }
+        return version;
+    }
+
+    /**
+     * Retrieves the version number of the catalog that item details are currently read from.
+     * The catalog that the handler was created with is version 1.
+     *
+     * @return the current catalog version.
+     */
+    public long getCatalogVersion() {
+        return catalog.getVersion();
+    }
+
+    /**
+     * Updates the inventory system with the details of a completed sale. The stock of every sold
+     * item is decreased by the sold quantity, right away in the in-memory stock levels and in a
+     * later batch in the inventory system; this method only blocks if too many changes are
+     * already waiting to be sent.
+     * <p>
+     * The changes are handed to the inventory system before the in-memory stock levels are
+     * decreased, and decreasing them can't fail, so a call that throws hasn't changed any stock
+     * and can be retried without subtracting the sale twice.
      *
      * @param saleInformation the {@link SaleDTO} object containing detailed
      *                        information about the sale.
+     * @throws IllegalStateException if the inventory handler has been closed.
      */
     public void updateInventory(SaleDTO saleInformation) {
+        StockTable table = getStockTable();
+        Map<ItemIdentifierDTO, Integer> stockChanges = HashMap.newHashMap(saleInformation.items().size());
+        for (SaleItemDTO item : saleInformation.items()) {
+            stockChanges.merge(item.id(), -item.quantity(), Integer::sum);
+        }
+        stockUpdater.recordChanges(stockChanges);
+        stockChanges.forEach(table::adjustStock);
+    }
+
+    /**
+     * Decreases the in-memory stock levels by the quantities sold before the system was started.
+     * The inventory system already knows about those sales, so nothing is sent to it. The levels
+     * are decreased as soon as the stock table has been built, before any other operation sees
+     * them, so this must be called right after the handler has been created.
+     *
+     * @param soldQuantities the quantity sold of every item. Items whose stock isn't tracked are ignored.
+     */
+    void restoreSoldQuantities(Map<ItemIdentifierDTO, Long> soldQuantities) {
+        if (!soldQuantities.isEmpty()) {
+            stockTable = stockTable.thenApply(table -> {
+                soldQuantities.forEach((itemId, quantity) -> table.adjustStock(itemId, -quantity));
+                return table;
+            });
+        }
+    }
+
+    /**
+     * Retrieves the current stock level of an item.
+     *
+     * @param itemId the {@link ItemIdentifierDTO} of the item.
+     * @return the stock level of the item.
+     * @throws IllegalArgumentException if the stock of the item isn't tracked, e.g. because it
+     *                                  was added by a later catalog.
+     */
+    public long getStockLevel(ItemIdentifierDTO itemId) {
+        return getStockTable().getStockLevel(itemId);
+    }
+
+    /**
+     * Creates a snapshot of the stock levels of all tracked items, for reporting.
+     *
+     * @return a map from the identifier of every item of the first catalog to its stock level.
+     */
+    public Map<ItemIdentifierDTO, Long> getStockLevels() {
+        return getStockTable().snapshot();
+    }
+
+    /**
+     * Registers an observer that will be notified when the stock of an item falls to or below
+     * its low-stock threshold.
+     *
+     * @param observer the {@link LowStockObserver} to register.
+     */
+    public void addLowStockObserver(LowStockObserver observer) {
+        getStockTable().addLowStockObserver(observer);
+    }
+
+    /**
+     * Retrieves the number of stock changes waiting to be sent to the inventory system and
+     * how long sending them has taken.
+     *
+     * @return a {@link StockUpdateStatisticsDTO} with the current statistics.
+     */
+    public StockUpdateStatisticsDTO getStockUpdateStatistics() {
+        return stockUpdater.getStatistics();
+    }
+
+    /**
+     * Sends the stock changes that are still waiting to the inventory system right away, and
+     * waits until they have been sent.
+     *
+     * @throws UncheckedIOException if the inventory system keeps failing; the changes are still retried.
+     * @throws InterruptedException if interrupted while waiting for the changes to be sent.
+     */
+    public void flushStockChanges() throws InterruptedException {
+        stockUpdater.flush();
+    }
+
+    /**
+     * Sends the stock changes that are still waiting to the inventory system, and stops
+     * accepting new ones. An interrupt doesn't stop the changes from being sent; it is kept for
+     * the caller.
+     */
+    public void close() {
+        stockUpdater.close();
+    }
+
+    private StockTable getStockTable() {
+        try {
+            return stockTable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static StockTable createStockTable(ItemCatalog catalog) {
+        long startTime = System.nanoTime();
+        StockTable table = new StockTable(catalog, INITIAL_STOCK_LEVEL, LOW_STOCK_THRESHOLD);
+        FileLogger logger = FileLogger.getInstance();
+        table.addLowStockObserver((itemId, stockLevel) ->
+                logger.warn("Item " + itemId.id() + " is low on stock, " + stockLevel + " left."));
+        logger.info("Built the stock table of " + table.size() + " items in "
+                + (System.nanoTime() - startTime) / 1_000_000 + " ms.");
+        return table;
+    }
+
+    private ItemNameIndex getNameIndex() {
+        ItemNameIndex index = nameIndex;
+        if (index != null) {
+            return index;
+        }
+        nameIndexLock.lock();
+        try {
+            if (nameIndex == null) {
+                long startTime = System.nanoTime();
+                nameIndex = ItemNameIndex.build(catalog);
+                FileLogger.getInstance().info("Built the item name index of " + nameIndex.size() + " items in "
+                        + (System.nanoTime() - startTime) / 1_000_000 + " ms.");
+            }
+            return nameIndex;
+        } finally {
+            nameIndexLock.unlock();
+        }
     }
 
-    private void loadMockData() {
-        inventory.put(new ItemIdentifierDTO(10001),
+    private static ItemCatalog createMockCatalog() {
+        return new InMemoryItemCatalog(List.of(
                 new ItemDTO(new ItemIdentifierDTO(10001),
                         "Milk 1L",
                         "Fresh whole milk, 1 liter",
                         new AmountDTO("19.95"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12)),
 
-        inventory.put(new ItemIdentifierDTO(10002),
                 new ItemDTO(new ItemIdentifierDTO(10002),
                         "Bread loaf",
                         "White bread loaf, ~500g",
                         new AmountDTO("37.90"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12)),
 
-        inventory.put(new ItemIdentifierDTO(10003),
                 new ItemDTO(new ItemIdentifierDTO(10003),
                         "Eggs (6-pack)",
                         "Free-range eggs, pack of 6",
                         new AmountDTO("44.95"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12)),
 
-        inventory.put(new ItemIdentifierDTO(10004),
                 new ItemDTO(new ItemIdentifierDTO(10004),
                         "Coffee 500g",
                         "Ground coffee, 500g bag",
                         new AmountDTO("97.95"),
-                        new PercentageDTO(25)));
+                        new PercentageDTO(25)),
 
-        inventory.put(new ItemIdentifierDTO(10005),
                 new ItemDTO(new ItemIdentifierDTO(10005),
                         "Plastic bags (2L)",
                         "Plastic freezer bags, 2L, 70-pack",
                         new AmountDTO("15.95"),
-                        new PercentageDTO(25)));
+                        new PercentageDTO(25)),
 
-        inventory.put(new ItemIdentifierDTO(10006),
                 new ItemDTO(new ItemIdentifierDTO(10006),
                         "Butter 200g",
                         "Salted butter, 200g stick",
                         new AmountDTO("24.95"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12)),
 
-        inventory.put(new ItemIdentifierDTO(10007),
                 new ItemDTO(new ItemIdentifierDTO(10007),
                         "Cheese 300g",
                         "Gouda cheese, 300g",
                         new AmountDTO("44.95"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12)),
 
-        inventory.put(new ItemIdentifierDTO(10008),
                 new ItemDTO(new ItemIdentifierDTO(10008),
                         "Apple (1 kg)",
                         "Red apples, 1 kg bag",
                         new AmountDTO("29.95"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12)),
 
-        inventory.put(new ItemIdentifierDTO(10009),
                 new ItemDTO(new ItemIdentifierDTO(10009),
                         "Tomahawk (900g)",
                         "Tomahawk steak, 900g, Swedish",
                         new AmountDTO("449.00"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12)),
 
-        inventory.put(new ItemIdentifierDTO(10010),
                 new ItemDTO(new ItemIdentifierDTO(10010),
                         "Orange juice 1L",
                         "Cold-pressed orange juice, 1L",
                         new AmountDTO("32.95"),
-                        new PercentageDTO(12)));
+                        new PercentageDTO(12))));
     }
 }
@@ -0,0 +1,104 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of item identifiers. It answers whether an identifier might have been added,
+ * with no false negatives and a false positive rate close to the one it was sized for as long
+ * as no more identifiers than expected are added.
+ * <p>
+ * Identifiers can be added while other threads query the filter.
+ */
+final class BloomFilter {
+
+    private static final long SPLITMIX_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long SPLITMIX_MULTIPLIER_1 = 0xBF58476D1CE4E5B9L;
+    private static final long SPLITMIX_MULTIPLIER_2 = 0x94D049BB133111EBL;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a new, empty {@link BloomFilter} sized for the specified number of identifiers.
+     *
+     * @param expectedIds       the number of identifiers that are expected to be added.
+     * @param falsePositiveRate the wanted probability that an identifier that wasn't added is
+     *                          reported as possibly added, between zero and one exclusive.
+     * @throws IllegalArgumentException if the false positive rate isn't between zero and one.
+     */
+    BloomFilter(int expectedIds, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1, was " + falsePositiveRate + ".");
+        }
+        int ids = Math.max(1, expectedIds);
+        long optimalBits = (long) Math.ceil(-ids * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / ids * Math.log(2)));
+    }
+
+    /**
+     * Adds an item identifier to the filter.
+     *
+     * @param id the item identifier.
+     */
+    void add(int id) {
+        long hash = mix(id);
+        long h1 = hash >>> 32;
+        long h2 = (hash & 0xFFFFFFFFL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    /**
+     * Checks if an item identifier might have been added to the filter.
+     *
+     * @param id the item identifier.
+     * @return {@code false} if the identifier was definitely never added, {@code true} otherwise.
+     */
+    boolean mightContain(int id) {
+        long hash = mix(id);
+        long h1 = hash >>> 32;
+        long h2 = (hash & 0xFFFFFFFFL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the number of bits in the filter.
+     *
+     * @return the number of bits.
+     */
+    long bitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Retrieves the number of bits that are set for each identifier.
+     *
+     * @return the number of hash functions.
+     */
+    int hashCount() {
+        return hashCount;
+    }
+
+    private static long mix(int id) {
+        long z = id * SPLITMIX_GAMMA;
+        z = (z ^ (z >>> 30)) * SPLITMIX_MULTIPLIER_1;
+        z = (z ^ (z >>> 27)) * SPLITMIX_MULTIPLIER_2;
+        return z ^ (z >>> 31);
+    }
+}
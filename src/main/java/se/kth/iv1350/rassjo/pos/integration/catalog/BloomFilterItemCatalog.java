@@ -0,0 +1,228 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Rejects lookups of unknown items before they reach another, typically remote, catalog.
+ * <p>
+ * A {@link BloomFilter} of every item identifier in the backing catalog is kept in memory, and
+ * a lookup of an identifier that the filter has definitely never seen returns without calling
+ * the backing catalog. Misread or unknown barcodes therefore don't cost a round-trip. Since the
+ * filter has no false negatives, every item in the backing catalog is still found; only a small
+ * share of the unknown identifiers, about {@value #FALSE_POSITIVE_PERCENTAGE}%, are looked up.
+ * <p>
+ * Items added to the backing catalog must be announced with {@link #addItemId}, which updates the
+ * filter in place. After items are removed, {@link #rebuild} replaces the filter with a new one
+ * built from the current contents of the backing catalog, while lookups continue to use the old
+ * filter until the new one is ready. Identifiers announced while a new filter is built are
+ * remembered and added to it before it replaces the old one, so none of them is lost.
+ * <p>
+ * A {@link VersionedItemCatalog} announces its changes by publishing new versions instead. When
+ * the backing catalog is one, the filter remembers the version it was built from. Once a new
+ * version has been published, lookups skip the outdated filter and go straight to the backing
+ * catalog, so items of the new version are never rejected, while a new filter is built on a
+ * background thread.
+ * <p>
+ * The application's own catalogs are local, and looking up an unknown item in them is about as
+ * cheap as consulting the filter, so they aren't wrapped in this class. It is meant to be the
+ * outermost layer around a future remote backend, in front of a {@link CachingItemCatalog} and
+ * a {@link SingleFlightItemCatalog}.
+ */
+public class BloomFilterItemCatalog implements ItemCatalog {
+
+    private static final int FALSE_POSITIVE_PERCENTAGE = 1;
+    private static final double GROWTH_HEADROOM = 1.25;
+
+    private final ItemCatalog delegate;
+    private final VersionedItemCatalog versionedDelegate;
+    private final LongAdder rejectedLookups;
+    private final AtomicBoolean rebuilding;
+    private final ReentrantLock rebuildLock;
+    private final ReentrantLock additionLock;
+    private volatile VersionedFilter filter;
+    private List<ItemIdentifierDTO> idsAddedDuringRebuild;
+
+    /**
+     * Creates a new {@link BloomFilterItemCatalog} in front of the specified catalog, and builds
+     * the filter from the identifiers of all its items.
+     *
+     * @param delegate the {@link ItemCatalog} that lookups of possibly known items are forwarded to.
+     */
+    public BloomFilterItemCatalog(ItemCatalog delegate) {
+        this.delegate = delegate;
+        this.versionedDelegate = delegate instanceof VersionedItemCatalog versioned ? versioned : null;
+        this.rejectedLookups = new LongAdder();
+        this.rebuilding = new AtomicBoolean();
+        this.rebuildLock = new ReentrantLock();
+        this.additionLock = new ReentrantLock();
+        this.filter = buildFilter();
+    }
+
+    @Override
+    public ItemDTO findItem(ItemIdentifierDTO itemId) {
+        BloomFilter currentFilter = currentFilter();
+        if (currentFilter != null && !currentFilter.mightContain(itemId.id())) {
+            rejectedLookups.increment();
+            return null;
+        }
+        return delegate.findItem(itemId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the identifiers that might be known are forwarded to the backing catalog.
+     */
+    @Override
+    public Map<ItemIdentifierDTO, ItemDTO> findItems(Collection<ItemIdentifierDTO> itemIds) {
+        BloomFilter currentFilter = currentFilter();
+        if (currentFilter == null) {
+            return delegate.findItems(itemIds);
+        }
+        List<ItemIdentifierDTO> possiblyKnown = new ArrayList<>(itemIds.size());
+        for (ItemIdentifierDTO itemId : itemIds) {
+            if (currentFilter.mightContain(itemId.id())) {
+                possiblyKnown.add(itemId);
+            } else {
+                rejectedLookups.increment();
+            }
+        }
+        return possiblyKnown.isEmpty() ? Collections.emptyMap() : delegate.findItems(possiblyKnown);
+    }
+
+    @Override
+    public void forEachItemId(IntConsumer action) {
+        delegate.forEachItemId(action);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * Adds the identifier of an item that was added to the backing catalog to the filter, so
+     * that lookups of it are no longer rejected.
+     *
+     * @param itemId the identifier of the added item.
+     */
+    public void addItemId(ItemIdentifierDTO itemId) {
+        additionLock.lock();
+        try {
+            filter.bloomFilter().add(itemId.id());
+            if (idsAddedDuringRebuild != null) {
+                idsAddedDuringRebuild.add(itemId);
+            }
+        } finally {
+            additionLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the filter with one built from the current contents of the backing catalog. Should
+     * be called after items are removed from the backing catalog, or after many more items than
+     * it had at the last build have been added, as both increase the share of unknown
+     * identifiers that are looked up. A backing {@link VersionedItemCatalog} doesn't need it.
+     * Rebuilds are made one at a time.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            startRecordingAdditions();
+            VersionedFilter newFilter = null;
+            try {
+                newFilter = buildFilter();
+            } finally {
+                publish(newFilter);
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of lookups that were rejected without calling the backing catalog.
+     *
+     * @return the number of rejected lookups.
+     */
+    public long getRejectedLookupCount() {
+        return rejectedLookups.sum();
+    }
+
+    private BloomFilter currentFilter() {
+        VersionedFilter current = filter;
+        if (versionedDelegate == null || current.version() == versionedDelegate.getVersion()) {
+            return current.bloomFilter();
+        }
+        if (rebuilding.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("bloom-filter-builder").start(this::rebuildInBackground);
+        }
+        return null;
+    }
+
+    private void rebuildInBackground() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            FileLogger.getInstance().error("Couldn't rebuild the Bloom filter of the item catalog.", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void startRecordingAdditions() {
+        additionLock.lock();
+        try {
+            idsAddedDuringRebuild = new ArrayList<>();
+        } finally {
+            additionLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the identifiers announced since the rebuild started to the new filter and replaces the
+     * old filter with it. Only stops recording them if building the new filter failed.
+     */
+    private void publish(VersionedFilter newFilter) {
+        additionLock.lock();
+        try {
+            if (newFilter != null) {
+                for (ItemIdentifierDTO itemId : idsAddedDuringRebuild) {
+                    newFilter.bloomFilter().add(itemId.id());
+                }
+                filter = newFilter;
+            }
+            idsAddedDuringRebuild = null;
+        } finally {
+            additionLock.unlock();
+        }
+    }
+
+    private VersionedFilter buildFilter() {
+        long version = versionedDelegate == null ? 0 : versionedDelegate.getVersion();
+        BloomFilter newFilter = new BloomFilter((int) (delegate.size() * GROWTH_HEADROOM),
+                FALSE_POSITIVE_PERCENTAGE / 100.0);
+        delegate.forEachItemId(newFilter::add);
+        return new VersionedFilter(newFilter, version);
+    }
+
+    /**
+     * A filter and the version of the backing catalog it was built from. The version is read
+     * before the filter is built, so a filter that was built from a later version only looks
+     * outdated and is replaced, and is never used for a version it lacks items of.
+     */
+    private record VersionedFilter(BloomFilter bloomFilter, long version) {
+    }
+}
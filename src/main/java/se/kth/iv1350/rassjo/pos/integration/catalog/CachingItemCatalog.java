@@ -0,0 +1,269 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.CacheStatisticsDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through cache in front of another, typically remote, {@link ItemCatalog}.
+ * <p>
+ * The cache holds at most a configured number of items and evicts them using a segmented LRU
+ * policy: a newly loaded item enters a probation segment, and is promoted to a protected segment
+ * the second time it is looked up. Items that are scanned once therefore can't push out items
+ * that are scanned all the time. Every entry also has a time to live, after which it is reloaded
+ * so that price changes in the backing catalog are picked up.
+ * <p>
+ * The cache is split into shards with their own locks, so lookups from different lanes rarely
+ * wait for each other. The backing catalog is called without holding any lock. Items that the
+ * backing catalog doesn't contain aren't cached.
+ * <p>
+ * The application doesn't cache its own catalogs, which are held in memory or mapped from a
+ * file and answer faster than a cache could. This class is meant for a remote inventory system,
+ * like the one {@link SimulatedRemoteItemCatalog} stands in for, once one is connected.
+ */
+public class CachingItemCatalog implements ItemCatalog {
+
+    private static final int MAX_SHARDS = 16;
+    private static final int PROTECTED_PERCENTAGE = 80;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final ItemCatalog delegate;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoClock;
+    private final Shard[] shards;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LongAdder expirations;
+
+    /**
+     * Creates a new {@link CachingItemCatalog} in front of the specified catalog.
+     *
+     * @param delegate    the {@link ItemCatalog} that items are loaded from on a miss.
+     * @param maximumSize the maximum number of items kept in the cache.
+     * @param timeToLive  how long an item is kept before it is loaded again.
+     * @throws IllegalArgumentException if the maximum size or time to live isn't positive.
+     */
+    public CachingItemCatalog(ItemCatalog delegate, int maximumSize, Duration timeToLive) {
+        this(delegate, maximumSize, timeToLive, System::nanoTime);
+    }
+
+    /**
+     * Creates a new {@link CachingItemCatalog} in front of the specified catalog, reading the
+     * time from the specified clock.
+     *
+     * @param delegate    the {@link ItemCatalog} that items are loaded from on a miss.
+     * @param maximumSize the maximum number of items kept in the cache.
+     * @param timeToLive  how long an item is kept before it is loaded again.
+     * @param nanoClock   the source of the current time in nanoseconds.
+     * @throws IllegalArgumentException if the maximum size or time to live isn't positive.
+     */
+    CachingItemCatalog(ItemCatalog delegate, int maximumSize, Duration timeToLive, LongSupplier nanoClock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive, was " + maximumSize + ".");
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("The time to live must be positive, was " + timeToLive + ".");
+        }
+        this.delegate = delegate;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.expirations = new LongAdder();
+
+        int shardCount = Math.min(MAX_SHARDS, Integer.highestOneBit(maximumSize));
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int shardSize = maximumSize / shardCount + (i < maximumSize % shardCount ? 1 : 0);
+            shards[i] = new Shard(shardSize);
+        }
+    }
+
+    @Override
+    public ItemDTO findItem(ItemIdentifierDTO itemId) {
+        Shard shard = shardFor(itemId);
+        ItemDTO cached = shard.get(itemId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        ItemDTO loaded = delegate.findItem(itemId);
+        if (loaded != null) {
+            shard.put(itemId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The items that aren't cached are loaded from the backing catalog in a single batched lookup.
+     */
+    @Override
+    public Map<ItemIdentifierDTO, ItemDTO> findItems(Collection<ItemIdentifierDTO> itemIds) {
+        Map<ItemIdentifierDTO, ItemDTO> found = new HashMap<>();
+        List<ItemIdentifierDTO> missing = new ArrayList<>();
+        for (ItemIdentifierDTO itemId : itemIds) {
+            ItemDTO cached = shardFor(itemId).get(itemId);
+            if (cached != null) {
+                hits.increment();
+                found.put(itemId, cached);
+            } else {
+                misses.increment();
+                missing.add(itemId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<ItemIdentifierDTO, ItemDTO> loaded = delegate.findItems(missing);
+            for (Map.Entry<ItemIdentifierDTO, ItemDTO> entry : loaded.entrySet()) {
+                shardFor(entry.getKey()).put(entry.getKey(), entry.getValue());
+            }
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    @Override
+    public void forEachItemId(IntConsumer action) {
+        delegate.forEachItemId(action);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * Retrieves the statistics of the cache since it was created.
+     *
+     * @return a {@link CacheStatisticsDTO} with the current statistics.
+     */
+    public CacheStatisticsDTO getStatistics() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return new CacheStatisticsDTO(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size);
+    }
+
+    private Shard shardFor(ItemIdentifierDTO itemId) {
+        int h = itemId.id() * HASH_MULTIPLIER;
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    private record Entry(ItemDTO item, long expiresAt) {
+    }
+
+    /**
+     * One independently locked part of the cache, with its own probation and protected segments.
+     */
+    private final class Shard {
+
+        private final ReentrantLock lock;
+        private final int maximumSize;
+        private final int protectedCapacity;
+        private final LinkedHashMap<ItemIdentifierDTO, Entry> probation;
+        private final LinkedHashMap<ItemIdentifierDTO, Entry> protectedSegment;
+
+        private Shard(int maximumSize) {
+            this.lock = new ReentrantLock();
+            this.maximumSize = maximumSize;
+            this.protectedCapacity = Math.max(1, maximumSize * PROTECTED_PERCENTAGE / 100);
+            this.probation = new LinkedHashMap<>();
+            this.protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        private ItemDTO get(ItemIdentifierDTO itemId) {
+            long now = nanoClock.getAsLong();
+            lock.lock();
+            try {
+                Entry entry = protectedSegment.get(itemId);
+                if (entry != null) {
+                    if (isExpired(entry, now)) {
+                        protectedSegment.remove(itemId);
+                        expirations.increment();
+                        return null;
+                    }
+                    return entry.item();
+                }
+
+                entry = probation.remove(itemId);
+                if (entry == null) {
+                    return null;
+                }
+                if (isExpired(entry, now)) {
+                    expirations.increment();
+                    return null;
+                }
+                promote(itemId, entry);
+                return entry.item();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(ItemIdentifierDTO itemId, ItemDTO item) {
+            Entry entry = new Entry(item, nanoClock.getAsLong() + timeToLiveNanos);
+            lock.lock();
+            try {
+                if (protectedSegment.containsKey(itemId)) {
+                    protectedSegment.put(itemId, entry);
+                    return;
+                }
+                probation.remove(itemId);
+                probation.put(itemId, entry);
+                while (probation.size() + protectedSegment.size() > maximumSize) {
+                    evictEldest(probation.isEmpty() ? protectedSegment : probation);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return probation.size() + protectedSegment.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void promote(ItemIdentifierDTO itemId, Entry entry) {
+            protectedSegment.put(itemId, entry);
+            if (protectedSegment.size() > protectedCapacity) {
+                Iterator<Map.Entry<ItemIdentifierDTO, Entry>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<ItemIdentifierDTO, Entry> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+
+        private void evictEldest(LinkedHashMap<ItemIdentifierDTO, Entry> segment) {
+            Iterator<ItemIdentifierDTO> eldest = segment.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+
+        private boolean isExpired(Entry entry, long now) {
+            return now - entry.expiresAt() >= 0;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Parses the lines of a CSV price file. Every line has the columns
+ * {@code id,name,description,netPrice,vatRate}, where the net price is in SEK, e.g.
+ * {@code 10001,Milk 1L,"Fresh whole milk, 1 liter",19.95,12}. Fields containing commas or
+ * quotes are enclosed in double quotes, with quotes doubled.
+ */
+final class CsvItemFormat {
+
+    private static final int FIELD_COUNT = 5;
+
+    private CsvItemFormat() {
+    }
+
+    /**
+     * Parses a line of a CSV price file into the item it describes.
+     *
+     * @param line the line to parse.
+     * @return the {@link ItemDTO} described by the line.
+     * @throws IllegalArgumentException if the line is invalid.
+     */
+    static ItemDTO parseItem(String line) {
+        return parseItem(line, UnaryOperator.identity());
+    }
+
+    /**
+     * Parses a line of a CSV price file into the item it describes, passing the name and
+     * description through the specified function, e.g. to deduplicate them.
+     *
+     * @param line         the line to parse.
+     * @param textResolver the function applied to the name and description.
+     * @return the {@link ItemDTO} described by the line.
+     * @throws IllegalArgumentException if the line is invalid.
+     */
+    static ItemDTO parseItem(String line, UnaryOperator<String> textResolver) {
+        List<String> fields = splitLine(line);
+        if (fields.size() != FIELD_COUNT) {
+            throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but found " + fields.size() + ".");
+        }
+        return new ItemDTO(
+                new ItemIdentifierDTO(Integer.parseInt(fields.get(0).trim())),
+                textResolver.apply(fields.get(1)),
+                textResolver.apply(fields.get(2)),
+                new AmountDTO(fields.get(3).trim()),
+                new PercentageDTO(Integer.parseInt(fields.get(4).trim())));
+    }
+
+    /**
+     * Splits a line of a CSV file into its fields. Fields may be enclosed in double quotes, in
+     * which case they may contain commas and doubled quotes.
+     *
+     * @param line the line to split.
+     * @return the fields of the line.
+     * @throws IllegalArgumentException if a quoted field isn't terminated.
+     */
+    static List<String> splitLine(String line) {
+        List<String> fields = new ArrayList<>(FIELD_COUNT);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,57 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * An {@link ItemCatalog} that keeps all items in a map on the heap. Suitable for small
+ * catalogs, e.g. in tests and demonstrations.
+ */
+public class InMemoryItemCatalog implements ItemCatalog {
+
+    private final Map<ItemIdentifierDTO, ItemDTO> items;
+
+    /**
+     * Creates a new {@link InMemoryItemCatalog} containing the specified items.
+     *
+     * @param items the items of the catalog.
+     */
+    public InMemoryItemCatalog(Collection<ItemDTO> items) {
+        this.items = HashMap.newHashMap(items.size());
+        for (ItemDTO item : items) {
+            this.items.put(item.itemId(), item);
+        }
+    }
+
+    /**
+     * Creates a new {@link InMemoryItemCatalog} that uses the specified map, without copying it.
+     * The map must not be changed afterwards.
+     *
+     * @param items a map from each item identifier to the item.
+     */
+    InMemoryItemCatalog(Map<ItemIdentifierDTO, ItemDTO> items) {
+        this.items = items;
+    }
+
+    @Override
+    public ItemDTO findItem(ItemIdentifierDTO itemId) {
+        return items.get(itemId);
+    }
+
+    @Override
+    public void forEachItemId(IntConsumer action) {
+        for (ItemIdentifierDTO itemId : items.keySet()) {
+            action.accept(itemId.id());
+        }
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+}
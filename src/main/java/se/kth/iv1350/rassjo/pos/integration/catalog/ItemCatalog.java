@@ -0,0 +1,61 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * A read-only catalog of the items sold in the store, keyed by item identifier.
+ * <p>
+ * Implementations must be safe to use from many lanes at once.
+ */
+public interface ItemCatalog {
+
+    /**
+     * Looks up the item with the specified identifier.
+     *
+     * @param itemId the identifier of the item.
+     * @return the {@link ItemDTO} of the item, or {@code null} if the catalog doesn't contain it.
+     */
+    ItemDTO findItem(ItemIdentifierDTO itemId);
+
+    /**
+     * Looks up several items at once. Identifiers that the catalog doesn't contain are left out
+     * of the result.
+     * <p>
+     * The default implementation looks up the items one by one. Catalogs where each lookup is
+     * expensive, e.g. remote ones, should override it with a real batched lookup.
+     *
+     * @param itemIds the identifiers of the items.
+     * @return a map from each found {@link ItemIdentifierDTO} to the {@link ItemDTO} of the item.
+     */
+    default Map<ItemIdentifierDTO, ItemDTO> findItems(Collection<ItemIdentifierDTO> itemIds) {
+        Map<ItemIdentifierDTO, ItemDTO> found = new HashMap<>();
+        for (ItemIdentifierDTO itemId : itemIds) {
+            ItemDTO item = findItem(itemId);
+            if (item != null) {
+                found.put(itemId, item);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Performs the specified action for the identifier of every item in the catalog, e.g. to
+     * build an index of the catalog.
+     *
+     * @param action the action to perform for each item identifier.
+     */
+    void forEachItemId(IntConsumer action);
+
+    /**
+     * Retrieves the number of items in the catalog.
+     *
+     * @return the number of items.
+     */
+    int size();
+}
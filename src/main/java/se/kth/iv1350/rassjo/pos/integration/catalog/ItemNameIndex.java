@@ -0,0 +1,559 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An index over the item names of a catalog, used to find items by name when they can't be
+ * scanned, e.g. loose produce or items with damaged barcodes.
+ * <p>
+ * The index holds the distinct words of all names in sorted order, and for every word the items
+ * whose names contain it. Every word of a query must match a word of the name, either exactly,
+ * as the beginning of the word if it is the last word of the query, or, if the word doesn't
+ * occur in any name, with up to one misspelled letter (two for long words). Misspellings are
+ * found through a trigram index over the distinct words, which is much smaller than one over all
+ * names. Matches are ranked by how well the words match and then by how few other words the
+ * name has.
+ * <p>
+ * Items are numbered in order of the number of words in their names, and every item list is
+ * sorted by that number. A search walks the list of its rarest query word and stops as soon as
+ * none of the remaining items can beat the matches found so far, which keeps searches fast even
+ * for catalogs with millions of items. All lists are stored in flat int arrays.
+ * <p>
+ * Instances are immutable and can be used from many threads at once.
+ */
+public final class ItemNameIndex {
+
+    private static final int NO_MATCH = 0;
+    private static final int FUZZY = 1;
+    private static final int PREFIX = 2;
+    private static final int EXACT = 3;
+    private static final int QUALITY_WEIGHT = 256;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_EDITS_LENGTH = 8;
+    private static final int TRIGRAMS_PER_EDIT = 3;
+    private static final int CHAR_BITS = 10;
+    private static final int CHAR_MASK = (1 << CHAR_BITS) - 1;
+    private static final char WORD_BOUNDARY = ' ';
+    private static final char MAX_CHAR = Character.MAX_VALUE;
+
+    private final ItemCatalog catalog;
+    private final String[] words;
+    private final int[] postingOffsets;
+    private final int[] postings;
+    private final int[] itemIds;
+    private final int[] itemWordOffsets;
+    private final int[] itemWords;
+    private final int[] trigrams;
+    private final int[] trigramOffsets;
+    private final int[] trigramWords;
+
+    private ItemNameIndex(ItemCatalog catalog, String[] words, int[] postingOffsets, int[] postings,
+                          int[] itemIds, int[] itemWordOffsets, int[] itemWords,
+                          int[] trigrams, int[] trigramOffsets, int[] trigramWords) {
+        this.catalog = catalog;
+        this.words = words;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+        this.itemIds = itemIds;
+        this.itemWordOffsets = itemWordOffsets;
+        this.itemWords = itemWords;
+        this.trigrams = trigrams;
+        this.trigramOffsets = trigramOffsets;
+        this.trigramWords = trigramWords;
+    }
+
+    /**
+     * Builds an index over the names of all items in the specified catalog. The found items are
+     * read from the same catalog when searching.
+     *
+     * @param catalog the {@link ItemCatalog} to index.
+     * @return the built {@link ItemNameIndex}.
+     */
+    public static ItemNameIndex build(ItemCatalog catalog) {
+        int itemCount = catalog.size();
+        int[] catalogIds = new int[itemCount];
+        int[][] wordsPerItem = new int[itemCount][];
+        Map<String, Integer> wordNumbers = new HashMap<>();
+        List<String> wordList = new ArrayList<>();
+        int[] nextItem = new int[1];
+
+        catalog.forEachItemId(id -> {
+            int item = nextItem[0]++;
+            catalogIds[item] = id;
+            List<String> nameWords = splitWords(catalog.findItem(new ItemIdentifierDTO(id)).name());
+            int[] numbers = new int[nameWords.size()];
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = wordNumbers.computeIfAbsent(nameWords.get(i), word -> {
+                    wordList.add(word);
+                    return wordList.size() - 1;
+                });
+            }
+            wordsPerItem[item] = numbers;
+        });
+
+        String[] sortedWords = wordList.toArray(new String[0]);
+        Arrays.parallelSort(sortedWords);
+        int[] wordRanks = new int[sortedWords.length];
+        for (int i = 0; i < sortedWords.length; i++) {
+            wordRanks[wordNumbers.get(sortedWords[i])] = i;
+        }
+        for (int[] numbers : wordsPerItem) {
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = wordRanks[numbers[i]];
+            }
+            Arrays.sort(numbers);
+        }
+
+        int[] itemOrder = orderByWordCount(wordsPerItem);
+        int[] itemIds = new int[itemCount];
+        int[] itemWordOffsets = new int[itemCount + 1];
+        int[] postingCounts = new int[sortedWords.length];
+        List<int[]> orderedWords = new ArrayList<>(itemCount);
+        for (int item = 0; item < itemCount; item++) {
+            int[] numbers = distinct(wordsPerItem[itemOrder[item]]);
+            itemIds[item] = catalogIds[itemOrder[item]];
+            itemWordOffsets[item + 1] = itemWordOffsets[item] + numbers.length;
+            orderedWords.add(numbers);
+            for (int word : numbers) {
+                postingCounts[word]++;
+            }
+        }
+
+        int[] itemWords = new int[itemWordOffsets[itemCount]];
+        int[] postingOffsets = new int[sortedWords.length + 1];
+        for (int word = 0; word < sortedWords.length; word++) {
+            postingOffsets[word + 1] = postingOffsets[word] + postingCounts[word];
+        }
+        int[] postings = new int[postingOffsets[sortedWords.length]];
+        int[] postingEnds = Arrays.copyOf(postingOffsets, sortedWords.length);
+        for (int item = 0; item < itemCount; item++) {
+            int[] numbers = orderedWords.get(item);
+            System.arraycopy(numbers, 0, itemWords, itemWordOffsets[item], numbers.length);
+            for (int word : numbers) {
+                postings[postingEnds[word]++] = item;
+            }
+        }
+
+        long[] pairs = new long[Math.max(16, sortedWords.length * 4)];
+        int pairCount = 0;
+        for (int word = 0; word < sortedWords.length; word++) {
+            if (!isFuzzyCandidate(sortedWords[word])) {
+                continue;
+            }
+            for (int trigram : wordTrigrams(sortedWords[word])) {
+                if (pairCount == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[pairCount++] = (long) trigram << Integer.SIZE | word;
+            }
+        }
+        Arrays.parallelSort(pairs, 0, pairCount);
+        int distinctTrigrams = 0;
+        for (int i = 0; i < pairCount; i++) {
+            if (i == 0 || (pairs[i] >>> Integer.SIZE) != (pairs[i - 1] >>> Integer.SIZE)) {
+                distinctTrigrams++;
+            }
+        }
+        int[] trigrams = new int[distinctTrigrams];
+        int[] trigramOffsets = new int[distinctTrigrams + 1];
+        int[] trigramWords = new int[pairCount];
+        int trigram = -1;
+        for (int i = 0; i < pairCount; i++) {
+            if (i == 0 || (pairs[i] >>> Integer.SIZE) != (pairs[i - 1] >>> Integer.SIZE)) {
+                trigram++;
+                trigrams[trigram] = (int) (pairs[i] >>> Integer.SIZE);
+                trigramOffsets[trigram] = i;
+            }
+            trigramWords[i] = (int) pairs[i];
+        }
+        trigramOffsets[distinctTrigrams] = pairCount;
+
+        return new ItemNameIndex(catalog, sortedWords, postingOffsets, postings, itemIds, itemWordOffsets, itemWords,
+                trigrams, trigramOffsets, trigramWords);
+    }
+
+    /**
+     * Searches for the items whose names best match the specified query. Letter case and
+     * punctuation are ignored, the last word of the query may be the beginning of a word, and
+     * words that don't occur in any name may be misspelled.
+     *
+     * @param query      the name, or part of the name, to search for.
+     * @param maxResults the maximum number of items to return.
+     * @return the best matching items, the best match first. Empty if some word of the query
+     *         doesn't match any name.
+     */
+    public List<ItemDTO> search(String query, int maxResults) {
+        List<String> queryWords = splitWords(query);
+        if (queryWords.isEmpty() || maxResults <= 0) {
+            return List.of();
+        }
+        boolean lastWordIsPrefix = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        WordMatch[] wordMatches = new WordMatch[queryWords.size()];
+        WordMatch rarest = null;
+        int maxQualitySum = 0;
+        for (int i = 0; i < wordMatches.length; i++) {
+            wordMatches[i] = matchWord(queryWords.get(i), lastWordIsPrefix && i == wordMatches.length - 1);
+            if (wordMatches[i] == null) {
+                return List.of();
+            }
+            maxQualitySum += wordMatches[i].maxQuality;
+            if (rarest == null || wordMatches[i].itemCount < rarest.itemCount) {
+                rarest = wordMatches[i];
+            }
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(maxResults + 1,
+                Comparator.comparingInt(Match::score).thenComparing(Comparator.comparingInt(Match::itemIndex).reversed()));
+        if (rarest.similarWords() == null && rarest.exact() >= 0 && !rarest.isSingleWord()) {
+            // The exact word ranks above the longer words starting with it, so its items are
+            // collected first, which lets the walk over the longer words stop earlier.
+            int exact = rarest.exact();
+            WordMatch exactWord = new WordMatch(exact, exact + 1, exact, null, EXACT,
+                    postingOffsets[exact + 1] - postingOffsets[exact]);
+            WordMatch longerWords = new WordMatch(exact + 1, rarest.end(), -1, null, PREFIX,
+                    postingOffsets[rarest.end()] - postingOffsets[exact + 1]);
+            collect(exactWord, wordMatches, maxQualitySum, maxResults, best, -1);
+            collect(longerWords, wordMatches, maxQualitySum - (EXACT - PREFIX), maxResults, best, exact);
+        } else {
+            collect(rarest, wordMatches, maxQualitySum, maxResults, best, -1);
+        }
+
+        Match[] ranked = best.toArray(new Match[0]);
+        Arrays.sort(ranked, Comparator.comparingInt(Match::score).reversed().thenComparingInt(Match::itemIndex));
+        List<ItemDTO> results = new ArrayList<>(ranked.length);
+        for (Match match : ranked) {
+            ItemDTO item = catalog.findItem(new ItemIdentifierDTO(itemIds[match.itemIndex()]));
+            if (item != null) {
+                results.add(item);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Retrieves the number of items in the index.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return itemIds.length;
+    }
+
+    /**
+     * Walks the items of the words matched by one query word, in ascending order, and adds the
+     * items matching all query words to the best matches. Stops when no remaining item can beat
+     * the best matches.
+     *
+     * @param driver        the words whose items are walked.
+     * @param wordMatches   the words matched by every query word.
+     * @param maxQualitySum the highest sum of match qualities any of the walked items can have.
+     * @param maxResults    the maximum number of best matches to keep.
+     * @param best          the best matches so far, the worst first.
+     * @param skippedWord   a word whose items have already been walked, or -1 if there is none.
+     */
+    private void collect(WordMatch driver, WordMatch[] wordMatches, int maxQualitySum, int maxResults,
+                         PriorityQueue<Match> best, int skippedWord) {
+        int[] candidates = candidateItems(driver);
+        int from = driver.isSingleWord() ? postingOffsets[driver.start()] : 0;
+        int to = driver.isSingleWord() ? postingOffsets[driver.start() + 1] : candidates.length;
+        int previousItem = -1;
+        for (int i = from; i < to; i++) {
+            int item = candidates[i];
+            if (item == previousItem || (skippedWord >= 0 && containsWord(item, skippedWord))) {
+                continue;
+            }
+            previousItem = item;
+            int wordCount = itemWordOffsets[item + 1] - itemWordOffsets[item];
+            if (best.size() == maxResults && score(maxQualitySum, wordCount, wordMatches.length) <= best.peek().score()) {
+                return;
+            }
+            int qualitySum = 0;
+            for (WordMatch wordMatch : wordMatches) {
+                int quality = bestQuality(wordMatch, item);
+                if (quality == NO_MATCH) {
+                    qualitySum = NO_MATCH;
+                    break;
+                }
+                qualitySum += quality;
+            }
+            if (qualitySum == NO_MATCH) {
+                continue;
+            }
+            int score = score(qualitySum, wordCount, wordMatches.length);
+            if (best.size() < maxResults || score > best.peek().score()) {
+                best.add(new Match(item, score));
+                if (best.size() > maxResults) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    private boolean containsWord(int item, int word) {
+        return Arrays.binarySearch(itemWords, itemWordOffsets[item], itemWordOffsets[item + 1], word) >= 0;
+    }
+
+    /**
+     * Retrieves the items of all words that a query word matches, in ascending order. A single
+     * word's list is used as it is, since it is already sorted; otherwise the lists are copied
+     * into one array and sorted.
+     */
+    private int[] candidateItems(WordMatch wordMatch) {
+        if (wordMatch.isSingleWord()) {
+            return postings;
+        }
+        int[] items;
+        if (wordMatch.similarWords() == null) {
+            items = Arrays.copyOfRange(postings, postingOffsets[wordMatch.start()], postingOffsets[wordMatch.end()]);
+        } else {
+            items = new int[(int) wordMatch.itemCount()];
+            int count = 0;
+            for (int word : wordMatch.similarWords()) {
+                int length = postingOffsets[word + 1] - postingOffsets[word];
+                System.arraycopy(postings, postingOffsets[word], items, count, length);
+                count += length;
+            }
+        }
+        Arrays.sort(items);
+        return items;
+    }
+
+    private WordMatch matchWord(String word, boolean prefix) {
+        int exact = Arrays.binarySearch(words, word);
+        if (prefix) {
+            int start = exact >= 0 ? exact : -exact - 1;
+            int end = -Arrays.binarySearch(words, word + MAX_CHAR) - 1;
+            if (end > start) {
+                return new WordMatch(start, end, exact, null, exact >= 0 ? EXACT : PREFIX,
+                        postingOffsets[end] - postingOffsets[start]);
+            }
+        } else if (exact >= 0) {
+            return new WordMatch(exact, exact + 1, exact, null, EXACT, postingOffsets[exact + 1] - postingOffsets[exact]);
+        }
+        if (!isFuzzyCandidate(word)) {
+            return null;
+        }
+        int[] similarWords = findSimilarWords(word);
+        if (similarWords.length == 0) {
+            return null;
+        }
+        if (similarWords.length == 1) {
+            int similarWord = similarWords[0];
+            return new WordMatch(similarWord, similarWord + 1, -1, null, FUZZY,
+                    postingOffsets[similarWord + 1] - postingOffsets[similarWord]);
+        }
+        long itemCount = 0;
+        for (int similarWord : similarWords) {
+            itemCount += postingOffsets[similarWord + 1] - postingOffsets[similarWord];
+        }
+        return new WordMatch(0, 0, -1, similarWords, FUZZY, itemCount);
+    }
+
+    private int[] findSimilarWords(String word) {
+        int maxEdits = word.length() >= TWO_EDITS_LENGTH ? 2 : 1;
+        List<int[]> lists = new ArrayList<>();
+        int[] queryTrigrams = wordTrigrams(word);
+        for (int queryTrigram : queryTrigrams) {
+            int position = Arrays.binarySearch(trigrams, queryTrigram);
+            if (position >= 0) {
+                lists.add(new int[]{trigramOffsets[position], trigramOffsets[position + 1]});
+            }
+        }
+        lists.sort(Comparator.comparingInt(list -> list[1] - list[0]));
+
+        // Every edit changes at most three trigrams, so a similar word shares all but that many
+        // of the query's trigrams and must be found in one of the rarest lists.
+        int minShared = Math.max(1, queryTrigrams.length - TRIGRAMS_PER_EDIT * maxEdits);
+        int candidateLists = Math.min(lists.size(), queryTrigrams.length - minShared + 1);
+        int[] similar = new int[0];
+        int similarCount = 0;
+        for (int listNumber = 0; listNumber < candidateLists; listNumber++) {
+            int[] list = lists.get(listNumber);
+            for (int i = list[0]; i < list[1]; i++) {
+                int candidate = trigramWords[i];
+                if (!isInEarlierList(lists, listNumber, candidate)
+                        && Math.abs(words[candidate].length() - word.length()) <= maxEdits
+                        && editDistance(word, words[candidate], maxEdits) <= maxEdits) {
+                    if (similarCount == similar.length) {
+                        similar = Arrays.copyOf(similar, Math.max(4, similarCount * 2));
+                    }
+                    similar[similarCount++] = candidate;
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(similar, similarCount);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private boolean isInEarlierList(List<int[]> lists, int listNumber, int word) {
+        for (int earlier = 0; earlier < listNumber; earlier++) {
+            int[] list = lists.get(earlier);
+            if (Arrays.binarySearch(trigramWords, list[0], list[1], word) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int bestQuality(WordMatch wordMatch, int item) {
+        int best = NO_MATCH;
+        for (int i = itemWordOffsets[item]; i < itemWordOffsets[item + 1]; i++) {
+            best = Math.max(best, wordMatch.quality(itemWords[i]));
+        }
+        return best;
+    }
+
+    private static int score(int qualitySum, int wordCount, int queryWordCount) {
+        int otherWords = Math.min(QUALITY_WEIGHT - 1, Math.max(0, wordCount - queryWordCount));
+        return qualitySum * QUALITY_WEIGHT - otherWords;
+    }
+
+    /**
+     * Splits a text into lower case words of letters and digits.
+     *
+     * @param text the text to split.
+     * @return the words, in the order they appear.
+     */
+    static List<String> splitWords(String text) {
+        String normalized = text.toLowerCase(Locale.ROOT);
+        List<String> found = new ArrayList<>();
+        int wordStart = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean inWord = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (inWord && wordStart < 0) {
+                wordStart = i;
+            } else if (!inWord && wordStart >= 0) {
+                found.add(normalized.substring(wordStart, i));
+                wordStart = -1;
+            }
+        }
+        return found;
+    }
+
+    private static boolean isFuzzyCandidate(String word) {
+        if (word.length() < MIN_FUZZY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isLetter(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] wordTrigrams(String word) {
+        String padded = WORD_BOUNDARY + word + WORD_BOUNDARY;
+        int[] found = new int[padded.length() - 2];
+        for (int i = 0; i < found.length; i++) {
+            found[i] = (padded.charAt(i) & CHAR_MASK) << (2 * CHAR_BITS)
+                    | (padded.charAt(i + 1) & CHAR_MASK) << CHAR_BITS
+                    | (padded.charAt(i + 2) & CHAR_MASK);
+        }
+        Arrays.sort(found);
+        return distinct(found);
+    }
+
+    /**
+     * Computes the edit distance between two words, counting insertions, deletions,
+     * substitutions and swaps of adjacent letters, up to a limit.
+     *
+     * @param first    the first word.
+     * @param second   the second word.
+     * @param maxEdits the limit, above which the exact distance doesn't matter.
+     * @return the edit distance, or a value above the limit if it is exceeded.
+     */
+    static int editDistance(String first, String second, int maxEdits) {
+        int[] twoRowsUp = new int[second.length() + 1];
+        int[] previousRow = new int[second.length() + 1];
+        int[] currentRow = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previousRow[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            currentRow[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(previousRow[j] + 1, currentRow[j - 1] + 1), previousRow[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2) && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    distance = Math.min(distance, twoRowsUp[j - 2] + 1);
+                }
+                currentRow[j] = distance;
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+            if (rowMinimum > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] oldest = twoRowsUp;
+            twoRowsUp = previousRow;
+            previousRow = currentRow;
+            currentRow = oldest;
+        }
+        return previousRow[second.length()];
+    }
+
+    private static int[] orderByWordCount(int[][] wordsPerItem) {
+        int maxWords = 0;
+        for (int[] numbers : wordsPerItem) {
+            maxWords = Math.max(maxWords, numbers.length);
+        }
+        int[] starts = new int[maxWords + 2];
+        for (int[] numbers : wordsPerItem) {
+            starts[numbers.length + 1]++;
+        }
+        for (int count = 1; count < starts.length; count++) {
+            starts[count] += starts[count - 1];
+        }
+        int[] order = new int[wordsPerItem.length];
+        for (int item = 0; item < wordsPerItem.length; item++) {
+            order[starts[wordsPerItem[item].length]++] = item;
+        }
+        return order;
+    }
+
+    private static int[] distinct(int[] sorted) {
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * The words of the index that one query word matches, either a range of words sharing a
+     * prefix or a sorted array of misspelled words.
+     */
+    private record WordMatch(int start, int end, int exact, int[] similarWords, int maxQuality, long itemCount) {
+
+        private boolean isSingleWord() {
+            return similarWords == null && end - start == 1;
+        }
+
+        private int quality(int word) {
+            if (similarWords != null) {
+                return Arrays.binarySearch(similarWords, word) >= 0 ? FUZZY : NO_MATCH;
+            }
+            if (word == exact) {
+                return EXACT;
+            }
+            return word >= start && word < end ? Math.min(maxQuality, PREFIX) : NO_MATCH;
+        }
+    }
+
+    private record Match(int itemIndex, int score) {
+    }
+}
@@ -0,0 +1,198 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemPriceDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * An {@link ItemCatalog} backed by a catalog file that is memory-mapped instead of read into
+ * the heap. Opening a catalog only maps the file and validates its header, so it takes the same
+ * time regardless of the number of items, and the operating system pages in the parts of the
+ * file that are actually used.
+ * <p>
+ * The file consists of three regions:
+ * <ul>
+ *     <li>A header of {@value #HEADER_SIZE} bytes with the format version, the number of records
+ *     and the number of index slots.</li>
+ *     <li>The records, {@value #RECORD_SIZE} bytes each, in the order they were written.</li>
+ *     <li>An open-addressing hash index with linear probing, where each slot of
+ *     {@value #INDEX_SLOT_SIZE} bytes holds an item identifier and the position of its record
+ *     plus one, with zero marking an empty slot.</li>
+ * </ul>
+ * A lookup therefore reads one or a few index slots and a single record. Every record holds
+ * both the net and the gross price in öre, computed when the file is built, so a lookup does no
+ * VAT arithmetic.
+ * Catalog files are created by {@link MappedItemCatalogBuilder}.
+ * <p>
+ * Instances are immutable and can be used from many threads at once, since all reads use
+ * absolute positions and never change the state of the mapped buffers.
+ */
+public class MappedItemCatalog implements ItemCatalog {
+
+    static final int MAGIC = 0x504F5343;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 256;
+    static final int INDEX_SLOT_SIZE = 8;
+    static final int MAX_NAME_BYTES = 64;
+    static final int MAX_DESCRIPTION_BYTES = 164;
+
+    static final int ID_OFFSET = 0;
+    static final int VAT_RATE_OFFSET = 4;
+    static final int NET_PRICE_OFFSET = 8;
+    static final int GROSS_PRICE_OFFSET = 16;
+    static final int NAME_LENGTH_OFFSET = 24;
+    static final int DESCRIPTION_LENGTH_OFFSET = 26;
+    static final int NAME_OFFSET = 28;
+    static final int DESCRIPTION_OFFSET = NAME_OFFSET + MAX_NAME_BYTES;
+
+    static final int MAGIC_POSITION = 0;
+    static final int VERSION_POSITION = 4;
+    static final int RECORD_COUNT_POSITION = 8;
+    static final int SLOT_COUNT_POSITION = 12;
+
+    private static final int EMPTY_SLOT = 0;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int CHUNK_SHIFT = 22;
+    private static final int RECORDS_PER_CHUNK = 1 << CHUNK_SHIFT;
+    private static final int PRICE_DECIMALS = 2;
+
+    private final int recordCount;
+    private final int slotMask;
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer[] recordChunks;
+
+    private MappedItemCatalog(int recordCount, int slotCount, MappedByteBuffer index, MappedByteBuffer[] recordChunks) {
+        this.recordCount = recordCount;
+        this.slotMask = slotCount - 1;
+        this.index = index;
+        this.recordChunks = recordChunks;
+    }
+
+    /**
+     * Opens the catalog stored in the specified file.
+     *
+     * @param catalogFile the path of the catalog file.
+     * @return the opened {@link MappedItemCatalog}.
+     * @throws IOException if the file can't be read or isn't a valid catalog file.
+     */
+    public static MappedItemCatalog open(Path catalogFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(MAGIC_POSITION) != MAGIC) {
+                throw new IOException(catalogFile + " is not an item catalog file.");
+            }
+            if (header.getInt(VERSION_POSITION) != VERSION) {
+                throw new IOException(catalogFile + " has unsupported catalog version " + header.getInt(VERSION_POSITION) + ".");
+            }
+            int recordCount = header.getInt(RECORD_COUNT_POSITION);
+            int slotCount = header.getInt(SLOT_COUNT_POSITION);
+            long indexPosition = indexPosition(recordCount);
+            long indexSize = (long) slotCount * INDEX_SLOT_SIZE;
+            if (channel.size() != indexPosition + indexSize || Integer.bitCount(slotCount) != 1) {
+                throw new IOException(catalogFile + " is truncated or corrupt.");
+            }
+
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexPosition, indexSize);
+            MappedByteBuffer[] recordChunks = new MappedByteBuffer[(recordCount + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK];
+            for (int chunk = 0; chunk < recordChunks.length; chunk++) {
+                int recordsInChunk = Math.min(RECORDS_PER_CHUNK, recordCount - chunk * RECORDS_PER_CHUNK);
+                long chunkPosition = HEADER_SIZE + (long) chunk * RECORDS_PER_CHUNK * RECORD_SIZE;
+                recordChunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, chunkPosition, (long) recordsInChunk * RECORD_SIZE);
+            }
+            return new MappedItemCatalog(recordCount, slotCount, index, recordChunks);
+        }
+    }
+
+    @Override
+    public ItemDTO findItem(ItemIdentifierDTO itemId) {
+        int id = itemId.id();
+        for (int slot = hash(id) & slotMask; ; slot = (slot + 1) & slotMask) {
+            int position = slot * INDEX_SLOT_SIZE;
+            int recordReference = index.getInt(position + 4);
+            if (recordReference == EMPTY_SLOT) {
+                return null;
+            }
+            if (index.getInt(position) == id) {
+                return readRecord(recordReference - 1);
+            }
+        }
+    }
+
+    @Override
+    public void forEachItemId(IntConsumer action) {
+        for (int record = 0; record < recordCount; record++) {
+            ByteBuffer chunk = recordChunks[record >>> CHUNK_SHIFT];
+            action.accept(chunk.getInt((record & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE + ID_OFFSET));
+        }
+    }
+
+    @Override
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Retrieves the position in the file where the index starts, given the number of records.
+     *
+     * @param recordCount the number of records in the file.
+     * @return the position of the index.
+     */
+    static long indexPosition(int recordCount) {
+        return HEADER_SIZE + (long) recordCount * RECORD_SIZE;
+    }
+
+    /**
+     * Computes the hash of an item identifier, used to find its slot in the index.
+     *
+     * @param id the item identifier.
+     * @return the hash of the identifier.
+     */
+    static int hash(int id) {
+        int h = id * HASH_MULTIPLIER;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Formats a price in öre as a decimal number of SEK, e.g. 1995 as "19.95".
+     *
+     * @param minorUnits the price in öre.
+     * @return the price in plain decimal notation.
+     */
+    static String formatPrice(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, PRICE_DECIMALS).toPlainString();
+    }
+
+    private ItemDTO readRecord(int recordIndex) {
+        ByteBuffer chunk = recordChunks[recordIndex >>> CHUNK_SHIFT];
+        int position = (recordIndex & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE;
+
+        int id = chunk.getInt(position + ID_OFFSET);
+        int vatRate = chunk.getInt(position + VAT_RATE_OFFSET);
+        long netPrice = chunk.getLong(position + NET_PRICE_OFFSET);
+        long grossPrice = chunk.getLong(position + GROSS_PRICE_OFFSET);
+        String name = readString(chunk, position + NAME_OFFSET, chunk.getShort(position + NAME_LENGTH_OFFSET));
+        String description = readString(chunk, position + DESCRIPTION_OFFSET, chunk.getShort(position + DESCRIPTION_LENGTH_OFFSET));
+
+        return new ItemDTO(new ItemIdentifierDTO(id), name, description, new AmountDTO(formatPrice(netPrice)),
+                new PercentageDTO(vatRate), new ItemPriceDTO(netPrice, grossPrice, grossPrice - netPrice));
+    }
+
+    private static String readString(ByteBuffer chunk, int position, int length) {
+        byte[] bytes = new byte[length];
+        chunk.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,223 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemPriceDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static se.kth.iv1350.rassjo.pos.integration.catalog.MappedItemCatalog.*;
+
+/**
+ * Writes catalog files that can be opened by {@link MappedItemCatalog}.
+ * <p>
+ * Records are streamed to a temporary file as they are added, and only the item identifiers
+ * are kept in memory until the index is written by {@link #build()}. The temporary file then
+ * atomically replaces the target file, so a catalog file is never seen half-written.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+public class MappedItemCatalogBuilder {
+
+    private static final int RECORDS_PER_WRITE = 256;
+    private static final int MAX_SLOT_COUNT = 1 << 27;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path catalogFile;
+    private final Path temporaryFile;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer;
+    private int[] ids;
+    private int recordCount;
+
+    /**
+     * Creates a new {@link MappedItemCatalogBuilder} that writes a catalog to the specified file.
+     *
+     * @param catalogFile the path of the catalog file to create or replace.
+     * @throws IOException if the temporary file can't be created.
+     */
+    public MappedItemCatalogBuilder(Path catalogFile) throws IOException {
+        this.catalogFile = catalogFile;
+        this.temporaryFile = catalogFile.resolveSibling(catalogFile.getFileName() + TEMPORARY_SUFFIX);
+        this.channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.writeBuffer = ByteBuffer.allocate(RECORDS_PER_WRITE * RECORD_SIZE);
+        this.ids = new int[1024];
+        this.recordCount = 0;
+        channel.position(HEADER_SIZE);
+    }
+
+    /**
+     * Converts a CSV price file into a catalog file. The first line of the CSV file is a header
+     * and is skipped; the format of the other lines is described in {@link CsvItemFormat}.
+     *
+     * @param csvFile     the path of the CSV file to read.
+     * @param catalogFile the path of the catalog file to create or replace.
+     * @return the number of items written to the catalog.
+     * @throws IOException if a file can't be read or written, or if a line of the CSV file is invalid.
+     */
+    public static int convertCsv(Path csvFile, Path catalogFile) throws IOException {
+        MappedItemCatalogBuilder builder = new MappedItemCatalogBuilder(catalogFile);
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            int lineNumber = 1;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    builder.addItem(CsvItemFormat.parseItem(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid item on line " + lineNumber + " of " + csvFile + ": " + e.getMessage(), e);
+                }
+            }
+            try {
+                return builder.build();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid catalog in " + csvFile + ": " + e.getMessage(), e);
+            }
+        } catch (IOException | RuntimeException e) {
+            builder.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds an item to the catalog.
+     *
+     * @param item the {@link ItemDTO} of the item to add.
+     * @throws IOException if the record can't be written.
+     * @throws IllegalArgumentException if the item's name or description is too long, or its price is invalid.
+     */
+    public void addItem(ItemDTO item) throws IOException {
+        byte[] name = item.name().getBytes(StandardCharsets.UTF_8);
+        byte[] description = item.description().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("The name of item " + item.itemId() + " is longer than " + MAX_NAME_BYTES + " bytes.");
+        }
+        if (description.length > MAX_DESCRIPTION_BYTES) {
+            throw new IllegalArgumentException("The description of item " + item.itemId() + " is longer than " + MAX_DESCRIPTION_BYTES + " bytes.");
+        }
+        long netPrice = parsePrice(item.baseNetPrice().amount());
+        long grossPrice = grossPrice(item, netPrice);
+
+        if (!writeBuffer.hasRemaining()) {
+            flush();
+        }
+        int position = writeBuffer.position();
+        writeBuffer.putInt(position + ID_OFFSET, item.itemId().id())
+                .putInt(position + VAT_RATE_OFFSET, item.vatRate().percentage())
+                .putLong(position + NET_PRICE_OFFSET, netPrice)
+                .putLong(position + GROSS_PRICE_OFFSET, grossPrice)
+                .putShort(position + NAME_LENGTH_OFFSET, (short) name.length)
+                .putShort(position + DESCRIPTION_LENGTH_OFFSET, (short) description.length)
+                .put(position + NAME_OFFSET, name)
+                .put(position + DESCRIPTION_OFFSET, description);
+        writeBuffer.position(position + RECORD_SIZE);
+
+        if (recordCount == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[recordCount++] = item.itemId().id();
+    }
+
+    /**
+     * Writes the index and header, and replaces the target file with the finished catalog.
+     * The builder can't be used afterwards.
+     *
+     * @return the number of items written to the catalog.
+     * @throws IOException if the catalog can't be written.
+     * @throws IllegalArgumentException if several items have the same identifier, or if there are too many items.
+     */
+    public int build() throws IOException {
+        try {
+            flush();
+            int slotCount = slotCountFor(recordCount);
+            ByteBuffer index = ByteBuffer.allocate(slotCount * INDEX_SLOT_SIZE);
+            int mask = slotCount - 1;
+            for (int record = 0; record < recordCount; record++) {
+                int id = ids[record];
+                int slot = hash(id) & mask;
+                while (index.getInt(slot * INDEX_SLOT_SIZE + 4) != 0) {
+                    if (index.getInt(slot * INDEX_SLOT_SIZE) == id) {
+                        throw new IllegalArgumentException("The catalog contains item " + id + " more than once.");
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                index.putInt(slot * INDEX_SLOT_SIZE, id).putInt(slot * INDEX_SLOT_SIZE + 4, record + 1);
+            }
+            writeFully(index, indexPosition(recordCount));
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC_POSITION, MAGIC)
+                    .putInt(VERSION_POSITION, VERSION)
+                    .putInt(RECORD_COUNT_POSITION, recordCount)
+                    .putInt(SLOT_COUNT_POSITION, slotCount);
+            writeFully(header, 0);
+            channel.force(true);
+            channel.close();
+            Files.move(temporaryFile, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return recordCount;
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    private void abort() throws IOException {
+        channel.close();
+        Files.deleteIfExists(temporaryFile);
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int slotCountFor(int recordCount) {
+        int slotCount = 2;
+        while (slotCount < recordCount * 2L) {
+            if (slotCount == MAX_SLOT_COUNT) {
+                throw new IllegalArgumentException("A catalog can't contain more than " + MAX_SLOT_COUNT / 2 + " items.");
+            }
+            slotCount <<= 1;
+        }
+        return slotCount;
+    }
+
+    private static long grossPrice(ItemDTO item, long netPrice) {
+        try {
+            return ItemPriceDTO.of(netPrice, item.vatRate()).grossPrice();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The price of item " + item.itemId() + " including VAT can't be represented.", e);
+        }
+    }
+
+    private static long parsePrice(String price) {
+        try {
+            return new BigDecimal(price).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The price '" + price + "' can't be represented.", e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads a CSV price file into an {@link InMemoryItemCatalog}, parsing the file in parallel.
+ * <p>
+ * The file is memory-mapped and split into chunks at line boundaries, which are parsed by a
+ * {@link ForkJoinPool}. Names and descriptions that occur several times in the file are
+ * deduplicated, so each distinct text is only kept once on the heap. When all chunks have been
+ * parsed, the catalog's map is created with room for exactly the number of parsed items and
+ * filled without rehashing. The load time and memory use are written to the log.
+ * <p>
+ * The format of the file is the same as for {@link MappedItemCatalogBuilder#convertCsv}: a header
+ * line followed by one line per item, as described in {@link CsvItemFormat}.
+ */
+public final class ParallelCsvCatalogLoader {
+
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final long BYTES_PER_MEBIBYTE = 1 << 20;
+    private static final byte NEW_LINE = '\n';
+
+    private final ForkJoinPool pool;
+    private final FileLogger logger;
+
+    /**
+     * Creates a new {@link ParallelCsvCatalogLoader} that parses on the common fork-join pool.
+     */
+    public ParallelCsvCatalogLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new {@link ParallelCsvCatalogLoader} that parses on the specified pool.
+     *
+     * @param pool the {@link ForkJoinPool} used to parse the chunks of the file.
+     */
+    public ParallelCsvCatalogLoader(ForkJoinPool pool) {
+        this.pool = pool;
+        this.logger = FileLogger.getInstance();
+    }
+
+    /**
+     * Loads all items in the specified CSV price file.
+     *
+     * @param csvFile the path of the CSV file.
+     * @return an {@link InMemoryItemCatalog} containing the items of the file.
+     * @throws IOException if the file can't be read, is too large to be mapped, contains an
+     *                     invalid line, or contains the same item more than once.
+     */
+    public InMemoryItemCatalog load(Path csvFile) throws IOException {
+        long startNanos = System.nanoTime();
+        long heapBefore = usedHeap();
+
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(csvFile + " is too large to be loaded into memory; convert it to a catalog file instead.");
+            }
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ConcurrentMap<String, String> distinctTexts = new ConcurrentHashMap<>();
+        List<List<ItemDTO>> chunks;
+        try {
+            int firstItem = endOfLine(content, 0);
+            chunks = pool.invoke(new ParseTask(content, firstItem, content.limit(), distinctTexts));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid item in " + csvFile + ": " + e.getMessage(), e);
+        }
+
+        int itemCount = 0;
+        for (List<ItemDTO> chunk : chunks) {
+            itemCount += chunk.size();
+        }
+        Map<ItemIdentifierDTO, ItemDTO> items = HashMap.newHashMap(itemCount);
+        for (List<ItemDTO> chunk : chunks) {
+            for (ItemDTO item : chunk) {
+                if (items.putIfAbsent(item.itemId(), item) != null) {
+                    throw new IOException(csvFile + " contains item " + item.itemId() + " more than once.");
+                }
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long heapGrowth = (usedHeap() - heapBefore) / BYTES_PER_MEBIBYTE;
+        logger.info("Loaded " + itemCount + " items from " + csvFile + " in " + elapsedMillis + " ms using "
+                + pool.getParallelism() + " threads and " + chunks.size() + " chunks. " + distinctTexts.size()
+                + " distinct names and descriptions were kept; heap in use grew by about " + heapGrowth + " MiB.");
+        return new InMemoryItemCatalog(items);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static int endOfLine(ByteBuffer content, int position) {
+        while (position < content.limit() && content.get(position) != NEW_LINE) {
+            position++;
+        }
+        return Math.min(position + 1, content.limit());
+    }
+
+    /**
+     * Parses the lines in a range of the file. Ranges larger than one chunk are split in two at
+     * a line boundary and parsed in parallel.
+     */
+    private static final class ParseTask extends RecursiveTask<List<List<ItemDTO>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer content;
+        private final int start;
+        private final int end;
+        private final transient ConcurrentMap<String, String> distinctTexts;
+
+        private ParseTask(ByteBuffer content, int start, int end, ConcurrentMap<String, String> distinctTexts) {
+            this.content = content;
+            this.start = start;
+            this.end = end;
+            this.distinctTexts = distinctTexts;
+        }
+
+        @Override
+        protected List<List<ItemDTO>> compute() {
+            if (end - start > CHUNK_BYTES) {
+                int middle = endOfLine(content, start + (end - start) / 2);
+                if (middle < end) {
+                    ParseTask first = new ParseTask(content, start, middle, distinctTexts);
+                    ParseTask second = new ParseTask(content, middle, end, distinctTexts);
+                    first.fork();
+                    List<List<ItemDTO>> chunks = new ArrayList<>(second.compute());
+                    chunks.addAll(0, first.join());
+                    return chunks;
+                }
+            }
+            return List.of(parseChunk());
+        }
+
+        private List<ItemDTO> parseChunk() {
+            byte[] bytes = new byte[end - start];
+            content.get(start, bytes);
+            String text = new String(bytes, StandardCharsets.UTF_8);
+
+            List<ItemDTO> items = new ArrayList<>();
+            int lineStart = 0;
+            while (lineStart < text.length()) {
+                int lineEnd = text.indexOf('\n', lineStart);
+                if (lineEnd < 0) {
+                    lineEnd = text.length();
+                }
+                String line = text.substring(lineStart, lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd);
+                if (!line.isBlank()) {
+                    try {
+                        items.add(CsvItemFormat.parseItem(line, this::deduplicate));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("'" + line + "': " + e.getMessage(), e);
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return items;
+        }
+
+        private String deduplicate(String text) {
+            String existing = distinctTexts.putIfAbsent(text, text);
+            return existing == null ? text : existing;
+        }
+    }
+}
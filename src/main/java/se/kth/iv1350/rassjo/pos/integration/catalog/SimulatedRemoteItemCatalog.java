@@ -0,0 +1,76 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Simulates a remote inventory system by adding a fixed network latency to every request
+ * made to another catalog. Used as a stand-in for the real inventory system in tests and
+ * demonstrations.
+ * <p>
+ * A batched lookup is a single request and therefore only pays the latency once.
+ */
+public class SimulatedRemoteItemCatalog implements ItemCatalog {
+
+    private final ItemCatalog backend;
+    private final Duration latency;
+    private final LongAdder requests;
+
+    /**
+     * Creates a new {@link SimulatedRemoteItemCatalog}.
+     *
+     * @param backend the {@link ItemCatalog} holding the items of the simulated remote system.
+     * @param latency the time every request takes.
+     */
+    public SimulatedRemoteItemCatalog(ItemCatalog backend, Duration latency) {
+        this.backend = backend;
+        this.latency = latency;
+        this.requests = new LongAdder();
+    }
+
+    @Override
+    public ItemDTO findItem(ItemIdentifierDTO itemId) {
+        simulateRequest();
+        return backend.findItem(itemId);
+    }
+
+    @Override
+    public Map<ItemIdentifierDTO, ItemDTO> findItems(Collection<ItemIdentifierDTO> itemIds) {
+        simulateRequest();
+        return backend.findItems(itemIds);
+    }
+
+    @Override
+    public void forEachItemId(IntConsumer action) {
+        backend.forEachItemId(action);
+    }
+
+    @Override
+    public int size() {
+        return backend.size();
+    }
+
+    /**
+     * Retrieves the number of requests made to the simulated remote system.
+     *
+     * @return the number of requests.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    private void simulateRequest() {
+        requests.increment();
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
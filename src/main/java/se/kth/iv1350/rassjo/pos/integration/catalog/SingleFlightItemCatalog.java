@@ -0,0 +1,153 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Merges concurrent lookups of the same item into a single call to another catalog.
+ * <p>
+ * The first lane to look up an item makes the call, and every lane that looks up the same item
+ * while the call is in flight waits for it and gets the same result. This includes the item not
+ * being found, which then becomes an {@code ItemNotFoundException} in every lane, and any
+ * exception thrown by the backing catalog, which is rethrown in every lane. A lookup that starts
+ * after the call has finished makes a new call, so results are never served stale; put a
+ * {@link CachingItemCatalog} in front of this catalog to reuse results.
+ * <p>
+ * Batched lookups are merged item by item in the same way. The items of a batch that no other
+ * lane is looking up are fetched in one batched call, and the other items are taken from the
+ * calls already in flight. A lane completes the calls it made before it waits for any other
+ * call, so two lanes waiting for each other's items can't block each other.
+ * <p>
+ * Merging only pays off when a call to the backing catalog is slow, so none of the local
+ * catalogs of the application is wrapped in this class. It is meant to sit right in front of
+ * a future remote backend, such as a {@link SimulatedRemoteItemCatalog}, with a
+ * {@link CachingItemCatalog} in front of it.
+ */
+public class SingleFlightItemCatalog implements ItemCatalog {
+
+    private final ItemCatalog delegate;
+    private final ConcurrentMap<ItemIdentifierDTO, CompletableFuture<ItemDTO>> inFlight;
+    private final LongAdder coalescedLookups;
+
+    /**
+     * Creates a new {@link SingleFlightItemCatalog} in front of the specified catalog.
+     *
+     * @param delegate the {@link ItemCatalog} that lookups are forwarded to.
+     */
+    public SingleFlightItemCatalog(ItemCatalog delegate) {
+        this.delegate = delegate;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.coalescedLookups = new LongAdder();
+    }
+
+    @Override
+    public ItemDTO findItem(ItemIdentifierDTO itemId) {
+        CompletableFuture<ItemDTO> call = new CompletableFuture<>();
+        CompletableFuture<ItemDTO> ongoingCall = inFlight.putIfAbsent(itemId, call);
+        if (ongoingCall != null) {
+            coalescedLookups.increment();
+            return awaitResult(ongoingCall);
+        }
+
+        try {
+            ItemDTO item = delegate.findItem(itemId);
+            call.complete(item);
+            return item;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(itemId, call);
+        }
+    }
+
+    @Override
+    public Map<ItemIdentifierDTO, ItemDTO> findItems(Collection<ItemIdentifierDTO> itemIds) {
+        Map<ItemIdentifierDTO, CompletableFuture<ItemDTO>> ownCalls = HashMap.newHashMap(itemIds.size());
+        Map<ItemIdentifierDTO, CompletableFuture<ItemDTO>> ongoingCalls = new HashMap<>();
+        for (ItemIdentifierDTO itemId : itemIds) {
+            if (ownCalls.containsKey(itemId) || ongoingCalls.containsKey(itemId)) {
+                continue;
+            }
+            CompletableFuture<ItemDTO> call = new CompletableFuture<>();
+            CompletableFuture<ItemDTO> ongoingCall = inFlight.putIfAbsent(itemId, call);
+            if (ongoingCall == null) {
+                ownCalls.put(itemId, call);
+            } else {
+                ongoingCalls.put(itemId, ongoingCall);
+            }
+        }
+
+        coalescedLookups.add(ongoingCalls.size());
+        Map<ItemIdentifierDTO, ItemDTO> found = ownCalls.isEmpty()
+                ? new HashMap<>()
+                : new HashMap<>(callDelegate(ownCalls));
+        for (Map.Entry<ItemIdentifierDTO, CompletableFuture<ItemDTO>> ongoingCall : ongoingCalls.entrySet()) {
+            ItemDTO item = awaitResult(ongoingCall.getValue());
+            if (item != null) {
+                found.put(ongoingCall.getKey(), item);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void forEachItemId(IntConsumer action) {
+        delegate.forEachItemId(action);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * Retrieves the number of lookups that were served by waiting for another lane's call
+     * instead of making their own.
+     *
+     * @return the number of coalesced lookups.
+     */
+    public long getCoalescedLookupCount() {
+        return coalescedLookups.sum();
+    }
+
+    private Map<ItemIdentifierDTO, ItemDTO> callDelegate(Map<ItemIdentifierDTO, CompletableFuture<ItemDTO>> calls) {
+        List<ItemIdentifierDTO> itemIds = new ArrayList<>(calls.keySet());
+        try {
+            Map<ItemIdentifierDTO, ItemDTO> items = delegate.findItems(itemIds);
+            calls.forEach((itemId, call) -> call.complete(items.get(itemId)));
+            return items;
+        } catch (RuntimeException | Error e) {
+            calls.values().forEach(call -> call.completeExceptionally(e));
+            throw e;
+        } finally {
+            calls.forEach(inFlight::remove);
+        }
+    }
+
+    private static ItemDTO awaitResult(CompletableFuture<ItemDTO> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+/**
+ * An {@link ItemCatalog} whose contents can be replaced while it is in use, e.g. when a new
+ * price file arrives during the day.
+ * <p>
+ * A new catalog is built off to the side and then published with a single atomic swap of the
+ * current version. Lookups never take a lock: a lookup pins the current version by incrementing
+ * its reference count, reads from it and unpins it again, so it always sees either the whole old
+ * catalog or the whole new one. Items that were already looked up, e.g. those captured by an
+ * ongoing sale, are unaffected by a swap.
+ * <p>
+ * A replaced version is reclaimed once the last lookup that pinned it has finished. If its
+ * catalog is {@link AutoCloseable} it is closed at that point.
+ */
+public class VersionedItemCatalog implements ItemCatalog {
+
+    private final AtomicReference<Version> current;
+    private final AtomicLong nextVersionNumber;
+    private final AtomicInteger liveVersions;
+
+    /**
+     * Creates a new {@link VersionedItemCatalog} whose first version is the specified catalog.
+     *
+     * @param initialCatalog the {@link ItemCatalog} to publish as the first version.
+     */
+    public VersionedItemCatalog(ItemCatalog initialCatalog) {
+        this.nextVersionNumber = new AtomicLong(1);
+        this.liveVersions = new AtomicInteger(1);
+        this.current = new AtomicReference<>(new Version(initialCatalog, nextVersionNumber.getAndIncrement()));
+    }
+
+    /**
+     * Publishes the specified catalog as the new version. Lookups that start after this method
+     * returns read from the new catalog, while lookups already in progress finish on the old one.
+     *
+     * @param newCatalog the completely built {@link ItemCatalog} to publish.
+     * @return the number of the new version.
+     */
+    public long publish(ItemCatalog newCatalog) {
+        liveVersions.incrementAndGet();
+        Version published = new Version(newCatalog, nextVersionNumber.getAndIncrement());
+        Version replaced = current.getAndSet(published);
+        FileLogger.getInstance().info("Published item catalog version " + published.number
+                + " with " + newCatalog.size() + " items, replacing version " + replaced.number + ".");
+        replaced.release();
+        return published.number;
+    }
+
+    /**
+     * Retrieves the number of the current version. The first version is number 1.
+     *
+     * @return the current version number.
+     */
+    public long getVersion() {
+        return current.get().number;
+    }
+
+    /**
+     * Retrieves the number of versions that haven't been reclaimed yet, including the current one.
+     *
+     * @return the number of live versions.
+     */
+    public int getLiveVersionCount() {
+        return liveVersions.get();
+    }
+
+    @Override
+    public ItemDTO findItem(ItemIdentifierDTO itemId) {
+        Version version = acquire();
+        try {
+            return version.catalog.findItem(itemId);
+        } finally {
+            version.release();
+        }
+    }
+
+    @Override
+    public Map<ItemIdentifierDTO, ItemDTO> findItems(Collection<ItemIdentifierDTO> itemIds) {
+        Version version = acquire();
+        try {
+            return version.catalog.findItems(itemIds);
+        } finally {
+            version.release();
+        }
+    }
+
+    @Override
+    public void forEachItemId(IntConsumer action) {
+        Version version = acquire();
+        try {
+            version.catalog.forEachItemId(action);
+        } finally {
+            version.release();
+        }
+    }
+
+    @Override
+    public int size() {
+        Version version = acquire();
+        try {
+            return version.catalog.size();
+        } finally {
+            version.release();
+        }
+    }
+
+    private Version acquire() {
+        while (true) {
+            Version version = current.get();
+            if (version.tryAcquire()) {
+                return version;
+            }
+        }
+    }
+
+    /**
+     * One published catalog. The reference count starts at one for being the current version,
+     * and every lookup in progress adds one. When the count reaches zero the version is
+     * reclaimed, after which it can't be pinned again.
+     */
+    private final class Version {
+
+        private final ItemCatalog catalog;
+        private final long number;
+        private final AtomicInteger references;
+
+        private Version(ItemCatalog catalog, long number) {
+            this.catalog = catalog;
+            this.number = number;
+            this.references = new AtomicInteger(1);
+        }
+
+        private boolean tryAcquire() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                reclaim();
+            }
+        }
+
+        private void reclaim() {
+            liveVersions.decrementAndGet();
+            FileLogger logger = FileLogger.getInstance();
+            if (catalog instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.error("Could not close item catalog version " + number + ".", e);
+                }
+            }
+            logger.debug("Reclaimed item catalog version " + number + ".");
+        }
+    }
+}
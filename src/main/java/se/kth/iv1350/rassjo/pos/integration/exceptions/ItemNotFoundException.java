@@ -5,8 +5,13 @@ import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
 /**
  * This exception is thrown to indicate that an item with the
  * provided id doesn't exist in the inventory system.
+ * <p>
+ * Unknown and misread barcodes are an expected part of a sale, so
+ * the exception doesn't capture a stack trace, which would cost far
+ * more than the lookup itself.
  */
 public class ItemNotFoundException extends Exception {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Creates a new instance of {@code ItemNotFoundException} with
@@ -15,6 +20,6 @@ public class ItemNotFoundException extends Exception {
      * @param unknownItemId the item id of the item that wasn't found.
      */
     public ItemNotFoundException(ItemIdentifierDTO unknownItemId) {
-        super("Item with ID '" + unknownItemId.toString() + "' not found in inventory.");
+        super("Item with ID '" + unknownItemId.toString() + "' not found in inventory.", null, false, false);
     }
 }
@@ -4,6 +4,7 @@ package se.kth.iv1350.rassjo.pos.integration.exceptions;
  * Represents an exception thrown when an external system service is unavailable.
  */
 public class ServiceUnavailableException extends Exception {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Creates an instance of {@code ServiceUnavailableException} with a specified detail message
@@ -0,0 +1,20 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.util.Map;
+
+/**
+ * A {@link StockChangeStore} that accepts every batch without storing it, for running without
+ * an inventory system. The stock levels are then only tracked in memory.
+ */
+final class DiscardingStockChangeStore implements StockChangeStore {
+
+    @Override
+    public void append(Map<ItemIdentifierDTO, Integer> changes) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,20 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+/**
+ * Defines an observer interface for receiving notifications when the stock of an item
+ * falls to or below its low-stock threshold.
+ */
+public interface LowStockObserver {
+
+    /**
+     * Notifies the observer that the stock of an item has fallen to or below its low-stock
+     * threshold. Called once per crossing; the item must be restocked above the threshold
+     * before the observer is notified about it again.
+     *
+     * @param itemId     the {@link ItemIdentifierDTO} of the item.
+     * @param stockLevel the stock level of the item right after it crossed the threshold.
+     */
+    void stockLow(ItemIdentifierDTO itemId, long stockLevel);
+}
@@ -0,0 +1,100 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An append-only log file of stock changes, where every batch is written as a single line and
+ * forced to disk before {@link #append} returns. Each line holds the time of the batch followed
+ * by the changes, e.g. {@code 1714000000000 10001:-2 10004:-1}.
+ * <p>
+ * Since a batch is written and forced as a whole, the cost of the disk flush is shared by all
+ * changes in the batch.
+ */
+public final class StockChangeLog implements StockChangeStore {
+
+    private static final char FIELD_SEPARATOR = ' ';
+    private static final char CHANGE_SEPARATOR = ':';
+
+    private final FileChannel channel;
+
+    private StockChangeLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the stock change log in the specified file, creating it and its directory if they
+     * don't exist. New batches are appended after the existing ones.
+     *
+     * @param logFile the path of the log file.
+     * @return the opened {@link StockChangeLog}.
+     * @throws IOException if the file can't be created or opened.
+     */
+    public static StockChangeLog open(Path logFile) throws IOException {
+        Path directory = logFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        return new StockChangeLog(FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    @Override
+    public void append(Map<ItemIdentifierDTO, Integer> changes) throws IOException {
+        StringBuilder line = new StringBuilder(16 + changes.size() * 12);
+        line.append(System.currentTimeMillis());
+        for (Map.Entry<ItemIdentifierDTO, Integer> change : changes.entrySet()) {
+            line.append(FIELD_SEPARATOR).append(change.getKey().id()).append(CHANGE_SEPARATOR).append(change.getValue());
+        }
+        line.append('\n');
+
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(line.toString());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads a stock change log and sums the changes of every item.
+     *
+     * @param logFile the path of the log file.
+     * @return a map from each item identifier in the log to its total change in stock.
+     * @throws IOException if the file can't be read or contains an invalid line.
+     */
+    public static Map<ItemIdentifierDTO, Long> readTotals(Path logFile) throws IOException {
+        Map<ItemIdentifierDTO, Long> totals = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                String[] fields = line.split(String.valueOf(FIELD_SEPARATOR));
+                try {
+                    for (int i = 1; i < fields.length; i++) {
+                        int separator = fields[i].indexOf(CHANGE_SEPARATOR);
+                        ItemIdentifierDTO itemId = new ItemIdentifierDTO(Integer.parseInt(fields[i].substring(0, separator)));
+                        totals.merge(itemId, Long.parseLong(fields[i].substring(separator + 1)), Long::sum);
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException("Invalid stock change on line " + lineNumber + " of " + logFile + ".", e);
+                }
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,29 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A durable destination for batches of stock changes.
+ */
+interface StockChangeStore extends AutoCloseable {
+
+    /**
+     * Durably stores a batch of stock changes. When the method returns, the whole batch has been
+     * stored; if it throws, none of it should be considered stored.
+     *
+     * @param changes the change in stock of every item in the batch.
+     * @throws IOException if the batch couldn't be stored.
+     */
+    void append(Map<ItemIdentifierDTO, Integer> changes) throws IOException;
+
+    /**
+     * Closes the store.
+     *
+     * @throws IOException if the store couldn't be closed.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,247 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.catalog.ItemCatalog;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the stock level of every item in a catalog in memory, so that lanes selling at the same
+ * time can update it without a shared lock.
+ * <p>
+ * Every item is given a dense index when the table is created, and the stock levels are kept in
+ * an {@link AtomicLongArray} at those indexes. Updating a level is a single atomic addition, so
+ * concurrent sales of the same item never lose an update and sales of different items never
+ * wait for each other. Item identifiers are mapped to indexes through an open-addressing hash
+ * table of primitive ints, which is never changed after creation and can therefore be read
+ * without synchronization. The identifiers are kept as ints too, and only boxed into
+ * {@link ItemIdentifierDTO}s for snapshots and notifications, so creating a table for a large
+ * catalog allocates a handful of arrays rather than an object per item.
+ * <p>
+ * Every item also has a low-stock threshold. When an update takes the level of an item to or
+ * below its threshold, the {@link LowStockObserver}s are notified exactly once, by the lane whose
+ * update crossed it. The item is armed again when an update takes it back above the threshold.
+ * Since the level and the alert flag are separate words, every update re-reads the level after
+ * changing the flag and repeats until the flag matches it, so a restock and a sale that race
+ * can't leave a low item armed or a restocked item unarmed.
+ * An observer that throws is logged and doesn't fail the update, which has already been made.
+ */
+public class StockTable {
+
+    /**
+     * The index returned by {@link #indexOf} for items that aren't in the table.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int EMPTY_SLOT = 0;
+    private static final int NOT_ALERTED = 0;
+    private static final int ALERTED = 1;
+
+    private final int[] slotIds;
+    private final int[] slotIndexes;
+    private final int slotMask;
+    private final int[] itemIds;
+    private final AtomicLongArray levels;
+    private final AtomicLongArray thresholds;
+    private final AtomicIntegerArray alerted;
+    private final List<LowStockObserver> observers;
+
+    /**
+     * Creates a new {@link StockTable} with an entry for every item in the specified catalog.
+     *
+     * @param catalog           the {@link ItemCatalog} whose items are tracked.
+     * @param initialLevel      the stock level every item starts with.
+     * @param lowStockThreshold the low-stock threshold every item starts with.
+     */
+    public StockTable(ItemCatalog catalog, long initialLevel, long lowStockThreshold) {
+        int itemCount = catalog.size();
+        int slotCount = Integer.highestOneBit(Math.max(1, itemCount) * 2 - 1) << 1;
+        this.slotIds = new int[slotCount];
+        this.slotIndexes = new int[slotCount];
+        this.slotMask = slotCount - 1;
+        this.itemIds = new int[itemCount];
+        this.levels = new AtomicLongArray(itemCount);
+        this.thresholds = new AtomicLongArray(itemCount);
+        this.alerted = new AtomicIntegerArray(itemCount);
+        this.observers = new CopyOnWriteArrayList<>();
+
+        int[] nextIndex = new int[1];
+        catalog.forEachItemId(id -> {
+            int index = nextIndex[0]++;
+            insert(id, index);
+            itemIds[index] = id;
+        });
+        for (int index = 0; index < itemCount; index++) {
+            levels.set(index, initialLevel);
+            thresholds.set(index, lowStockThreshold);
+            alerted.set(index, initialLevel <= lowStockThreshold ? ALERTED : NOT_ALERTED);
+        }
+    }
+
+    /**
+     * Registers an observer that will be notified when the stock of an item falls to or below
+     * its low-stock threshold.
+     *
+     * @param observer the {@link LowStockObserver} to register.
+     */
+    public void addLowStockObserver(LowStockObserver observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Retrieves the dense index of an item, which can be passed to {@link #adjustStock(int, long)}
+     * to skip the lookup when the same item is updated repeatedly.
+     *
+     * @param itemId the {@link ItemIdentifierDTO} of the item.
+     * @return the index of the item, or {@link #NOT_FOUND} if the item isn't in the table.
+     */
+    public int indexOf(ItemIdentifierDTO itemId) {
+        int id = itemId.id();
+        for (int slot = hash(id) & slotMask; ; slot = (slot + 1) & slotMask) {
+            int reference = slotIndexes[slot];
+            if (reference == EMPTY_SLOT) {
+                return NOT_FOUND;
+            }
+            if (slotIds[slot] == id) {
+                return reference - 1;
+            }
+        }
+    }
+
+    /**
+     * Changes the stock level of an item by the specified amount.
+     *
+     * @param itemId the {@link ItemIdentifierDTO} of the item.
+     * @param change the change in stock, negative for sold items and positive for restocked items.
+     * @return {@code true} if the item is tracked by the table, {@code false} if it isn't.
+     */
+    public boolean adjustStock(ItemIdentifierDTO itemId, long change) {
+        int index = indexOf(itemId);
+        if (index == NOT_FOUND) {
+            return false;
+        }
+        adjustStock(index, change);
+        return true;
+    }
+
+    /**
+     * Changes the stock level of the item at the specified index by the specified amount.
+     *
+     * @param itemIndex the index of the item, as returned by {@link #indexOf}.
+     * @param change    the change in stock, negative for sold items and positive for restocked items.
+     * @return the stock level right after the change.
+     * @throws IndexOutOfBoundsException if the index doesn't belong to an item.
+     */
+    public long adjustStock(int itemIndex, long change) {
+        long level = levels.addAndGet(itemIndex, change);
+        updateAlert(itemIndex);
+        return level;
+    }
+
+    /**
+     * Sets the low-stock threshold of an item. Doesn't notify the observers by itself, even if the
+     * current level already is at or below the new threshold; the next update of the item does.
+     *
+     * @param itemId    the {@link ItemIdentifierDTO} of the item.
+     * @param threshold the new threshold.
+     * @return {@code true} if the item is tracked by the table, {@code false} if it isn't.
+     */
+    public boolean setLowStockThreshold(ItemIdentifierDTO itemId, long threshold) {
+        int index = indexOf(itemId);
+        if (index == NOT_FOUND) {
+            return false;
+        }
+        thresholds.set(index, threshold);
+        return true;
+    }
+
+    /**
+     * Retrieves the current stock level of an item.
+     *
+     * @param itemId the {@link ItemIdentifierDTO} of the item.
+     * @return the stock level of the item.
+     * @throws IllegalArgumentException if the item isn't tracked by the table.
+     */
+    public long getStockLevel(ItemIdentifierDTO itemId) {
+        int index = indexOf(itemId);
+        if (index == NOT_FOUND) {
+            throw new IllegalArgumentException("Item " + itemId.id() + " isn't tracked by the stock table.");
+        }
+        return levels.get(index);
+    }
+
+    /**
+     * Creates a snapshot of the stock levels of all items, for reporting. Every level is read
+     * atomically, but levels changed while the snapshot is taken may be from slightly different
+     * points in time.
+     *
+     * @return a map from every item identifier to its stock level, in index order.
+     */
+    public Map<ItemIdentifierDTO, Long> snapshot() {
+        Map<ItemIdentifierDTO, Long> snapshot = LinkedHashMap.newLinkedHashMap(itemIds.length);
+        for (int index = 0; index < itemIds.length; index++) {
+            snapshot.put(new ItemIdentifierDTO(itemIds[index]), levels.get(index));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Retrieves the number of items tracked by the table.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return itemIds.length;
+    }
+
+    private void insert(int id, int index) {
+        int slot = hash(id) & slotMask;
+        while (slotIndexes[slot] != EMPTY_SLOT) {
+            if (slotIds[slot] == id) {
+                throw new IllegalArgumentException("Item " + id + " appears more than once in the catalog.");
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        slotIds[slot] = id;
+        slotIndexes[slot] = index + 1;
+    }
+
+    private void updateAlert(int itemIndex) {
+        while (true) {
+            long level = levels.get(itemIndex);
+            boolean low = level <= thresholds.get(itemIndex);
+            int flag = alerted.get(itemIndex);
+            if (low && flag == NOT_ALERTED) {
+                if (alerted.compareAndSet(itemIndex, NOT_ALERTED, ALERTED)) {
+                    notifyObservers(new ItemIdentifierDTO(itemIds[itemIndex]), level);
+                }
+            } else if (!low && flag == ALERTED) {
+                alerted.compareAndSet(itemIndex, ALERTED, NOT_ALERTED);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void notifyObservers(ItemIdentifierDTO itemId, long level) {
+        for (LowStockObserver observer : observers) {
+            try {
+                observer.stockLow(itemId, level);
+            } catch (RuntimeException e) {
+                FileLogger.getInstance().error("A low-stock observer failed for item " + itemId.id() + ".", e);
+            }
+        }
+    }
+
+    private static int hash(int id) {
+        int h = id * HASH_MULTIPLIER;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,363 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.StockUpdateStatisticsDTO;
+import se.kth.iv1350.rassjo.pos.utils.concurrent.Uninterruptibles;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects stock changes from sold items and writes them to a {@link StockChangeStore} in
+ * batches, instead of making one update per sold item.
+ * <p>
+ * Changes are summed per item while they wait, so an item sold on many lanes during the same
+ * window becomes a single change. A batch is flushed {@value #DEFAULT_FLUSH_INTERVAL_MILLIS} ms
+ * (by default) after its first change, or as soon as it holds changes for the maximum number of
+ * items. The backlog is bounded: when it is full, {@link #recordChanges} blocks until the
+ * current batch has been taken by the flusher, which pushes back on the caller.
+ * <p>
+ * A batch that can't be stored is put back and retried with the next batch. The flusher waits
+ * before every retry, starting at {@value #DEFAULT_RETRY_DELAY_MILLIS} ms (by default) and doubling
+ * up to {@value #MAX_RETRY_DELAY_MILLIS} ms, so a failing store isn't retried in a busy loop. After
+ * {@value #MAX_STORE_ATTEMPTS} failed attempts in a row, {@link #flush} reports the failure instead
+ * of waiting, while the changes are still retried in the background.
+ */
+public class WriteBehindStockUpdater implements AutoCloseable {
+
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+    private static final int DEFAULT_MAX_PENDING_ITEMS = 4096;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 10;
+    private static final long MAX_RETRY_DELAY_MILLIS = 5000;
+    private static final int MAX_STORE_ATTEMPTS = 5;
+
+    private final StockChangeStore store;
+    private final int maxPendingItems;
+    private final long flushIntervalNanos;
+    private final long retryDelayMillis;
+    private final ReentrantLock lock;
+    private final Condition notFull;
+    private final Condition flushNeeded;
+    private final Condition drained;
+    private final Thread flusher;
+    private final FileLogger logger;
+    private Map<ItemIdentifierDTO, Integer> pending;
+    private boolean flushRequested;
+    private boolean batchInFlight;
+    private boolean closed;
+    private int failedAttempts;
+    private IOException lastFailure;
+    private long flushedBatches;
+    private long flushedChanges;
+    private long lastFlushNanos;
+    private long maxFlushNanos;
+
+    private WriteBehindStockUpdater(StockChangeStore store, int maxPendingItems, Duration flushInterval,
+                                    Duration retryDelay) {
+        this.store = store;
+        this.maxPendingItems = maxPendingItems;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.retryDelayMillis = Math.min(retryDelay.toMillis(), MAX_RETRY_DELAY_MILLIS);
+        this.lock = new ReentrantLock();
+        this.notFull = lock.newCondition();
+        this.flushNeeded = lock.newCondition();
+        this.drained = lock.newCondition();
+        this.logger = FileLogger.getInstance();
+        this.pending = new HashMap<>();
+        this.flusher = Thread.ofVirtual().name("stock-flusher").unstarted(this::runFlusher);
+    }
+
+    /**
+     * Starts a new {@link WriteBehindStockUpdater} that doesn't store the batches anywhere, for
+     * running without an inventory system.
+     *
+     * @return the started {@link WriteBehindStockUpdater}.
+     */
+    public static WriteBehindStockUpdater start() {
+        return start(new DiscardingStockChangeStore(), DEFAULT_MAX_PENDING_ITEMS,
+                Duration.ofMillis(DEFAULT_FLUSH_INTERVAL_MILLIS));
+    }
+
+    /**
+     * Starts a new {@link WriteBehindStockUpdater} that appends the batches to the stock change
+     * log in the specified file.
+     *
+     * @param logFile the path of the {@link StockChangeLog} file.
+     * @return the started {@link WriteBehindStockUpdater}.
+     * @throws IOException if the log file can't be opened.
+     */
+    public static WriteBehindStockUpdater start(Path logFile) throws IOException {
+        return start(StockChangeLog.open(logFile), DEFAULT_MAX_PENDING_ITEMS,
+                Duration.ofMillis(DEFAULT_FLUSH_INTERVAL_MILLIS));
+    }
+
+    /**
+     * Starts a new {@link WriteBehindStockUpdater} that writes the batches to the specified store.
+     *
+     * @param store           the {@link StockChangeStore} that batches are written to.
+     * @param maxPendingItems the maximum number of items with changes waiting to be flushed.
+     * @param flushInterval   how long changes are collected before they are flushed.
+     * @return the started {@link WriteBehindStockUpdater}.
+     * @throws IllegalArgumentException if the maximum number of pending items isn't positive.
+     */
+    static WriteBehindStockUpdater start(StockChangeStore store, int maxPendingItems, Duration flushInterval) {
+        return start(store, maxPendingItems, flushInterval, Duration.ofMillis(DEFAULT_RETRY_DELAY_MILLIS));
+    }
+
+    /**
+     * Starts a new {@link WriteBehindStockUpdater} that writes the batches to the specified store,
+     * and waits the specified time before the first retry of a batch that can't be stored. The
+     * flusher thread is started once the updater has been fully constructed.
+     *
+     * @param store           the {@link StockChangeStore} that batches are written to.
+     * @param maxPendingItems the maximum number of items with changes waiting to be flushed.
+     * @param flushInterval   how long changes are collected before they are flushed.
+     * @param retryDelay      how long to wait before retrying after the first failed attempt.
+     * @return the started {@link WriteBehindStockUpdater}.
+     * @throws IllegalArgumentException if the maximum number of pending items isn't positive.
+     */
+    static WriteBehindStockUpdater start(StockChangeStore store, int maxPendingItems, Duration flushInterval,
+                                         Duration retryDelay) {
+        if (maxPendingItems <= 0) {
+            throw new IllegalArgumentException("The maximum number of pending items must be positive, was " + maxPendingItems + ".");
+        }
+        WriteBehindStockUpdater updater = new WriteBehindStockUpdater(store, maxPendingItems, flushInterval, retryDelay);
+        updater.flusher.start();
+        return updater;
+    }
+
+    /**
+     * Records changes in stock, e.g. the negated quantities of the items in a sale. All changes
+     * are added to the same batch. Blocks while the backlog doesn't have room for the changed
+     * items; the wait can't be interrupted, since the changes would be lost otherwise.
+     *
+     * @param changes the change in stock of every item.
+     * @throws IllegalStateException if the updater has been closed.
+     */
+    public void recordChanges(Map<ItemIdentifierDTO, Integer> changes) {
+        lock.lock();
+        try {
+            while (!closed && !pending.isEmpty() && pending.size() + countNewItems(changes) > maxPendingItems) {
+                requestFlush();
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                throw new IllegalStateException("The stock updater has been closed.");
+            }
+            boolean wasEmpty = pending.isEmpty();
+            for (Map.Entry<ItemIdentifierDTO, Integer> change : changes.entrySet()) {
+                pending.merge(change.getKey(), change.getValue(), (current, added) -> current + added == 0 ? null : current + added);
+            }
+            if (pending.size() >= maxPendingItems) {
+                requestFlush();
+            } else if (wasEmpty) {
+                flushNeeded.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the changes that are waiting right away, and blocks until every change recorded
+     * before the call has been stored. A batch that fails is retried, but once the store has
+     * failed {@value #MAX_STORE_ATTEMPTS} times in a row the flush stops waiting and reports the
+     * failure. The changes are kept and retried in the background.
+     *
+     * @throws UncheckedIOException if the store keeps failing.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!pending.isEmpty() || batchInFlight) {
+                if (failedAttempts >= MAX_STORE_ATTEMPTS) {
+                    throw new UncheckedIOException("Couldn't store " + pending.size() + " stock changes after "
+                            + failedAttempts + " attempts, they are still retried.", lastFailure);
+                }
+                if (!pending.isEmpty()) {
+                    requestFlush();
+                }
+                drained.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the current queue depth and the statistics of the batches flushed so far.
+     *
+     * @return a {@link StockUpdateStatisticsDTO} with the current statistics.
+     */
+    public StockUpdateStatisticsDTO getStatistics() {
+        lock.lock();
+        try {
+            return new StockUpdateStatisticsDTO(pending.size(), flushedBatches, flushedChanges,
+                    Duration.ofNanos(lastFlushNanos), Duration.ofNanos(maxFlushNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting changes, flushes the changes that are waiting and closes the store. An
+     * interrupt doesn't cut the last flush short, since the changes would be lost; it is kept
+     * for the caller.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        Uninterruptibles.join(flusher);
+        try {
+            store.close();
+        } catch (IOException e) {
+            logger.error("Couldn't close the stock change store.", e);
+        }
+        StockUpdateStatisticsDTO statistics = getStatistics();
+        logger.info("Stock updater closed after flushing " + statistics.flushedChanges() + " changes in "
+                + statistics.flushedBatches() + " batches, longest flush " + statistics.maxFlushLatency().toMillis() + " ms.");
+    }
+
+    private void runFlusher() {
+        boolean lastBatch = false;
+        while (!lastBatch) {
+            Map<ItemIdentifierDTO, Integer> batch;
+            lock.lock();
+            try {
+                batch = takeBatch();
+                lastBatch = closed;
+            } finally {
+                lock.unlock();
+            }
+            IOException failure = batch.isEmpty() ? null : store(batch);
+            int attempts;
+            lock.lock();
+            try {
+                if (failure == null) {
+                    failedAttempts = 0;
+                    lastFailure = null;
+                } else {
+                    failedAttempts++;
+                    lastFailure = failure;
+                    putBack(batch);
+                }
+                attempts = failedAttempts;
+                batchInFlight = false;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (failure == null) {
+                continue;
+            }
+            if (lastBatch && attempts >= MAX_STORE_ATTEMPTS) {
+                logger.error("Couldn't store the last " + batch.size() + " stock changes after " + attempts
+                        + " attempts, they are lost: " + batch, failure);
+                return;
+            }
+            logger.error("Couldn't store " + batch.size() + " stock changes, attempt " + attempts
+                    + ", retrying with the next batch.", failure);
+            awaitRetry(attempts);
+            lastBatch = false;
+        }
+    }
+
+    private Map<ItemIdentifierDTO, Integer> takeBatch() {
+        try {
+            while (pending.isEmpty() && !closed) {
+                flushNeeded.await();
+            }
+            long remaining = flushIntervalNanos;
+            while (!closed && !flushRequested && remaining > 0) {
+                remaining = flushNeeded.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            closed = true;
+        }
+        Map<ItemIdentifierDTO, Integer> batch = pending;
+        pending = new HashMap<>();
+        flushRequested = false;
+        batchInFlight = true;
+        notFull.signalAll();
+        return batch;
+    }
+
+    private IOException store(Map<ItemIdentifierDTO, Integer> batch) {
+        long start = System.nanoTime();
+        try {
+            store.append(batch);
+        } catch (IOException e) {
+            return e;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int queueDepth;
+        lock.lock();
+        try {
+            flushedBatches++;
+            flushedChanges += batch.size();
+            lastFlushNanos = elapsed;
+            maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+            queueDepth = pending.size();
+        } finally {
+            lock.unlock();
+        }
+        logger.debug("Flushed " + batch.size() + " stock changes in " + TimeUnit.NANOSECONDS.toMicros(elapsed)
+                + " microseconds, " + queueDepth + " items waiting.");
+        return null;
+    }
+
+    private void awaitRetry(int attempts) {
+        long delay = Math.min(retryDelayMillis << Math.min(attempts - 1, 20), MAX_RETRY_DELAY_MILLIS);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            lock.lock();
+            try {
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void putBack(Map<ItemIdentifierDTO, Integer> batch) {
+        for (Map.Entry<ItemIdentifierDTO, Integer> change : batch.entrySet()) {
+            pending.merge(change.getKey(), change.getValue(), (current, added) -> current + added == 0 ? null : current + added);
+        }
+    }
+
+    private int countNewItems(Map<ItemIdentifierDTO, Integer> changes) {
+        int newItems = 0;
+        for (ItemIdentifierDTO itemId : changes.keySet()) {
+            if (!pending.containsKey(itemId)) {
+                newItems++;
+            }
+        }
+        return newItems;
+    }
+
+    private void requestFlush() {
+        flushRequested = true;
+        flushNeeded.signal();
+    }
+}
@@ -0,0 +1,155 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive int keys to primitive long sums, used to total sales per item or lane
+ * without boxing. Keys are kept in an open-addressing hash table with linear probing, which
+ * doubles when it becomes half full.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+final class IntLongMap {
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    /**
+     * Creates a new, empty {@link IntLongMap}.
+     */
+    IntLongMap() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new long[INITIAL_CAPACITY];
+        used = new boolean[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds the specified value to the sum of the specified key. A key that isn't in the map
+     * starts at 0.
+     *
+     * @param key   the key.
+     * @param value the value to add.
+     */
+    void add(int key, long value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int slot = slotOf(key);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] += value;
+    }
+
+    /**
+     * Adds every sum of the specified map to the sums of this map.
+     *
+     * @param other the map to add.
+     */
+    void addAll(IntLongMap other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * Retrieves the sum of the specified key.
+     *
+     * @param key the key.
+     * @return the sum, or 0 if the key isn't in the map.
+     */
+    long get(int key) {
+        int slot = slotOf(key);
+        return used[slot] ? values[slot] : 0;
+    }
+
+    /**
+     * Retrieves the number of keys in the map.
+     *
+     * @return the number of keys.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the keys of the map in ascending order.
+     *
+     * @return a new array with the keys.
+     */
+    int[] sortedKeys() {
+        int[] sorted = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                sorted[count++] = keys[slot];
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Calls the specified action with every key and its sum, in no particular order.
+     *
+     * @param action the action to call.
+     */
+    void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int newSlot = slotOf(oldKeys[slot]);
+                used[newSlot] = true;
+                keys[newSlot] = oldKeys[slot];
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * HASH_MULTIPLIER;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Receives the entries of an {@link IntLongMap}.
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+
+        /**
+         * Receives one entry.
+         *
+         * @param key   the key.
+         * @param value the sum of the key.
+         */
+        void accept(int key, long value);
+    }
+}
@@ -0,0 +1,196 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.Mapper;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecoveredSalesDTO;
+import se.kth.iv1350.rassjo.pos.model.Amount;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The running totals of the sales in the segments of a sale journal up to some segment: the
+ * number of sales, their revenue and VAT in öre, the cash taken in per lane, the quantity sold
+ * of every item and the highest sale id. Sales are journaled in the order they are paid, not
+ * the order their ids were generated in, so the highest id isn't always the last one journaled.
+ * Sale ids are compared as strings, which for the ids of a {@code TimeOrderedSaleIdGenerator}
+ * is the order they were generated in.
+ * <p>
+ * The totals of consecutive ranges of segments are combined with {@link #addAll}. All totals
+ * are sums or maxima, so ranges can be totalled in parallel and combined in any grouping.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+final class JournalTotals {
+
+    private static final int ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final IntLongMap cashPerLane;
+    private final IntLongMap soldQuantities;
+    private long saleCount;
+    private long totalRevenue;
+    private long totalVat;
+    private String highestSaleId;
+    private int lastSegment;
+
+    /**
+     * Creates new totals without any sales, that don't cover any segment.
+     */
+    JournalTotals() {
+        cashPerLane = new IntLongMap();
+        soldQuantities = new IntLongMap();
+    }
+
+    /**
+     * Adds a sale to the totals. The register of the lane keeps the total cost of the sale,
+     * since the rest of the paid amount is given back as change.
+     *
+     * @param record the {@link SaleRecord} of the sale.
+     */
+    void add(SaleRecord record) {
+        saleCount++;
+        totalRevenue += record.getTotalCost();
+        totalVat += record.getTotalVat();
+        cashPerLane.add(record.getLaneId(), record.getTotalCost());
+        for (int i = 0; i < record.getItemCount(); i++) {
+            soldQuantities.add(record.getItemId(i), record.getQuantity(i));
+        }
+        if (highestSaleId == null || record.compareSaleIdTo(highestSaleId) > 0) {
+            highestSaleId = record.getSaleId();
+        }
+    }
+
+    /**
+     * Marks the totals as covering every segment up to the specified one.
+     *
+     * @param segmentNumber the number of the last segment added to the totals.
+     */
+    void completeSegment(int segmentNumber) {
+        lastSegment = segmentNumber;
+    }
+
+    /**
+     * Adds the totals of the segments that follow the segments of these totals.
+     *
+     * @param later the totals of the later segments.
+     */
+    void addAll(JournalTotals later) {
+        saleCount += later.saleCount;
+        totalRevenue += later.totalRevenue;
+        totalVat += later.totalVat;
+        cashPerLane.addAll(later.cashPerLane);
+        soldQuantities.addAll(later.soldQuantities);
+        if (later.highestSaleId != null && (highestSaleId == null || later.highestSaleId.compareTo(highestSaleId) > 0)) {
+            highestSaleId = later.highestSaleId;
+        }
+        completeSegment(Math.max(lastSegment, later.lastSegment));
+    }
+
+    /**
+     * Retrieves the number of the last segment covered by the totals.
+     *
+     * @return the segment number, or 0 if no segment is covered.
+     */
+    int getLastSegment() {
+        return lastSegment;
+    }
+
+    /**
+     * Retrieves the number of sales.
+     *
+     * @return the number of sales.
+     */
+    long getSaleCount() {
+        return saleCount;
+    }
+
+    /**
+     * Creates a {@link RecoveredSalesDTO} with the totals.
+     *
+     * @param replayedSegments the number of segments that were replayed to get the totals.
+     * @param recoveryTime     the time it took to get the totals.
+     * @return the created {@link RecoveredSalesDTO}.
+     */
+    RecoveredSalesDTO toDTO(int replayedSegments, Duration recoveryTime) {
+        Map<LaneIdentifierDTO, AmountDTO> cash = HashMap.newHashMap(cashPerLane.size());
+        cashPerLane.forEach((laneId, amount) -> cash.put(new LaneIdentifierDTO(laneId), toAmountDTO(amount)));
+        Map<ItemIdentifierDTO, Long> quantities = HashMap.newHashMap(soldQuantities.size());
+        soldQuantities.forEach((itemId, quantity) -> quantities.put(new ItemIdentifierDTO(itemId), quantity));
+        return new RecoveredSalesDTO(saleCount, toAmountDTO(totalRevenue), toAmountDTO(totalVat),
+                Map.copyOf(cash), Map.copyOf(quantities), highestSaleId, replayedSegments, recoveryTime);
+    }
+
+    /**
+     * Retrieves the number of bytes that {@link #writeTo} writes.
+     *
+     * @return the serialized size in bytes.
+     */
+    int serializedSize() {
+        int idLength = highestSaleId == null ? 0 : highestSaleId.getBytes(StandardCharsets.UTF_8).length;
+        return Integer.BYTES + Long.BYTES * 3 + Integer.BYTES + idLength
+                + Integer.BYTES * 2 + (cashPerLane.size() + soldQuantities.size()) * ENTRY_SIZE;
+    }
+
+    /**
+     * Writes the totals into the buffer, starting at its position.
+     *
+     * @param target the buffer, with at least {@link #serializedSize} bytes remaining.
+     */
+    void writeTo(ByteBuffer target) {
+        target.putInt(lastSegment).putLong(saleCount).putLong(totalRevenue).putLong(totalVat);
+        if (highestSaleId == null) {
+            target.putInt(-1);
+        } else {
+            byte[] id = highestSaleId.getBytes(StandardCharsets.UTF_8);
+            target.putInt(id.length).put(id);
+        }
+        writeMap(target, cashPerLane);
+        writeMap(target, soldQuantities);
+    }
+
+    /**
+     * Reads totals written by {@link #writeTo} from the buffer, starting at its position.
+     *
+     * @param source the buffer to read from.
+     * @return the read totals.
+     * @throws BufferUnderflowException if the buffer ends before the totals do.
+     */
+    static JournalTotals readFrom(ByteBuffer source) {
+        JournalTotals totals = new JournalTotals();
+        totals.lastSegment = source.getInt();
+        totals.saleCount = source.getLong();
+        totals.totalRevenue = source.getLong();
+        totals.totalVat = source.getLong();
+        int idLength = source.getInt();
+        if (idLength >= 0) {
+            byte[] id = new byte[idLength];
+            source.get(id);
+            totals.highestSaleId = new String(id, StandardCharsets.UTF_8);
+        }
+        readMap(source, totals.cashPerLane);
+        readMap(source, totals.soldQuantities);
+        return totals;
+    }
+
+    private static void writeMap(ByteBuffer target, IntLongMap map) {
+        target.putInt(map.size());
+        map.forEach((key, value) -> target.putInt(key).putLong(value));
+    }
+
+    private static void readMap(ByteBuffer source, IntLongMap map) {
+        int size = source.getInt();
+        for (int i = 0; i < size; i++) {
+            map.add(source.getInt(), source.getLong());
+        }
+    }
+
+    private static AmountDTO toAmountDTO(long minorUnits) {
+        return Mapper.toDTO(Amount.ofMinorUnits(minorUnits));
+    }
+}
@@ -0,0 +1,200 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.Mapper;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecordedItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecordedSaleDTO;
+import se.kth.iv1350.rassjo.pos.model.Amount;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Finds recorded sales in the segments of a {@link SaleJournal}, by the time they were started
+ * or by their sale id, e.g. to handle returns, audits and customer disputes.
+ * <p>
+ * The {@link SaleJournalIndex} of every segment is used to find the blocks of records that can
+ * hold the sales, and only those blocks are decoded. Within a block, the timestamp or sale id
+ * key of every record is read before the record is decoded. The records after the last indexed
+ * block, i.e. the last records of the segment being written, are read without the index. The
+ * indexes of segments that aren't written anymore are kept in memory.
+ * <p>
+ * The journal can be written while it is queried. The last segment is only read up to its last
+ * whole record, so sales that are still being written aren't found.
+ */
+public final class SaleHistory {
+
+    private final Path directory;
+    private final ZoneId zone;
+    private final ConcurrentMap<Path, SaleJournalIndex> finishedIndexes;
+
+    /**
+     * Creates a new {@link SaleHistory} of the journal in the specified directory, with the
+     * times of the sales in the system's time zone.
+     *
+     * @param directory the directory of the segment files.
+     */
+    public SaleHistory(Path directory) {
+        this(directory, ZoneId.systemDefault());
+    }
+
+    /**
+     * Creates a new {@link SaleHistory} of the journal in the specified directory, with the
+     * times of the sales in the specified time zone.
+     *
+     * @param directory the directory of the segment files.
+     * @param zone      the time zone of the start times of the sales.
+     */
+    public SaleHistory(Path directory, ZoneId zone) {
+        this.directory = directory;
+        this.zone = zone;
+        this.finishedIndexes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Finds the sales started within the specified period, on any lane.
+     *
+     * @param from the start of the period.
+     * @param to   the end of the period, exclusive.
+     * @return the sales, in the order they were recorded.
+     * @throws IOException if a segment can't be read or is damaged.
+     */
+    public List<RecordedSaleDTO> findSales(LocalDateTime from, LocalDateTime to) throws IOException {
+        return findSales(from, to, null);
+    }
+
+    /**
+     * Finds the sales started within the specified period on the specified lane.
+     *
+     * @param from   the start of the period.
+     * @param to     the end of the period, exclusive.
+     * @param laneId the lane of the sales, or {@code null} for any lane.
+     * @return the sales, in the order they were recorded.
+     * @throws IOException if a segment can't be read or is damaged.
+     */
+    public List<RecordedSaleDTO> findSales(LocalDateTime from, LocalDateTime to, LaneIdentifierDTO laneId)
+            throws IOException {
+        long fromMillis = toMillis(from);
+        long toMillis = toMillis(to);
+        List<RecordedSaleDTO> sales = new ArrayList<>();
+        if (fromMillis >= toMillis) {
+            return sales;
+        }
+        SaleRecord record = new SaleRecord();
+        Consumer<ByteBuffer> matcher = payload -> {
+            long timestamp = SaleRecordCodec.readTimestamp(payload);
+            if (timestamp >= fromMillis && timestamp < toMillis) {
+                SaleRecordCodec.decode(payload, record);
+                if (laneId == null || record.getLaneId() == laneId.id()) {
+                    sales.add(toDTO(record));
+                }
+            }
+        };
+        List<Path> segments = SaleJournal.listSegments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            search(segments.get(i), i == segments.size() - 1, matcher,
+                    (index, action) -> index.forEachBlockWithTimestamps(fromMillis, toMillis - 1, action));
+        }
+        return sales;
+    }
+
+    /**
+     * Finds the sale with the specified sale id.
+     *
+     * @param saleId the id of the sale.
+     * @return the sale, or {@code null} if no sale with the id has been recorded.
+     * @throws IOException if a segment can't be read or is damaged.
+     */
+    public RecordedSaleDTO findSale(String saleId) throws IOException {
+        long saleIdKey = SaleRecordCodec.saleIdKey(saleId);
+        SaleRecord record = new SaleRecord();
+        List<RecordedSaleDTO> found = new ArrayList<>(1);
+        Consumer<ByteBuffer> matcher = payload -> {
+            if (found.isEmpty() && SaleRecordCodec.readSaleIdKey(payload) == saleIdKey) {
+                SaleRecordCodec.decode(payload, record);
+                if (record.hasSaleId(saleId)) {
+                    found.add(toDTO(record));
+                }
+            }
+        };
+        List<Path> segments = SaleJournal.listSegments(directory);
+        for (int i = 0; i < segments.size() && found.isEmpty(); i++) {
+            search(segments.get(i), i == segments.size() - 1, matcher,
+                    (index, action) -> index.forEachBlockWithSaleIdKey(saleIdKey, action));
+        }
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private void search(Path segmentFile, boolean lastSegment, Consumer<ByteBuffer> matcher, BlockSearch blockSearch)
+            throws IOException {
+        ByteBuffer content = SaleJournal.mapSegment(segmentFile);
+        if (content.limit() < SaleJournal.SEGMENT_HEADER_SIZE) {
+            if (lastSegment) {
+                return;
+            }
+            throw new IOException(segmentFile + " has an incomplete header.");
+        }
+        SaleJournal.checkHeader(segmentFile, content);
+        SaleJournalIndex index = indexOf(segmentFile, content.limit(), lastSegment);
+        try {
+            blockSearch.search(index, (start, end) ->
+                    SaleJournal.readRecords(segmentFile, content.duplicate().limit(end).position(start), matcher, false));
+            SaleJournal.readRecords(segmentFile, content.position(index.getIndexedLength()), matcher, lastSegment);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException(segmentFile + " has a record that can't be decoded.", e);
+        }
+    }
+
+    private SaleJournalIndex indexOf(Path segmentFile, int segmentLength, boolean lastSegment) throws IOException {
+        if (lastSegment) {
+            return SaleJournalIndex.read(segmentFile, segmentLength);
+        }
+        SaleJournalIndex index = finishedIndexes.get(segmentFile);
+        if (index == null || index.getSegmentLength() != segmentLength) {
+            index = SaleJournalIndex.read(segmentFile, segmentLength);
+            finishedIndexes.put(segmentFile, index);
+        }
+        return index;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private RecordedSaleDTO toDTO(SaleRecord record) {
+        List<RecordedItemDTO> items = new ArrayList<>(record.getItemCount());
+        for (int i = 0; i < record.getItemCount(); i++) {
+            items.add(new RecordedItemDTO(new ItemIdentifierDTO(record.getItemId(i)), record.getQuantity(i),
+                    toAmountDTO(record.getItemTotal(i))));
+        }
+        return new RecordedSaleDTO(record.getSaleId(), new LaneIdentifierDTO(record.getLaneId()),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getTimestampMillis()), zone),
+                toAmountDTO(record.getTotalCost()), toAmountDTO(record.getTotalVat()),
+                toAmountDTO(record.getPaidAmount()), List.copyOf(items));
+    }
+
+    private static AmountDTO toAmountDTO(long minorUnits) {
+        return Mapper.toDTO(Amount.ofMinorUnits(minorUnits));
+    }
+
+    /**
+     * Finds the blocks of a segment that a query has to read.
+     */
+    @FunctionalInterface
+    private interface BlockSearch {
+
+        void search(SaleJournalIndex index, SaleJournalIndex.BlockAction action) throws IOException;
+    }
+}
@@ -0,0 +1,779 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.SaleJournalStatisticsDTO;
+import se.kth.iv1350.rassjo.pos.utils.concurrent.Uninterruptibles;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of paid sales, written to segment files in a directory.
+ * <p>
+ * Every segment starts with a header of {@value #SEGMENT_HEADER_SIZE} bytes with a magic number
+ * and the format version, followed by records. A record is its payload length, the CRC32C of
+ * the payload and the payload itself. When a segment would grow beyond the maximum segment
+ * size, the next commit starts a new segment. Segments are named so that sorting them by name
+ * gives the order they were written in. The directory is forced to disk once a segment has
+ * been created, so that the records committed to it can't be lost with its directory entry.
+ * <p>
+ * Records are committed in groups: {@link #append} only copies the record into a buffer and
+ * returns its sequence number, and a writer thread writes everything appended within the
+ * durability window with a single write and a single force to disk. While a commit is written,
+ * new records go into a second buffer, so appending only waits when that buffer is full too.
+ * Callers that must know that a record is on disk wait for it with {@link #awaitDurable}.
+ * <p>
+ * If a commit fails, the journal stops accepting records, since records can't be dropped
+ * silently and a partly written commit must not be followed by more records.
+ * <p>
+ * Whenever a segment is full, the {@link SegmentListener} of the journal is told about it in the
+ * background, and closing the journal tells it about every segment. The journal doesn't know
+ * what its records hold, so what is done with finished segments is left to the listener, e.g.
+ * {@link SaleJournalRecovery#checkpoint}, which bounds how many segments a recovery has to
+ * replay after a crash.
+ * <p>
+ * Every segment gets a sparse {@link SaleJournalIndex}, which the writer thread adds to after
+ * each commit, so that {@link SaleHistory} can find sales without reading whole segments.
+ * <p>
+ * Only one journal at a time can write to a directory. The journal holds a lock on the file
+ * {@value #LOCK_FILE_NAME} in the directory until it is closed, and opening a second journal
+ * in the same directory fails, in this process or any other. A {@link Recovery} given when the
+ * journal is opened is run while the lock is held, so it never touches the segments of a
+ * journal that is still being written to.
+ */
+public final class SaleJournal implements AutoCloseable {
+
+    static final int SEGMENT_MAGIC = 0x534A524E;
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final String SEGMENT_PREFIX = "sales-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String LOCK_FILE_NAME = "journal.lock";
+
+    private static final long DEFAULT_MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final long DEFAULT_DURABILITY_WINDOW_MICROS = 2000;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final Path directory;
+    private final FileLock directoryLock;
+    private final SegmentListener segmentListener;
+    private final long maxSegmentSize;
+    private final long durabilityWindowNanos;
+    private final ReentrantLock lock;
+    private final Condition notFull;
+    private final Condition commitNeeded;
+    private final Condition durable;
+    private final Thread writer;
+    private final FileLogger logger;
+    private Thread segmentNotifier;
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean commitRequested;
+    private boolean closed;
+    private IOException failure;
+    private long commits;
+    private long lastCommitNanos;
+    private long maxCommitNanos;
+
+    private FileChannel segment;
+    private SaleJournalIndexWriter indexWriter;
+    private long segmentSize;
+    private int segmentNumber;
+    private boolean startedSegment;
+
+    private SaleJournal(Path directory, FileLock directoryLock, int lastSegmentNumber, long maxSegmentSize,
+                        Duration durabilityWindow, SegmentListener segmentListener) {
+        this.directory = directory;
+        this.directoryLock = directoryLock;
+        this.segmentListener = segmentListener;
+        this.segmentNumber = lastSegmentNumber;
+        this.maxSegmentSize = maxSegmentSize;
+        this.durabilityWindowNanos = durabilityWindow.toNanos();
+        this.lock = new ReentrantLock();
+        this.notFull = lock.newCondition();
+        this.commitNeeded = lock.newCondition();
+        this.durable = lock.newCondition();
+        this.logger = FileLogger.getInstance();
+        this.pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.spare = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.writer = Thread.ofVirtual().name("sale-journal-writer").unstarted(this::runWriter);
+    }
+
+    /**
+     * Opens a journal in the specified directory, with a maximum segment size of 64 MiB and a
+     * durability window of {@value #DEFAULT_DURABILITY_WINDOW_MICROS} microseconds. The directory
+     * is created if it doesn't exist. Records are written to new segments, after any segments
+     * already in the directory.
+     *
+     * @param directory the directory of the segment files.
+     * @return the opened {@link SaleJournal}.
+     * @throws IOException if the directory can't be created or read, or if another journal is
+     *                     open in it.
+     */
+    public static SaleJournal open(Path directory) throws IOException {
+        return open(directory, (journalDirectory, lastSegment) -> {
+        });
+    }
+
+    /**
+     * Opens a journal in the specified directory, with a maximum segment size of 64 MiB and a
+     * durability window of {@value #DEFAULT_DURABILITY_WINDOW_MICROS} microseconds, which tells
+     * the specified listener about every finished segment. The directory is created if it
+     * doesn't exist. Records are written to new segments, after any segments already in the
+     * directory.
+     *
+     * @param directory       the directory of the segment files.
+     * @param segmentListener the {@link SegmentListener} told about finished segments.
+     * @return the opened {@link SaleJournal}.
+     * @throws IOException if the directory can't be created or read, or if another journal is
+     *                     open in it.
+     */
+    public static SaleJournal open(Path directory, SegmentListener segmentListener) throws IOException {
+        return open(directory, DEFAULT_MAX_SEGMENT_SIZE,
+                Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(DEFAULT_DURABILITY_WINDOW_MICROS)), segmentListener);
+    }
+
+    /**
+     * Opens a journal in the specified directory. The directory is created if it doesn't exist.
+     * Records are written to new segments, after any segments already in the directory.
+     *
+     * @param directory        the directory of the segment files.
+     * @param maxSegmentSize   the size in bytes after which a new segment is started.
+     * @param durabilityWindow the longest time an appended record waits before it is committed.
+     * @return the opened {@link SaleJournal}.
+     * @throws IOException if the directory can't be created or read, or if another journal is
+     *                     open in it.
+     * @throws IllegalArgumentException if the maximum segment size can't hold a record header,
+     *                                  or if the durability window is negative.
+     */
+    public static SaleJournal open(Path directory, long maxSegmentSize, Duration durabilityWindow) throws IOException {
+        return open(directory, maxSegmentSize, durabilityWindow, (journalDirectory, lastSegment) -> {
+        });
+    }
+
+    /**
+     * Opens a journal in the specified directory, which tells the specified listener about every
+     * finished segment. The directory is created if it doesn't exist. Records are written to new
+     * segments, after any segments already in the directory.
+     *
+     * @param directory        the directory of the segment files.
+     * @param maxSegmentSize   the size in bytes after which a new segment is started.
+     * @param durabilityWindow the longest time an appended record waits before it is committed.
+     * @param segmentListener  the {@link SegmentListener} told about finished segments.
+     * @return the opened {@link SaleJournal}.
+     * @throws IOException if the directory can't be created or read, or if another journal is
+     *                     open in it.
+     * @throws IllegalArgumentException if the maximum segment size can't hold a record header,
+     *                                  or if the durability window is negative.
+     */
+    public static SaleJournal open(Path directory, long maxSegmentSize, Duration durabilityWindow,
+                                   SegmentListener segmentListener) throws IOException {
+        return open(directory, maxSegmentSize, durabilityWindow, journalDirectory -> {
+        }, segmentListener);
+    }
+
+    /**
+     * Opens a journal in the specified directory with a maximum segment size of 64 MiB and a
+     * durability window of {@value #DEFAULT_DURABILITY_WINDOW_MICROS} microseconds, which first
+     * runs the specified recovery on the segments already in the directory and then tells the
+     * specified listener about every finished segment. The recovery is run once the directory is
+     * locked, before any records are written. The directory is created if it doesn't exist.
+     *
+     * @param directory       the directory of the segment files.
+     * @param recovery        the {@link Recovery} run on the segments already in the directory.
+     * @param segmentListener the {@link SegmentListener} told about finished segments.
+     * @return the opened {@link SaleJournal}.
+     * @throws IOException if the directory can't be created or read, if another journal is open
+     *                     in it, or if the recovery fails.
+     */
+    public static SaleJournal open(Path directory, Recovery recovery, SegmentListener segmentListener)
+            throws IOException {
+        return open(directory, DEFAULT_MAX_SEGMENT_SIZE,
+                Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(DEFAULT_DURABILITY_WINDOW_MICROS)), recovery,
+                segmentListener);
+    }
+
+    /**
+     * Opens a journal in the specified directory, which first runs the specified recovery on the
+     * segments already in the directory and then tells the specified listener about every
+     * finished segment. The recovery is run once the directory is locked, before any records are
+     * written. The directory is created if it doesn't exist. Records are written to new segments,
+     * after any segments already in the directory.
+     *
+     * @param directory        the directory of the segment files.
+     * @param maxSegmentSize   the size in bytes after which a new segment is started.
+     * @param durabilityWindow the longest time an appended record waits before it is committed.
+     * @param recovery         the {@link Recovery} run on the segments already in the directory.
+     * @param segmentListener  the {@link SegmentListener} told about finished segments.
+     * @return the opened {@link SaleJournal}.
+     * @throws IOException if the directory can't be created or read, if another journal is open
+     *                     in it, or if the recovery fails.
+     * @throws IllegalArgumentException if the maximum segment size can't hold a record header,
+     *                                  or if the durability window is negative.
+     */
+    public static SaleJournal open(Path directory, long maxSegmentSize, Duration durabilityWindow, Recovery recovery,
+                                   SegmentListener segmentListener) throws IOException {
+        if (maxSegmentSize <= SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("The maximum segment size is too small, was " + maxSegmentSize + ".");
+        }
+        if (durabilityWindow.isNegative()) {
+            throw new IllegalArgumentException("The durability window can't be negative, was " + durabilityWindow + ".");
+        }
+        Files.createDirectories(directory);
+        FileLock directoryLock = lockDirectory(directory);
+        try {
+            recovery.recover(directory);
+            List<Path> segments = listSegments(directory);
+            int lastSegmentNumber = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1));
+            SaleJournal journal = new SaleJournal(directory, directoryLock, lastSegmentNumber, maxSegmentSize,
+                    durabilityWindow, segmentListener);
+            journal.writer.start();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            directoryLock.channel().close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a record to the journal. The record is copied, so the buffer can be reused as
+     * soon as this method returns. The record is written to disk within the durability window;
+     * use {@link #awaitDurable} to wait until it is. Blocks only while both buffers are full.
+     *
+     * @param payload the record, from its position to its limit. The position is moved to the limit.
+     * @return the sequence number of the record, starting at 1 for the first record appended
+     *         since the journal was opened.
+     * @throws IllegalArgumentException if the record is larger than the buffer of a commit.
+     * @throws IllegalStateException    if the journal has been closed.
+     * @throws UncheckedIOException     if an earlier commit failed.
+     */
+    public long append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (RECORD_HEADER_SIZE + length > BUFFER_SIZE) {
+            throw new IllegalArgumentException("A record of " + length + " bytes is too large for the sale journal.");
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload.duplicate());
+
+        lock.lock();
+        try {
+            while (!closed && failure == null && pending.remaining() < RECORD_HEADER_SIZE + length) {
+                requestCommit();
+                notFull.awaitUninterruptibly();
+            }
+            ensureWritable();
+            boolean wasEmpty = pending.position() == 0;
+            pending.putInt(length).putInt((int) checksum.getValue()).put(payload);
+            if (wasEmpty) {
+                commitNeeded.signal();
+            }
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the specified sequence number, and every record before it,
+     * has been forced to disk. Doesn't shorten the durability window, so that records of
+     * concurrent callers still share a commit.
+     *
+     * @param sequence the sequence number returned by {@link #append}.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws UncheckedIOException if the journal failed before the record was committed.
+     */
+    public void awaitDurable(long sequence) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("The sale journal failed before record " + sequence + " was written.", failure);
+                }
+                durable.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits the records appended so far right away, and blocks until they are on disk.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws UncheckedIOException if the journal failed before the records were committed.
+     */
+    public void flush() throws InterruptedException {
+        long sequence;
+        lock.lock();
+        try {
+            sequence = appendedSequence;
+            if (durableSequence < sequence) {
+                requestCommit();
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Retrieves the directory of the segment files.
+     *
+     * @return the directory of the journal.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Retrieves the number of records appended and committed, and how long the commits have taken.
+     *
+     * @return a {@link SaleJournalStatisticsDTO} with the current statistics.
+     */
+    public SaleJournalStatisticsDTO getStatistics() {
+        lock.lock();
+        try {
+            return new SaleJournalStatisticsDTO(appendedSequence, durableSequence, commits,
+                    Duration.ofNanos(lastCommitNanos), Duration.ofNanos(maxCommitNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting records, commits the records that are waiting and closes the current segment.
+     * If the journal has written any segment, the {@link SegmentListener} is told that every
+     * segment is finished. An interrupt doesn't cut the last commit short, since the records
+     * would be lost; it is kept for the caller.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            commitNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        Uninterruptibles.join(writer);
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            logger.error("Couldn't close the sale journal segment.", e);
+        }
+        if (segmentNotifier != null) {
+            Uninterruptibles.join(segmentNotifier);
+        }
+        if (startedSegment) {
+            finishSegments(segmentNumber);
+        }
+        try {
+            directoryLock.channel().close();
+        } catch (IOException e) {
+            logger.error("Couldn't release the lock of the sale journal directory.", e);
+        }
+        SaleJournalStatisticsDTO statistics = getStatistics();
+        logger.info("Sale journal closed after committing " + statistics.durableRecords() + " records in "
+                + statistics.commits() + " commits, longest commit " + statistics.maxCommitLatency().toMillis() + " ms.");
+    }
+
+    /**
+     * Reads every record in the journal in the specified directory, in the order they were written.
+     *
+     * @param directory the directory of the segment files.
+     * @param action    the action called with the payload of every record. The buffer is only
+     *                  valid during the call.
+     * @throws IOException if a segment can't be read, or contains a record that is incomplete or
+     *                     doesn't match its checksum.
+     */
+    public static void forEachRecord(Path directory, Consumer<ByteBuffer> action) throws IOException {
+        for (Path segmentFile : listSegments(directory)) {
+            readSegment(segmentFile, ByteBuffer.wrap(Files.readAllBytes(segmentFile)), action, false);
+        }
+    }
+
+    /**
+     * Reads the records in the content of one segment, in the order they were written.
+     *
+     * @param segmentFile  the path of the segment, used in error messages.
+     * @param content      the content of the segment, from its position to its limit.
+     * @param action       the action called with the payload of every record. The buffer is only
+     *                     valid during the call.
+     * @param stopAtDamage whether to stop at an incomplete header or at the first record that is
+     *                     incomplete or doesn't match its checksum, instead of failing.
+     * @return the number of bytes from the position up to the end of the last whole record, or 0
+     *         if the header is incomplete.
+     * @throws IOException if the segment has another magic number or format version, or if it
+     *                     is damaged and {@code stopAtDamage} is {@code false}.
+     */
+    static int readSegment(Path segmentFile, ByteBuffer content, Consumer<ByteBuffer> action, boolean stopAtDamage)
+            throws IOException {
+        int start = content.position();
+        if (content.remaining() < SEGMENT_HEADER_SIZE) {
+            if (stopAtDamage) {
+                return 0;
+            }
+            throw new IOException(segmentFile + " has an incomplete header.");
+        }
+        checkHeader(segmentFile, content);
+        content.position(start + SEGMENT_HEADER_SIZE);
+        return readRecords(segmentFile, content, action, stopAtDamage) - start;
+    }
+
+    /**
+     * Checks the magic number and format version in the header of a segment.
+     *
+     * @param segmentFile the path of the segment, used in error messages.
+     * @param content     the content of the segment, from its position, which isn't moved.
+     * @throws IOException if the segment has another magic number or format version.
+     */
+    static void checkHeader(Path segmentFile, ByteBuffer content) throws IOException {
+        if (content.getInt(content.position()) != SEGMENT_MAGIC) {
+            throw new IOException(segmentFile + " is not a sale journal segment.");
+        }
+        if (content.getInt(content.position() + Integer.BYTES) != FORMAT_VERSION) {
+            throw new IOException(segmentFile + " has an unsupported format version.");
+        }
+    }
+
+    /**
+     * Reads the records from the position to the limit of the content of a segment, in the
+     * order they were written. The position must be at the start of a record.
+     *
+     * @param segmentFile  the path of the segment, used in error messages.
+     * @param content      the content of the segment. The position is moved past the last whole record.
+     * @param action       the action called with the payload of every record. The buffer is only
+     *                     valid during the call.
+     * @param stopAtDamage whether to stop at the first record that is incomplete or doesn't match
+     *                     its checksum, instead of failing.
+     * @return the position after the last whole record.
+     * @throws IOException if a record is damaged and {@code stopAtDamage} is {@code false}.
+     */
+    static int readRecords(Path segmentFile, ByteBuffer content, Consumer<ByteBuffer> action, boolean stopAtDamage)
+            throws IOException {
+        CRC32C checksum = new CRC32C();
+        while (content.hasRemaining()) {
+            int recordPosition = content.position();
+            String damage = null;
+            if (content.remaining() < RECORD_HEADER_SIZE) {
+                damage = "an incomplete";
+            } else {
+                int length = content.getInt();
+                int expectedChecksum = content.getInt();
+                if (length < 0 || length > content.remaining()) {
+                    damage = "an incomplete";
+                } else {
+                    ByteBuffer payload = content.slice(content.position(), length);
+                    checksum.reset();
+                    checksum.update(payload.duplicate());
+                    if ((int) checksum.getValue() != expectedChecksum) {
+                        damage = "a corrupt";
+                    } else {
+                        action.accept(payload);
+                        content.position(content.position() + length);
+                    }
+                }
+            }
+            if (damage != null) {
+                if (stopAtDamage) {
+                    content.position(recordPosition);
+                    return recordPosition;
+                }
+                throw new IOException(segmentFile + " has " + damage + " record at position " + recordPosition + ".");
+            }
+        }
+        return content.position();
+    }
+
+    /**
+     * Memory-maps a segment file for reading.
+     *
+     * @param segmentFile the path of the segment.
+     * @return the mapped content of the segment.
+     * @throws IOException if the segment can't be mapped, or is larger than 2 GiB.
+     */
+    static ByteBuffer mapSegment(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(segmentFile + " is too large to be mapped.");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Lists the segment files in the specified directory, in the order they were written.
+     *
+     * @param directory the directory of the segment files.
+     * @return the paths of the segments, or an empty list if the directory doesn't exist.
+     * @throws IOException if the directory can't be read.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(SaleJournal::isSegment).sorted().toList();
+        }
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Retrieves the number of a segment from its file name.
+     *
+     * @param segmentFile the path of the segment.
+     * @return the segment number.
+     */
+    static int segmentNumber(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void runWriter() {
+        boolean lastCommit = false;
+        while (!lastCommit) {
+            ByteBuffer batch;
+            long batchSequence;
+            lock.lock();
+            try {
+                waitForCommit();
+                batch = pending;
+                pending = spare;
+                spare = null;
+                batchSequence = appendedSequence;
+                commitRequested = false;
+                lastCommit = closed;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            long start = System.nanoTime();
+            try {
+                if (batch.position() > 0) {
+                    batch.flip();
+                    write(batch);
+                }
+            } catch (IOException e) {
+                logger.error("Couldn't commit sale journal records up to " + batchSequence + ", the journal stops accepting records.", e);
+                lock.lock();
+                try {
+                    failure = e;
+                    durable.signalAll();
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            lock.lock();
+            try {
+                if (batch.position() > 0) {
+                    commits++;
+                    lastCommitNanos = elapsed;
+                    maxCommitNanos = Math.max(maxCommitNanos, elapsed);
+                }
+                spare = batch.clear();
+                durableSequence = batchSequence;
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void waitForCommit() {
+        try {
+            while (pending.position() == 0 && !closed) {
+                commitNeeded.await();
+            }
+            long remaining = durabilityWindowNanos;
+            while (!closed && !commitRequested && remaining > 0 && pending.hasRemaining()) {
+                remaining = commitNeeded.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            closed = true;
+        }
+    }
+
+    private void write(ByteBuffer batch) throws IOException {
+        if (segment == null || (segmentSize > SEGMENT_HEADER_SIZE && segmentSize + batch.remaining() > maxSegmentSize)) {
+            startSegment();
+        }
+        int size = batch.remaining();
+        ByteBuffer records = indexWriter == null ? null : batch.duplicate();
+        while (batch.hasRemaining()) {
+            segment.write(batch);
+        }
+        segment.force(false);
+        segmentSize += size;
+        if (records != null) {
+            index(records);
+        }
+    }
+
+    private void index(ByteBuffer records) {
+        try {
+            indexWriter.index(records);
+        } catch (IOException e) {
+            logger.error("Couldn't index sale journal segment " + segmentNumber + ", the rest of it isn't indexed.", e);
+            closeIndex();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        if (segment != null) {
+            closeSegment();
+            int finishedSegment = segmentNumber;
+            Thread previousNotifier = segmentNotifier;
+            segmentNotifier = Thread.ofVirtual().name("sale-journal-segment-listener").start(() -> {
+                try {
+                    if (previousNotifier != null) {
+                        previousNotifier.join();
+                    }
+                    finishSegments(finishedSegment);
+                } catch (InterruptedException e) {
+                    logger.warn("Finishing of sale journal segment " + finishedSegment + " was interrupted.");
+                }
+            });
+        }
+        segmentNumber++;
+        startedSegment = true;
+        Path segmentFile = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX));
+        segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(SEGMENT_MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        SaleJournalCheckpoint.forceDirectory(directory);
+        segmentSize = SEGMENT_HEADER_SIZE;
+        try {
+            indexWriter = SaleJournalIndexWriter.create(segmentFile);
+        } catch (IOException e) {
+            logger.error("Couldn't create the index of sale journal segment " + segmentNumber + ", it isn't indexed.", e);
+        }
+        logger.debug("Started sale journal segment " + segmentFile.getFileName() + ".");
+    }
+
+    private static FileLock lockDirectory(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock directoryLock;
+        try {
+            directoryLock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            directoryLock = null;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (directoryLock == null) {
+            channel.close();
+            throw new IOException("Another sale journal is already open in " + directory + ".");
+        }
+        return directoryLock;
+    }
+
+    private void finishSegments(int lastSegment) {
+        try {
+            segmentListener.segmentsFinished(directory, lastSegment);
+        } catch (IOException | RuntimeException e) {
+            logger.error("The listener of the sale journal failed for the segments up to " + lastSegment + ".", e);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        closeIndex();
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+    }
+
+    private void closeIndex() {
+        if (indexWriter != null) {
+            try {
+                indexWriter.close();
+            } catch (IOException e) {
+                logger.error("Couldn't close the index of sale journal segment " + segmentNumber + ".", e);
+            }
+            indexWriter = null;
+        }
+    }
+
+    private void ensureWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("The sale journal has failed and doesn't accept records.", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("The sale journal has been closed.");
+        }
+    }
+
+    private void requestCommit() {
+        commitRequested = true;
+        commitNeeded.signal();
+    }
+
+    /**
+     * Recovers what the segments already in the directory of a {@link SaleJournal} hold, e.g.
+     * by cutting off a torn tail, before the journal writes to the directory.
+     */
+    @FunctionalInterface
+    public interface Recovery {
+
+        /**
+         * Called once when the journal is opened, while it holds the lock on the directory and
+         * before it writes anything, so no other journal is writing to the segments.
+         *
+         * @param directory the directory of the journal.
+         * @throws IOException if the segments can't be recovered, which fails the opening.
+         */
+        void recover(Path directory) throws IOException;
+    }
+
+    /**
+     * Told when segments of a {@link SaleJournal} are finished and won't be written to anymore.
+     */
+    @FunctionalInterface
+    public interface SegmentListener {
+
+        /**
+         * Called when every segment up to the specified one is finished. The calls of a journal
+         * are made one at a time and in segment order, in the background or while the journal
+         * is closed. A failure is logged by the journal.
+         *
+         * @param directory   the directory of the journal.
+         * @param lastSegment the number of the last finished segment.
+         * @throws IOException if the listener can't handle the segments.
+         */
+        void segmentsFinished(Path directory, int lastSegment) throws IOException;
+    }
+}
@@ -0,0 +1,124 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads and writes the checkpoint of a sale journal: the {@link JournalTotals} of every segment
+ * up to some segment, so that a recovery only has to replay the segments after it.
+ * <p>
+ * The checkpoint is a single file in the journal directory, with a magic number, the format
+ * version, the length and CRC32C of the totals, and the totals. A new checkpoint is written to
+ * a temporary file of its own, forced to disk and then moved over the old one atomically, after
+ * which the directory is forced too, so a crash leaves either the old or the new checkpoint.
+ * Checkpoints written at the same time therefore don't share a temporary file. A checkpoint that
+ * can't be read is ignored, which only means that more segments are replayed.
+ */
+final class SaleJournalCheckpoint {
+
+    static final String FILE_NAME = "sales.checkpoint";
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x534A4350;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private SaleJournalCheckpoint() {
+    }
+
+    /**
+     * Reads the checkpoint in the specified directory.
+     *
+     * @param directory the directory of the journal.
+     * @return the totals of the checkpoint, or empty totals that don't cover any segment if there
+     *         is no checkpoint or it can't be read.
+     */
+    static JournalTotals read(Path directory) {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return new JournalTotals();
+        }
+        try {
+            ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (content.remaining() < HEADER_SIZE || content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION) {
+                throw new IOException(file + " is not a sale journal checkpoint of a supported version.");
+            }
+            int length = content.getInt();
+            int expectedChecksum = content.getInt();
+            if (length != content.remaining()) {
+                throw new IOException(file + " is incomplete.");
+            }
+            CRC32C checksum = new CRC32C();
+            checksum.update(content.duplicate());
+            if ((int) checksum.getValue() != expectedChecksum) {
+                throw new IOException(file + " is corrupt.");
+            }
+            return JournalTotals.readFrom(content);
+        } catch (IOException | BufferUnderflowException e) {
+            FileLogger.getInstance().error("Couldn't read the sale journal checkpoint, the whole journal is replayed.", e);
+            return new JournalTotals();
+        }
+    }
+
+    /**
+     * Replaces the checkpoint in the specified directory.
+     *
+     * @param directory the directory of the journal.
+     * @param totals    the totals to write.
+     * @throws IOException if the checkpoint can't be written.
+     */
+    static void write(Path directory, JournalTotals totals) throws IOException {
+        int length = totals.serializedSize();
+        ByteBuffer content = ByteBuffer.allocate(HEADER_SIZE + length);
+        content.position(HEADER_SIZE);
+        totals.writeTo(content);
+        CRC32C checksum = new CRC32C();
+        checksum.update(content.array(), HEADER_SIZE, length);
+        content.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(8, length).putInt(12, (int) checksum.getValue());
+        content.flip();
+
+        Path temporaryFile = Files.createTempFile(directory, FILE_NAME + ".", TEMPORARY_FILE_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(temporaryFile, directory.resolve(FILE_NAME), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+        forceDirectory(directory);
+    }
+
+    /**
+     * Forces the entries of the specified directory to disk, so that a file that was just created
+     * or moved into it survives a crash.
+     *
+     * @param directory the directory to force.
+     * @throws IOException if the directory can't be forced.
+     */
+    static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Some platforms, e.g. Windows, can't open a directory; its entries are durable there anyway.
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+}
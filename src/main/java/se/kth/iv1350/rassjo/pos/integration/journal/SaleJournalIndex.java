@@ -0,0 +1,252 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * The sparse index of one segment of a {@link SaleJournal}, which lets a query decode only the
+ * blocks of records that can hold the sales it looks for.
+ * <p>
+ * The index is a side file next to the segment, with a magic number and the format version
+ * followed by one entry per block of {@value #RECORDS_PER_BLOCK} records: the start and end
+ * position of the block in the segment, the lowest and highest timestamp and sale id key of
+ * its records (see {@link SaleRecordCodec#saleIdKey}), and the CRC32C of the entry. The entries
+ * are read up to the first one that is incomplete or corrupt, and the records after the last
+ * entry are simply not indexed.
+ * <p>
+ * The timestamps are the start times of the sales, which aren't in order in the journal since
+ * sales on different lanes take different times to pay, and neither are the sale ids. So the
+ * blocks are found with binary searches on the highest bound of all blocks up to each block and
+ * the lowest bound of all blocks from each block, which are in order, and the blocks in between
+ * are then checked against their own bounds.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+final class SaleJournalIndex {
+
+    static final int RECORDS_PER_BLOCK = 64;
+    static final String INDEX_SUFFIX = ".index";
+    static final int MAGIC = 0x534A4958;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_SIZE = 2 * Integer.BYTES + 4 * Long.BYTES + Integer.BYTES;
+
+    private final int segmentLength;
+    private final int blockCount;
+    private final int[] starts;
+    private final int[] ends;
+    private final Bounds timestamps;
+    private final Bounds saleIdKeys;
+
+    private SaleJournalIndex(int segmentLength, int blockCount, int[] starts, int[] ends,
+                             long[] minTimestamps, long[] maxTimestamps, long[] minSaleIdKeys, long[] maxSaleIdKeys) {
+        this.segmentLength = segmentLength;
+        this.blockCount = blockCount;
+        this.starts = starts;
+        this.ends = ends;
+        this.timestamps = new Bounds(blockCount, minTimestamps, maxTimestamps);
+        this.saleIdKeys = new Bounds(blockCount, minSaleIdKeys, maxSaleIdKeys);
+    }
+
+    /**
+     * Retrieves the path of the index file of a segment.
+     *
+     * @param segmentFile the path of the segment.
+     * @return the path of its index file.
+     */
+    static Path indexFile(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(name.substring(0, name.length() - SaleJournal.SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * Reads the index of a segment. An index file that is missing or has another magic number
+     * or version gives an index without any blocks.
+     *
+     * @param segmentFile   the path of the segment.
+     * @param segmentLength the length of the segment; blocks beyond it are left out.
+     * @return the {@link SaleJournalIndex} of the segment.
+     * @throws IOException if the index file exists but can't be read.
+     */
+    static SaleJournalIndex read(Path segmentFile, int segmentLength) throws IOException {
+        Path file = indexFile(segmentFile);
+        ByteBuffer content = Files.exists(file) ? ByteBuffer.wrap(Files.readAllBytes(file)) : ByteBuffer.allocate(0);
+        if (content.remaining() < HEADER_SIZE || content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION) {
+            if (Files.exists(file)) {
+                FileLogger.getInstance().warn(file.getFileName() + " is not a sale journal index of a supported version, "
+                        + segmentFile.getFileName() + " is read without it.");
+            }
+            content.position(content.limit());
+        }
+
+        int capacity = content.remaining() / ENTRY_SIZE;
+        int[] starts = new int[capacity];
+        int[] ends = new int[capacity];
+        long[] minTimestamps = new long[capacity];
+        long[] maxTimestamps = new long[capacity];
+        long[] minSaleIdKeys = new long[capacity];
+        long[] maxSaleIdKeys = new long[capacity];
+        CRC32C checksum = new CRC32C();
+        int blockCount = 0;
+        int indexedLength = SaleJournal.SEGMENT_HEADER_SIZE;
+        while (blockCount < capacity) {
+            int entryStart = content.position();
+            checksum.reset();
+            checksum.update(content.array(), entryStart, ENTRY_SIZE - Integer.BYTES);
+            int start = content.getInt();
+            int end = content.getInt();
+            long minTimestamp = content.getLong();
+            long maxTimestamp = content.getLong();
+            long minSaleIdKey = content.getLong();
+            long maxSaleIdKey = content.getLong();
+            if (content.getInt() != (int) checksum.getValue() || start != indexedLength || end <= start || end > segmentLength) {
+                break;
+            }
+            starts[blockCount] = start;
+            ends[blockCount] = end;
+            minTimestamps[blockCount] = minTimestamp;
+            maxTimestamps[blockCount] = maxTimestamp;
+            minSaleIdKeys[blockCount] = minSaleIdKey;
+            maxSaleIdKeys[blockCount] = maxSaleIdKey;
+            blockCount++;
+            indexedLength = end;
+        }
+        return new SaleJournalIndex(segmentLength, blockCount, starts, ends,
+                minTimestamps, maxTimestamps, minSaleIdKeys, maxSaleIdKeys);
+    }
+
+    /**
+     * Retrieves the length of the segment when the index was read.
+     *
+     * @return the length of the segment in bytes.
+     */
+    int getSegmentLength() {
+        return segmentLength;
+    }
+
+    /**
+     * Retrieves the position in the segment after the last indexed block. The records from
+     * there on aren't covered by the index.
+     *
+     * @return the position after the last block, or after the segment header if there are no blocks.
+     */
+    int getIndexedLength() {
+        return blockCount == 0 ? SaleJournal.SEGMENT_HEADER_SIZE : ends[blockCount - 1];
+    }
+
+    /**
+     * Retrieves the number of indexed blocks.
+     *
+     * @return the number of blocks.
+     */
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Calls an action with every block that can hold a sale with a timestamp in the specified range.
+     *
+     * @param lowest  the lowest timestamp, in milliseconds since the Unix epoch.
+     * @param highest the highest timestamp, in milliseconds since the Unix epoch.
+     * @param action  the action called with the start and end of every block, in segment order.
+     * @throws IOException if the action fails.
+     */
+    void forEachBlockWithTimestamps(long lowest, long highest, BlockAction action) throws IOException {
+        forEachBlock(timestamps, lowest, highest, action);
+    }
+
+    /**
+     * Calls an action with every block that can hold a sale with the specified sale id key.
+     *
+     * @param saleIdKey the key of the sale id, see {@link SaleRecordCodec#saleIdKey}.
+     * @param action    the action called with the start and end of every block, in segment order.
+     * @throws IOException if the action fails.
+     */
+    void forEachBlockWithSaleIdKey(long saleIdKey, BlockAction action) throws IOException {
+        forEachBlock(saleIdKeys, saleIdKey, saleIdKey, action);
+    }
+
+    private void forEachBlock(Bounds bounds, long lowest, long highest, BlockAction action) throws IOException {
+        int first = bounds.firstBlockReaching(lowest);
+        int end = bounds.firstBlockBeyond(highest);
+        for (int block = first; block < end; block++) {
+            if (bounds.min[block] <= highest && bounds.max[block] >= lowest) {
+                action.accept(starts[block], ends[block]);
+            }
+        }
+    }
+
+    /**
+     * An action on a block of records in a segment.
+     */
+    @FunctionalInterface
+    interface BlockAction {
+
+        /**
+         * Performs the action on a block.
+         *
+         * @param start the position of the first record of the block in the segment.
+         * @param end   the position after the last record of the block.
+         * @throws IOException if the block can't be read.
+         */
+        void accept(int start, int end) throws IOException;
+    }
+
+    /**
+     * The lowest and highest value of one kind in every block, with the running maximum from
+     * the first block and the running minimum from the last block, which are both ascending.
+     */
+    private static final class Bounds {
+
+        private final long[] min;
+        private final long[] max;
+        private final long[] maxUpTo;
+        private final long[] minFrom;
+
+        private Bounds(int blockCount, long[] min, long[] max) {
+            this.min = min;
+            this.max = max;
+            this.maxUpTo = new long[blockCount];
+            this.minFrom = new long[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+                maxUpTo[block] = block == 0 ? max[block] : Math.max(maxUpTo[block - 1], max[block]);
+            }
+            for (int block = blockCount - 1; block >= 0; block--) {
+                minFrom[block] = block == blockCount - 1 ? min[block] : Math.min(minFrom[block + 1], min[block]);
+            }
+        }
+
+        private int firstBlockReaching(long lowest) {
+            int low = 0;
+            int high = maxUpTo.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (maxUpTo[middle] < lowest) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int firstBlockBeyond(long highest) {
+            int low = 0;
+            int high = minFrom.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (minFrom[middle] <= highest) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
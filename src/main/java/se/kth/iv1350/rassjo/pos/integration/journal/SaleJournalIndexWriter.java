@@ -0,0 +1,159 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes the {@link SaleJournalIndex} of a segment while the segment is written. Every
+ * {@value SaleJournalIndex#RECORDS_PER_BLOCK} records, an entry with the position and the
+ * bounds of the block is appended to the index file, and the last block is added when the
+ * segment is closed.
+ * <p>
+ * The index isn't forced to disk, since it can always be derived from the segment; an index
+ * that lacks its last entries only makes the reader decode more records. Records that aren't
+ * sale records are given bounds that match every query, so they are never left out.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+final class SaleJournalIndexWriter implements AutoCloseable {
+
+    private static final int ENTRIES_PER_WRITE = 64;
+
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final CRC32C checksum;
+    private int position;
+    private int blockStart;
+    private int blockRecords;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private long minSaleIdKey;
+    private long maxSaleIdKey;
+
+    private SaleJournalIndexWriter(FileChannel channel) {
+        this.channel = channel;
+        this.entries = ByteBuffer.allocate(SaleJournalIndex.ENTRY_SIZE * ENTRIES_PER_WRITE);
+        this.checksum = new CRC32C();
+        this.position = SaleJournal.SEGMENT_HEADER_SIZE;
+        this.blockStart = position;
+        resetBlock();
+    }
+
+    /**
+     * Creates the index file of a new segment, replacing any index file left by an earlier
+     * segment with the same name.
+     *
+     * @param segmentFile the path of the segment.
+     * @return the {@link SaleJournalIndexWriter} of the segment.
+     * @throws IOException if the index file can't be created.
+     */
+    static SaleJournalIndexWriter create(Path segmentFile) throws IOException {
+        FileChannel channel = FileChannel.open(SaleJournalIndex.indexFile(segmentFile),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SaleJournalIndex.HEADER_SIZE)
+                .putInt(SaleJournalIndex.MAGIC).putInt(SaleJournalIndex.FORMAT_VERSION).flip();
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new SaleJournalIndexWriter(channel);
+    }
+
+    /**
+     * Indexes records that have been written to the segment, right after the records indexed before.
+     *
+     * @param records the written records with their headers, from the position to the limit.
+     *                The position and limit are changed.
+     * @throws IOException if an entry can't be written.
+     */
+    void index(ByteBuffer records) throws IOException {
+        int end = records.limit();
+        while (records.position() < end) {
+            int recordStart = records.position();
+            int length = records.getInt(recordStart);
+            int payloadStart = recordStart + SaleJournal.RECORD_HEADER_SIZE;
+            records.limit(payloadStart + length).position(payloadStart);
+            addRecord(records);
+            records.limit(end).position(payloadStart + length);
+            position += SaleJournal.RECORD_HEADER_SIZE + length;
+            if (++blockRecords == SaleJournalIndex.RECORDS_PER_BLOCK) {
+                addEntry();
+            }
+        }
+        writeEntries();
+    }
+
+    /**
+     * Adds the last block of the segment to the index and closes the index file.
+     *
+     * @throws IOException if the entry can't be written or the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (blockRecords > 0) {
+                addEntry();
+            }
+            writeEntries();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void addRecord(ByteBuffer payload) {
+        long timestamp;
+        long saleIdKey;
+        try {
+            timestamp = SaleRecordCodec.readTimestamp(payload);
+            saleIdKey = SaleRecordCodec.readSaleIdKey(payload);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            minTimestamp = Long.MIN_VALUE;
+            maxTimestamp = Long.MAX_VALUE;
+            minSaleIdKey = Long.MIN_VALUE;
+            maxSaleIdKey = Long.MAX_VALUE;
+            return;
+        }
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        minSaleIdKey = Math.min(minSaleIdKey, saleIdKey);
+        maxSaleIdKey = Math.max(maxSaleIdKey, saleIdKey);
+    }
+
+    private void addEntry() throws IOException {
+        if (!entries.hasRemaining()) {
+            writeEntries();
+        }
+        int entryStart = entries.position();
+        entries.putInt(blockStart).putInt(position)
+                .putLong(minTimestamp).putLong(maxTimestamp).putLong(minSaleIdKey).putLong(maxSaleIdKey);
+        checksum.reset();
+        checksum.update(entries.array(), entryStart, SaleJournalIndex.ENTRY_SIZE - Integer.BYTES);
+        entries.putInt((int) checksum.getValue());
+        blockStart = position;
+        resetBlock();
+    }
+
+    private void writeEntries() throws IOException {
+        entries.flip();
+        while (entries.hasRemaining()) {
+            channel.write(entries);
+        }
+        entries.clear();
+    }
+
+    private void resetBlock() {
+        blockRecords = 0;
+        minTimestamp = Long.MAX_VALUE;
+        maxTimestamp = Long.MIN_VALUE;
+        minSaleIdKey = Long.MAX_VALUE;
+        maxSaleIdKey = Long.MIN_VALUE;
+    }
+}
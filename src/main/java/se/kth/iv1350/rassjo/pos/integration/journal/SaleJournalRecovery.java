@@ -0,0 +1,198 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecoveredSalesDTO;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Rebuilds the running state of the store from a {@link SaleJournal} when the system is started:
+ * the number of sales with their revenue and VAT, the cash taken in by every lane, the quantity
+ * sold of every item and the id of the last sale.
+ * <p>
+ * The totals of the segments up to some segment are read from the journal's checkpoint, so only
+ * the segments written after it are replayed. Those are memory-mapped and replayed in parallel
+ * on a {@link ForkJoinPool}, each into totals of its own, which are then combined in segment
+ * order; only the id of the last sale depends on the order of the sales, and it is taken from
+ * the last segment that has any. The checksum of every record is verified.
+ * <p>
+ * A crash while a commit is written leaves an incomplete or corrupt record at the end of the
+ * last segment. That torn tail is cut off, since the sales in it were never reported as
+ * durable. A damaged record anywhere else makes the recovery fail, since records after it were
+ * durable and would be lost. When the segments have been replayed a new checkpoint is written,
+ * and the recovery time is written to the log.
+ */
+public final class SaleJournalRecovery {
+
+    private final ForkJoinPool pool;
+    private final FileLogger logger;
+
+    /**
+     * Creates a new {@link SaleJournalRecovery} that replays on the common fork-join pool.
+     */
+    public SaleJournalRecovery() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new {@link SaleJournalRecovery} that replays on the specified pool.
+     *
+     * @param pool the {@link ForkJoinPool} used to replay the segments.
+     */
+    public SaleJournalRecovery(ForkJoinPool pool) {
+        this.pool = pool;
+        this.logger = FileLogger.getInstance();
+    }
+
+    /**
+     * Rebuilds the running state from the journal in the specified directory. Must not be called
+     * while a journal is writing to the directory; run it as the {@link SaleJournal.Recovery} of
+     * the journal that is opened in the directory, so that the directory is locked first.
+     *
+     * @param directory the directory of the segment files.
+     * @return a {@link RecoveredSalesDTO} with the rebuilt state.
+     * @throws IOException if a segment can't be read, truncated or replayed, contains a damaged
+     *                     record before its end, or if the new checkpoint can't be written.
+     */
+    public RecoveredSalesDTO recover(Path directory) throws IOException {
+        long startNanos = System.nanoTime();
+        JournalTotals totals = SaleJournalCheckpoint.read(directory);
+        int checkpointedSegment = totals.getLastSegment();
+        List<Path> segments = segmentsBetween(directory, checkpointedSegment, Integer.MAX_VALUE);
+        if (!segments.isEmpty()) {
+            try {
+                totals.addAll(pool.invoke(new ReplayTask(segments, 0, segments.size())));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            SaleJournalCheckpoint.write(directory, totals);
+        }
+
+        Duration recoveryTime = Duration.ofNanos(System.nanoTime() - startNanos);
+        logger.info("Recovered " + totals.getSaleCount() + " sales from the sale journal in " + recoveryTime.toMillis()
+                + " ms, replaying " + segments.size() + " segments after the checkpoint of segment "
+                + checkpointedSegment + " using " + pool.getParallelism() + " threads.");
+        return totals.toDTO(segments.size(), recoveryTime);
+    }
+
+    /**
+     * Adds the segments after the checkpoint in the specified directory, up to and including the
+     * specified segment, to the checkpoint. Does nothing if the checkpoint already covers the segment.
+     * <p>
+     * This is meant to be the {@link SaleJournal.SegmentListener} of a journal of sales, so that
+     * the checkpoint follows the journal: {@code SaleJournal.open(directory, SaleJournalRecovery::checkpoint)}.
+     *
+     * @param directory   the directory of the segment files.
+     * @param lastSegment the number of the last segment to add; it must not be written to anymore.
+     * @throws IOException if a segment can't be read or is damaged, or if the checkpoint can't be written.
+     */
+    public static void checkpoint(Path directory, int lastSegment) throws IOException {
+        JournalTotals totals = SaleJournalCheckpoint.read(directory);
+        List<Path> segments = segmentsBetween(directory, totals.getLastSegment(), lastSegment);
+        if (segments.isEmpty()) {
+            return;
+        }
+        for (Path segmentFile : segments) {
+            totals.addAll(replaySegment(segmentFile, false));
+        }
+        SaleJournalCheckpoint.write(directory, totals);
+        FileLogger.getInstance().debug("Wrote a checkpoint of the sale journal up to segment " + lastSegment + ".");
+    }
+
+    private static List<Path> segmentsBetween(Path directory, int afterSegment, int lastSegment) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        for (Path segmentFile : SaleJournal.listSegments(directory)) {
+            int number = SaleJournal.segmentNumber(segmentFile);
+            if (number > afterSegment && number <= lastSegment) {
+                segments.add(segmentFile);
+            }
+        }
+        return segments;
+    }
+
+    private static JournalTotals replaySegment(Path segmentFile, boolean lastSegment) throws IOException {
+        ByteBuffer content = SaleJournal.mapSegment(segmentFile);
+        JournalTotals totals = new JournalTotals();
+        SaleRecord record = new SaleRecord();
+        int validLength;
+        try {
+            validLength = SaleJournal.readSegment(segmentFile, content, payload -> {
+                SaleRecordCodec.decode(payload, record);
+                totals.add(record);
+            }, lastSegment);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException(segmentFile + " has a record that can't be decoded.", e);
+        }
+        totals.completeSegment(SaleJournal.segmentNumber(segmentFile));
+
+        if (validLength < content.limit()) {
+            cutTornTail(segmentFile, validLength, content.limit());
+        }
+        return totals;
+    }
+
+    private static void cutTornTail(Path segmentFile, int validLength, int length) throws IOException {
+        FileLogger logger = FileLogger.getInstance();
+        if (validLength < SaleJournal.SEGMENT_HEADER_SIZE) {
+            Files.delete(segmentFile);
+            logger.warn("Deleted " + segmentFile.getFileName() + ", which has an incomplete header.");
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        logger.warn("Cut off a torn tail of " + (length - validLength) + " bytes at position " + validLength
+                + " of " + segmentFile.getFileName() + ".");
+    }
+
+    /**
+     * Replays a range of segments. Ranges of more than one segment are split in two and
+     * replayed in parallel. The last segment of the journal may have a torn tail.
+     */
+    private static final class ReplayTask extends RecursiveTask<JournalTotals> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Path> segments;
+        private final int start;
+        private final int end;
+
+        private ReplayTask(List<Path> segments, int start, int end) {
+            this.segments = segments;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected JournalTotals compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                ReplayTask first = new ReplayTask(segments, start, middle);
+                ReplayTask second = new ReplayTask(segments, middle, end);
+                first.fork();
+                JournalTotals later = second.compute();
+                JournalTotals totals = first.join();
+                totals.addAll(later);
+                return totals;
+            }
+            try {
+                return replaySegment(segments.get(start), start == segments.size() - 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+import se.kth.iv1350.rassjo.pos.model.Amount;
+import se.kth.iv1350.rassjo.pos.model.Sale;
+import se.kth.iv1350.rassjo.pos.model.SaleItem;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A paid sale in the form it is persisted and shipped in: primitive values only, with all
+ * amounts in öre. Instances are mutable and meant to be reused, so that encoding or decoding
+ * millions of sales with {@link SaleRecordCodec} doesn't create any objects per sale; the
+ * arrays only grow when a sale has more items or VAT rates than any sale before it.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+public final class SaleRecord {
+
+    private static final int INITIAL_ID_CAPACITY = 16;
+    private static final int INITIAL_ITEM_CAPACITY = 16;
+    private static final int INITIAL_RATE_CAPACITY = 4;
+
+    private byte[] saleId;
+    private int saleIdLength;
+    private int laneId;
+    private long timestampMillis;
+    private long totalCost;
+    private long totalVat;
+    private long paidAmount;
+    private int[] itemIds;
+    private int[] quantities;
+    private long[] itemTotals;
+    private int itemCount;
+    private int[] vatRates;
+    private long[] vatAmounts;
+    private int rateCount;
+
+    /**
+     * Creates a new, empty {@link SaleRecord}.
+     */
+    public SaleRecord() {
+        saleId = new byte[INITIAL_ID_CAPACITY];
+        itemIds = new int[INITIAL_ITEM_CAPACITY];
+        quantities = new int[INITIAL_ITEM_CAPACITY];
+        itemTotals = new long[INITIAL_ITEM_CAPACITY];
+        vatRates = new int[INITIAL_RATE_CAPACITY];
+        vatAmounts = new long[INITIAL_RATE_CAPACITY];
+    }
+
+    /**
+     * Fills the record with the details of the specified paid sale, replacing its previous contents.
+     * The amounts are taken in öre from the sale, so nothing is parsed. The VAT per rate is the
+     * VAT that the sale has summed for each rate, in the order the rates were first registered.
+     *
+     * @param laneId the identifier of the lane the sale was made on.
+     * @param sale   the paid {@link Sale}.
+     */
+    public void fill(LaneIdentifierDTO laneId, Sale sale) {
+        setSale(sale.getSaleId(), laneId.id(),
+                sale.getStartTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                sale.getTotalCost().getMinorUnits(),
+                sale.getTotalVat().getMinorUnits(),
+                sale.getPayment() == null ? 0 : sale.getPayment().getPaidAmount().getMinorUnits());
+        for (SaleItem item : sale.getItems()) {
+            addItem(item.getId().id(), item.getQuantity(), item.getFinalTotalPrice().getMinorUnits());
+        }
+        for (Map.Entry<PercentageDTO, Amount> vat : sale.getTotalVatPerRate().entrySet()) {
+            addVat(vat.getKey().percentage(), vat.getValue().getMinorUnits());
+        }
+    }
+
+    /**
+     * Sets the details of the sale as a whole, and removes all items and VAT amounts.
+     *
+     * @param saleId          the id of the sale.
+     * @param laneId          the identifier of the lane the sale was made on.
+     * @param timestampMillis the time of the sale, in milliseconds since the Unix epoch.
+     * @param totalCost       the total cost including VAT.
+     * @param totalVat        the total VAT.
+     * @param paidAmount      the amount paid by the customer.
+     */
+    public void setSale(String saleId, int laneId, long timestampMillis, long totalCost, long totalVat, long paidAmount) {
+        setSaleId(saleId);
+        setTotals(laneId, timestampMillis, totalCost, totalVat, paidAmount);
+    }
+
+    /**
+     * Adds an item to the sale.
+     *
+     * @param itemId     the identifier of the item.
+     * @param quantity   the sold quantity.
+     * @param totalPrice the total price of the sold quantity, including VAT.
+     */
+    public void addItem(int itemId, int quantity, long totalPrice) {
+        if (itemCount == itemIds.length) {
+            int capacity = itemCount * 2;
+            itemIds = Arrays.copyOf(itemIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            itemTotals = Arrays.copyOf(itemTotals, capacity);
+        }
+        itemIds[itemCount] = itemId;
+        quantities[itemCount] = quantity;
+        itemTotals[itemCount] = totalPrice;
+        itemCount++;
+    }
+
+    /**
+     * Adds VAT of the specified rate to the sale, summing it with the VAT already added for that rate.
+     *
+     * @param vatRate the VAT rate, as a whole percentage.
+     * @param vat     the VAT to add.
+     */
+    public void addVat(int vatRate, long vat) {
+        for (int i = 0; i < rateCount; i++) {
+            if (vatRates[i] == vatRate) {
+                vatAmounts[i] += vat;
+                return;
+            }
+        }
+        if (rateCount == vatRates.length) {
+            vatRates = Arrays.copyOf(vatRates, rateCount * 2);
+            vatAmounts = Arrays.copyOf(vatAmounts, rateCount * 2);
+        }
+        vatRates[rateCount] = vatRate;
+        vatAmounts[rateCount] = vat;
+        rateCount++;
+    }
+
+    /**
+     * Retrieves the id of the sale. Creates a new string on every call.
+     *
+     * @return the sale id.
+     */
+    public String getSaleId() {
+        return new String(saleId, 0, saleIdLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether the sale has the specified id, without creating a string.
+     *
+     * @param id the sale id to compare with.
+     * @return {@code true} if the sale has the id.
+     */
+    public boolean hasSaleId(String id) {
+        if (!isAscii(id)) {
+            return getSaleId().equals(id);
+        }
+        if (id.length() != saleIdLength) {
+            return false;
+        }
+        for (int i = 0; i < saleIdLength; i++) {
+            if (saleId[i] != (byte) id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the id of the sale with the specified id as strings are compared, without
+     * creating a string.
+     *
+     * @param id the sale id to compare with.
+     * @return a negative number, zero or a positive number if the id of the sale comes before,
+     *         is equal to or comes after the specified id.
+     */
+    public int compareSaleIdTo(String id) {
+        if (!isAscii(id)) {
+            return getSaleId().compareTo(id);
+        }
+        int length = Math.min(saleIdLength, id.length());
+        for (int i = 0; i < length; i++) {
+            if (saleId[i] < 0) {
+                return getSaleId().compareTo(id);
+            }
+            int difference = saleId[i] - id.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return saleIdLength - id.length();
+    }
+
+    /**
+     * Retrieves the identifier of the lane the sale was made on.
+     *
+     * @return the lane identifier.
+     */
+    public int getLaneId() {
+        return laneId;
+    }
+
+    /**
+     * Retrieves the time of the sale.
+     *
+     * @return the time in milliseconds since the Unix epoch.
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Retrieves the total cost of the sale, including VAT.
+     *
+     * @return the total cost in öre.
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Retrieves the total VAT of the sale.
+     *
+     * @return the total VAT in öre.
+     */
+    public long getTotalVat() {
+        return totalVat;
+    }
+
+    /**
+     * Retrieves the amount paid by the customer.
+     *
+     * @return the paid amount in öre.
+     */
+    public long getPaidAmount() {
+        return paidAmount;
+    }
+
+    /**
+     * Retrieves the number of distinct items in the sale.
+     *
+     * @return the number of items.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Retrieves the identifier of an item in the sale.
+     *
+     * @param index the index of the item, from 0 to the item count.
+     * @return the item identifier.
+     */
+    public int getItemId(int index) {
+        return itemIds[checkIndex(index, itemCount)];
+    }
+
+    /**
+     * Retrieves the sold quantity of an item in the sale.
+     *
+     * @param index the index of the item, from 0 to the item count.
+     * @return the quantity.
+     */
+    public int getQuantity(int index) {
+        return quantities[checkIndex(index, itemCount)];
+    }
+
+    /**
+     * Retrieves the total price of the sold quantity of an item, including VAT.
+     *
+     * @param index the index of the item, from 0 to the item count.
+     * @return the total price in öre.
+     */
+    public long getItemTotal(int index) {
+        return itemTotals[checkIndex(index, itemCount)];
+    }
+
+    /**
+     * Retrieves the number of VAT rates in the sale.
+     *
+     * @return the number of VAT rates.
+     */
+    public int getRateCount() {
+        return rateCount;
+    }
+
+    /**
+     * Retrieves one of the VAT rates in the sale.
+     *
+     * @param index the index of the rate, from 0 to the rate count.
+     * @return the VAT rate as a whole percentage.
+     */
+    public int getVatRate(int index) {
+        return vatRates[checkIndex(index, rateCount)];
+    }
+
+    /**
+     * Retrieves the VAT of one of the VAT rates in the sale.
+     *
+     * @param index the index of the rate, from 0 to the rate count.
+     * @return the VAT in öre.
+     */
+    public long getVatAmount(int index) {
+        return vatAmounts[checkIndex(index, rateCount)];
+    }
+
+    /**
+     * Sets the details of the sale as a whole except its id, and removes all items and VAT amounts.
+     *
+     * @param laneId          the identifier of the lane the sale was made on.
+     * @param timestampMillis the time of the sale, in milliseconds since the Unix epoch.
+     * @param totalCost       the total cost including VAT.
+     * @param totalVat        the total VAT.
+     * @param paidAmount      the amount paid by the customer.
+     */
+    void setTotals(int laneId, long timestampMillis, long totalCost, long totalVat, long paidAmount) {
+        this.laneId = laneId;
+        this.timestampMillis = timestampMillis;
+        this.totalCost = totalCost;
+        this.totalVat = totalVat;
+        this.paidAmount = paidAmount;
+        itemCount = 0;
+        rateCount = 0;
+    }
+
+    /**
+     * Retrieves the length of the UTF-8 encoded sale id.
+     *
+     * @return the length in bytes.
+     */
+    int getSaleIdLength() {
+        return saleIdLength;
+    }
+
+    /**
+     * Retrieves the array holding the UTF-8 encoded sale id, which may be longer than the id.
+     *
+     * @return the internal array, which must not be modified.
+     */
+    byte[] getSaleIdBytes() {
+        return saleId;
+    }
+
+    /**
+     * Retrieves an array with room for a sale id of the specified length, to decode a sale id
+     * into. The sale id is set to that length.
+     *
+     * @param length the length of the UTF-8 encoded sale id.
+     * @return the internal array to copy the sale id into.
+     */
+    byte[] prepareSaleId(int length) {
+        if (saleId.length < length) {
+            saleId = new byte[Math.max(length, saleId.length * 2)];
+        }
+        saleIdLength = length;
+        return saleId;
+    }
+
+    private void setSaleId(String id) {
+        if (!isAscii(id)) {
+            byte[] encoded = id.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(encoded, 0, prepareSaleId(encoded.length), 0, encoded.length);
+            return;
+        }
+        byte[] target = prepareSaleId(id.length());
+        for (int i = 0; i < id.length(); i++) {
+            target[i] = (byte) id.charAt(i);
+        }
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count + ".");
+        }
+        return index;
+    }
+}
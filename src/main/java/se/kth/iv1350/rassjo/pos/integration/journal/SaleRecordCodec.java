@@ -0,0 +1,219 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes {@link SaleRecord}s into a compact, versioned binary format, and decodes them again.
+ * <p>
+ * A record starts with the format version in one byte, followed by the timestamp in epoch
+ * milliseconds as a fixed eight-byte value, so that it can be read with
+ * {@link #readTimestamp} without decoding the rest. Then follow the lane identifier, the sale
+ * id, the total cost, the total VAT and the paid amount, the items with their identifier,
+ * quantity and total price, and the VAT per rate. Counts, identifiers, quantities and rates are
+ * unsigned variable-length integers of seven bits per byte, and amounts are zigzag-encoded
+ * variable-length longs, so typical sales take a few bytes per item.
+ * <p>
+ * Both directions work directly on the buffer and the reusable record, without creating any
+ * objects.
+ */
+public final class SaleRecordCodec {
+
+    /**
+     * The version of the format written by {@link #encode}.
+     */
+    public static final byte VERSION = 1;
+
+    static final int TIMESTAMP_OFFSET = 1;
+
+    private static final int MAX_VARINT_SIZE = 5;
+    private static final int MAX_VARLONG_SIZE = 10;
+    private static final int FIXED_SIZE = 1 + Long.BYTES + MAX_VARINT_SIZE * 3 + MAX_VARLONG_SIZE * 3;
+    private static final int MAX_ITEM_SIZE = MAX_VARINT_SIZE * 2 + MAX_VARLONG_SIZE;
+    private static final int MAX_RATE_SIZE = MAX_VARINT_SIZE + MAX_VARLONG_SIZE;
+
+    private SaleRecordCodec() {
+    }
+
+    /**
+     * Retrieves the largest number of bytes that {@link #encode} can write for the specified record.
+     *
+     * @param record the {@link SaleRecord} to encode.
+     * @return the maximum encoded size in bytes.
+     */
+    public static int maxEncodedSize(SaleRecord record) {
+        return FIXED_SIZE + record.getSaleIdLength()
+                + record.getItemCount() * MAX_ITEM_SIZE + record.getRateCount() * MAX_RATE_SIZE;
+    }
+
+    /**
+     * Encodes the specified record into the buffer, starting at its position. The position is
+     * moved past the encoded record.
+     *
+     * @param record the {@link SaleRecord} to encode.
+     * @param target the buffer to encode into.
+     * @throws BufferOverflowException if the buffer doesn't have room for the record; see {@link #maxEncodedSize}.
+     */
+    public static void encode(SaleRecord record, ByteBuffer target) {
+        target.put(VERSION);
+        target.putLong(record.getTimestampMillis());
+        putVarInt(target, record.getLaneId());
+        putVarInt(target, record.getSaleIdLength());
+        target.put(record.getSaleIdBytes(), 0, record.getSaleIdLength());
+        putVarLong(target, record.getTotalCost());
+        putVarLong(target, record.getTotalVat());
+        putVarLong(target, record.getPaidAmount());
+
+        putVarInt(target, record.getItemCount());
+        for (int i = 0; i < record.getItemCount(); i++) {
+            putVarInt(target, record.getItemId(i));
+            putVarInt(target, record.getQuantity(i));
+            putVarLong(target, record.getItemTotal(i));
+        }
+        putVarInt(target, record.getRateCount());
+        for (int i = 0; i < record.getRateCount(); i++) {
+            putVarInt(target, record.getVatRate(i));
+            putVarLong(target, record.getVatAmount(i));
+        }
+    }
+
+    /**
+     * Decodes a record from the buffer, starting at its position, into the specified record,
+     * replacing its previous contents. The position is moved past the decoded record.
+     *
+     * @param source the buffer to decode from.
+     * @param target the {@link SaleRecord} to decode into.
+     * @throws IllegalArgumentException if the record has an unsupported format version.
+     * @throws BufferUnderflowException if the buffer ends before the record does.
+     */
+    public static void decode(ByteBuffer source, SaleRecord target) {
+        byte version = source.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported sale record version " + version + ".");
+        }
+        long timestampMillis = source.getLong();
+        int laneId = getVarInt(source);
+        int saleIdLength = getVarInt(source);
+        source.get(target.prepareSaleId(saleIdLength), 0, saleIdLength);
+        target.setTotals(laneId, timestampMillis, getVarLong(source), getVarLong(source), getVarLong(source));
+
+        int itemCount = getVarInt(source);
+        for (int i = 0; i < itemCount; i++) {
+            target.addItem(getVarInt(source), getVarInt(source), getVarLong(source));
+        }
+        int rateCount = getVarInt(source);
+        for (int i = 0; i < rateCount; i++) {
+            target.addVat(getVarInt(source), getVarLong(source));
+        }
+    }
+
+    /**
+     * Reads the timestamp of the record starting at the buffer's position, without decoding the
+     * rest of it or moving the position.
+     *
+     * @param source the buffer holding an encoded record.
+     * @return the time of the sale in milliseconds since the Unix epoch.
+     * @throws IllegalArgumentException if the record has an unsupported format version.
+     */
+    public static long readTimestamp(ByteBuffer source) {
+        byte version = source.get(source.position());
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported sale record version " + version + ".");
+        }
+        return source.getLong(source.position() + TIMESTAMP_OFFSET);
+    }
+
+    /**
+     * Reads the key of the sale id of the record starting at the buffer's position, without
+     * decoding the rest of it or moving the position. See {@link #saleIdKey}.
+     *
+     * @param source the buffer holding an encoded record.
+     * @return the key of the sale id.
+     * @throws IllegalArgumentException if the record has an unsupported format version.
+     * @throws IndexOutOfBoundsException if the buffer ends before the sale id does.
+     */
+    static long readSaleIdKey(ByteBuffer source) {
+        byte version = source.get(source.position());
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported sale record version " + version + ".");
+        }
+        int position = source.position() + TIMESTAMP_OFFSET + Long.BYTES;
+        while (source.get(position) < 0) {
+            position++;
+        }
+        position++;
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = source.get(position++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        long key = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            key = key << 8 | (i < length ? source.get(position + i) & 0xFF : 0);
+        }
+        return key ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Retrieves the key of a sale id: its first eight UTF-8 bytes as a number, ordered so that
+     * ids that compare as lower strings never get a higher key. Different ids can have the same
+     * key, so the key can only rule a sale id out.
+     *
+     * @param saleId the sale id.
+     * @return the key of the sale id.
+     */
+    static long saleIdKey(String saleId) {
+        byte[] bytes = saleId.getBytes(StandardCharsets.UTF_8);
+        long key = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            key = key << 8 | (i < bytes.length ? bytes[i] & 0xFF : 0);
+        }
+        return key ^ Long.MIN_VALUE;
+    }
+
+    private static void putVarInt(ByteBuffer target, int value) {
+        while ((value & ~0x7F) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.put((byte) value);
+    }
+
+    private static void putVarLong(ByteBuffer target, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            target.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        target.put((byte) zigzag);
+    }
+
+    private static int getVarInt(ByteBuffer source) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = source.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer in sale record.");
+    }
+
+    private static long getVarLong(ByteBuffer source) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = source.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer in sale record.");
+    }
+}
@@ -0,0 +1,163 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.Mapper;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ZReportSummaryDTO;
+import se.kth.iv1350.rassjo.pos.model.Amount;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Writes the Z-report of a day, i.e. the totals of all paid sales of the day per item, VAT rate,
+ * hour and lane, from the segments of a {@link SaleJournal}.
+ * <p>
+ * The segments are split between the workers of a {@link ForkJoinPool}. Every segment is
+ * memory-mapped and scanned into {@link ZReportTotals} of its own, made of primitive counters,
+ * and the totals are merged pairwise as the tasks complete. The time of every sale is read
+ * without decoding the rest of the record, so sales of other days are skipped cheaply. The
+ * report is then written line by line to a {@link Writer}, without building it in memory.
+ * <p>
+ * The journal can be written while the report is generated. The last segment is only read up
+ * to its last whole record, so sales that are still being written are left out.
+ */
+public final class ZReportGenerator {
+
+    private final ForkJoinPool pool;
+    private final FileLogger logger;
+
+    /**
+     * Creates a new {@link ZReportGenerator} that scans on the common fork-join pool.
+     */
+    public ZReportGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new {@link ZReportGenerator} that scans on the specified pool.
+     *
+     * @param pool the {@link ForkJoinPool} used to scan the segments.
+     */
+    public ZReportGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+        this.logger = FileLogger.getInstance();
+    }
+
+    /**
+     * Writes the Z-report of a day in the system's time zone from the journal in the specified directory.
+     *
+     * @param directory the directory of the segment files.
+     * @param day       the day to report.
+     * @param out       the {@link Writer} the report is written to. It is flushed, but not closed.
+     * @return a {@link ZReportSummaryDTO} with the main totals of the report.
+     * @throws IOException if a segment can't be read or is damaged, or if writing the report fails.
+     */
+    public ZReportSummaryDTO writeReport(Path directory, LocalDate day, Writer out) throws IOException {
+        return writeReport(directory, day, ZoneId.systemDefault(), out);
+    }
+
+    /**
+     * Writes the Z-report of a day in the specified time zone from the journal in the specified directory.
+     *
+     * @param directory the directory of the segment files.
+     * @param day       the day to report.
+     * @param zone      the time zone that the day and its hours are in.
+     * @param out       the {@link Writer} the report is written to. It is flushed, but not closed.
+     * @return a {@link ZReportSummaryDTO} with the main totals of the report.
+     * @throws IOException if a segment can't be read or is damaged, or if writing the report fails.
+     */
+    public ZReportSummaryDTO writeReport(Path directory, LocalDate day, ZoneId zone, Writer out) throws IOException {
+        long startNanos = System.nanoTime();
+        long dayStartMillis = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long dayEndMillis = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        List<Path> segments = SaleJournal.listSegments(directory);
+
+        ZReportTotals totals;
+        if (segments.isEmpty()) {
+            totals = new ZReportTotals(dayStartMillis, dayEndMillis);
+        } else {
+            try {
+                totals = pool.invoke(new ScanTask(segments, 0, segments.size(), dayStartMillis, dayEndMillis));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        out.write(String.format("Z-report for %s%n%n", day));
+        totals.writeTo(out, zone);
+        out.flush();
+
+        Duration reportTime = Duration.ofNanos(System.nanoTime() - startNanos);
+        logger.info("Wrote the Z-report for " + day + " with " + totals.getSaleCount() + " sales from "
+                + segments.size() + " segments in " + reportTime.toMillis() + " ms using " + pool.getParallelism() + " threads.");
+        return new ZReportSummaryDTO(day, totals.getSaleCount(), Mapper.toDTO(Amount.ofMinorUnits(totals.getTotalRevenue())),
+                Mapper.toDTO(Amount.ofMinorUnits(totals.getTotalVat())), segments.size(), reportTime);
+    }
+
+    private static ZReportTotals scanSegment(Path segmentFile, boolean lastSegment, long dayStartMillis, long dayEndMillis)
+            throws IOException {
+        ZReportTotals totals = new ZReportTotals(dayStartMillis, dayEndMillis);
+        SaleRecord record = new SaleRecord();
+        try {
+            SaleJournal.readSegment(segmentFile, SaleJournal.mapSegment(segmentFile), payload -> {
+                if (totals.isDuringDay(SaleRecordCodec.readTimestamp(payload))) {
+                    SaleRecordCodec.decode(payload, record);
+                    totals.add(record);
+                }
+            }, lastSegment);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException(segmentFile + " has a record that can't be decoded.", e);
+        }
+        return totals;
+    }
+
+    /**
+     * Scans a range of segments. Ranges of more than one segment are split in two and scanned
+     * in parallel.
+     */
+    private static final class ScanTask extends RecursiveTask<ZReportTotals> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Path> segments;
+        private final int start;
+        private final int end;
+        private final long dayStartMillis;
+        private final long dayEndMillis;
+
+        private ScanTask(List<Path> segments, int start, int end, long dayStartMillis, long dayEndMillis) {
+            this.segments = segments;
+            this.start = start;
+            this.end = end;
+            this.dayStartMillis = dayStartMillis;
+            this.dayEndMillis = dayEndMillis;
+        }
+
+        @Override
+        protected ZReportTotals compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                ScanTask first = new ScanTask(segments, start, middle, dayStartMillis, dayEndMillis);
+                ScanTask second = new ScanTask(segments, middle, end, dayStartMillis, dayEndMillis);
+                first.fork();
+                ZReportTotals totals = second.compute();
+                totals.addAll(first.join());
+                return totals;
+            }
+            try {
+                return scanSegment(segments.get(start), start == segments.size() - 1, dayStartMillis, dayEndMillis);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
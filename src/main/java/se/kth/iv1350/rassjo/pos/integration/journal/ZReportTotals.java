@@ -0,0 +1,186 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import se.kth.iv1350.rassjo.pos.model.Amount;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * The totals of the sales of one day in a part of a sale journal, per item, VAT rate, hour and
+ * lane, with all amounts in öre. The totals are kept in primitive arrays and
+ * {@link IntLongMap}s, so adding a sale doesn't create any objects once every item, rate and
+ * lane has been seen. Totals of different parts of the journal are combined with {@link #addAll},
+ * in any order.
+ * <p>
+ * The hours are counted from the start of the day, so a day with a daylight saving time change
+ * has 23 or 25 of them.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+final class ZReportTotals {
+
+    private static final long MILLIS_PER_HOUR = 3_600_000;
+    private static final int MAX_HOURS_PER_DAY = 25;
+
+    private final long dayStartMillis;
+    private final long dayEndMillis;
+    private final long[] salesPerHour;
+    private final long[] revenuePerHour;
+    private final IntLongMap salesPerLane;
+    private final IntLongMap revenuePerLane;
+    private final IntLongMap vatPerRate;
+    private final IntLongMap quantityPerItem;
+    private final IntLongMap revenuePerItem;
+    private long saleCount;
+    private long totalRevenue;
+    private long totalVat;
+    private long totalPaid;
+
+    /**
+     * Creates new totals without any sales.
+     *
+     * @param dayStartMillis the start of the day, in milliseconds since the Unix epoch.
+     * @param dayEndMillis   the start of the next day, in milliseconds since the Unix epoch.
+     */
+    ZReportTotals(long dayStartMillis, long dayEndMillis) {
+        this.dayStartMillis = dayStartMillis;
+        this.dayEndMillis = dayEndMillis;
+        this.salesPerHour = new long[MAX_HOURS_PER_DAY];
+        this.revenuePerHour = new long[MAX_HOURS_PER_DAY];
+        this.salesPerLane = new IntLongMap();
+        this.revenuePerLane = new IntLongMap();
+        this.vatPerRate = new IntLongMap();
+        this.quantityPerItem = new IntLongMap();
+        this.revenuePerItem = new IntLongMap();
+    }
+
+    /**
+     * Checks whether a sale made at the specified time belongs to the day of the totals.
+     *
+     * @param timestampMillis the time of the sale, in milliseconds since the Unix epoch.
+     * @return {@code true} if the sale was made during the day.
+     */
+    boolean isDuringDay(long timestampMillis) {
+        return timestampMillis >= dayStartMillis && timestampMillis < dayEndMillis;
+    }
+
+    /**
+     * Adds a sale of the day to the totals.
+     *
+     * @param record the {@link SaleRecord} of the sale.
+     */
+    void add(SaleRecord record) {
+        long revenue = record.getTotalCost();
+        saleCount++;
+        totalRevenue += revenue;
+        totalVat += record.getTotalVat();
+        totalPaid += record.getPaidAmount();
+
+        int hour = (int) ((record.getTimestampMillis() - dayStartMillis) / MILLIS_PER_HOUR);
+        salesPerHour[hour]++;
+        revenuePerHour[hour] += revenue;
+        salesPerLane.add(record.getLaneId(), 1);
+        revenuePerLane.add(record.getLaneId(), revenue);
+        for (int i = 0; i < record.getRateCount(); i++) {
+            vatPerRate.add(record.getVatRate(i), record.getVatAmount(i));
+        }
+        for (int i = 0; i < record.getItemCount(); i++) {
+            quantityPerItem.add(record.getItemId(i), record.getQuantity(i));
+            revenuePerItem.add(record.getItemId(i), record.getItemTotal(i));
+        }
+    }
+
+    /**
+     * Adds the totals of another part of the journal.
+     *
+     * @param other the totals to add.
+     */
+    void addAll(ZReportTotals other) {
+        saleCount += other.saleCount;
+        totalRevenue += other.totalRevenue;
+        totalVat += other.totalVat;
+        totalPaid += other.totalPaid;
+        for (int hour = 0; hour < MAX_HOURS_PER_DAY; hour++) {
+            salesPerHour[hour] += other.salesPerHour[hour];
+            revenuePerHour[hour] += other.revenuePerHour[hour];
+        }
+        salesPerLane.addAll(other.salesPerLane);
+        revenuePerLane.addAll(other.revenuePerLane);
+        vatPerRate.addAll(other.vatPerRate);
+        quantityPerItem.addAll(other.quantityPerItem);
+        revenuePerItem.addAll(other.revenuePerItem);
+    }
+
+    /**
+     * Retrieves the number of sales.
+     *
+     * @return the number of sales.
+     */
+    long getSaleCount() {
+        return saleCount;
+    }
+
+    /**
+     * Retrieves the total cost of the sales, including VAT.
+     *
+     * @return the revenue in öre.
+     */
+    long getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    /**
+     * Retrieves the total VAT of the sales.
+     *
+     * @return the VAT in öre.
+     */
+    long getTotalVat() {
+        return totalVat;
+    }
+
+    /**
+     * Writes the totals as the body of a Z-report, one line at a time: the totals of the day,
+     * followed by the totals per VAT rate, hour, lane and item, each in ascending order. Hours,
+     * lanes and items without sales are left out.
+     *
+     * @param out  the {@link Writer} to write to.
+     * @param zone the time zone of the day, used to label the hours.
+     * @throws IOException if writing fails.
+     */
+    void writeTo(Writer out, ZoneId zone) throws IOException {
+        out.write(String.format("%-16s%16d%n", "Sales:", saleCount));
+        out.write(String.format("%-16s%16s SEK%n", "Revenue:", format(totalRevenue)));
+        out.write(String.format("%-16s%16s SEK%n", "VAT:", format(totalVat)));
+        out.write(String.format("%-16s%16s SEK%n", "Cash paid:", format(totalPaid)));
+        out.write(String.format("%-16s%16s SEK%n", "Change given:", format(totalPaid - totalRevenue)));
+
+        out.write(String.format("%n%-8s%24s%n", "VAT rate", "VAT"));
+        for (int rate : vatPerRate.sortedKeys()) {
+            out.write(String.format("%7d%%%24s%n", rate, format(vatPerRate.get(rate))));
+        }
+
+        out.write(String.format("%n%-8s%8s%16s%n", "Hour", "Sales", "Revenue"));
+        for (int hour = 0; hour < MAX_HOURS_PER_DAY; hour++) {
+            if (salesPerHour[hour] > 0) {
+                int label = Instant.ofEpochMilli(dayStartMillis + hour * MILLIS_PER_HOUR).atZone(zone).getHour();
+                out.write(String.format("%02d:00   %8d%16s%n", label, salesPerHour[hour], format(revenuePerHour[hour])));
+            }
+        }
+
+        out.write(String.format("%n%-8s%8s%16s%n", "Lane", "Sales", "Revenue"));
+        for (int lane : salesPerLane.sortedKeys()) {
+            out.write(String.format("%-8d%8d%16s%n", lane, salesPerLane.get(lane), format(revenuePerLane.get(lane))));
+        }
+
+        out.write(String.format("%n%-8s%8s%16s%n", "Item", "Quantity", "Revenue"));
+        for (int item : quantityPerItem.sortedKeys()) {
+            out.write(String.format("%-8d%8d%16s%n", item, quantityPerItem.get(item), format(revenuePerItem.get(item))));
+        }
+    }
+
+    private static String format(long minorUnits) {
+        return Amount.ofMinorUnits(minorUnits).getAmount();
+    }
+}
@@ -2,20 +2,20 @@ package se.kth.iv1350.rassjo.pos.model;
 
 import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
 /**
  * A monetary amount in Swedish Krona (SEK). This value is immutable.
+ * <p>
+ * The amount is stored as a whole number of öre (1/100 SEK) in a {@code long}, so
+ * arithmetic doesn't allocate any intermediate objects. Results that fall between two
+ * öre are rounded half up (away from zero), and any result that can't be represented
+ * causes an {@link ArithmeticException} instead of silently overflowing.
  */
 public class Amount {
 
-    private static final String DEFAULT_VALUE = "0.00";
-    private static final int HUNDRED_PERCENT = 100;
     private static final int DECIMAL_PLACES = 2;
-    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+    private static final long MINOR_UNITS_PER_SEK = 100;
 
-    private final BigDecimal amount;
+    private final long minorUnits;
 
     /**
      * Creates a new {@link Amount} instance with a default value.
@@ -23,7 +23,7 @@ public class Amount {
      * The default value is 0 SEK.
      */
     Amount() {
-        this(DEFAULT_VALUE);
+        this(0L);
     }
 
     /**
@@ -32,7 +32,7 @@ public class Amount {
      * @param amount the initial value as an integer.
      */
     Amount(int amount) {
-        this(BigDecimal.valueOf(amount));
+        this(Math.multiplyExact(amount, MINOR_UNITS_PER_SEK));
     }
 
     /**
@@ -41,28 +41,48 @@ public class Amount {
      * @param amount the {@code Amount} instance whose value will be copied to the new {@code Amount} instance.
      */
     Amount(Amount amount) {
-        this(amount.getAmount());
+        this(amount.minorUnits);
     }
 
     /**
      * Creates a new {@link Amount} instance with the specified initial value.
      *
      * @param amount the initial value as a {@code String}. The string should
-     *               represent a valid decimal number.
+     *               represent a valid decimal number in plain notation (e.g. "19.95").
+     *               Values with more than two decimals are rounded half up.
+     * @throws NumberFormatException if the string isn't a valid decimal number.
+     * @throws ArithmeticException if the value is too large to be represented.
      */
     public Amount(String amount) {
-        this(new BigDecimal(amount));
+        this(parseMinorUnits(amount));
+    }
+
+    /**
+     * Creates a new {@code Amount} instance with the specified number of öre.
+     *
+     * @param minorUnits the monetary value in öre (1/100 SEK).
+     */
+    private Amount(long minorUnits) {
+        this.minorUnits = minorUnits;
     }
 
     /**
-     * Creates a new {@code Amount} instance with the specified {@code BigDecimal} value.
-     * The value is formatted to have precisely two decimal places.
+     * Creates a new {@link Amount} instance representing the specified number of öre.
      *
-     * @param amount the monetary value to initialize the {@code Amount} instance,
-     *               represented as a {@code BigDecimal}.
+     * @param minorUnits the monetary value in öre (1/100 SEK).
+     * @return a new {@code Amount} instance with the given value.
      */
-    private Amount(BigDecimal amount) {
-        this.amount = formatAmount(amount);
+    public static Amount ofMinorUnits(long minorUnits) {
+        return new Amount(minorUnits);
+    }
+
+    /**
+     * Retrieves the monetary amount as a whole number of öre.
+     *
+     * @return the monetary value in öre (1/100 SEK).
+     */
+    public long getMinorUnits() {
+        return minorUnits;
     }
 
     /**
@@ -71,7 +91,7 @@ public class Amount {
      * @return a {@code String} representing the value of the monetary amount in plain text.
      */
     public String getAmount() {
-        return amount.toPlainString();
+        return formatMinorUnits(minorUnits);
     }
 
     /**
@@ -80,9 +100,10 @@ public class Amount {
      *
      * @param amount the {@code Amount} instance to add to this one.
      * @return a new {@code Amount} instance representing the result of the addition.
+     * @throws ArithmeticException if the result overflows.
      */
     Amount add(Amount amount) {
-        return new Amount(this.amount.add(amount.amount));
+        return new Amount(Math.addExact(this.minorUnits, amount.minorUnits));
     }
 
     /**
@@ -91,9 +112,10 @@ public class Amount {
      *
      * @param amount the {@code Amount} instance to subtract from this one.
      * @return a new {@code Amount} instance representing the result of the substraction.
+     * @throws ArithmeticException if the result overflows.
      */
     Amount subtract(Amount amount) {
-        return new Amount(this.amount.subtract(amount.amount));
+        return new Amount(Math.subtractExact(this.minorUnits, amount.minorUnits));
     }
 
     /**
@@ -101,9 +123,10 @@ public class Amount {
      *
      * @param quantity the quantity by which the current {@code Amount} is to be multiplied.
      * @return a new {@code Amount} instance representing the result of the multiplication.
+     * @throws ArithmeticException if the result overflows.
      */
     Amount multiplyByQuantity(int quantity) {
-        return new Amount(this.amount.multiply(BigDecimal.valueOf(quantity)));
+        return new Amount(Math.multiplyExact(this.minorUnits, quantity));
     }
 
     /**
@@ -112,9 +135,10 @@ public class Amount {
      * @param percentage the {@code PercentageDTO} containing the percentage to add
      *                   (e.g., 25 for a 25% increase).
      * @return a new {@code Amount} instance representing the increased monetary value.
+     * @throws ArithmeticException if the result overflows.
      */
     Amount increaseBy(PercentageDTO percentage) {
-        return new Amount(this.amount.multiply(toIncreaseFactor(percentage)));
+        return multiplyBy(PercentageFactor.increaseOf(percentage));
     }
 
     /**
@@ -123,9 +147,21 @@ public class Amount {
      * @param percentage the {@code PercentageDTO} containing the percentage to decrease
      *                   (e.g., 25 for a 25% reduction).
      * @return a new {@code Amount} instance representing the reduced monetary value.
+     * @throws ArithmeticException if the result overflows.
      */
     Amount decreaseBy(PercentageDTO percentage) {
-        return new Amount(this.amount.multiply(toDecreaseFactor(percentage)));
+        return multiplyBy(PercentageFactor.decreaseOf(percentage));
+    }
+
+    /**
+     * Returns an {@link Amount} representing this amount multiplied by the specified factor.
+     *
+     * @param factor the {@link PercentageFactor} to multiply this amount by.
+     * @return a new {@code Amount} instance representing the result of the multiplication.
+     * @throws ArithmeticException if the result overflows.
+     */
+    Amount multiplyBy(PercentageFactor factor) {
+        return new Amount(factor.applyTo(this.minorUnits));
     }
 
     /**
@@ -138,30 +174,92 @@ public class Amount {
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Amount other)) return false;
-        return this.amount.compareTo(other.amount) == 0;
+        return this.minorUnits == other.minorUnits;
     }
 
     /**
      * Returns the hash code for this {@code Amount} instance. The hash code is based on
-     * the normalized value of the monetary amount, where trailing zeros are stripped.
+     * the monetary value in öre.
      *
-     * @return an integer representing the hash code of the normalized amount.
+     * @return an integer representing the hash code of the amount.
      */
     @Override
     public int hashCode() {
-        BigDecimal normalized = amount.stripTrailingZeros();
-        return normalized.hashCode();
+        return Long.hashCode(minorUnits);
     }
 
-    private BigDecimal toIncreaseFactor(PercentageDTO percentage) {
-        return BigDecimal.valueOf(1 + (double) percentage.percentage() / HUNDRED_PERCENT);
+    /**
+     * Parses a decimal number in plain notation into a whole number of öre, rounding
+     * any further decimals half up.
+     *
+     * @param amount the decimal number to parse, e.g. "19.95".
+     * @return the monetary value in öre.
+     * @throws NumberFormatException if the string isn't a valid decimal number.
+     * @throws ArithmeticException if the value is too large to be represented.
+     */
+    public static long parseMinorUnits(String amount) {
+        int length = amount.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (amount.charAt(0) == '-' || amount.charAt(0) == '+')) {
+            negative = amount.charAt(0) == '-';
+            index++;
+        }
+
+        long whole = 0;
+        int wholeDigits = 0;
+        while (index < length && isDigit(amount.charAt(index))) {
+            whole = Math.addExact(Math.multiplyExact(whole, 10), amount.charAt(index) - '0');
+            wholeDigits++;
+            index++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (index < length && amount.charAt(index) == '.') {
+            index++;
+            while (index < length && isDigit(amount.charAt(index))) {
+                int digit = amount.charAt(index) - '0';
+                if (fractionDigits < DECIMAL_PLACES) {
+                    fraction = fraction * 10 + digit;
+                } else if (fractionDigits == DECIMAL_PLACES) {
+                    roundUp = digit >= 5;
+                }
+                fractionDigits++;
+                index++;
+            }
+        }
+
+        if (index != length || wholeDigits + fractionDigits == 0) {
+            throw new NumberFormatException("Not a valid monetary amount: '" + amount + "'");
+        }
+
+        for (int i = fractionDigits; i < DECIMAL_PLACES; i++) {
+            fraction *= 10;
+        }
+        long minorUnits = Math.addExact(Math.multiplyExact(whole, MINOR_UNITS_PER_SEK), fraction);
+        if (roundUp) {
+            minorUnits = Math.addExact(minorUnits, 1);
+        }
+        return negative ? -minorUnits : minorUnits;
     }
 
-    private BigDecimal toDecreaseFactor(PercentageDTO percentage) {
-        return BigDecimal.valueOf(1 - (double) percentage.percentage() / HUNDRED_PERCENT);
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
-    private BigDecimal formatAmount(BigDecimal amount) {
-        return amount.setScale(DECIMAL_PLACES, ROUNDING_MODE);
+    private static String formatMinorUnits(long minorUnits) {
+        long whole = Math.abs(minorUnits / MINOR_UNITS_PER_SEK);
+        long fraction = Math.abs(minorUnits % MINOR_UNITS_PER_SEK);
+        StringBuilder sb = new StringBuilder(24);
+        if (minorUnits < 0) {
+            sb.append('-');
+        }
+        sb.append(whole).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
     }
 }
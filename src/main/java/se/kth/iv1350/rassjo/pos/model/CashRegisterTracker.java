@@ -16,6 +16,25 @@ public class CashRegisterTracker {
         currentBalance = new Amount(STARTUP_BALANCE);
     }
 
+    /**
+     * Initializes a new {@link CashRegisterTracker} instance with the predefined startup balance
+     * plus the cash that the register took in before the system was restarted.
+     *
+     * @param cashTakenIn the {@link Amount} of cash taken in since the register was started.
+     */
+    public CashRegisterTracker(Amount cashTakenIn) {
+        currentBalance = new Amount(STARTUP_BALANCE).add(cashTakenIn);
+    }
+
+    /**
+     * Retrieves the current balance of the cash register.
+     *
+     * @return the current balance.
+     */
+    public Amount getBalance() {
+        return currentBalance;
+    }
+
     /**
      * Updates the current balance with the paid amount.
      *
@@ -0,0 +1,108 @@
+package se.kth.iv1350.rassjo.pos.model;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+/**
+ * An exact rational factor derived from a percentage, such as {@code 112/100} for
+ * adding 12% VAT or {@code 75/100} for a 25% discount. This value is immutable.
+ * <p>
+ * Factors for whole percentages between 0 and 100 are created once and cached, so
+ * looking up and applying a factor doesn't allocate any objects. The fraction is
+ * stored in lowest terms to keep intermediate products small.
+ */
+public final class PercentageFactor {
+
+    private static final int HUNDRED_PERCENT = 100;
+    private static final PercentageFactor[] INCREASE_FACTORS = new PercentageFactor[HUNDRED_PERCENT + 1];
+    private static final PercentageFactor[] DECREASE_FACTORS = new PercentageFactor[HUNDRED_PERCENT + 1];
+
+    static {
+        for (int percentage = 0; percentage <= HUNDRED_PERCENT; percentage++) {
+            INCREASE_FACTORS[percentage] = new PercentageFactor(HUNDRED_PERCENT + percentage, HUNDRED_PERCENT);
+            DECREASE_FACTORS[percentage] = new PercentageFactor(HUNDRED_PERCENT - percentage, HUNDRED_PERCENT);
+        }
+    }
+
+    private final long numerator;
+    private final long denominator;
+
+    private PercentageFactor(long numerator, long denominator) {
+        long divisor = greatestCommonDivisor(Math.abs(numerator), denominator);
+        this.numerator = numerator / divisor;
+        this.denominator = denominator / divisor;
+    }
+
+    /**
+     * Retrieves the factor that increases an amount by the given percentage, e.g.
+     * {@code 125/100} for 25%.
+     *
+     * @param percentage the {@link PercentageDTO} to increase by.
+     * @return the cached {@link PercentageFactor} for the percentage.
+     */
+    public static PercentageFactor increaseOf(PercentageDTO percentage) {
+        int value = percentage.percentage();
+        if (isCached(value)) {
+            return INCREASE_FACTORS[value];
+        }
+        return new PercentageFactor(HUNDRED_PERCENT + (long) value, HUNDRED_PERCENT);
+    }
+
+    /**
+     * Retrieves the factor that decreases an amount by the given percentage, e.g.
+     * {@code 75/100} for 25%.
+     *
+     * @param percentage the {@link PercentageDTO} to decrease by.
+     * @return the cached {@link PercentageFactor} for the percentage.
+     */
+    public static PercentageFactor decreaseOf(PercentageDTO percentage) {
+        int value = percentage.percentage();
+        if (isCached(value)) {
+            return DECREASE_FACTORS[value];
+        }
+        return new PercentageFactor(HUNDRED_PERCENT - (long) value, HUNDRED_PERCENT);
+    }
+
+    /**
+     * Multiplies the given number of öre by this factor. A result that falls exactly
+     * between two öre is rounded away from zero, like {@code RoundingMode.HALF_UP}.
+     *
+     * @param minorUnits the monetary value in öre.
+     * @return the scaled monetary value in öre.
+     * @throws ArithmeticException if the result overflows.
+     */
+    public long applyTo(long minorUnits) {
+        return divideRoundHalfUp(Math.multiplyExact(minorUnits, numerator), denominator);
+    }
+
+    private static boolean isCached(int percentage) {
+        return percentage >= 0 && percentage <= HUNDRED_PERCENT;
+    }
+
+    private static long divideRoundHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    private static long greatestCommonDivisor(long a, long b) {
+        while (b != 0) {
+            long next = a % b;
+            a = b;
+            b = next;
+        }
+        return a == 0 ? 1 : a;
+    }
+
+    /**
+     * Returns the factor as a fraction, e.g. {@code "28/25"}.
+     *
+     * @return a string representation of the factor.
+     */
+    @Override
+    public String toString() {
+        return numerator + "/" + denominator;
+    }
+}
@@ -17,10 +17,9 @@ public class Sale {
 
 	private final String saleId;
 	private final LocalDateTime startTime;
-	private Amount totalCost;
-	private Amount totalVat;
+	private final SaleTotals totals;
 	private CashPayment payment;
-	private final Map<ItemIdentifierDTO, SaleItem> items;
+	private final SaleItemTable items;
 	private SaleItem lastAddedItem;
 	private SaleStatus status;
 
@@ -70,10 +69,9 @@ public class Sale {
 	private Sale(Builder builder) {
 		this.saleId = builder.saleId;
 		this.startTime = builder.startTime;
-		totalCost = new Amount();
-		totalVat = new Amount();
+		totals = new SaleTotals();
 		payment = null;
-		items = new HashMap<>();
+		items = new SaleItemTable();
 		lastAddedItem = null;
 		status = SaleStatus.REGISTERING;
 	}
@@ -102,7 +100,7 @@ public class Sale {
 	 * @return an {@link Amount} representing the total cost of the sale.
 	 */
 	public Amount getTotalCost() {
-		return totalCost;
+		return Amount.ofMinorUnits(totals.getGrossCost());
 	}
 
 	/**
@@ -112,7 +110,17 @@ public class Sale {
 	 * @return an {@link Amount} representing the total VAT for the sale.
 	 */
 	public Amount getTotalVat() {
-		return totalVat;
+		return Amount.ofMinorUnits(totals.getTotalVat());
+	}
+
+	/**
+	 * Retrieves the total VAT for the sale, divided per VAT rate. The rates are in the
+	 * order they were first registered in the sale.
+	 *
+	 * @return a map from each {@link PercentageDTO VAT rate} in the sale to the total VAT for that rate.
+	 */
+	public Map<PercentageDTO, Amount> getTotalVatPerRate() {
+		return totals.getVatPerRate();
 	}
 
 	/**
@@ -126,12 +134,12 @@ public class Sale {
 	}
 
 	/**
-	 * Retrieves a list of all items in the sale.
+	 * Retrieves a list of all items in the sale, in the order they were first scanned.
 	 *
 	 * @return a list of {@link SaleItem} containing all items in the sale.
 	 */
 	public List<SaleItem> getItems() {
-        return new ArrayList<>(items.values());
+		return items.toList();
 	}
 
 	/**
@@ -162,27 +170,34 @@ public class Sale {
 	 * @return {@code true} if the item is present in the sale, {@code false} otherwise.
 	 */
 	public boolean containsItemWithId(ItemIdentifierDTO itemId) {
-		return items.containsKey(itemId);
+		return items.get(itemId.id()) != null;
 	}
 
 	/**
-	 * Increases the quantity of an item in the sale by a specified amount.
-	 * The item is identified using its identifier.
+	 * Increases the quantity of an item in the sale by a specified amount, if the sale
+	 * contains the item. The item is identified using its identifier.
 	 *
 	 * @param itemId  the {@link ItemIdentifierDTO} of the item whose quantity will be increased.
 	 * @param quantity the quantity by which the item's current quantity should be increased.
+	 * @return {@code true} if the item was found and its quantity increased, {@code false}
+	 * 			if the sale doesn't contain the item.
 	 * @throws ExecutionOrderException if the sale's current status isn't {@link SaleStatus#REGISTERING REGISTERING}.
 	 */
-	public void increaseItemWithId(ItemIdentifierDTO itemId, int quantity) {
+	public boolean increaseItemWithId(ItemIdentifierDTO itemId, int quantity) {
 		if (status != SaleStatus.REGISTERING) {
 			String errorMsg = "You can't increase the quantity of an item when the sale's status is " + status.toString() + ".";
 			throw new ExecutionOrderException(errorMsg, status, SaleStatus.REGISTERING);
 		}
 
-		items.get(itemId).increaseQuantity(quantity);
+		SaleItem item = items.get(itemId.id());
+		if (item == null) {
+			return false;
+		}
+		item.increaseQuantity(quantity);
 
-		updateSaleCost(items.get(itemId), quantity);
-		lastAddedItem = items.get(itemId);
+		updateSaleCost(item, quantity);
+		lastAddedItem = item;
+		return true;
 	}
 
 	/**
@@ -192,6 +207,8 @@ public class Sale {
 	 *                        identifier, name, description, net price, and VAT rate.
 	 * @param quantity        the quantity of the item being added to the sale.
 	 * @throws ExecutionOrderException if the sale's current status isn't {@link SaleStatus#REGISTERING REGISTERING}.
+	 * @throws IllegalArgumentException if the sale already contains the item, in which case
+	 * 			{@link #increaseItemWithId} should be used instead.
 	 */
 	public void addItem(ItemDTO itemInformation, int quantity) {
 		if (status != SaleStatus.REGISTERING) {
@@ -200,19 +217,17 @@ public class Sale {
 		}
 
 		SaleItem item = new SaleItem(itemInformation, quantity);
-		items.put(item.getId(), item);
+		items.add(item.getId().id(), item);
 		lastAddedItem = item;
 
 		updateSaleCost(item, quantity);
 	}
 
 	private void updateSaleCost(SaleItem item, int addedQuantity) {
-		Amount addedNetCost = new Amount(item.getBaseNetPrice().amount()).multiplyByQuantity(addedQuantity);
-		Amount addedGrossAmount = item.getFinalUnitPrice().multiplyByQuantity(addedQuantity);
-		Amount addedVatAmount = addedGrossAmount.subtract(addedNetCost);
+		long addedNetCost = Math.multiplyExact(item.getNetUnitPriceMinorUnits(), addedQuantity);
+		long addedGrossCost = Math.multiplyExact(item.getFinalUnitPriceMinorUnits(), addedQuantity);
 
-		totalCost = totalCost.add(addedGrossAmount);
-		totalVat = totalVat.add(addedVatAmount);
+		totals.add(item.getVatRate().percentage(), addedNetCost, addedGrossCost);
 	}
 
 	/**
@@ -267,6 +282,19 @@ public class Sale {
 		status = SaleStatus.PAID;
 	}
 
+	/**
+	 * Ensures that the status of the sale is {@link SaleStatus#REGISTERING REGISTERING}.
+	 *
+	 * @throws ExecutionOrderException if the current sale status is not
+	 * {@link SaleStatus#REGISTERING REGISTERING}.
+	 */
+	public void ensureRegistering() {
+		if (status != SaleStatus.REGISTERING) {
+			String errorMsg = "The sale status must be " + SaleStatus.REGISTERING +  " in order to perform this operation. Current status is " + status.toString() + ".";
+			throw new ExecutionOrderException(errorMsg, status, SaleStatus.REGISTERING);
+		}
+	}
+
 	/**
 	 * Ensures that the status of the sale is {@link SaleStatus#AWAITING_PAYMENT AWAITING_PAYMENT}.
 	 *
@@ -13,8 +13,9 @@ import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
 public class SaleItem {
 
     private final ItemDTO itemInformation;
-    private final Amount finalUnitPrice;
-    private Amount finalTotalPrice;
+    private final long netUnitPrice;
+    private final long finalUnitPrice;
+    private long finalTotalPrice;
     private int quantity;
 
     /**
@@ -25,8 +26,9 @@ public class SaleItem {
      */
     SaleItem(ItemDTO item, int quantity) {
         this.itemInformation = item;
-        finalUnitPrice = new Amount(item.baseNetPrice().amount()).increaseBy(item.vatRate());
-        finalTotalPrice = new Amount(finalUnitPrice.multiplyByQuantity(quantity));
+        netUnitPrice = item.price().netPrice();
+        finalUnitPrice = item.price().grossPrice();
+        finalTotalPrice = Math.multiplyExact(finalUnitPrice, quantity);
         this.quantity = quantity;
     }
 
@@ -82,7 +84,7 @@ public class SaleItem {
      * @return an {@link Amount} object representing the final price of the item.
      */
     public Amount getFinalUnitPrice() {
-        return finalUnitPrice;
+        return Amount.ofMinorUnits(finalUnitPrice);
     }
 
     /**
@@ -92,7 +94,7 @@ public class SaleItem {
      * @return an {@link Amount} representing the final total price of this sale item.
      */
     public Amount getFinalTotalPrice() {
-        return finalTotalPrice;
+        return Amount.ofMinorUnits(finalTotalPrice);
     }
 
     /**
@@ -111,6 +113,24 @@ public class SaleItem {
      */
     void increaseQuantity(int quantity) {
         this.quantity += quantity;
-        finalTotalPrice = finalTotalPrice.add(finalUnitPrice.multiplyByQuantity(quantity));
+        finalTotalPrice = Math.addExact(finalTotalPrice, Math.multiplyExact(finalUnitPrice, quantity));
+    }
+
+    /**
+     * Retrieves the price per unit before VAT and discounts.
+     *
+     * @return the net unit price in öre.
+     */
+    long getNetUnitPriceMinorUnits() {
+        return netUnitPrice;
+    }
+
+    /**
+     * Retrieves the final price per unit, including VAT and potential discounts.
+     *
+     * @return the final unit price in öre.
+     */
+    long getFinalUnitPriceMinorUnits() {
+        return finalUnitPrice;
     }
 }
@@ -0,0 +1,123 @@
+package se.kth.iv1350.rassjo.pos.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A table of the {@link SaleItem}s in a sale, keyed by the primitive item identifier.
+ * <p>
+ * The items are kept in an array in the order they were first added, and an open-addressing
+ * hash table with linear probing maps each identifier to its position in that array. No
+ * node or boxed key objects are created, and a lookup only touches two arrays.
+ * <p>
+ * Items can't be removed. Instances are confined to the sale that owns them and aren't thread-safe.
+ */
+class SaleItemTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY_SLOT = 0;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    /**
+     * Maps a hashed identifier to the position in {@code items} plus one, so that zero can mark an empty slot.
+     */
+    private int[] slots;
+    private int[] ids;
+    private SaleItem[] items;
+    private int size;
+
+    /**
+     * Creates a new, empty {@link SaleItemTable}.
+     */
+    SaleItemTable() {
+        slots = new int[INITIAL_CAPACITY * 2];
+        ids = new int[INITIAL_CAPACITY];
+        items = new SaleItem[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Retrieves the item with the specified identifier.
+     *
+     * @param id the identifier of the item.
+     * @return the {@link SaleItem} with the identifier, or {@code null} if there is no such item.
+     */
+    SaleItem get(int id) {
+        int mask = slots.length - 1;
+        for (int slot = hash(id) & mask; slots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (ids[index] == id) {
+                return items[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds an item to the table. The item is placed after all previously added items.
+     *
+     * @param id   the identifier of the item.
+     * @param item the {@link SaleItem} to add.
+     * @throws IllegalArgumentException if an item with the identifier already exists.
+     */
+    void add(int id, SaleItem item) {
+        if (size == items.length) {
+            grow();
+        }
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            if (ids[slots[slot] - 1] == id) {
+                throw new IllegalArgumentException("An item with id " + id + " already exists in the sale.");
+            }
+            slot = (slot + 1) & mask;
+        }
+        ids[size] = id;
+        items[size] = item;
+        slots[slot] = ++size;
+    }
+
+    /**
+     * Retrieves the number of distinct items in the table.
+     *
+     * @return the number of items.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves all items in the order they were first added.
+     *
+     * @return a new list containing the items.
+     */
+    List<SaleItem> toList() {
+        List<SaleItem> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(items[i]);
+        }
+        return list;
+    }
+
+    private void grow() {
+        int capacity = items.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        items = Arrays.copyOf(items, capacity);
+        slots = new int[capacity * 2];
+
+        int mask = slots.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hash(ids[index]) & mask;
+            while (slots[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+    }
+
+    private static int hash(int id) {
+        int h = id * HASH_MULTIPLIER;
+        return h ^ (h >>> 16);
+    }
+}
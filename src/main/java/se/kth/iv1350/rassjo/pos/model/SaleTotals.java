@@ -0,0 +1,104 @@
+package se.kth.iv1350.rassjo.pos.model;
+
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the running totals of a {@link Sale}: the net cost, the gross cost (including
+ * VAT), and the VAT per rate. All values are kept in öre and updated in place, so
+ * registering an item doesn't allocate any objects.
+ * <p>
+ * Instances are confined to the sale that owns them and aren't thread-safe.
+ */
+class SaleTotals {
+
+    private static final int INITIAL_RATE_CAPACITY = 4;
+
+    private long netCost;
+    private long grossCost;
+    private int[] vatRates;
+    private long[] vatPerRate;
+    private int rateCount;
+
+    /**
+     * Creates a new {@link SaleTotals} instance where all totals are zero.
+     */
+    SaleTotals() {
+        vatRates = new int[INITIAL_RATE_CAPACITY];
+        vatPerRate = new long[INITIAL_RATE_CAPACITY];
+        rateCount = 0;
+    }
+
+    /**
+     * Adds the cost of a registered item to the totals.
+     *
+     * @param vatRate    the VAT rate of the item, as a whole percentage.
+     * @param netAmount  the added cost before VAT, in öre.
+     * @param grossAmount the added cost including VAT, in öre.
+     * @throws ArithmeticException if any of the totals overflow.
+     */
+    void add(int vatRate, long netAmount, long grossAmount) {
+        netCost = Math.addExact(netCost, netAmount);
+        grossCost = Math.addExact(grossCost, grossAmount);
+
+        int index = indexOfRate(vatRate);
+        vatPerRate[index] = Math.addExact(vatPerRate[index], grossAmount - netAmount);
+    }
+
+    /**
+     * Retrieves the total cost before VAT.
+     *
+     * @return the net cost in öre.
+     */
+    long getNetCost() {
+        return netCost;
+    }
+
+    /**
+     * Retrieves the total cost including VAT.
+     *
+     * @return the gross cost in öre.
+     */
+    long getGrossCost() {
+        return grossCost;
+    }
+
+    /**
+     * Retrieves the total VAT for all rates.
+     *
+     * @return the total VAT in öre.
+     */
+    long getTotalVat() {
+        return grossCost - netCost;
+    }
+
+    /**
+     * Retrieves the total VAT for each VAT rate, in the order the rates were first registered.
+     *
+     * @return a map from VAT rate to the total VAT for that rate.
+     */
+    Map<PercentageDTO, Amount> getVatPerRate() {
+        Map<PercentageDTO, Amount> result = new LinkedHashMap<>();
+        for (int i = 0; i < rateCount; i++) {
+            result.put(new PercentageDTO(vatRates[i]), Amount.ofMinorUnits(vatPerRate[i]));
+        }
+        return result;
+    }
+
+    private int indexOfRate(int vatRate) {
+        for (int i = 0; i < rateCount; i++) {
+            if (vatRates[i] == vatRate) {
+                return i;
+            }
+        }
+        if (rateCount == vatRates.length) {
+            vatRates = Arrays.copyOf(vatRates, rateCount * 2);
+            vatPerRate = Arrays.copyOf(vatPerRate, rateCount * 2);
+        }
+        vatRates[rateCount] = vatRate;
+        return rateCount++;
+    }
+}
@@ -10,6 +10,7 @@ import se.kth.iv1350.rassjo.pos.model.SaleStatus;
  * status of the operation that was attempted.
  */
 public class ExecutionOrderException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
 
     private final SaleStatus currentStatus;
     private final SaleStatus operationStatus;
@@ -1,16 +1,89 @@
 package se.kth.iv1350.rassjo.pos.startup;
 
 import se.kth.iv1350.rassjo.pos.controller.SaleController;
+import se.kth.iv1350.rassjo.pos.integration.AccountingHandler;
 import se.kth.iv1350.rassjo.pos.integration.HandlerFactory;
+import se.kth.iv1350.rassjo.pos.integration.InventoryHandler;
+import se.kth.iv1350.rassjo.pos.integration.catalog.MappedItemCatalog;
+import se.kth.iv1350.rassjo.pos.integration.catalog.MappedItemCatalogBuilder;
+import se.kth.iv1350.rassjo.pos.integration.catalog.ParallelCsvCatalogLoader;
+import se.kth.iv1350.rassjo.pos.integration.inventory.WriteBehindStockUpdater;
+import se.kth.iv1350.rassjo.pos.integration.journal.ZReportGenerator;
+import se.kth.iv1350.rassjo.pos.view.LaneSimulation;
 import se.kth.iv1350.rassjo.pos.view.View;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Starts the application. Without arguments a single sample sale sequence is run. With
+ * {@code --lanes <count> [<sales per lane>]} the given number of lanes are simulated
+ * concurrently instead.
+ * <p>
+ * By default a small catalog of sample items is used. With {@code --catalog <file>} the items
+ * are read from a catalog file instead, which can be created from a CSV price file with
+ * {@code --build-catalog <csv file> <catalog file>}. A file ending in {@code .csv} is instead
+ * loaded into memory directly.
+ * <p>
+ * The stock changes are written to {@link InventoryHandler#STOCK_CHANGE_LOG} and the completed
+ * sales to the sale journal in {@link AccountingHandler#SALE_JOURNAL_DIRECTORY}. Both are closed
+ * when the application ends, also when it ends with an error.
+ * <p>
+ * With {@code --z-report [<yyyy-mm-dd>]} no sales are made; instead the Z-report of the
+ * specified day, or of today, is written from the sale journal.
+ */
 public class Startup {
 
-    public static void main(String[] args) {
-        HandlerFactory handlerFactory = new HandlerFactory();
+    private static final String LANES_OPTION = "--lanes";
+    private static final String CATALOG_OPTION = "--catalog";
+    private static final String BUILD_CATALOG_OPTION = "--build-catalog";
+    private static final String Z_REPORT_OPTION = "--z-report";
+    private static final String CSV_EXTENSION = ".csv";
+    private static final int DEFAULT_SALES_PER_LANE = 1;
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length >= 3 && args[0].equals(BUILD_CATALOG_OPTION)) {
+            int itemCount = MappedItemCatalogBuilder.convertCsv(Path.of(args[1]), Path.of(args[2]));
+            System.out.println("Wrote " + itemCount + " items to " + args[2] + ".");
+            return;
+        }
+        if (args.length >= 1 && args[0].equals(Z_REPORT_OPTION)) {
+            LocalDate day = args.length >= 2 ? LocalDate.parse(args[1]) : LocalDate.now();
+            new ZReportGenerator().writeReport(AccountingHandler.SALE_JOURNAL_DIRECTORY, day, new PrintWriter(System.out));
+            return;
+        }
+
+        int argument = 0;
+        HandlerFactory handlerFactory;
+        WriteBehindStockUpdater stockUpdater = WriteBehindStockUpdater.start(InventoryHandler.STOCK_CHANGE_LOG);
+        if (args.length >= 2 && args[0].equals(CATALOG_OPTION)) {
+            Path catalogFile = Path.of(args[1]);
+            handlerFactory = new HandlerFactory(args[1].endsWith(CSV_EXTENSION)
+                    ? new ParallelCsvCatalogLoader().load(catalogFile)
+                    : MappedItemCatalog.open(catalogFile), stockUpdater, AccountingHandler.SALE_JOURNAL_DIRECTORY);
+            argument = 2;
+        } else {
+            handlerFactory = new HandlerFactory(stockUpdater, AccountingHandler.SALE_JOURNAL_DIRECTORY);
+        }
         SaleController saleController = new SaleController(handlerFactory);
-        View view = new View(saleController);
 
-        view.sampleRun();
+        try {
+            if (args.length >= argument + 2 && args[argument].equals(LANES_OPTION)) {
+                int laneCount = Integer.parseInt(args[argument + 1]);
+                int salesPerLane = args.length >= argument + 3 ? Integer.parseInt(args[argument + 2]) : DEFAULT_SALES_PER_LANE;
+                new LaneSimulation(saleController, laneCount, salesPerLane).run();
+            } else {
+                View view = new View(saleController);
+                view.sampleRun();
+            }
+        } finally {
+            try {
+                saleController.shutdown();
+            } finally {
+                handlerFactory.close();
+            }
+        }
     }
 }
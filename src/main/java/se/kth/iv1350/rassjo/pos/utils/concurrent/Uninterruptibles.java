@@ -0,0 +1,57 @@
+package se.kth.iv1350.rassjo.pos.utils.concurrent;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Blocking operations that keep waiting when the calling thread is interrupted. They are meant
+ * for shutdown paths, where giving up halfway would lose work that has already been accepted.
+ * An interrupt isn't lost: the interrupt status of the calling thread is set again once the
+ * operation has finished.
+ */
+public final class Uninterruptibles {
+
+    private Uninterruptibles() {
+    }
+
+    /**
+     * Waits for the specified thread to die.
+     *
+     * @param thread the thread to wait for.
+     */
+    public static void join(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Puts the specified element into the queue, waiting for room if the queue is full.
+     *
+     * @param queue   the queue to put the element into.
+     * @param element the element to put.
+     * @param <T>     the type of the elements of the queue.
+     */
+    public static <T> void put(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(element);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
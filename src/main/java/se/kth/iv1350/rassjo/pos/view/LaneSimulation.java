@@ -0,0 +1,102 @@
+package se.kth.iv1350.rassjo.pos.view;
+
+import se.kth.iv1350.rassjo.pos.controller.Lane;
+import se.kth.iv1350.rassjo.pos.controller.LaneExecutor;
+import se.kth.iv1350.rassjo.pos.controller.SaleController;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.utils.logging.FileLogger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulates many cashiers working at the same time, each on their own checkout lane.
+ * Every lane runs on its own virtual thread through a {@link LaneExecutor}.
+ */
+public class LaneSimulation {
+
+    private static final int FIRST_ITEM_ID = 10001;
+    private static final int ITEM_ID_COUNT = 10;
+    private static final int MAX_SCANS_PER_SALE = 8;
+    private static final String CUSTOMER_OVERPAYMENT = "100.00";
+
+    private final SaleController saleController;
+    private final int laneCount;
+    private final int salesPerLane;
+    private final FileLogger logger;
+
+    /**
+     * Creates a new {@link LaneSimulation}.
+     *
+     * @param saleController the {@link SaleController} shared by all lanes.
+     * @param laneCount      the number of lanes to simulate.
+     * @param salesPerLane   the number of sales each lane performs.
+     */
+    public LaneSimulation(SaleController saleController, int laneCount, int salesPerLane) {
+        this.saleController = saleController;
+        this.laneCount = laneCount;
+        this.salesPerLane = salesPerLane;
+        this.logger = FileLogger.getInstance();
+    }
+
+    /**
+     * Runs the simulation. All lanes are opened first, so that a lane that can't be used stops
+     * the simulation before any sale is made. All sales are then queued on their lanes up
+     * front, after which the lanes are shut down and the method waits until every queued sale
+     * has completed. A summary including the deepest lane queue is printed when done.
+     *
+     * @throws IllegalArgumentException if sales can't be made on one of the lanes.
+     */
+    public void run() {
+        System.out.println("Simulating " + laneCount + " lanes with " + salesPerLane + " sales each:");
+        List<CompletableFuture<AmountDTO>> sales = new ArrayList<>();
+        long startTime = System.nanoTime();
+        int maxQueueDepth;
+
+        try (LaneExecutor executor = new LaneExecutor(saleController)) {
+            List<Lane> lanes = new ArrayList<>(laneCount);
+            for (int laneNumber = 1; laneNumber <= laneCount; laneNumber++) {
+                lanes.add(executor.openLane(new LaneIdentifierDTO(laneNumber)));
+            }
+            for (Lane lane : lanes) {
+                for (int saleNumber = 0; saleNumber < salesPerLane; saleNumber++) {
+                    sales.add(queueSale(lane));
+                }
+            }
+            maxQueueDepth = executor.getQueueDepths().values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        }
+
+        long failedSales = sales.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        System.out.println("Completed " + (sales.size() - failedSales) + " sales (" + failedSales + " failed) in "
+                + elapsedMillis + " ms. Deepest lane queue after queuing: " + maxQueueDepth + " commands.\n");
+    }
+
+    private CompletableFuture<AmountDTO> queueSale(Lane lane) {
+        lane.submit((controller, laneId) -> {
+            controller.startSale(laneId);
+            return null;
+        });
+
+        int scans = ThreadLocalRandom.current().nextInt(1, MAX_SCANS_PER_SALE + 1);
+        for (int scan = 0; scan < scans; scan++) {
+            ItemIdentifierDTO itemId = new ItemIdentifierDTO(FIRST_ITEM_ID + ThreadLocalRandom.current().nextInt(ITEM_ID_COUNT));
+            lane.submit((controller, laneId) -> controller.addItem(laneId, itemId, 1));
+        }
+
+        return lane.submit((controller, laneId) -> {
+            AmountDTO totalCost = controller.endSale(laneId);
+            BigDecimal paidAmount = new BigDecimal(totalCost.amount()).add(new BigDecimal(CUSTOMER_OVERPAYMENT));
+            return controller.processCashPayment(laneId, new AmountDTO(paidAmount.toPlainString()));
+        }).whenComplete((change, e) -> {
+            if (e != null) {
+                logger.error("Simulated sale on lane " + lane.getLaneId() + " failed.", e);
+            }
+        });
+    }
+}
@@ -24,8 +24,23 @@ public class TotalRevenueView implements RevenueObserver {
         totalRevenue = BigDecimal.ZERO;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The restored revenue replaces the current total.
+     */
+    @Override
+    public synchronized void revenueRestored(AmountDTO totalRevenue) {
+        this.totalRevenue = new BigDecimal(totalRevenue.amount());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Payments from different lanes may be reported concurrently, so updates are synchronized.
+     */
     @Override
-    public void paymentReceived(CashPaymentDTO payment) {
+    public synchronized void paymentReceived(CashPaymentDTO payment) {
         updateTotalRevenue(payment.totalCost());
         printTotalRevenue();
     }
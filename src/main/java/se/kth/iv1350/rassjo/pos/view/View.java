@@ -63,8 +63,8 @@ public class View {
         System.out.println("Add " + quantity + " item with id " + itemId.id() + ":");
 
         try {
-            SaleDTO sale = saleController.addItem(itemId, quantity);
-            SaleItemDTO lastAddedItem = sale.lastAddedItem();
+            ItemAddedDTO result = saleController.addItem(itemId, quantity);
+            SaleItemDTO lastAddedItem = result.lastAddedItem();
 
             System.out.println("Item ID: " + itemId.id());
             System.out.println("Item name: " + lastAddedItem.name());
@@ -72,8 +72,8 @@ public class View {
             System.out.println("VAT: " + lastAddedItem.vatRate().percentage() + "%");
             System.out.println("Item description: " + lastAddedItem.description());
 
-            System.out.println("Total cost (incl. VAT): " + sale.totalCost().toString() + " SEK");
-            System.out.println("Total VAT: " + sale.totalVat().toString() + " SEK\n");
+            System.out.println("Total cost (incl. VAT): " + result.totalCost().toString() + " SEK");
+            System.out.println("Total VAT: " + result.totalVat().toString() + " SEK\n");
         } catch (ItemNotFoundException e) {
             System.out.println("Item with id: " + itemId.id() + " could not be found.  Try again with a different item ID.\n");
             logger.warn("Item with id: " + itemId.id() + " could not be found.");
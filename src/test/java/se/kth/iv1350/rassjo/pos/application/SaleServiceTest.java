@@ -1,13 +1,28 @@
 package se.kth.iv1350.rassjo.pos.application;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import se.kth.iv1350.rassjo.pos.application.exceptions.OperationFailedException;
 import se.kth.iv1350.rassjo.pos.application.exceptions.UncheckedOperationFailedException;
 import se.kth.iv1350.rassjo.pos.integration.DTOs.*;
 import se.kth.iv1350.rassjo.pos.integration.HandlerFactory;
+import se.kth.iv1350.rassjo.pos.integration.InventoryHandler;
+import se.kth.iv1350.rassjo.pos.integration.catalog.InMemoryItemCatalog;
 import se.kth.iv1350.rassjo.pos.integration.exceptions.ItemNotFoundException;
+import se.kth.iv1350.rassjo.pos.integration.inventory.WriteBehindStockUpdater;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleJournal;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static se.kth.iv1350.rassjo.pos.TestUtils.*;
@@ -117,7 +132,7 @@ public class SaleServiceTest {
 
             saleService.startSale();
 
-            SaleDTO updatedSale = assertDoesNotThrow(() -> saleService.addItem(FIRST_ITEM_ID, expectedQuantity), "Adding an item should not throw an exception when the sale is active and in REGISTERING state.");
+            ItemAddedDTO updatedSale = assertDoesNotThrow(() -> saleService.addItem(FIRST_ITEM_ID, expectedQuantity), "Adding an item should not throw an exception when the sale is active and in REGISTERING state.");
             assertNotNull(updatedSale, "Updated sale should not be null after adding an item.");
             assertNotNull(updatedSale.lastAddedItem(), "Last added item should not be null after adding an item.");
             assertEquals(FIRST_ITEM_ID, updatedSale.lastAddedItem().id(), "The ID of the last added item should match the provided item ID.");
@@ -131,7 +146,7 @@ public class SaleServiceTest {
             int additionalQuantity = THREE;
 
             saleService.addItem(FIRST_ITEM_ID, initialQuantity);
-            SaleDTO updatedSale = saleService.addItem(FIRST_ITEM_ID, additionalQuantity);
+            ItemAddedDTO updatedSale = saleService.addItem(FIRST_ITEM_ID, additionalQuantity);
             assertNotNull(updatedSale, "Updated sale should not be null after increasing item quantity.");
             assertEquals(initialQuantity + additionalQuantity, updatedSale.lastAddedItem().quantity(), "The total quantity should reflect the sum of the initial and additional quantities.");
         }
@@ -143,7 +158,7 @@ public class SaleServiceTest {
             BigDecimal expectedItemUnitPrice = calculateTotalGrossPrice(firstItem.baseNetPrice(), firstItem.vatRate(), ONE);
             BigDecimal expectedItemTotalPrice = calculateTotalGrossPrice(firstItem.baseNetPrice(), firstItem.vatRate(), expectedQuantity);
 
-            SaleDTO sale = saleService.addItem(FIRST_ITEM_ID, expectedQuantity);
+            ItemAddedDTO sale = saleService.addItem(FIRST_ITEM_ID, expectedQuantity);
             SaleItemDTO lastAddedItem = sale.lastAddedItem();
             BigDecimal itemFinalUnitPrice = new BigDecimal(lastAddedItem.finalUnitPrice().amount());
             BigDecimal itemFinalTotalPrice = new BigDecimal(lastAddedItem.finalTotalPrice().amount());
@@ -158,6 +173,19 @@ public class SaleServiceTest {
             assertEquals(expectedQuantity, lastAddedItem.quantity(), "The quantity of the last added item does not match the expected count");
         }
 
+        @Test
+        void testAddItemReturnsTotalsMatchingFullSnapshot() throws ItemNotFoundException {
+            saleService.startSale();
+            saleService.addItem(FIRST_ITEM_ID, TWO);
+            ItemAddedDTO result = saleService.addItem(SECOND_ITEM_ID, ONE);
+            SaleDTO snapshot = saleService.getCurrentSale();
+
+            assertEquals(SECOND_ITEM_ID, result.lastAddedItem().id(), "The result should contain the last added item.");
+            assertEquals(snapshot.totalCost(), result.totalCost(), "The total cost of the result should match the full sale.");
+            assertEquals(snapshot.totalVat(), result.totalVat(), "The total VAT of the result should match the full sale.");
+            assertEquals(TWO, snapshot.items().size(), "The full sale should contain all added items.");
+        }
+
         @Test
         void testAddItemThrowsErrorIfNoActiveSale() {
             UncheckedOperationFailedException exception = assertThrows(
@@ -190,6 +218,71 @@ public class SaleServiceTest {
         }
     }
 
+    @Nested
+    class AddItemsTests {
+
+        private static final ItemIdentifierDTO UNKNOWN_ITEM_ID = new ItemIdentifierDTO(-1);
+
+        @Test
+        void testAddItemsAddsAllFoundItems() {
+            saleService.startSale();
+            List<ScannedItemDTO> scannedItems = List.of(
+                    new ScannedItemDTO(FIRST_ITEM_ID, TWO),
+                    new ScannedItemDTO(SECOND_ITEM_ID, ONE),
+                    new ScannedItemDTO(FIRST_ITEM_ID, THREE));
+
+            ItemsAddedDTO result = saleService.addItems(scannedItems);
+
+            assertEquals(2, result.addedItems().size(), "Each distinct item should be reported once.");
+            assertEquals(FIRST_ITEM_ID, result.addedItems().get(0).id(), "Items should be reported in the order they were first scanned.");
+            assertEquals(TWO + THREE, result.addedItems().get(0).quantity(), "Repeated scans of an item should be summed.");
+            assertEquals(SECOND_ITEM_ID, result.addedItems().get(1).id(), "Items should be reported in the order they were first scanned.");
+            assertTrue(result.notFoundItems().isEmpty(), "No items should be reported as not found.");
+        }
+
+        @Test
+        void testAddItemsReportsNotFoundItemsWithoutFailingBatch() {
+            saleService.startSale();
+            List<ScannedItemDTO> scannedItems = List.of(
+                    new ScannedItemDTO(UNKNOWN_ITEM_ID, ONE),
+                    new ScannedItemDTO(FIRST_ITEM_ID, ONE));
+
+            ItemsAddedDTO result = assertDoesNotThrow(() -> saleService.addItems(scannedItems),
+                    "An unknown item should not fail the whole batch.");
+
+            assertEquals(List.of(UNKNOWN_ITEM_ID), result.notFoundItems(), "The unknown item should be reported as not found.");
+            assertEquals(1, result.addedItems().size(), "The known item should still be added.");
+        }
+
+        @Test
+        void testAddItemsGivesSameTotalsAsSingleAdditions() throws ItemNotFoundException {
+            saleService.startSale();
+            saleService.addItem(FIRST_ITEM_ID, TWO);
+            ItemAddedDTO expected = saleService.addItem(SECOND_ITEM_ID, THREE);
+            saleService.cancelSale();
+
+            saleService.startSale();
+            ItemsAddedDTO actual = saleService.addItems(List.of(
+                    new ScannedItemDTO(FIRST_ITEM_ID, TWO),
+                    new ScannedItemDTO(SECOND_ITEM_ID, THREE)));
+
+            assertEquals(expected.totalCost(), actual.totalCost(), "The batch should give the same total cost as adding the items one by one.");
+            assertEquals(expected.totalVat(), actual.totalVat(), "The batch should give the same total VAT as adding the items one by one.");
+        }
+
+        @Test
+        void testAddItemsThrowsErrorIfSaleNotRegistering() {
+            saleService.startSale();
+            saleService.endSale();
+
+            UncheckedOperationFailedException exception = assertThrows(
+                    UncheckedOperationFailedException.class,
+                    () -> saleService.addItems(List.of(new ScannedItemDTO(FIRST_ITEM_ID, ONE))),
+                    "Adding items after the sale has ended should throw an exception.");
+            assertEquals("Addition of items couldn't be performed.", exception.getMessage(), "Exception should contain the correct error message.");
+        }
+    }
+
     @Nested
     class ApplyDiscountTests {
 
@@ -264,5 +357,321 @@ public class SaleServiceTest {
                     "Processing cash payment before sale is in Awaiting Payment state should throw an exception.");
             assertEquals("Payment couldn't be performed.", exception.getMessage(), "Exception should contain the correct error message.");
         }
+
+        @Test
+        void testShutdownWaitsForPostPaymentProcessing() throws InterruptedException {
+            List<CashPaymentDTO> receivedPayments = new CopyOnWriteArrayList<>();
+            saleService.addRevenueObserver(receivedPayments::add);
+
+            saleService.startSale();
+            saleService.endSale();
+            AmountDTO paidAmount = saleService.getCurrentSale().totalCost();
+            saleService.processCashPayment(paidAmount);
+            saleService.shutdown();
+
+            assertEquals(0, saleService.getPendingPostPaymentCount(), "No paid sale should be pending after shutdown.");
+            assertEquals(1, receivedPayments.size(), "The revenue observer should have been notified of the payment.");
+            assertEquals(paidAmount, receivedPayments.get(0).paidAmount(), "The observer should receive the paid amount.");
+        }
+
+        @Test
+        void testPaymentAfterShutdownIsRefusedBeforeItIsTaken() throws InterruptedException {
+            AmountDTO balanceBefore = saleService.getCashBalance(SaleService.DEFAULT_LANE);
+            saleService.startSale();
+            saleService.endSale();
+            AmountDTO totalCost = saleService.getCurrentSale().totalCost();
+            saleService.shutdown();
+
+            assertThrows(UncheckedOperationFailedException.class, () -> saleService.processCashPayment(totalCost),
+                    "A payment after shutdown should be refused.");
+            assertEquals(balanceBefore, saleService.getCashBalance(SaleService.DEFAULT_LANE),
+                    "A refused payment should not be added to the cash register.");
+            assertNotNull(saleService.getCurrentSale(), "The sale should still be awaiting payment.");
+        }
+
+        @Test
+        void testFailedPostPaymentStepIsKeptUntilRetried() throws InterruptedException {
+            AtomicInteger attempts = new AtomicInteger();
+            List<CashPaymentDTO> receivedPayments = new CopyOnWriteArrayList<>();
+            saleService.addRevenueObserver(payment -> {
+                if (attempts.incrementAndGet() <= 5) {
+                    throw new IllegalStateException("The revenue display is unreachable.");
+                }
+                receivedPayments.add(payment);
+            });
+
+            saleService.startSale();
+            saleService.endSale();
+            saleService.processCashPayment(saleService.getCurrentSale().totalCost());
+            awaitPostPayments();
+
+            assertEquals(1, saleService.getFailedPostPaymentCount(), "The sale should be kept after every attempt failed.");
+            assertTrue(receivedPayments.isEmpty(), "The observer should not have received the payment yet.");
+
+            saleService.retryFailedPostPayments();
+            saleService.shutdown();
+
+            assertEquals(0, saleService.getFailedPostPaymentCount(), "A retried sale that succeeds should not be kept.");
+            assertEquals(1, receivedPayments.size(), "The observer should receive the payment when it is retried.");
+        }
+
+        private void awaitPostPayments() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (saleService.getPendingPostPaymentCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        @Test
+        void testPaidSaleDecreasesStock() throws ItemNotFoundException, InterruptedException {
+            long stockBefore = handlerFactory.getInventoryHandler().getStockLevel(FIRST_ITEM_ID);
+
+            saleService.startSale();
+            saleService.addItem(FIRST_ITEM_ID, TWO);
+            saleService.endSale();
+            saleService.processCashPayment(saleService.getCurrentSale().totalCost());
+            saleService.shutdown();
+
+            assertEquals(stockBefore - TWO, handlerFactory.getInventoryHandler().getStockLevel(FIRST_ITEM_ID),
+                    "The sold quantity should be subtracted from the stock.");
+            assertEquals(0, handlerFactory.getInventoryHandler().getStockUpdateStatistics().queueDepth(),
+                    "No stock change should be waiting after shutdown.");
+        }
+
+        @Test
+        void testShutdownLeavesSharedInventoryHandlerOpen() throws ItemNotFoundException, InterruptedException {
+            long stockBefore = handlerFactory.getInventoryHandler().getStockLevel(FIRST_ITEM_ID);
+            saleService.shutdown();
+            SaleService otherService = new SaleService(handlerFactory);
+
+            otherService.startSale();
+            otherService.addItem(FIRST_ITEM_ID, TWO);
+            otherService.endSale();
+            otherService.processCashPayment(otherService.getCurrentSale().totalCost());
+            otherService.shutdown();
+
+            assertEquals(0, otherService.getFailedPostPaymentCount(),
+                    "The stock changes of another service should still be accepted after one service is shut down.");
+            assertEquals(stockBefore - TWO, handlerFactory.getInventoryHandler().getStockLevel(FIRST_ITEM_ID),
+                    "The sale of the other service should be subtracted from the stock.");
+        }
+    }
+
+    @Nested
+    class MultipleLaneTests {
+
+        private static final LaneIdentifierDTO SECOND_LANE = new LaneIdentifierDTO(2);
+
+        @Test
+        void testLanesHaveSeparateSales() throws ItemNotFoundException {
+            saleService.startSale();
+            saleService.startSale(SECOND_LANE);
+            saleService.addItem(SECOND_LANE, FIRST_ITEM_ID, TWO);
+
+            assertTrue(saleService.getCurrentSale().items().isEmpty(), "Items added on one lane should not affect another lane.");
+            assertEquals(ONE, saleService.getCurrentSale(SECOND_LANE).items().size(), "The item should be added to the sale of its lane.");
+            assertNotEquals(saleService.getCurrentSale().saleId(), saleService.getCurrentSale(SECOND_LANE).saleId(),
+                    "Every lane should have its own sale.");
+        }
+
+        @Test
+        void testEndingSaleOnOneLaneDoesNotEndOtherLane() {
+            saleService.startSale();
+            saleService.startSale(SECOND_LANE);
+            saleService.endSale(SECOND_LANE);
+
+            assertDoesNotThrow(() -> saleService.addItem(FIRST_ITEM_ID, ONE),
+                    "Ending the sale on one lane should not prevent adding items on another lane.");
+        }
+
+        @Test
+        void testConcurrentSalesOnDifferentLanes() throws Exception {
+            int laneCount = 16;
+            String expectedChange = "5.00";
+            ExecutorService executor = Executors.newFixedThreadPool(laneCount);
+            List<Future<AmountDTO>> results = new ArrayList<>();
+
+            for (int i = 0; i < laneCount; i++) {
+                LaneIdentifierDTO laneId = new LaneIdentifierDTO(100 + i);
+                results.add(executor.submit(() -> {
+                    saleService.startSale(laneId);
+                    for (int scan = 0; scan < 50; scan++) {
+                        saleService.addItem(laneId, scan % 2 == 0 ? FIRST_ITEM_ID : SECOND_ITEM_ID, ONE);
+                    }
+                    AmountDTO totalCost = saleService.endSale(laneId);
+                    BigDecimal paidAmount = new BigDecimal(totalCost.amount()).add(new BigDecimal(expectedChange));
+                    return saleService.processCashPayment(laneId, new AmountDTO(paidAmount.toPlainString()));
+                }));
+            }
+            executor.shutdown();
+
+            for (Future<AmountDTO> result : results) {
+                assertEquals(expectedChange, result.get().amount(), "Every lane should complete its sale and receive the correct change.");
+            }
+        }
+    }
+
+    @Nested
+    class CatalogReloadTests {
+
+        private static final AmountDTO OLD_PRICE = new AmountDTO("10.00");
+        private static final AmountDTO NEW_PRICE = new AmountDTO("12.50");
+
+        private WriteBehindStockUpdater stockUpdater;
+        private SaleJournal saleJournal;
+        private InventoryHandler inventoryHandler;
+        private SaleService reloadingSaleService;
+
+        @BeforeEach
+        void setUp(@TempDir Path directory) throws IOException {
+            stockUpdater = WriteBehindStockUpdater.start(directory.resolve("stock-changes.log"));
+            saleJournal = SaleJournal.open(directory.resolve("sales"));
+            HandlerFactory factory = new HandlerFactory(catalogWithPrice(OLD_PRICE), stockUpdater, saleJournal);
+            inventoryHandler = factory.getInventoryHandler();
+            reloadingSaleService = new SaleService(factory);
+        }
+
+        @AfterEach
+        void tearDown() throws InterruptedException {
+            reloadingSaleService.shutdown();
+            stockUpdater.close();
+            saleJournal.close();
+        }
+
+        @Test
+        void testOngoingSaleKeepsCapturedPrice() throws ItemNotFoundException {
+            reloadingSaleService.startSale();
+            reloadingSaleService.addItem(FIRST_ITEM_ID, ONE);
+
+            inventoryHandler.reloadCatalog(catalogWithPrice(NEW_PRICE));
+            reloadingSaleService.addItem(FIRST_ITEM_ID, ONE);
+
+            SaleItemDTO saleItem = reloadingSaleService.getCurrentSale().items().get(0);
+            assertEquals(OLD_PRICE, saleItem.baseNetPrice(), "An item already in the sale should keep the price it was added with.");
+            assertEquals(TWO, saleItem.quantity(), "The quantity should still be increased after the reload.");
+        }
+
+        @Test
+        void testNewSaleUsesReloadedPrice() throws ItemNotFoundException {
+            long version = inventoryHandler.reloadCatalog(catalogWithPrice(NEW_PRICE));
+
+            reloadingSaleService.startSale();
+            reloadingSaleService.addItem(FIRST_ITEM_ID, ONE);
+
+            assertEquals(2, version, "The reloaded catalog should be the second version.");
+            assertEquals(NEW_PRICE, reloadingSaleService.getCurrentSale().items().get(0).baseNetPrice(),
+                    "A sale started after the reload should use the new price.");
+        }
+
+        @Test
+        void testSearchFindsReloadedItems() {
+            assertTrue(reloadingSaleService.searchItems("cheese", ONE).isEmpty(), "The item should not exist before the reload.");
+
+            inventoryHandler.reloadCatalog(new InMemoryItemCatalog(List.of(
+                    new ItemDTO(SECOND_ITEM_ID, "Cheese", "", NEW_PRICE, new PercentageDTO(12)))));
+
+            assertEquals(SECOND_ITEM_ID, reloadingSaleService.searchItems("cheese", ONE).get(0).itemId(),
+                    "The name index should be rebuilt from the reloaded catalog.");
+        }
+
+        @Test
+        void testItemOfReloadedCatalogCanBeSoldWithoutTrackedStock() throws ItemNotFoundException, InterruptedException {
+            inventoryHandler.reloadCatalog(new InMemoryItemCatalog(List.of(
+                    new ItemDTO(SECOND_ITEM_ID, "Cheese", "", NEW_PRICE, new PercentageDTO(12)))));
+
+            reloadingSaleService.startSale();
+            reloadingSaleService.addItem(SECOND_ITEM_ID, ONE);
+            reloadingSaleService.endSale();
+            reloadingSaleService.processCashPayment(reloadingSaleService.getCurrentSale().totalCost());
+            reloadingSaleService.shutdown();
+
+            assertEquals(0, reloadingSaleService.getFailedPostPaymentCount(), "Selling an item of the new catalog should not fail.");
+            assertEquals(0, stockUpdater.getStatistics().queueDepth(), "The stock change should be sent to the inventory system.");
+            assertThrows(IllegalArgumentException.class, () -> inventoryHandler.getStockLevel(SECOND_ITEM_ID),
+                    "The stock of an item that only the new catalog has should not be tracked.");
+        }
+
+        private static InMemoryItemCatalog catalogWithPrice(AmountDTO price) {
+            return new InMemoryItemCatalog(List.of(new ItemDTO(FIRST_ITEM_ID, "Milk", "", price, new PercentageDTO(12))));
+        }
+    }
+
+    @Nested
+    class RestartTests {
+
+        private final List<WriteBehindStockUpdater> stockUpdaters = new ArrayList<>();
+        private final List<HandlerFactory> factories = new ArrayList<>();
+        private Path directory;
+
+        @BeforeEach
+        void setUp(@TempDir Path directory) {
+            this.directory = directory;
+        }
+
+        @AfterEach
+        void tearDown() throws InterruptedException {
+            for (HandlerFactory factory : factories) {
+                factory.getAccountingHandler().close();
+            }
+            for (WriteBehindStockUpdater stockUpdater : stockUpdaters) {
+                stockUpdater.close();
+            }
+        }
+
+        @Test
+        void testRestartRestoresRunningState() throws Exception {
+            HandlerFactory factory = createFactory();
+            SaleService service = new SaleService(factory);
+            service.startSale();
+            String lastSaleId = service.getCurrentSale().saleId();
+            service.addItem(FIRST_ITEM_ID, TWO);
+            AmountDTO totalCost = service.endSale();
+            service.processCashPayment(new AmountDTO("100.00"));
+            service.shutdown();
+            factory.getAccountingHandler().close();
+
+            HandlerFactory restartedFactory = createFactory();
+            SaleService restarted = new SaleService(restartedFactory);
+            List<AmountDTO> restoredRevenue = new ArrayList<>();
+            restarted.addRevenueObserver(new RevenueObserver() {
+                @Override
+                public void paymentReceived(CashPaymentDTO payment) {
+                }
+
+                @Override
+                public void revenueRestored(AmountDTO totalRevenue) {
+                    restoredRevenue.add(totalRevenue);
+                }
+            });
+            restarted.startSale();
+
+            assertEquals(List.of(totalCost), restoredRevenue, "The revenue before the restart should be restored.");
+            assertEquals(new AmountDTO("1022.40"), restarted.getCashBalance(SaleService.DEFAULT_LANE),
+                    "The cash register should keep the cash taken in before the restart.");
+            assertEquals(98, restartedFactory.getInventoryHandler().getStockLevel(FIRST_ITEM_ID),
+                    "The stock sold before the restart should be restored.");
+            assertTrue(restarted.getCurrentSale().saleId().compareTo(lastSaleId) > 0,
+                    "A sale after the restart should get an id after the last sale before it.");
+        }
+
+        @Test
+        void testFirstStartHasNoRecoveredSales() throws IOException {
+            HandlerFactory factory = createFactory();
+
+            assertEquals(0, factory.getAccountingHandler().getRecoveredSales().saleCount(),
+                    "An empty journal should not recover any sales.");
+            assertEquals(new AmountDTO("1000.00"), new SaleService(factory).getCashBalance(SaleService.DEFAULT_LANE),
+                    "The cash register should start with the startup balance.");
+        }
+
+        private HandlerFactory createFactory() throws IOException {
+            WriteBehindStockUpdater stockUpdater = WriteBehindStockUpdater.start(directory.resolve("stock-changes-" + stockUpdaters.size() + ".log"));
+            stockUpdaters.add(stockUpdater);
+            HandlerFactory factory = new HandlerFactory(new InMemoryItemCatalog(List.of(
+                    new ItemDTO(FIRST_ITEM_ID, "Milk", "", new AmountDTO("10.00"), new PercentageDTO(12)))),
+                    stockUpdater, directory.resolve("sales"));
+            factories.add(factory);
+            return factory;
+        }
     }
 }
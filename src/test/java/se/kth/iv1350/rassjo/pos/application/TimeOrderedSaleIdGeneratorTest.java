@@ -0,0 +1,150 @@
+package se.kth.iv1350.rassjo.pos.application;
+
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedSaleIdGeneratorTest {
+
+    private static final LaneIdentifierDTO LANE = new LaneIdentifierDTO(3);
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    @Test
+    void testIdsAreStrictlyIncreasingWithinTheSameMillisecond() {
+        TimeOrderedSaleIdGenerator generator = new TimeOrderedSaleIdGenerator(0, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        String previous = generator.nextId(LANE);
+        for (int i = 0; i < 1000; i++) {
+            String next = generator.nextId(LANE);
+            assertTrue(next.compareTo(previous) > 0, "Every id should sort after the previous one, also past the sequence limit.");
+            previous = next;
+        }
+    }
+
+    @Test
+    void testIdsAreIncreasingWhenClockGoesBackwards() {
+        MutableClock clock = new MutableClock(NOW);
+        TimeOrderedSaleIdGenerator generator = new TimeOrderedSaleIdGenerator(0, clock);
+
+        String first = generator.nextId(LANE);
+        clock.instant = NOW.minusSeconds(10);
+        String second = generator.nextId(LANE);
+
+        assertTrue(second.compareTo(first) > 0, "An id generated after the clock went backwards should still sort after earlier ids.");
+    }
+
+    @Test
+    void testIdsSortByGenerationTime() {
+        MutableClock clock = new MutableClock(NOW);
+        TimeOrderedSaleIdGenerator generator = new TimeOrderedSaleIdGenerator(5, clock);
+
+        String early = generator.nextId(new LaneIdentifierDTO(1000));
+        clock.instant = NOW.plusMillis(1);
+        String late = generator.nextId(new LaneIdentifierDTO(0));
+
+        assertTrue(late.compareTo(early) > 0, "An id generated later should sort after an earlier id, regardless of lane.");
+        assertTrue(early.compareTo(TimeOrderedSaleIdGenerator.lowestIdAt(NOW)) >= 0, "An id should not sort before the lowest id of its time.");
+        assertTrue(early.compareTo(TimeOrderedSaleIdGenerator.lowestIdAt(NOW.plusMillis(1))) < 0, "An id should sort before the lowest id of a later time.");
+    }
+
+    @Test
+    void testAdvancePastKeepsIdsIncreasingAfterRestart() {
+        String lastIdBeforeRestart = new TimeOrderedSaleIdGenerator(0, Clock.fixed(NOW, ZoneOffset.UTC)).nextId(LANE);
+        TimeOrderedSaleIdGenerator restarted = new TimeOrderedSaleIdGenerator(0, Clock.fixed(NOW.minusSeconds(60), ZoneOffset.UTC));
+
+        restarted.advancePast(lastIdBeforeRestart);
+        restarted.advancePast("SALE-1");
+
+        assertTrue(restarted.nextId(LANE).compareTo(lastIdBeforeRestart) > 0,
+                "An id generated after the restart should sort after the last id before it, even if the clock is behind.");
+    }
+
+    @Test
+    void testIdsHaveFixedLength() {
+        TimeOrderedSaleIdGenerator generator = new TimeOrderedSaleIdGenerator(0, Clock.fixed(TimeOrderedSaleIdGenerator.EPOCH, ZoneOffset.UTC));
+
+        assertEquals(TimeOrderedSaleIdGenerator.ID_LENGTH, generator.nextId(LANE).length(), "Ids should have a fixed length, also at the epoch.");
+        assertEquals(TimeOrderedSaleIdGenerator.ID_LENGTH, new TimeOrderedSaleIdGenerator(0).nextId(LANE).length(), "Ids should have a fixed length.");
+    }
+
+    @Test
+    void testConcurrentGenerationProducesUniqueIds() throws Exception {
+        TimeOrderedSaleIdGenerator generator = new TimeOrderedSaleIdGenerator(1);
+        int threadCount = 8;
+        int idsPerThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<List<String>>> results = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            LaneIdentifierDTO laneId = new LaneIdentifierDTO(i);
+            results.add(executor.submit(() -> {
+                List<String> ids = new ArrayList<>(idsPerThread);
+                for (int j = 0; j < idsPerThread; j++) {
+                    ids.add(generator.nextId(laneId));
+                }
+                return ids;
+            }));
+        }
+        Set<String> allIds = new HashSet<>();
+        for (Future<List<String>> result : results) {
+            allIds.addAll(result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(threadCount * idsPerThread, allIds.size(), "All generated ids should be unique.");
+    }
+
+    @Test
+    void testIdsOfManyLanesAreUniqueInTheSameMillisecond() {
+        TimeOrderedSaleIdGenerator generator = new TimeOrderedSaleIdGenerator(0, Clock.fixed(NOW, ZoneOffset.UTC));
+        Set<String> ids = new HashSet<>();
+
+        for (int lane = 0; lane < 5000; lane++) {
+            ids.add(generator.nextId(new LaneIdentifierDTO(lane)));
+        }
+
+        assertEquals(5000, ids.size(), "Every lane should get its own id, also with thousands of lanes.");
+    }
+
+    @Test
+    void testInvalidNodeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedSaleIdGenerator(16),
+                "A node id that doesn't fit in the id should be rejected.");
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package se.kth.iv1350.rassjo.pos.controller;
+
+import org.junit.jupiter.api.*;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemAddedDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.HandlerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.kth.iv1350.rassjo.pos.TestUtils.*;
+
+class LaneExecutorTest {
+
+    private static final LaneIdentifierDTO LANE_ID = new LaneIdentifierDTO(7);
+
+    private SaleController controller;
+    private LaneExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        controller = new SaleController(new HandlerFactory());
+        executor = new LaneExecutor(controller);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.close();
+        executor = null;
+        controller = null;
+    }
+
+    @Test
+    void testCommandsRunInOrderOnVirtualThread() throws Exception {
+        Lane lane = executor.openLane(LANE_ID);
+
+        CompletableFuture<Boolean> isVirtual = lane.submit((c, laneId) -> Thread.currentThread().isVirtual());
+        lane.submit((c, laneId) -> { c.startSale(laneId); return null; });
+        lane.submit((c, laneId) -> c.addItem(laneId, FIRST_ITEM_ID, ONE));
+        CompletableFuture<ItemAddedDTO> secondScan = lane.submit((c, laneId) -> c.addItem(laneId, FIRST_ITEM_ID, TWO));
+
+        assertTrue(isVirtual.get(), "Lane commands should run on a virtual thread.");
+        assertEquals(ONE + TWO, secondScan.get().lastAddedItem().quantity(), "Commands should be executed in submission order.");
+    }
+
+    @Test
+    void testCloseWaitsForQueuedCommands() throws InterruptedException {
+        Lane lane = executor.openLane(LANE_ID);
+        List<CompletableFuture<AmountDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lane.submit((c, laneId) -> { c.startSale(laneId); return null; });
+            results.add(lane.submit((c, laneId) -> {
+                c.endSale(laneId);
+                return c.processCashPayment(laneId, new AmountDTO("0.00"));
+            }));
+        }
+
+        executor.close();
+
+        for (CompletableFuture<AmountDTO> result : results) {
+            assertTrue(result.isDone() && !result.isCompletedExceptionally(), "All queued commands should complete before close returns.");
+        }
+    }
+
+    @Test
+    void testSubmitAfterCloseIsRejected() throws InterruptedException {
+        Lane lane = executor.openLane(LANE_ID);
+        executor.close();
+
+        assertThrows(RejectedExecutionException.class, () -> lane.submit((c, laneId) -> null),
+                "Commands should be rejected after the lane has been shut down.");
+        assertThrows(RejectedExecutionException.class, () -> executor.openLane(new LaneIdentifierDTO(8)),
+                "Lanes should not be opened after the executor has been closed.");
+    }
+
+    @Test
+    void testThousandsOfLanesCanSell() throws Exception {
+        int laneCount = 2500;
+        List<CompletableFuture<AmountDTO>> results = new ArrayList<>(laneCount);
+        for (int id = 0; id < laneCount; id++) {
+            Lane lane = executor.openLane(new LaneIdentifierDTO(id));
+            lane.submit((c, laneId) -> { c.startSale(laneId); return null; });
+            results.add(lane.submit((c, laneId) -> {
+                c.endSale(laneId);
+                return c.processCashPayment(laneId, new AmountDTO("0.00"));
+            }));
+        }
+
+        for (CompletableFuture<AmountDTO> result : results) {
+            assertEquals(new AmountDTO("0.00"), result.get(), "Every lane should be able to complete a sale.");
+        }
+        assertEquals(laneCount, executor.getQueueDepths().size(), "Every lane should be open.");
+    }
+
+    @Test
+    void testQueueDepthIsReportedPerLane() throws Exception {
+        Lane lane = executor.openLane(LANE_ID);
+        executor.openLane(new LaneIdentifierDTO(8));
+        CountDownLatch blocker = new CountDownLatch(1);
+        lane.submit((c, laneId) -> { blocker.await(); return null; });
+        lane.submit((c, laneId) -> null);
+        lane.submit((c, laneId) -> null);
+
+        while (lane.getQueueDepth() > 2) {
+            Thread.onSpinWait();
+        }
+        assertEquals(2, executor.getQueueDepths().get(LANE_ID), "The waiting commands of the lane should be reported.");
+        assertEquals(0, executor.getQueueDepths().get(new LaneIdentifierDTO(8)), "An idle lane should have an empty queue.");
+        blocker.countDown();
+    }
+
+    @Test
+    void testFailedCommandCompletesExceptionally() {
+        Lane lane = executor.openLane(LANE_ID);
+
+        CompletableFuture<AmountDTO> result = lane.submit((c, laneId) -> c.endSale(laneId));
+
+        assertThrows(Exception.class, result::get, "A failing command should complete its future exceptionally.");
+    }
+}
@@ -152,9 +152,9 @@ class SaleControllerTest {
             controller = new SaleController(handlerFactory);
             controller.startSale();
 
-            SaleDTO sale = assertDoesNotThrow(() -> controller.addItem(FIRST_ITEM_ID),
+            ItemAddedDTO sale = assertDoesNotThrow(() -> controller.addItem(FIRST_ITEM_ID),
                     "An exception should not be thrown when adding an item to an active sale (started and not yet ended).");
-            assertNotNull(sale, "SaleDTO should not be null after starting a sale and adding an item.");
+            assertNotNull(sale, "The result should not be null after starting a sale and adding an item.");
             assertNotNull(sale.lastAddedItem(), "Last added item should not be null after adding an item.");
         }
 
@@ -165,7 +165,7 @@ class SaleControllerTest {
             BigDecimal expectedItemUnitPrice = calculateTotalGrossPrice(firstItem.baseNetPrice(), firstItem.vatRate(), ONE);
             BigDecimal expectedItemTotalPrice = calculateTotalGrossPrice(firstItem.baseNetPrice(), firstItem.vatRate(), expectedQuantity);
 
-            SaleDTO sale = controller.addItem(FIRST_ITEM_ID, expectedQuantity);
+            ItemAddedDTO sale = controller.addItem(FIRST_ITEM_ID, expectedQuantity);
             SaleItemDTO lastAddedItem = sale.lastAddedItem();
             BigDecimal itemFinalUnitPrice = new BigDecimal(lastAddedItem.finalUnitPrice().amount());
             BigDecimal itemFinalTotalPrice = new BigDecimal(lastAddedItem.finalTotalPrice().amount());
@@ -187,7 +187,7 @@ class SaleControllerTest {
             controller.startSale();
             controller.addItem(FIRST_ITEM_ID, TWO);
             controller.addItem(SECOND_ITEM_ID, ONE);
-            SaleDTO sale = controller.addItem(FIRST_ITEM_ID, ONE);
+            ItemAddedDTO sale = controller.addItem(FIRST_ITEM_ID, ONE);
 
             assertEquals(FIRST_ITEM_ID, sale.lastAddedItem().id(), "The added item's ID does not match the expected ID");
             assertEquals(expectedQuantity, sale.lastAddedItem().quantity(), "The quantity of the last added item does not match the expected count");
@@ -199,7 +199,7 @@ class SaleControllerTest {
             BigDecimal expectedItemTotalPrice = calculateTotalGrossPrice(firstItem.baseNetPrice(), firstItem.vatRate(), expectedQuantity);
 
             controller.startSale();
-            SaleDTO sale = controller.addItem(FIRST_ITEM_ID, expectedQuantity);
+            ItemAddedDTO sale = controller.addItem(FIRST_ITEM_ID, expectedQuantity);
             SaleItemDTO lastAddedItem = sale.lastAddedItem();
             BigDecimal lastAddedItemTotalPrice = new BigDecimal(lastAddedItem.finalTotalPrice().amount());
 
@@ -224,7 +224,7 @@ class SaleControllerTest {
 
             controller.startSale();
             assertDoesNotThrow(() -> controller.addItem(FIRST_ITEM_ID, quantity1));
-            SaleDTO sale = assertDoesNotThrow(() -> controller.addItem(SECOND_ITEM_ID, quantity2));
+            ItemAddedDTO sale = assertDoesNotThrow(() -> controller.addItem(SECOND_ITEM_ID, quantity2));
             BigDecimal actualTotalCost = new BigDecimal(sale.totalCost().amount());
             BigDecimal actualTotalVat = new BigDecimal(sale.totalVat().amount());
 
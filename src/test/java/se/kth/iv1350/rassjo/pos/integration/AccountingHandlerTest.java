@@ -0,0 +1,149 @@
+package se.kth.iv1350.rassjo.pos.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecordedSaleDTO;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleJournal;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleRecord;
+import se.kth.iv1350.rassjo.pos.integration.journal.SaleRecordCodec;
+import se.kth.iv1350.rassjo.pos.model.Amount;
+import se.kth.iv1350.rassjo.pos.model.CashPayment;
+import se.kth.iv1350.rassjo.pos.model.Sale;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountingHandlerTest {
+
+    private static final LaneIdentifierDTO LANE = new LaneIdentifierDTO(3);
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2026, 10, 17, 14, 5);
+
+    @TempDir
+    Path directory;
+
+    private AccountingHandler accountingHandler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        accountingHandler = new AccountingHandler(SaleJournal.open(directory));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        accountingHandler.close();
+    }
+
+    @Test
+    void testRecordedSaleIsJournaled() throws Exception {
+        accountingHandler.recordSale(LANE, createSale());
+        accountingHandler.flushSales();
+
+        List<SaleRecord> records = readJournal();
+        assertEquals(1, records.size(), "The recorded sale should be in the journal.");
+        SaleRecord record = records.get(0);
+        assertEquals("SALE-1", record.getSaleId(), "The sale id should be journaled.");
+        assertEquals(LANE.id(), record.getLaneId(), "The lane should be journaled.");
+        assertEquals(START_TIME.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), record.getTimestampMillis(),
+                "The time of the sale should be journaled.");
+        assertEquals(16_712, record.getTotalCost(), "The total cost should be journaled in öre.");
+        assertEquals(20_000, record.getPaidAmount(), "The paid amount should be journaled in öre.");
+        assertEquals(2, record.getItemCount(), "Every item should be journaled.");
+        assertEquals(2, record.getQuantity(0), "The quantity of every item should be journaled.");
+    }
+
+    @Test
+    void testVatIsJournaledPerRate() throws Exception {
+        accountingHandler.recordSale(LANE, createSale());
+        accountingHandler.flushSales();
+
+        SaleRecord record = readJournal().get(0);
+        assertEquals(2, record.getRateCount(), "Both VAT rates should be journaled.");
+        assertEquals(12, record.getVatRate(0), "The rates should be in the order of the items.");
+        assertEquals(478, record.getVatAmount(0), "The VAT of the 12% items should be journaled.");
+        assertEquals(2_449, record.getVatAmount(1), "The VAT of the 25% items should be journaled.");
+    }
+
+    @Test
+    void testRecordedSaleIsFoundByTimeAndId() throws Exception {
+        accountingHandler.recordSale(LANE, createSale());
+        accountingHandler.flushSales();
+
+        List<RecordedSaleDTO> sales = accountingHandler.findSales(START_TIME, START_TIME.plusMinutes(30), LANE);
+        assertEquals(1, sales.size(), "The sale should be found by the lane and the time it was started.");
+        assertEquals(new AmountDTO("200.00"), sales.get(0).paidAmount(), "The paid amount should be found.");
+        assertEquals(List.of(), accountingHandler.findSales(START_TIME, START_TIME.plusMinutes(30), new LaneIdentifierDTO(4)),
+                "The sale should not be found on another lane.");
+        assertEquals(START_TIME, accountingHandler.findSale("SALE-1").startTime(), "The sale should be found by its id.");
+    }
+
+    @Test
+    void testSecondOpenLeavesLockedJournalUnchanged() throws Exception {
+        accountingHandler.recordSale(LANE, createSale());
+        accountingHandler.flushSales();
+        Path segment = listSegments().get(0);
+        Files.write(segment, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        Map<Path, byte[]> segmentsBefore = readSegments();
+
+        assertThrows(UncheckedIOException.class, () -> new AccountingHandler(directory),
+                "Opening a journal that is already open should fail.");
+
+        Map<Path, byte[]> segmentsAfter = readSegments();
+        assertEquals(segmentsBefore.keySet(), segmentsAfter.keySet(), "No segment should be added or removed.");
+        for (Path file : segmentsBefore.keySet()) {
+            assertArrayEquals(segmentsBefore.get(file), segmentsAfter.get(file),
+                    "The segments of the open journal should not be recovered, e.g. by cutting the tail " + file + ".");
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private Map<Path, byte[]> readSegments() throws IOException {
+        Map<Path, byte[]> segments = new HashMap<>();
+        for (Path segment : listSegments()) {
+            segments.put(segment, Files.readAllBytes(segment));
+        }
+        return segments;
+    }
+
+    private List<SaleRecord> readJournal() throws IOException {
+        List<SaleRecord> records = new ArrayList<>();
+        SaleJournal.forEachRecord(directory, payload -> {
+            SaleRecord record = new SaleRecord();
+            SaleRecordCodec.decode(payload, record);
+            records.add(record);
+        });
+        return records;
+    }
+
+    private static Sale createSale() {
+        Sale sale = new Sale.Builder().saleId("SALE-1").startTime(START_TIME).build();
+        sale.addItem(new ItemDTO(new ItemIdentifierDTO(10001), "Milk 1L", "", new AmountDTO("19.95"), new PercentageDTO(12)), 2);
+        sale.addItem(new ItemDTO(new ItemIdentifierDTO(10004), "Coffee 500g", "", new AmountDTO("97.95"), new PercentageDTO(25)), 1);
+        sale.end();
+        sale.recordPayment(new CashPayment(sale.getTotalCost(), new Amount("200.00")));
+        return sale;
+    }
+}
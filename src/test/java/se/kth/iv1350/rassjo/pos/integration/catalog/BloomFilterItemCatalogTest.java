@@ -0,0 +1,198 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.application.SaleService;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+import se.kth.iv1350.rassjo.pos.integration.HandlerFactory;
+import se.kth.iv1350.rassjo.pos.integration.exceptions.ItemNotFoundException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterItemCatalogTest {
+
+    private static final int ITEM_COUNT = 10_000;
+    private static final int UNKNOWN_ID_OFFSET = 1_000_000;
+
+    private Map<ItemIdentifierDTO, ItemDTO> items;
+    private SimulatedRemoteItemCatalog remote;
+    private BloomFilterItemCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        items = new HashMap<>();
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            items.put(new ItemIdentifierDTO(id), createItem(id));
+        }
+        remote = new SimulatedRemoteItemCatalog(new InMemoryItemCatalog(items), Duration.ZERO);
+        catalog = new BloomFilterItemCatalog(remote);
+    }
+
+    @Test
+    void testEveryKnownItemIsFound() {
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            assertNotNull(catalog.findItem(new ItemIdentifierDTO(id)), "Item " + id + " should never be rejected.");
+        }
+        assertEquals(0, catalog.getRejectedLookupCount(), "No lookup of a known item should be rejected.");
+    }
+
+    @Test
+    void testMostUnknownItemsAreRejectedWithoutRequest() {
+        for (int id = UNKNOWN_ID_OFFSET; id < UNKNOWN_ID_OFFSET + ITEM_COUNT; id++) {
+            assertNull(catalog.findItem(new ItemIdentifierDTO(id)), "Unknown item " + id + " shouldn't be found.");
+        }
+
+        assertTrue(catalog.getRejectedLookupCount() > ITEM_COUNT * 0.97, "Nearly all unknown items should be rejected.");
+        assertEquals(ITEM_COUNT - catalog.getRejectedLookupCount(), remote.getRequestCount(),
+                "Only the lookups that weren't rejected should reach the backing catalog.");
+    }
+
+    @Test
+    void testBatchedLookupOnlyForwardsPossiblyKnownItems() {
+        ItemIdentifierDTO known = new ItemIdentifierDTO(7);
+        ItemIdentifierDTO unknown = findRejectedId();
+
+        Map<ItemIdentifierDTO, ItemDTO> found = catalog.findItems(List.of(known, unknown));
+
+        assertEquals(Map.of(known, createItem(7)), found, "Only the known item should be found.");
+        assertEquals(1, remote.getRequestCount(), "The known item should be looked up in a single request.");
+        assertEquals(Map.of(), catalog.findItems(List.of(unknown)), "A batch of unknown items should find nothing.");
+        assertEquals(1, remote.getRequestCount(), "A batch of only unknown items shouldn't be forwarded.");
+    }
+
+    @Test
+    void testAddedItemIsFound() {
+        ItemIdentifierDTO newItemId = findRejectedId();
+        items.put(newItemId, createItem(newItemId.id()));
+
+        catalog.addItemId(newItemId);
+
+        assertEquals(createItem(newItemId.id()), catalog.findItem(newItemId), "An added item should be found.");
+    }
+
+    @Test
+    void testRebuildReflectsRemovedItems() {
+        ItemIdentifierDTO removedItemId = new ItemIdentifierDTO(3);
+        items.remove(removedItemId);
+        long rejectedBefore = catalog.getRejectedLookupCount();
+
+        catalog.rebuild();
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            if (id != removedItemId.id()) {
+                assertNotNull(catalog.findItem(new ItemIdentifierDTO(id)), "Item " + id + " should still be found after a rebuild.");
+            }
+        }
+
+        assertEquals(rejectedBefore, catalog.getRejectedLookupCount(), "No remaining item should be rejected after a rebuild.");
+    }
+
+    @Test
+    void testItemAddedDuringRebuildIsFound() throws InterruptedException {
+        CountDownLatch idsListed = new CountDownLatch(1);
+        CountDownLatch itemAdded = new CountDownLatch(1);
+        AtomicBoolean pauseAfterListing = new AtomicBoolean();
+        InMemoryItemCatalog backend = new InMemoryItemCatalog(items);
+        BloomFilterItemCatalog pausingCatalog = new BloomFilterItemCatalog(new ItemCatalog() {
+            @Override
+            public ItemDTO findItem(ItemIdentifierDTO itemId) {
+                return backend.findItem(itemId);
+            }
+
+            @Override
+            public void forEachItemId(IntConsumer action) {
+                backend.forEachItemId(action);
+                if (pauseAfterListing.get()) {
+                    idsListed.countDown();
+                    awaitUninterruptibly(itemAdded);
+                }
+            }
+
+            @Override
+            public int size() {
+                return backend.size();
+            }
+        });
+        ItemIdentifierDTO newItemId = findRejectedId();
+        pauseAfterListing.set(true);
+
+        Thread rebuilder = Thread.ofVirtual().start(pausingCatalog::rebuild);
+        idsListed.await();
+        items.put(newItemId, createItem(newItemId.id()));
+        pausingCatalog.addItemId(newItemId);
+        itemAdded.countDown();
+        rebuilder.join();
+
+        assertEquals(createItem(newItemId.id()), pausingCatalog.findItem(newItemId),
+                "An item added while the filter was rebuilt should be found with the new filter.");
+    }
+
+    @Test
+    void testItemOfPublishedVersionIsFound() throws InterruptedException {
+        VersionedItemCatalog versioned = new VersionedItemCatalog(new InMemoryItemCatalog(items));
+        BloomFilterItemCatalog versionedCatalog = new BloomFilterItemCatalog(versioned);
+        ItemIdentifierDTO newItemId = findRejectedId();
+        ItemIdentifierDTO unknownItemId = new ItemIdentifierDTO(newItemId.id() + 1);
+        Map<ItemIdentifierDTO, ItemDTO> newItems = new HashMap<>(items);
+        newItems.put(newItemId, createItem(newItemId.id()));
+
+        versioned.publish(new InMemoryItemCatalog(newItems));
+
+        assertEquals(createItem(newItemId.id()), versionedCatalog.findItem(newItemId),
+                "An item of the published version should be found right away.");
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (versionedCatalog.getRejectedLookupCount() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Unknown items should be rejected again once the filter has been rebuilt.");
+            versionedCatalog.findItem(unknownItemId);
+            unknownItemId = new ItemIdentifierDTO(unknownItemId.id() + 1);
+            Thread.sleep(1);
+        }
+        assertEquals(createItem(newItemId.id()), versionedCatalog.findItem(newItemId),
+                "An item of the published version should be found with the rebuilt filter.");
+    }
+
+    @Test
+    void testNotFoundExceptionHasNoStackTrace() {
+        SaleService saleService = new SaleService(new HandlerFactory(catalog));
+        saleService.startSale();
+
+        ItemNotFoundException exception = assertThrows(ItemNotFoundException.class,
+                () -> saleService.addItem(findRejectedId(), 1), "An unknown item should still be reported as not found.");
+
+        assertEquals(0, exception.getStackTrace().length, "An expected not-found exception shouldn't capture a stack trace.");
+        assertEquals(0, remote.getRequestCount(), "The unknown item shouldn't be looked up.");
+    }
+
+    private ItemIdentifierDTO findRejectedId() {
+        BloomFilterItemCatalog probe = new BloomFilterItemCatalog(new InMemoryItemCatalog(items));
+        for (int id = UNKNOWN_ID_OFFSET; ; id++) {
+            ItemIdentifierDTO candidate = new ItemIdentifierDTO(id);
+            probe.findItem(candidate);
+            if (probe.getRejectedLookupCount() > 0) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ItemDTO createItem(int id) {
+        return new ItemDTO(new ItemIdentifierDTO(id), "Item " + id, "", new AmountDTO("10.00"), new PercentageDTO(12));
+    }
+}
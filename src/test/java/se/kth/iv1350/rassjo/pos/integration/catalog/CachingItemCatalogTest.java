@@ -0,0 +1,126 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.application.SaleService;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.CacheStatisticsDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemAddedDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+import se.kth.iv1350.rassjo.pos.integration.HandlerFactory;
+import se.kth.iv1350.rassjo.pos.integration.exceptions.ItemNotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingItemCatalogTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final int ITEM_COUNT = 100;
+
+    private SimulatedRemoteItemCatalog remote;
+    private AtomicLong now;
+
+    @BeforeEach
+    void setUp() {
+        List<ItemDTO> items = new ArrayList<>();
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            items.add(new ItemDTO(new ItemIdentifierDTO(id), "Item " + id, "", new AmountDTO("10.00"), new PercentageDTO(12)));
+        }
+        remote = new SimulatedRemoteItemCatalog(new InMemoryItemCatalog(items), Duration.ZERO);
+        now = new AtomicLong();
+    }
+
+    @Test
+    void testRepeatedLookupIsServedFromCache() {
+        CachingItemCatalog cache = new CachingItemCatalog(remote, 10, TIME_TO_LIVE, now::get);
+
+        ItemDTO first = cache.findItem(new ItemIdentifierDTO(1));
+        ItemDTO second = cache.findItem(new ItemIdentifierDTO(1));
+
+        assertEquals(first, second, "The cached item should equal the loaded item.");
+        assertEquals(1, remote.getRequestCount(), "Only the first lookup should reach the remote catalog.");
+        CacheStatisticsDTO statistics = cache.getStatistics();
+        assertEquals(1, statistics.hits(), "The second lookup should be a hit.");
+        assertEquals(1, statistics.misses(), "The first lookup should be a miss.");
+        assertEquals(0.5, statistics.hitRate(), "Half of the lookups should be hits.");
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() {
+        CachingItemCatalog cache = new CachingItemCatalog(remote, 10, TIME_TO_LIVE, now::get);
+
+        cache.findItem(new ItemIdentifierDTO(1));
+        now.addAndGet(TIME_TO_LIVE.toNanos());
+        cache.findItem(new ItemIdentifierDTO(1));
+
+        assertEquals(2, remote.getRequestCount(), "An expired item should be loaded again.");
+        assertEquals(1, cache.getStatistics().expirations(), "The expiration should be counted.");
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        int maximumSize = 20;
+        CachingItemCatalog cache = new CachingItemCatalog(remote, maximumSize, TIME_TO_LIVE, now::get);
+
+        for (int id = 0; id < ITEM_COUNT; id++) {
+            cache.findItem(new ItemIdentifierDTO(id));
+        }
+
+        CacheStatisticsDTO statistics = cache.getStatistics();
+        assertTrue(statistics.size() <= maximumSize, "The cache should never hold more than its maximum size.");
+        assertEquals(ITEM_COUNT - statistics.size(), statistics.evictions(), "Every item that doesn't fit should be counted as evicted.");
+    }
+
+    @Test
+    void testFrequentlyUsedItemSurvivesScan() {
+        CachingItemCatalog cache = new CachingItemCatalog(remote, 1, TIME_TO_LIVE, now::get);
+        ItemIdentifierDTO popular = new ItemIdentifierDTO(0);
+        cache.findItem(popular);
+        cache.findItem(popular);
+
+        cache.findItem(new ItemIdentifierDTO(1));
+        long requestsBefore = remote.getRequestCount();
+        cache.findItem(popular);
+
+        assertEquals(requestsBefore, remote.getRequestCount(), "A protected item should not be evicted by an item seen only once.");
+    }
+
+    @Test
+    void testBatchedLookupOnlyLoadsMissingItems() {
+        CachingItemCatalog cache = new CachingItemCatalog(remote, 10, TIME_TO_LIVE, now::get);
+        cache.findItem(new ItemIdentifierDTO(1));
+
+        Map<ItemIdentifierDTO, ItemDTO> found = cache.findItems(List.of(new ItemIdentifierDTO(1), new ItemIdentifierDTO(2), new ItemIdentifierDTO(3)));
+
+        assertEquals(3, found.size(), "All known items should be found.");
+        assertEquals(2, remote.getRequestCount(), "The missing items should be loaded in one request.");
+    }
+
+    @Test
+    void testUnknownItemIsNotCached() {
+        CachingItemCatalog cache = new CachingItemCatalog(remote, 10, TIME_TO_LIVE, now::get);
+
+        assertNull(cache.findItem(new ItemIdentifierDTO(-1)), "An unknown item should not be found.");
+        assertEquals(0, cache.getStatistics().size(), "An unknown item should not take up room in the cache.");
+    }
+
+    @Test
+    void testSaleServiceWorksWithCacheInFront() throws ItemNotFoundException {
+        CachingItemCatalog cache = new CachingItemCatalog(remote, 10, TIME_TO_LIVE);
+        SaleService saleService = new SaleService(new HandlerFactory(cache));
+
+        saleService.startSale();
+        ItemAddedDTO added = saleService.addItem(new ItemIdentifierDTO(5), 2);
+
+        assertEquals("Item 5", added.lastAddedItem().name(), "The item should be added through the cache.");
+        assertEquals(1, cache.getStatistics().misses(), "The item should be loaded through the cache.");
+    }
+}
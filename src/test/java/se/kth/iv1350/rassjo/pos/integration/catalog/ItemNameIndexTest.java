@@ -0,0 +1,98 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemNameIndexTest {
+
+    private static final int FILLER_ITEM_COUNT = 100_000;
+    private static final String[] FILLER_WORDS = {"pasta", "rice", "soup", "tea", "jam", "oats", "flour", "sugar"};
+
+    private ItemNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<ItemDTO> items = new ArrayList<>();
+        items.add(createItem(1, "Milk 1L"));
+        items.add(createItem(2, "Oat milk 1L"));
+        items.add(createItem(3, "Cheese 300g"));
+        items.add(createItem(4, "Bananas, loose"));
+        items.add(createItem(5, "Red apples (1 kg)"));
+        for (int i = 0; i < FILLER_ITEM_COUNT; i++) {
+            items.add(createItem(1000 + i, FILLER_WORDS[i % FILLER_WORDS.length] + " " + i));
+        }
+        index = ItemNameIndex.build(new InMemoryItemCatalog(items));
+    }
+
+    @Test
+    void testExactNameIsBestMatch() {
+        List<ItemDTO> results = index.search("milk 1l", 5);
+
+        assertEquals(1, results.get(0).itemId().id(), "The item with exactly the searched name should come first.");
+        assertEquals(2, results.get(1).itemId().id(), "The item containing the searched words should come next.");
+    }
+
+    @Test
+    void testPrefixOfLastWordMatches() {
+        List<ItemDTO> results = index.search("bana", 5);
+
+        assertEquals(List.of(4), ids(results), "An item should be found by the beginning of a word in its name.");
+    }
+
+    @Test
+    void testMisspelledNameMatches() {
+        assertEquals(3, index.search("chese", 5).get(0).itemId().id(), "A missing letter should still find the item.");
+        assertEquals(5, index.search("red aples", 5).get(0).itemId().id(), "A misspelled word should still find the item.");
+    }
+
+    @Test
+    void testExactWordRanksAbovePrefix() {
+        List<ItemDTO> results = index.search("pasta 8", 2);
+
+        assertEquals("pasta 8", results.get(0).name(), "The name with the exact word should come first.");
+        assertTrue(results.get(1).name().startsWith("pasta 8"), "Names with longer words should come next.");
+    }
+
+    @Test
+    void testCaseAndPunctuationAreIgnored() {
+        assertEquals(4, index.search("BANANAS LOOSE", 1).get(0).itemId().id(), "Case and punctuation shouldn't matter.");
+    }
+
+    @Test
+    void testNumberOfResultsIsLimited() {
+        assertEquals(3, index.search("pasta", 3).size(), "No more than the requested number of items should be returned.");
+    }
+
+    @Test
+    void testUnknownOrEmptyQueryFindsNothing() {
+        assertTrue(index.search("xyzzy", 5).isEmpty(), "A name that matches nothing should find nothing.");
+        assertTrue(index.search("milk xyzzy", 5).isEmpty(), "Every word of the query should have to match.");
+        assertTrue(index.search(" - ", 5).isEmpty(), "A query without words should find nothing.");
+    }
+
+    @Test
+    void testIndexContainsEveryItem() {
+        assertEquals(FILLER_ITEM_COUNT + 5, index.size(), "Every item of the catalog should be indexed.");
+    }
+
+    private static List<Integer> ids(List<ItemDTO> items) {
+        List<Integer> ids = new ArrayList<>();
+        for (ItemDTO item : items) {
+            ids.add(item.itemId().id());
+        }
+        return ids;
+    }
+
+    private static ItemDTO createItem(int id, String name) {
+        return new ItemDTO(new ItemIdentifierDTO(id), name, "", new AmountDTO("10.00"), new PercentageDTO(12));
+    }
+}
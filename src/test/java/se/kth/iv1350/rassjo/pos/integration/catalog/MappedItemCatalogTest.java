@@ -0,0 +1,130 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemPriceDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedItemCatalogTest {
+
+    private static final String CSV_HEADER = "id,name,description,netPrice,vatRate\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testConvertedCatalogContainsCsvItems() throws IOException {
+        Path catalogFile = convert(CSV_HEADER
+                + "10001,Milk 1L,\"Fresh whole milk, 1 liter\",19.95,12\n"
+                + "10002,\"Crème \"\"fraîche\"\"\",Sour cream,24.9,12\n");
+
+        MappedItemCatalog catalog = MappedItemCatalog.open(catalogFile);
+
+        assertEquals(2, catalog.size(), "The catalog should contain every item in the CSV file.");
+        assertEquals(new ItemDTO(new ItemIdentifierDTO(10001), "Milk 1L", "Fresh whole milk, 1 liter",
+                        new AmountDTO("19.95"), new PercentageDTO(12)),
+                catalog.findItem(new ItemIdentifierDTO(10001)),
+                "Quoted fields containing commas should be read correctly.");
+        ItemDTO cream = catalog.findItem(new ItemIdentifierDTO(10002));
+        assertEquals("Crème \"fraîche\"", cream.name(), "Doubled quotes and non-ASCII characters should be preserved.");
+        assertEquals("24.90", cream.baseNetPrice().amount(), "The price should be stored in öre and formatted with two decimals.");
+        assertEquals(new ItemPriceDTO(2490, 2789, 299), cream.price(), "The gross price and VAT should be stored when the catalog is built.");
+    }
+
+    @Test
+    void testFindItemReturnsNullForUnknownItem() throws IOException {
+        MappedItemCatalog catalog = MappedItemCatalog.open(convert(CSV_HEADER + "10001,Milk,Milk,19.95,12\n"));
+
+        assertNull(catalog.findItem(new ItemIdentifierDTO(99999)), "An unknown item should not be found.");
+    }
+
+    @Test
+    void testLargeCatalogFindsEveryItem() throws IOException {
+        int itemCount = 20_000;
+        Path catalogFile = directory.resolve("large.catalog");
+        MappedItemCatalogBuilder builder = new MappedItemCatalogBuilder(catalogFile);
+        for (int id = 0; id < itemCount; id++) {
+            builder.addItem(new ItemDTO(new ItemIdentifierDTO(id * 7), "Item " + id, "",
+                    new AmountDTO(id + ".50"), new PercentageDTO(25)));
+        }
+        builder.build();
+
+        MappedItemCatalog catalog = MappedItemCatalog.open(catalogFile);
+
+        for (int id = 0; id < itemCount; id++) {
+            ItemDTO item = catalog.findItem(new ItemIdentifierDTO(id * 7));
+            assertNotNull(item, "Item " + id * 7 + " should be found.");
+            assertEquals("Item " + id, item.name(), "The item should have the name it was stored with.");
+        }
+        assertNull(catalog.findItem(new ItemIdentifierDTO(1)), "An id between stored ids should not be found.");
+    }
+
+    @Test
+    void testFindItemsReturnsOnlyFoundItems() throws IOException {
+        MappedItemCatalog catalog = MappedItemCatalog.open(convert(CSV_HEADER + "10001,Milk,Milk,19.95,12\n"));
+
+        Map<ItemIdentifierDTO, ItemDTO> found = catalog.findItems(List.of(new ItemIdentifierDTO(10001), new ItemIdentifierDTO(1)));
+
+        assertEquals(1, found.size(), "Only the known item should be returned.");
+        assertTrue(found.containsKey(new ItemIdentifierDTO(10001)), "The known item should be returned.");
+    }
+
+    @Test
+    void testDuplicateItemIsRejected() {
+        IOException exception = assertThrows(IOException.class,
+                () -> convert(CSV_HEADER + "10001,Milk,Milk,19.95,12\n10001,Milk,Milk,19.95,12\n"),
+                "A CSV file with the same item twice should be rejected.");
+        assertTrue(exception.getMessage().contains("10001"), "The message should name the duplicated item.");
+        assertFalse(Files.exists(directory.resolve("items.catalog")), "No catalog file should be left behind.");
+    }
+
+    @Test
+    void testInvalidLineIsReportedWithLineNumber() {
+        IOException exception = assertThrows(IOException.class,
+                () -> convert(CSV_HEADER + "10001,Milk,Milk,19.95,12\n10002,Bread,Bread,not a price,12\n"),
+                "A CSV file with an invalid price should be rejected.");
+        assertTrue(exception.getMessage().contains("line 3"), "The message should contain the line number of the invalid line.");
+    }
+
+    @Test
+    void testOpenRejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("not.catalog");
+        Files.write(file, new byte[MappedItemCatalog.HEADER_SIZE]);
+
+        assertThrows(IOException.class, () -> MappedItemCatalog.open(file), "A file that isn't a catalog should be rejected.");
+    }
+
+    @Test
+    void testOpenRejectsCatalogOfOtherVersion() throws IOException {
+        Path catalogFile = convert(CSV_HEADER + "10001,Milk,Milk,19.95,12\n");
+        try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, MappedItemCatalog.VERSION - 1), MappedItemCatalog.VERSION_POSITION);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> MappedItemCatalog.open(catalogFile),
+                "A catalog written in an older format should be rejected.");
+        assertTrue(exception.getMessage().contains("version"), "The message should say that the version isn't supported.");
+    }
+
+    private Path convert(String csv) throws IOException {
+        Path csvFile = directory.resolve("items.csv");
+        Path catalogFile = directory.resolve("items.catalog");
+        Files.writeString(csvFile, csv);
+        MappedItemCatalogBuilder.convertCsv(csvFile, catalogFile);
+        return catalogFile;
+    }
+}
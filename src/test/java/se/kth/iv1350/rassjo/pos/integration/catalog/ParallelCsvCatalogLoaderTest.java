@@ -0,0 +1,91 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelCsvCatalogLoaderTest {
+
+    private static final String CSV_HEADER = "id,name,description,netPrice,vatRate\r\n";
+
+    @TempDir
+    Path directory;
+
+    private ForkJoinPool pool;
+    private ParallelCsvCatalogLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        loader = new ParallelCsvCatalogLoader(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testLoadFindsEveryItemAcrossChunks() throws IOException {
+        int itemCount = 40_000;
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int id = 0; id < itemCount; id++) {
+            csv.append(id).append(",Item ").append(id).append(",\"Long description, shared by many items\",")
+                    .append(id % 500).append(".95,12\r\n");
+        }
+
+        InMemoryItemCatalog catalog = loader.load(write(csv.toString()));
+
+        assertEquals(itemCount, catalog.size(), "Every line of the file should be loaded.");
+        for (int id = 0; id < itemCount; id++) {
+            ItemDTO item = catalog.findItem(new ItemIdentifierDTO(id));
+            assertNotNull(item, "Item " + id + " should be found.");
+            assertEquals("Item " + id, item.name(), "Carriage returns should not be part of the fields.");
+        }
+    }
+
+    @Test
+    void testRepeatedTextsAreShared() throws IOException {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int id = 0; id < 40_000; id++) {
+            csv.append(id).append(",Milk,Fresh whole milk,19.95,12\r\n");
+        }
+
+        InMemoryItemCatalog catalog = loader.load(write(csv.toString()));
+
+        assertSame(catalog.findItem(new ItemIdentifierDTO(0)).description(),
+                catalog.findItem(new ItemIdentifierDTO(39_999)).description(),
+                "Items in different chunks with the same description should share the string.");
+    }
+
+    @Test
+    void testDuplicateItemIsRejected() {
+        assertThrows(IOException.class,
+                () -> loader.load(write(CSV_HEADER + "1,Milk,Milk,19.95,12\n1,Milk,Milk,19.95,12\n")),
+                "A file with the same item twice should be rejected.");
+    }
+
+    @Test
+    void testInvalidLineIsRejected() {
+        IOException exception = assertThrows(IOException.class,
+                () -> loader.load(write(CSV_HEADER + "1,Milk,Milk,19.95\n")),
+                "A line with missing fields should be rejected.");
+        assertTrue(exception.getMessage().contains("1,Milk,Milk,19.95"), "The message should contain the invalid line.");
+    }
+
+    private Path write(String csv) throws IOException {
+        Path csvFile = directory.resolve("items.csv");
+        Files.writeString(csvFile, csv);
+        return csvFile;
+    }
+}
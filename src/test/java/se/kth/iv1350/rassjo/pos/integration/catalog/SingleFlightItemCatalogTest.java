@@ -0,0 +1,159 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightItemCatalogTest {
+
+    private static final int LANE_COUNT = 10;
+    private static final ItemIdentifierDTO PROMO_ITEM_ID = new ItemIdentifierDTO(42);
+    private static final ItemDTO PROMO_ITEM = new ItemDTO(PROMO_ITEM_ID, "Promo", "", new AmountDTO("9.90"), new PercentageDTO(12));
+
+    private BlockingCatalog backend;
+    private SingleFlightItemCatalog catalog;
+    private ExecutorService lanes;
+
+    @BeforeEach
+    void setUp() {
+        backend = new BlockingCatalog();
+        catalog = new SingleFlightItemCatalog(backend);
+        lanes = Executors.newFixedThreadPool(LANE_COUNT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentLookupsMakeOneCall() throws Exception {
+        backend.result = PROMO_ITEM;
+
+        List<Future<ItemDTO>> results = lookUpFromAllLanes(PROMO_ITEM_ID);
+
+        for (Future<ItemDTO> result : results) {
+            assertEquals(PROMO_ITEM, result.get(), "Every lane should get the item.");
+        }
+        assertEquals(1, backend.calls.get(), "The backend should only be called once.");
+        assertEquals(LANE_COUNT - 1, catalog.getCoalescedLookupCount(), "All other lanes should wait for the first call.");
+    }
+
+    @Test
+    void testNotFoundFansOut() throws Exception {
+        backend.result = null;
+
+        for (Future<ItemDTO> result : lookUpFromAllLanes(PROMO_ITEM_ID)) {
+            assertNull(result.get(), "Every lane should see that the item doesn't exist.");
+        }
+        assertEquals(1, backend.calls.get(), "The backend should only be called once.");
+    }
+
+    @Test
+    void testFailureFansOut() throws Exception {
+        backend.failure = new IllegalStateException("Inventory system unavailable");
+
+        for (Future<ItemDTO> result : lookUpFromAllLanes(PROMO_ITEM_ID)) {
+            ExecutionException exception = assertThrows(ExecutionException.class, result::get, "Every lane should see the failure.");
+            assertSame(backend.failure, exception.getCause(), "Every lane should get the backend's exception.");
+        }
+        assertEquals(1, backend.calls.get(), "The backend should only be called once.");
+    }
+
+    @Test
+    void testBatchedLookupsJoinCallInFlight() throws Exception {
+        backend.result = PROMO_ITEM;
+        Future<ItemDTO> first = lanes.submit(() -> catalog.findItem(PROMO_ITEM_ID));
+        backend.entered.await();
+
+        List<Future<Map<ItemIdentifierDTO, ItemDTO>>> batches = new ArrayList<>();
+        for (int i = 1; i < LANE_COUNT; i++) {
+            batches.add(lanes.submit(() -> catalog.findItems(List.of(PROMO_ITEM_ID, PROMO_ITEM_ID))));
+        }
+        while (catalog.getCoalescedLookupCount() < LANE_COUNT - 1) {
+            Thread.onSpinWait();
+        }
+        backend.release.countDown();
+
+        assertEquals(PROMO_ITEM, first.get(), "The lane that made the call should get the item.");
+        for (Future<Map<ItemIdentifierDTO, ItemDTO>> batch : batches) {
+            assertEquals(Map.of(PROMO_ITEM_ID, PROMO_ITEM), batch.get(), "Every batch should get the item of the call in flight.");
+        }
+        assertEquals(1, backend.calls.get(), "The batches should not call the backend for an item already being looked up.");
+    }
+
+    @Test
+    void testLaterLookupMakesNewCall() {
+        backend.result = PROMO_ITEM;
+        backend.release.countDown();
+
+        catalog.findItem(PROMO_ITEM_ID);
+        catalog.findItem(PROMO_ITEM_ID);
+
+        assertEquals(2, backend.calls.get(), "A lookup after the first call finished should make its own call.");
+    }
+
+    private List<Future<ItemDTO>> lookUpFromAllLanes(ItemIdentifierDTO itemId) throws InterruptedException {
+        List<Future<ItemDTO>> results = new ArrayList<>();
+        results.add(lanes.submit(() -> catalog.findItem(itemId)));
+        backend.entered.await();
+        for (int i = 1; i < LANE_COUNT; i++) {
+            results.add(lanes.submit(() -> catalog.findItem(itemId)));
+        }
+        while (catalog.getCoalescedLookupCount() < LANE_COUNT - 1) {
+            Thread.onSpinWait();
+        }
+        backend.release.countDown();
+        return results;
+    }
+
+    private static class BlockingCatalog implements ItemCatalog {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private ItemDTO result;
+        private RuntimeException failure;
+
+        @Override
+        public ItemDTO findItem(ItemIdentifierDTO itemId) {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+
+        @Override
+        public void forEachItemId(IntConsumer action) {
+            action.accept(PROMO_ITEM_ID.id());
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+    }
+}
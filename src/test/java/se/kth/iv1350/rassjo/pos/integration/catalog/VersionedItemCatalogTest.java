@@ -0,0 +1,161 @@
+package se.kth.iv1350.rassjo.pos.integration.catalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedItemCatalogTest {
+
+    private static final ItemIdentifierDTO MILK_ID = new ItemIdentifierDTO(10001);
+    private static final ItemIdentifierDTO BREAD_ID = new ItemIdentifierDTO(10002);
+    private static final AmountDTO OLD_PRICE = new AmountDTO("19.95");
+    private static final AmountDTO NEW_PRICE = new AmountDTO("21.95");
+
+    private ExecutorService lanes;
+
+    @BeforeEach
+    void setUp() {
+        lanes = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.shutdownNow();
+    }
+
+    @Test
+    void testPublishReplacesCatalog() {
+        VersionedItemCatalog catalog = new VersionedItemCatalog(catalogWithMilkPrice(OLD_PRICE));
+
+        long version = catalog.publish(catalogWithMilkPrice(NEW_PRICE));
+
+        assertEquals(2, version, "The published catalog should be the second version.");
+        assertEquals(2, catalog.getVersion(), "The published catalog should be the current version.");
+        assertEquals(NEW_PRICE, catalog.findItem(MILK_ID).baseNetPrice(), "Lookups should read from the published catalog.");
+    }
+
+    @Test
+    void testOldVersionIsReclaimedWhenNotInUse() {
+        CloseableCatalog oldCatalog = new CloseableCatalog(catalogWithMilkPrice(OLD_PRICE));
+        VersionedItemCatalog catalog = new VersionedItemCatalog(oldCatalog);
+        catalog.findItem(MILK_ID);
+
+        catalog.publish(catalogWithMilkPrice(NEW_PRICE));
+
+        assertTrue(oldCatalog.closed.get(), "A replaced version without lookups in progress should be reclaimed right away.");
+        assertEquals(1, catalog.getLiveVersionCount(), "Only the current version should be live.");
+    }
+
+    @Test
+    void testOldVersionIsKeptUntilLookupFinishes() throws Exception {
+        CloseableCatalog oldCatalog = new CloseableCatalog(catalogWithMilkPrice(OLD_PRICE));
+        oldCatalog.blockLookups();
+        VersionedItemCatalog catalog = new VersionedItemCatalog(oldCatalog);
+        Future<ItemDTO> lookup = lanes.submit(() -> catalog.findItem(MILK_ID));
+        oldCatalog.entered.await();
+
+        catalog.publish(catalogWithMilkPrice(NEW_PRICE));
+
+        assertFalse(oldCatalog.closed.get(), "A version should not be reclaimed while a lookup uses it.");
+        assertEquals(2, catalog.getLiveVersionCount(), "Both versions should be live during the lookup.");
+        assertEquals(NEW_PRICE, catalog.findItem(MILK_ID).baseNetPrice(), "New lookups should read from the published catalog.");
+
+        oldCatalog.release.countDown();
+
+        assertEquals(OLD_PRICE, lookup.get().baseNetPrice(), "The lookup in progress should finish on the version it started on.");
+        assertTrue(oldCatalog.closed.get(), "The old version should be reclaimed when its last lookup finishes.");
+        assertEquals(1, catalog.getLiveVersionCount(), "Only the current version should be live.");
+    }
+
+    @Test
+    void testLookupsDuringPublishSeeWholeVersions() throws Exception {
+        VersionedItemCatalog catalog = new VersionedItemCatalog(catalogWithMilkPrice(OLD_PRICE));
+        AtomicBoolean publishing = new AtomicBoolean(true);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(lanes.submit(() -> {
+                int lookups = 0;
+                while (publishing.get()) {
+                    ItemDTO milk = catalog.findItem(MILK_ID);
+                    assertNotNull(milk, "An item present in every version should always be found.");
+                    assertNotNull(catalog.findItem(BREAD_ID), "Every version should be complete.");
+                    lookups++;
+                }
+                return lookups;
+            }));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            catalog.publish(catalogWithMilkPrice(i % 2 == 0 ? NEW_PRICE : OLD_PRICE));
+        }
+        publishing.set(false);
+
+        for (Future<Integer> result : results) {
+            assertTrue(result.get() >= 0, "Every lane should finish its lookups without errors.");
+        }
+        assertEquals(1001, catalog.getVersion(), "Every publish should create a new version.");
+        assertEquals(1, catalog.getLiveVersionCount(), "All replaced versions should have been reclaimed.");
+    }
+
+    private static InMemoryItemCatalog catalogWithMilkPrice(AmountDTO milkPrice) {
+        return new InMemoryItemCatalog(List.of(
+                new ItemDTO(MILK_ID, "Milk 1L", "", milkPrice, new PercentageDTO(12)),
+                new ItemDTO(BREAD_ID, "Bread loaf", "", new AmountDTO("37.90"), new PercentageDTO(12))));
+    }
+
+    private static class CloseableCatalog implements ItemCatalog, AutoCloseable {
+        private final ItemCatalog delegate;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private CountDownLatch release = new CountDownLatch(0);
+
+        private CloseableCatalog(ItemCatalog delegate) {
+            this.delegate = delegate;
+        }
+
+        private void blockLookups() {
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public ItemDTO findItem(ItemIdentifierDTO itemId) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return delegate.findItem(itemId);
+        }
+
+        @Override
+        public void forEachItemId(IntConsumer action) {
+            delegate.forEachItemId(action);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
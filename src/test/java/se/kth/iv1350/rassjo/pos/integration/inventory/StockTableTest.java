@@ -0,0 +1,166 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+import se.kth.iv1350.rassjo.pos.integration.catalog.InMemoryItemCatalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StockTableTest {
+
+    private static final int ITEM_COUNT = 1000;
+    private static final int FIRST_ID = 10001;
+    private static final long INITIAL_LEVEL = 100_000;
+    private static final long THRESHOLD = 10;
+    private static final ItemIdentifierDTO ITEM_ID = new ItemIdentifierDTO(FIRST_ID);
+
+    private StockTable stockTable;
+    private List<ItemIdentifierDTO> alerts;
+
+    @BeforeEach
+    void setUp() {
+        List<ItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(new ItemDTO(new ItemIdentifierDTO(FIRST_ID + i), "Item " + i, "", new AmountDTO("10.00"), new PercentageDTO(12)));
+        }
+        stockTable = new StockTable(new InMemoryItemCatalog(items), INITIAL_LEVEL, THRESHOLD);
+        alerts = new CopyOnWriteArrayList<>();
+        stockTable.addLowStockObserver((itemId, stockLevel) -> alerts.add(itemId));
+    }
+
+    @Test
+    void testEveryItemHasItsOwnIndex() {
+        boolean[] used = new boolean[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            int index = stockTable.indexOf(new ItemIdentifierDTO(FIRST_ID + i));
+            assertFalse(used[index], "Item " + (FIRST_ID + i) + " should have an index of its own.");
+            used[index] = true;
+        }
+        assertEquals(StockTable.NOT_FOUND, stockTable.indexOf(new ItemIdentifierDTO(1)), "An unknown item shouldn't have an index.");
+    }
+
+    @Test
+    void testConcurrentSalesLoseNoUpdates() throws InterruptedException {
+        int laneCount = 8;
+        int salesPerLane = 10_000;
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < laneCount; lane++) {
+            lanes.add(Thread.ofPlatform().start(() -> {
+                for (int sale = 0; sale < salesPerLane; sale++) {
+                    stockTable.adjustStock(ITEM_ID, -1);
+                }
+            }));
+        }
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+
+        assertEquals(INITIAL_LEVEL - (long) laneCount * salesPerLane, stockTable.getStockLevel(ITEM_ID),
+                "Every sale should be subtracted exactly once.");
+    }
+
+    @Test
+    void testThresholdFiresOnceWhenCrossedConcurrently() throws InterruptedException {
+        int index = stockTable.indexOf(ITEM_ID);
+        stockTable.adjustStock(index, -(INITIAL_LEVEL - THRESHOLD - 100));
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 8; lane++) {
+            lanes.add(Thread.ofPlatform().start(() -> {
+                for (int sale = 0; sale < 50; sale++) {
+                    stockTable.adjustStock(index, -1);
+                }
+            }));
+        }
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+
+        assertEquals(List.of(ITEM_ID), alerts, "The observers should be notified exactly once.");
+    }
+
+    @Test
+    void testRacingRestocksAndSalesLeaveAlertMatchingLevel() throws InterruptedException {
+        int index = stockTable.indexOf(ITEM_ID);
+        stockTable.adjustStock(index, -(INITIAL_LEVEL - THRESHOLD - 1));
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < 8; lane++) {
+            long change = lane % 2 == 0 ? -1 : 1;
+            lanes.add(Thread.ofPlatform().start(() -> {
+                for (int update = 0; update < 10_000; update++) {
+                    stockTable.adjustStock(index, change);
+                }
+            }));
+        }
+        for (Thread lane : lanes) {
+            lane.join();
+        }
+        stockTable.adjustStock(index, -1);
+        int alertsWhileLow = alerts.size();
+
+        stockTable.adjustStock(index, 0);
+        assertEquals(alertsWhileLow, alerts.size(), "An item that is low should stay alerted after racing updates.");
+        stockTable.adjustStock(index, 10);
+        stockTable.adjustStock(index, -10);
+        assertEquals(alertsWhileLow + 1, alerts.size(), "A restocked item should be armed again after racing updates.");
+    }
+
+    @Test
+    void testRestockRearmsThreshold() {
+        stockTable.adjustStock(ITEM_ID, -(INITIAL_LEVEL - THRESHOLD));
+        stockTable.adjustStock(ITEM_ID, -1);
+        stockTable.adjustStock(ITEM_ID, 50);
+        stockTable.adjustStock(ITEM_ID, -50);
+
+        assertEquals(List.of(ITEM_ID, ITEM_ID), alerts, "Every crossing after a restock should notify the observers once.");
+    }
+
+    @Test
+    void testFailingObserverDoesNotFailUpdate() {
+        stockTable.addLowStockObserver((itemId, stockLevel) -> {
+            throw new IllegalStateException("The alert service is unreachable.");
+        });
+
+        assertDoesNotThrow(() -> stockTable.adjustStock(ITEM_ID, -(INITIAL_LEVEL - THRESHOLD)),
+                "An observer that fails should not fail the update.");
+        assertEquals(THRESHOLD, stockTable.getStockLevel(ITEM_ID), "The update should be made once.");
+        assertEquals(List.of(ITEM_ID), alerts, "The other observers should still be notified.");
+    }
+
+    @Test
+    void testSetLowStockThreshold() {
+        ItemIdentifierDTO otherItemId = new ItemIdentifierDTO(FIRST_ID + 1);
+        assertTrue(stockTable.setLowStockThreshold(otherItemId, INITIAL_LEVEL), "A tracked item should accept a threshold.");
+
+        stockTable.adjustStock(otherItemId, 0);
+
+        assertEquals(List.of(otherItemId), alerts, "An update at the new threshold should notify the observers.");
+        assertFalse(stockTable.setLowStockThreshold(new ItemIdentifierDTO(1), 5), "An unknown item shouldn't accept a threshold.");
+    }
+
+    @Test
+    void testUnknownItemIsNotAdjusted() {
+        assertFalse(stockTable.adjustStock(new ItemIdentifierDTO(1), -1), "An unknown item shouldn't be adjusted.");
+        assertThrows(IllegalArgumentException.class, () -> stockTable.getStockLevel(new ItemIdentifierDTO(1)),
+                "An unknown item has no stock level.");
+    }
+
+    @Test
+    void testSnapshotContainsEveryItem() {
+        stockTable.adjustStock(ITEM_ID, -3);
+
+        Map<ItemIdentifierDTO, Long> snapshot = stockTable.snapshot();
+
+        assertEquals(ITEM_COUNT, snapshot.size(), "The snapshot should contain every item.");
+        assertEquals(INITIAL_LEVEL - 3, snapshot.get(ITEM_ID), "The snapshot should contain the current level.");
+        assertEquals(INITIAL_LEVEL, snapshot.get(new ItemIdentifierDTO(FIRST_ID + 1)), "Untouched items should keep their level.");
+    }
+}
@@ -0,0 +1,192 @@
+package se.kth.iv1350.rassjo.pos.integration.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.StockUpdateStatisticsDTO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindStockUpdaterTest {
+
+    private static final Duration LONG_INTERVAL = Duration.ofHours(1);
+    private static final ItemIdentifierDTO MILK = new ItemIdentifierDTO(10001);
+    private static final ItemIdentifierDTO BREAD = new ItemIdentifierDTO(10002);
+    private static final ItemIdentifierDTO EGGS = new ItemIdentifierDTO(10003);
+
+    @Test
+    void testChangesAreAggregatedIntoOneBatch() throws InterruptedException {
+        RecordingStore store = new RecordingStore();
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(store, 100, LONG_INTERVAL);
+
+        updater.recordChanges(Map.of(MILK, -1));
+        updater.recordChanges(Map.of(MILK, -2, BREAD, -1));
+        assertEquals(2, updater.getStatistics().queueDepth(), "Two items should be waiting.");
+        updater.close();
+
+        assertEquals(List.of(Map.of(MILK, -3, BREAD, -1)), store.batches, "All changes should be flushed as one summed batch.");
+        assertTrue(store.closed, "Closing the updater should close the store.");
+    }
+
+    @Test
+    void testFullBacklogIsFlushedWithoutWaitingForInterval() throws InterruptedException {
+        RecordingStore store = new RecordingStore();
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(store, 2, LONG_INTERVAL);
+
+        updater.recordChanges(Map.of(MILK, -1, BREAD, -1));
+        awaitFlushedBatches(updater, 1);
+
+        assertEquals(List.of(Map.of(MILK, -1, BREAD, -1)), store.batches, "A full backlog should be flushed right away.");
+        updater.close();
+    }
+
+    @Test
+    void testFullBacklogBlocksUntilFlushed() throws InterruptedException {
+        RecordingStore store = new RecordingStore();
+        store.release = new CountDownLatch(1);
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(store, 1, LONG_INTERVAL);
+        updater.recordChanges(Map.of(MILK, -1));
+        store.entered.await();
+        updater.recordChanges(Map.of(BREAD, -1));
+
+        Thread blocked = Thread.ofVirtual().start(() -> updater.recordChanges(Map.of(EGGS, -1)));
+        assertFalse(blocked.join(Duration.ofMillis(100)), "Recording should block while the backlog is full.");
+        store.release.countDown();
+
+        assertTrue(blocked.join(Duration.ofSeconds(5)), "Recording should continue once the backlog has been flushed.");
+        updater.close();
+        assertEquals(List.of(Map.of(MILK, -1), Map.of(BREAD, -1), Map.of(EGGS, -1)), store.batches,
+                "Every change should be flushed exactly once.");
+    }
+
+    @Test
+    void testFailedBatchIsRetried() throws InterruptedException {
+        RecordingStore store = new RecordingStore();
+        store.failuresLeft.set(1);
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(store, 100, Duration.ofMillis(1));
+
+        updater.recordChanges(Map.of(MILK, -1));
+        awaitFlushedBatches(updater, 1);
+        updater.close();
+
+        assertEquals(List.of(Map.of(MILK, -1)), store.batches, "The failed batch should be stored on a later attempt.");
+    }
+
+    @Test
+    void testFailedBatchIsRetriedAfterGrowingDelay() throws InterruptedException {
+        RecordingStore store = new RecordingStore();
+        store.failuresLeft.set(3);
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(store, 100, Duration.ofMillis(1), Duration.ofMillis(20));
+
+        long start = System.nanoTime();
+        updater.recordChanges(Map.of(MILK, -1));
+        awaitFlushedBatches(updater, 1);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        updater.close();
+
+        assertEquals(4, store.attempts.get(), "The batch should be stored on the attempt after the last failure.");
+        assertTrue(elapsedMillis >= 20 + 40 + 80, "The delay should double after every failed attempt, took " + elapsedMillis + " ms.");
+    }
+
+    @Test
+    void testFlushReportsStoreThatKeepsFailing() throws InterruptedException {
+        RecordingStore store = new RecordingStore();
+        store.failuresLeft.set(Integer.MAX_VALUE);
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(store, 100, LONG_INTERVAL, Duration.ofMillis(1));
+
+        updater.recordChanges(Map.of(MILK, -1));
+
+        assertThrows(UncheckedIOException.class, updater::flush, "A flush should report a store that keeps failing.");
+        assertEquals(1, updater.getStatistics().queueDepth(), "The change should be kept for another attempt.");
+        updater.close();
+        assertTrue(store.batches.isEmpty(), "Nothing should have been stored.");
+    }
+
+    @Test
+    void testFlushStoresWaitingChangesWithoutClosing() throws InterruptedException {
+        RecordingStore store = new RecordingStore();
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(store, 100, LONG_INTERVAL);
+
+        updater.recordChanges(Map.of(MILK, -1));
+        updater.flush();
+
+        assertEquals(List.of(Map.of(MILK, -1)), store.batches, "The waiting change should be stored by the flush.");
+        assertFalse(store.closed, "Flushing shouldn't close the store.");
+        updater.recordChanges(Map.of(BREAD, -1));
+        updater.close();
+    }
+
+    @Test
+    void testRecordingAfterCloseFails() throws InterruptedException {
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(new RecordingStore(), 100, LONG_INTERVAL);
+        updater.close();
+
+        assertThrows(IllegalStateException.class, () -> updater.recordChanges(Map.of(MILK, -1)),
+                "A closed updater shouldn't accept changes.");
+    }
+
+    @Test
+    void testStockChangeLogStoresAllBatches(@TempDir Path directory) throws IOException, InterruptedException {
+        Path logFile = directory.resolve("stock-changes.log");
+        WriteBehindStockUpdater updater = WriteBehindStockUpdater.start(logFile);
+
+        updater.recordChanges(Map.of(MILK, -2, BREAD, -1));
+        awaitFlushedBatches(updater, 1);
+        updater.recordChanges(Map.of(MILK, -1));
+        updater.close();
+
+        StockUpdateStatisticsDTO statistics = updater.getStatistics();
+        assertEquals(2, statistics.flushedBatches(), "Both batches should have been flushed.");
+        assertEquals(3, statistics.flushedChanges(), "Three item changes should have been flushed.");
+        assertEquals(0, statistics.queueDepth(), "Nothing should be waiting after closing.");
+        assertEquals(Map.of(MILK, -3L, BREAD, -1L), StockChangeLog.readTotals(logFile), "The log should hold the summed changes.");
+    }
+
+    private static void awaitFlushedBatches(WriteBehindStockUpdater updater, long batches) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (updater.getStatistics().flushedBatches() < batches) {
+            assertTrue(System.nanoTime() < deadline, "The batch should be flushed in time.");
+            Thread.sleep(1);
+        }
+    }
+
+    private static class RecordingStore implements StockChangeStore {
+        private final List<Map<ItemIdentifierDTO, Integer>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final AtomicInteger failuresLeft = new AtomicInteger();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private CountDownLatch release = new CountDownLatch(0);
+        private volatile boolean closed;
+
+        @Override
+        public void append(Map<ItemIdentifierDTO, Integer> changes) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            attempts.incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IOException("Disk full");
+            }
+            batches.add(Map.copyOf(changes));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecordedItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecordedSaleDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaleHistoryTest {
+
+    private static final LocalDateTime OPENING = LocalDateTime.of(2026, 10, 17, 8, 0);
+    private static final int SALE_COUNT = 1_000;
+    private static final Duration WINDOW = Duration.ofMillis(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTimeRangeOnLaneFindsMatchingSales() throws Exception {
+        writeDay();
+
+        List<RecordedSaleDTO> sales = history().findSales(OPENING.plusMinutes(400), OPENING.plusMinutes(430), new LaneIdentifierDTO(3));
+
+        assertEquals(List.of("SALE-403", "SALE-408", "SALE-413", "SALE-418", "SALE-423", "SALE-428"),
+                sales.stream().map(RecordedSaleDTO::saleId).sorted().toList(),
+                "Every sale started in the period on the lane should be found, even if recorded out of order.");
+    }
+
+    @Test
+    void testTimeRangeOnAnyLaneFindsMatchingSales() throws Exception {
+        writeDay();
+
+        List<RecordedSaleDTO> sales = history().findSales(OPENING.plusMinutes(400), OPENING.plusMinutes(430));
+
+        assertEquals(30, sales.size(), "Every sale started in the period should be found.");
+    }
+
+    @Test
+    void testFoundSaleHasItsDetails() throws Exception {
+        writeDay();
+
+        RecordedSaleDTO sale = history().findSale("SALE-123");
+
+        assertNotNull(sale, "The sale should be found by its id.");
+        assertEquals(new LaneIdentifierDTO(3), sale.laneId(), "The lane of the sale should be found.");
+        assertEquals(OPENING.plusMinutes(123), sale.startTime(), "The start time of the sale should be found.");
+        assertEquals(new AmountDTO("1.23"), sale.totalCost(), "The total cost of the sale should be found.");
+        assertEquals(List.of(new RecordedItemDTO(new ItemIdentifierDTO(10001), 2, new AmountDTO("1.23"))), sale.items(),
+                "The items of the sale should be found.");
+    }
+
+    @Test
+    void testUnknownSaleIdIsNotFound() throws Exception {
+        writeDay();
+
+        assertNull(history().findSale("SALE-1230"), "A sale id that wasn't recorded should not be found.");
+    }
+
+    @Test
+    void testBlocksOutsideRangeAreNotRead() throws Exception {
+        writeDay();
+        Path segment = SaleJournal.listSegments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), SaleJournal.SEGMENT_HEADER_SIZE + SaleJournal.RECORD_HEADER_SIZE + 2);
+        }
+        SaleHistory history = history();
+
+        assertEquals(30, history.findSales(OPENING.plusMinutes(400), OPENING.plusMinutes(430)).size(),
+                "A query should only read the blocks that can hold its sales.");
+        assertNotNull(history.findSale("SALE-900"), "A lookup should only read the blocks that can hold the sale.");
+        assertThrows(IOException.class, () -> history.findSales(OPENING, OPENING.plusMinutes(5)),
+                "A damaged block that has to be read should fail the query.");
+    }
+
+    @Test
+    void testSegmentWithoutIndexIsRead() throws Exception {
+        writeDay();
+        for (Path segment : SaleJournal.listSegments(directory)) {
+            Files.delete(SaleJournalIndex.indexFile(segment));
+        }
+
+        assertEquals(30, history().findSales(OPENING.plusMinutes(400), OPENING.plusMinutes(430)).size(),
+                "A segment without an index should be read as a whole.");
+        assertNotNull(history().findSale("SALE-500"), "A sale in a segment without an index should be found.");
+    }
+
+    @Test
+    void testSalesOfSegmentBeingWrittenAreFound() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory)) {
+            append(journal, 1);
+            append(journal, 2);
+            journal.flush();
+
+            assertEquals("SALE-2", history().findSale("SALE-2").saleId(), "A durable sale should be found while the journal is open.");
+            assertEquals(2, history().findSales(OPENING, OPENING.plusHours(1)).size(),
+                    "The records after the last indexed block should be read.");
+        }
+    }
+
+    private SaleHistory history() {
+        return new SaleHistory(directory, ZoneOffset.UTC);
+    }
+
+    private void writeDay() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, 16 * 1024, WINDOW)) {
+            for (int i = 0; i < SALE_COUNT; i += 2) {
+                append(journal, i + 1);
+                journal.awaitDurable(append(journal, i));
+            }
+        }
+        assertTrue(SaleJournal.listSegments(directory).size() > 1, "The sales should be spread over several segments.");
+    }
+
+    private static long append(SaleJournal journal, int sale) {
+        SaleRecord record = new SaleRecord();
+        long timestamp = OPENING.plusMinutes(sale).toInstant(ZoneOffset.UTC).toEpochMilli();
+        record.setSale("SALE-" + sale, sale % 5, timestamp, sale, sale / 5, sale);
+        record.addItem(10001 + sale % 3, 2, sale);
+        ByteBuffer buffer = ByteBuffer.allocate(SaleRecordCodec.maxEncodedSize(record));
+        SaleRecordCodec.encode(record, buffer);
+        return journal.append(buffer.flip());
+    }
+}
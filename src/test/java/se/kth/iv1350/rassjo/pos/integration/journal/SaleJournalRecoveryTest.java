@@ -0,0 +1,210 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.LaneIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.RecoveredSalesDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaleJournalRecoveryTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(1);
+    private static final long TIMESTAMP = 1_760_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecoveryRebuildsRunningState() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, SaleJournalRecovery::checkpoint)) {
+            append(journal, "SALE-1", 1, 10_000, 10001, 2);
+            append(journal, "SALE-2", 2, 2_500, 10002, 1);
+            append(journal, "SALE-3", 1, 500, 10001, 1);
+        }
+        deleteCheckpoint();
+
+        RecoveredSalesDTO recovered = new SaleJournalRecovery().recover(directory);
+
+        assertEquals(3, recovered.saleCount(), "Every sale should be recovered.");
+        assertEquals(new AmountDTO("130.00"), recovered.totalRevenue(), "The revenue of every sale should be recovered.");
+        assertEquals(new AmountDTO("105.00"), recovered.cashPerLane().get(new LaneIdentifierDTO(1)),
+                "The cash taken in should be recovered per lane.");
+        assertEquals(3L, recovered.soldQuantities().get(new ItemIdentifierDTO(10001)),
+                "The sold quantity should be recovered per item.");
+        assertEquals("SALE-3", recovered.highestSaleId(), "The highest sale id should be recovered.");
+        assertEquals(1, recovered.replayedSegments(), "The segment should have been replayed.");
+    }
+
+    @Test
+    void testParallelReplayOfManySegmentsKeepsHighestSaleId() throws Exception {
+        int saleCount = 500;
+        try (SaleJournal journal = SaleJournal.open(directory, 512, WINDOW, SaleJournalRecovery::checkpoint)) {
+            for (int i = 1; i <= saleCount; i++) {
+                journal.awaitDurable(append(journal, String.format("SALE-%04d", i), i % 4, 100, 10001 + i % 7, 1));
+            }
+        }
+        deleteCheckpoint();
+        int segmentCount = SaleJournal.listSegments(directory).size();
+
+        RecoveredSalesDTO recovered = new SaleJournalRecovery(new ForkJoinPool(4)).recover(directory);
+
+        assertTrue(segmentCount > 10, "The sales should be spread over many segments, were " + segmentCount + ".");
+        assertEquals(saleCount, recovered.saleCount(), "Every sale in every segment should be recovered.");
+        assertEquals(new AmountDTO("500.00"), recovered.totalRevenue(), "The revenue of every segment should be summed.");
+        assertEquals(String.format("SALE-%04d", saleCount), recovered.highestSaleId(),
+                "The highest sale id should be taken from the last segment.");
+    }
+
+    @Test
+    void testHighestSaleIdIsRecoveredWhenSalesArePaidOutOfOrder() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, 64, WINDOW, SaleJournalRecovery::checkpoint)) {
+            journal.awaitDurable(append(journal, "SALE-3", 1, 500, 10001, 1));
+            journal.awaitDurable(append(journal, "SALE-1", 2, 500, 10001, 1));
+            journal.awaitDurable(append(journal, "SALE-2", 1, 500, 10001, 1));
+        }
+
+        assertEquals("SALE-3", new SaleJournalRecovery().recover(directory).highestSaleId(),
+                "The highest sale id should be kept from the checkpoint, not the last one journaled.");
+        deleteCheckpoint();
+        assertEquals("SALE-3", new SaleJournalRecovery(new ForkJoinPool(3)).recover(directory).highestSaleId(),
+                "The highest sale id should be kept when the segments are replayed, not the last one journaled.");
+    }
+
+    @Test
+    void testClosedJournalNeedsNoReplay() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, SaleJournalRecovery::checkpoint)) {
+            append(journal, "SALE-1", 1, 10_000, 10001, 2);
+        }
+
+        RecoveredSalesDTO recovered = new SaleJournalRecovery().recover(directory);
+
+        assertEquals(0, recovered.replayedSegments(), "Closing the journal should have checkpointed every segment.");
+        assertEquals(1, recovered.saleCount(), "The sale should be recovered from the checkpoint.");
+        assertEquals("SALE-1", recovered.highestSaleId(), "The highest sale id should be recovered from the checkpoint.");
+    }
+
+    @Test
+    void testOnlySegmentsAfterCheckpointAreReplayed() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, SaleJournalRecovery::checkpoint)) {
+            append(journal, "SALE-1", 1, 10_000, 10001, 2);
+        }
+        Path checkpoint = directory.resolve(SaleJournalCheckpoint.FILE_NAME);
+        Path earlierCheckpoint = Files.copy(checkpoint, directory.resolve("earlier"));
+        try (SaleJournal journal = SaleJournal.open(directory, SaleJournalRecovery::checkpoint)) {
+            append(journal, "SALE-2", 1, 2_500, 10002, 1);
+        }
+        Files.move(earlierCheckpoint, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+
+        RecoveredSalesDTO recovered = new SaleJournalRecovery().recover(directory);
+
+        assertEquals(1, recovered.replayedSegments(), "Only the segment after the checkpoint should be replayed.");
+        assertEquals(2, recovered.saleCount(), "The sales of the checkpoint and the replayed segment should be combined.");
+        assertEquals("SALE-2", recovered.highestSaleId(), "The highest sale id should be taken from the replayed segment.");
+    }
+
+    @Test
+    void testTornTailIsCutOff() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, SaleJournalRecovery::checkpoint)) {
+            append(journal, "SALE-1", 1, 10_000, 10001, 2);
+            append(journal, "SALE-2", 1, 2_500, 10002, 1);
+        }
+        deleteCheckpoint();
+        Path segment = SaleJournal.listSegments(directory).get(0);
+        long intactSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(SaleJournal.RECORD_HEADER_SIZE + 3).putInt(40).putInt(7).flip());
+        }
+
+        RecoveredSalesDTO recovered = new SaleJournalRecovery().recover(directory);
+
+        assertEquals(2, recovered.saleCount(), "The sales before the torn tail should be recovered.");
+        assertEquals(intactSize, Files.size(segment), "The torn tail should be cut off.");
+        assertDoesNotThrow(() -> SaleJournal.forEachRecord(directory, payload -> { }), "The journal should be readable after the recovery.");
+    }
+
+    @Test
+    void testDamageBeforeLastSegmentFails() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, SaleJournalRecovery::checkpoint)) {
+            append(journal, "SALE-1", 1, 10_000, 10001, 2);
+        }
+        try (SaleJournal journal = SaleJournal.open(directory, SaleJournalRecovery::checkpoint)) {
+            append(journal, "SALE-2", 1, 2_500, 10002, 1);
+        }
+        deleteCheckpoint();
+        Path firstSegment = SaleJournal.listSegments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(firstSegment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), SaleJournal.SEGMENT_HEADER_SIZE + SaleJournal.RECORD_HEADER_SIZE + 2);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> new SaleJournalRecovery().recover(directory),
+                "A damaged record that was followed by durable records should fail the recovery.");
+        assertTrue(exception.getMessage().contains("corrupt"), "The message should say that the record is corrupt.");
+    }
+
+    @Test
+    void testConcurrentCheckpointsDoNotCollide() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory)) {
+            append(journal, "SALE-1", 1, 10_000, 10001, 2);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> checkpoints = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            checkpoints.add(executor.submit(() -> {
+                SaleJournalRecovery.checkpoint(directory, 1);
+                return null;
+            }));
+        }
+        for (Future<?> checkpoint : checkpoints) {
+            assertDoesNotThrow(() -> checkpoint.get(), "A checkpoint written at the same time as others should succeed.");
+        }
+        executor.shutdown();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")),
+                    "No temporary checkpoint file should be left behind.");
+        }
+        assertEquals(0, new SaleJournalRecovery().recover(directory).replayedSegments(),
+                "The checkpoint should cover the segment.");
+    }
+
+    @Test
+    void testEmptyDirectoryHasNoSales() throws IOException {
+        RecoveredSalesDTO recovered = new SaleJournalRecovery().recover(directory.resolve("sales"));
+
+        assertEquals(0, recovered.saleCount(), "A journal that doesn't exist should have no sales.");
+        assertNull(recovered.highestSaleId(), "A journal that doesn't exist should have no highest sale id.");
+        assertEquals(List.of(), List.copyOf(recovered.cashPerLane().values()), "No lane should have taken in cash.");
+    }
+
+    private void deleteCheckpoint() throws IOException {
+        Files.delete(directory.resolve(SaleJournalCheckpoint.FILE_NAME));
+    }
+
+    private static long append(SaleJournal journal, String saleId, int laneId, long totalCost, int itemId, int quantity) {
+        SaleRecord record = new SaleRecord();
+        record.setSale(saleId, laneId, TIMESTAMP, totalCost, totalCost / 5, totalCost);
+        record.addItem(itemId, quantity, totalCost);
+        ByteBuffer buffer = ByteBuffer.allocate(SaleRecordCodec.maxEncodedSize(record));
+        SaleRecordCodec.encode(record, buffer);
+        return journal.append(buffer.flip());
+    }
+}
@@ -0,0 +1,182 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.SaleJournalStatisticsDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaleJournalTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(5);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsAreReadBackInOrder() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory)) {
+            journal.append(record("first"));
+            journal.append(record("second"));
+            journal.append(record("third"));
+        }
+
+        assertEquals(List.of("first", "second", "third"), readAll(), "The records should be read back in the order they were appended.");
+    }
+
+    @Test
+    void testAwaitDurableWaitsForCommit() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, 1024 * 1024, WINDOW)) {
+            long sequence = journal.append(record("sale"));
+
+            journal.awaitDurable(sequence);
+
+            assertEquals(1, sequence, "The first record should have sequence number 1.");
+            assertEquals(1, journal.getStatistics().durableRecords(), "The record should be on disk.");
+            assertEquals(List.of("sale"), readAll(), "The record should be readable once it is durable.");
+        }
+    }
+
+    @Test
+    void testConcurrentAppendsShareCommits() throws Exception {
+        int laneCount = 8;
+        int salesPerLane = 500;
+        ExecutorService lanes = Executors.newFixedThreadPool(laneCount);
+        SaleJournalStatisticsDTO statistics;
+        try (SaleJournal journal = SaleJournal.open(directory, 1024 * 1024, WINDOW)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int lane = 0; lane < laneCount; lane++) {
+                int laneNumber = lane;
+                results.add(lanes.submit(() -> {
+                    for (int sale = 0; sale < salesPerLane; sale++) {
+                        journal.append(record(laneNumber + "-" + sale));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            journal.flush();
+            statistics = journal.getStatistics();
+        } finally {
+            lanes.shutdown();
+        }
+
+        List<String> records = readAll();
+        assertEquals(laneCount * salesPerLane, records.size(), "Every appended record should be written.");
+        assertEquals(laneCount * salesPerLane, new HashSet<>(records).size(), "No record should be written twice.");
+        assertEquals(laneCount * salesPerLane, statistics.durableRecords(), "Every record should be durable after a flush.");
+        assertTrue(statistics.commits() < statistics.durableRecords(), "Records of concurrent lanes should share commits.");
+    }
+
+    @Test
+    void testFullSegmentStartsNewSegment() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory, 64, Duration.ZERO)) {
+            for (int i = 0; i < 10; i++) {
+                journal.awaitDurable(journal.append(record("sale " + i)));
+            }
+        }
+
+        assertTrue(SaleJournal.listSegments(directory).size() > 1, "A full segment should be followed by a new one.");
+        assertEquals(10, readAll().size(), "Every record should be read, across all segments.");
+    }
+
+    @Test
+    void testListenerIsToldAboutFinishedSegmentsInOrder() throws Exception {
+        List<Integer> finishedSegments = new CopyOnWriteArrayList<>();
+        try (SaleJournal journal = SaleJournal.open(directory, 64, Duration.ZERO,
+                (journalDirectory, lastSegment) -> finishedSegments.add(lastSegment))) {
+            for (int i = 0; i < 10; i++) {
+                journal.awaitDurable(journal.append(record("sale " + i)));
+            }
+        }
+
+        int segmentCount = SaleJournal.listSegments(directory).size();
+        assertEquals(segmentCount, finishedSegments.get(finishedSegments.size() - 1),
+                "Closing the journal should finish every segment.");
+        for (int i = 1; i < finishedSegments.size(); i++) {
+            assertTrue(finishedSegments.get(i) > finishedSegments.get(i - 1), "The segments should be finished in order.");
+        }
+    }
+
+    @Test
+    void testReopenedJournalWritesNewSegment() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory)) {
+            journal.append(record("before restart"));
+        }
+        try (SaleJournal journal = SaleJournal.open(directory)) {
+            journal.append(record("after restart"));
+        }
+
+        assertEquals(2, SaleJournal.listSegments(directory).size(), "A reopened journal should not overwrite earlier segments.");
+        assertEquals(List.of("before restart", "after restart"), readAll(), "Records from both runs should be kept in order.");
+    }
+
+    @Test
+    void testUnusedJournalCreatesNoSegment() throws Exception {
+        SaleJournal.open(directory).close();
+
+        assertTrue(SaleJournal.listSegments(directory).isEmpty(), "A journal without records should not create a segment.");
+    }
+
+    @Test
+    void testSecondJournalInSameDirectoryIsRejected() throws Exception {
+        SaleJournal journal = SaleJournal.open(directory);
+        try {
+            assertThrows(IOException.class, () -> SaleJournal.open(directory),
+                    "A second journal should not be opened in a directory that a journal is writing to.");
+        } finally {
+            journal.close();
+        }
+
+        SaleJournal.open(directory).close();
+    }
+
+    @Test
+    void testAppendAfterCloseThrows() throws Exception {
+        SaleJournal journal = SaleJournal.open(directory);
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> journal.append(record("late")),
+                "Appending to a closed journal should fail.");
+    }
+
+    @Test
+    void testCorruptRecordIsDetected() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory)) {
+            journal.append(record("sale"));
+        }
+        Path segment = SaleJournal.listSegments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), SaleJournal.SEGMENT_HEADER_SIZE + SaleJournal.RECORD_HEADER_SIZE);
+        }
+
+        IOException exception = assertThrows(IOException.class, this::readAll, "A record that doesn't match its checksum should be rejected.");
+        assertTrue(exception.getMessage().contains("corrupt"), "The message should say that the record is corrupt.");
+    }
+
+    private static ByteBuffer record(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> readAll() throws IOException {
+        List<String> records = new ArrayList<>();
+        SaleJournal.forEachRecord(directory, payload -> records.add(StandardCharsets.UTF_8.decode(payload).toString()));
+        return records;
+    }
+}
@@ -0,0 +1,143 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaleRecordCodecTest {
+
+    private static final long TIMESTAMP = 1_760_000_000_000L;
+
+    @Test
+    void testRoundTripKeepsAllFields() {
+        SaleRecord original = new SaleRecord();
+        original.setSale("01J9ZQ3K8F2M4", 3, TIMESTAMP, 12_345, 1_850, 20_000);
+        original.addItem(10001, 2, 4_469);
+        original.addItem(10004, 1, 12_244);
+        original.addVat(12, 479);
+        original.addVat(25, 2_449);
+
+        SaleRecord decoded = roundTrip(original);
+
+        assertEquals("01J9ZQ3K8F2M4", decoded.getSaleId(), "The sale id should be kept.");
+        assertEquals(3, decoded.getLaneId(), "The lane should be kept.");
+        assertEquals(TIMESTAMP, decoded.getTimestampMillis(), "The timestamp should be kept.");
+        assertEquals(12_345, decoded.getTotalCost(), "The total cost should be kept.");
+        assertEquals(1_850, decoded.getTotalVat(), "The total VAT should be kept.");
+        assertEquals(20_000, decoded.getPaidAmount(), "The paid amount should be kept.");
+        assertEquals(2, decoded.getItemCount(), "Every item should be kept.");
+        assertEquals(10004, decoded.getItemId(1), "The item ids should be kept in order.");
+        assertEquals(2, decoded.getQuantity(0), "The quantities should be kept.");
+        assertEquals(12_244, decoded.getItemTotal(1), "The item totals should be kept.");
+        assertEquals(2, decoded.getRateCount(), "Every VAT rate should be kept.");
+        assertEquals(25, decoded.getVatRate(1), "The VAT rates should be kept.");
+        assertEquals(2_449, decoded.getVatAmount(1), "The VAT per rate should be kept.");
+    }
+
+    @Test
+    void testExtremeValuesRoundTrip() {
+        SaleRecord original = new SaleRecord();
+        original.setSale("", Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE);
+        original.addItem(Integer.MAX_VALUE, Integer.MAX_VALUE, -12_345);
+
+        SaleRecord decoded = roundTrip(original);
+
+        assertEquals(Integer.MAX_VALUE, decoded.getLaneId(), "The largest lane id should be kept.");
+        assertEquals(Long.MIN_VALUE, decoded.getTimestampMillis(), "The smallest timestamp should be kept.");
+        assertEquals(Long.MAX_VALUE, decoded.getTotalCost(), "The largest amount should be kept.");
+        assertEquals(-1, decoded.getTotalVat(), "Negative amounts should be kept.");
+        assertEquals(Long.MIN_VALUE, decoded.getPaidAmount(), "The smallest amount should be kept.");
+        assertEquals(Integer.MAX_VALUE, decoded.getItemId(0), "The largest item id should be kept.");
+        assertEquals(-12_345, decoded.getItemTotal(0), "Negative item totals should be kept.");
+    }
+
+    @Test
+    void testDecodingReplacesPreviousContents() {
+        SaleRecord large = new SaleRecord();
+        large.setSale("A-LONG-SALE-ID-WITH-MANY-CHARACTERS", 1, TIMESTAMP, 0, 0, 0);
+        for (int i = 0; i < 40; i++) {
+            large.addItem(i, 1, 100);
+        }
+        SaleRecord small = new SaleRecord();
+        small.setSale("SHORT", 2, TIMESTAMP, 100, 20, 100);
+        small.addItem(7, 1, 100);
+        ByteBuffer buffer = ByteBuffer.allocate(SaleRecordCodec.maxEncodedSize(large) + SaleRecordCodec.maxEncodedSize(small));
+        SaleRecordCodec.encode(large, buffer);
+        SaleRecordCodec.encode(small, buffer);
+        buffer.flip();
+
+        SaleRecord reused = new SaleRecord();
+        SaleRecordCodec.decode(buffer, reused);
+        SaleRecordCodec.decode(buffer, reused);
+
+        assertTrue(reused.hasSaleId("SHORT"), "The sale id of the last decoded record should be kept.");
+        assertEquals(1, reused.getItemCount(), "Items of the earlier record should be removed.");
+        assertFalse(buffer.hasRemaining(), "Decoding should consume exactly the encoded records.");
+    }
+
+    @Test
+    void testSaleIdsCompareAsStrings() {
+        SaleRecord record = new SaleRecord();
+        record.setSale("01J9ZQ3K8F2M4", 1, TIMESTAMP, 4_469, 479, 5_000);
+
+        assertTrue(record.compareSaleIdTo("01J9ZQ3K8F2M3") > 0, "A lower id should come before the id of the sale.");
+        assertTrue(record.compareSaleIdTo("01J9ZQ3K8F2M5") < 0, "A higher id should come after the id of the sale.");
+        assertEquals(0, record.compareSaleIdTo("01J9ZQ3K8F2M4"), "The same id should compare as equal.");
+        assertTrue(record.compareSaleIdTo("01J9ZQ3K8F2M") > 0, "A prefix of the id should come before it.");
+        assertTrue(record.compareSaleIdTo("01J9ZQ3K8F2MÅ") < 0, "A non-ASCII id should compare as a string does.");
+    }
+
+    @Test
+    void testOneItemSaleIsCompact() {
+        SaleRecord record = new SaleRecord();
+        record.setSale("01J9ZQ3K8F2M4", 1, TIMESTAMP, 4_469, 479, 5_000);
+        record.addItem(10001, 2, 4_469);
+        record.addVat(12, 479);
+        ByteBuffer buffer = ByteBuffer.allocate(SaleRecordCodec.maxEncodedSize(record));
+
+        SaleRecordCodec.encode(record, buffer);
+
+        assertTrue(buffer.position() <= 40, "A sale with one item should take at most 40 bytes, took " + buffer.position() + ".");
+    }
+
+    @Test
+    void testReadTimestampDoesNotMovePosition() {
+        SaleRecord record = new SaleRecord();
+        record.setSale("S", 1, TIMESTAMP, 0, 0, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(SaleRecordCodec.maxEncodedSize(record));
+        SaleRecordCodec.encode(record, buffer);
+        buffer.flip();
+
+        assertEquals(TIMESTAMP, SaleRecordCodec.readTimestamp(buffer), "The timestamp should be read without decoding.");
+        assertEquals(0, buffer.position(), "Reading the timestamp should not move the position.");
+    }
+
+    @Test
+    void testUnsupportedVersionIsRejected() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{99, 0, 0, 0, 0, 0, 0, 0, 0});
+
+        assertThrows(IllegalArgumentException.class, () -> SaleRecordCodec.decode(buffer, new SaleRecord()),
+                "A record of an unknown version should be rejected.");
+    }
+
+    @Test
+    void testTooSmallBufferOverflows() {
+        SaleRecord record = new SaleRecord();
+        record.setSale("S", 1, TIMESTAMP, 0, 0, 0);
+
+        assertThrows(BufferOverflowException.class, () -> SaleRecordCodec.encode(record, ByteBuffer.allocate(4)),
+                "Encoding into a buffer without room should fail.");
+    }
+
+    private static SaleRecord roundTrip(SaleRecord original) {
+        ByteBuffer buffer = ByteBuffer.allocate(SaleRecordCodec.maxEncodedSize(original));
+        SaleRecordCodec.encode(original, buffer);
+        buffer.flip();
+        SaleRecord decoded = new SaleRecord();
+        SaleRecordCodec.decode(buffer, decoded);
+        return decoded;
+    }
+}
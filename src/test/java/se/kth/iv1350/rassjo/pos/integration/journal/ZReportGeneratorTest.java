@@ -0,0 +1,99 @@
+package se.kth.iv1350.rassjo.pos.integration.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ZReportSummaryDTO;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZReportGeneratorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 17);
+    private static final Duration WINDOW = Duration.ofMillis(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReportHasTotalsOfTheDay() throws Exception {
+        try (SaleJournal journal = SaleJournal.open(directory)) {
+            append(journal, "SALE-1", 1, at(9, 10), 10001, 2, 4_468, 12, 478, 5_000);
+            append(journal, "SALE-2", 2, at(14, 5), 10004, 1, 12_244, 25, 2_449, 20_000);
+            append(journal, "SALE-3", 1, at(14, 30), 10001, 1, 2_234, 12, 239, 2_234);
+            append(journal, "EARLIER", 1, at(9, 0) - Duration.ofDays(1).toMillis(), 10001, 5, 11_170, 12, 1_195, 11_170);
+        }
+        StringWriter report = new StringWriter();
+
+        ZReportSummaryDTO summary = new ZReportGenerator().writeReport(directory, DAY, ZoneOffset.UTC, report);
+
+        assertEquals(3, summary.saleCount(), "Only the sales of the day should be counted.");
+        assertEquals(new AmountDTO("189.46"), summary.totalRevenue(), "The revenue of the day should be summed.");
+        assertEquals(new AmountDTO("31.66"), summary.totalVat(), "The VAT of the day should be summed.");
+        List<String> lines = report.toString().lines().map(String::strip).toList();
+        assertTrue(lines.contains("Z-report for 2026-10-17"), "The report should name its day.");
+        assertTrue(lines.contains("Change given:              82.88 SEK"), "The change given should be the paid amounts minus the revenue.");
+        assertTrue(lines.contains("12%                    7.17"), "The VAT should be totalled per rate.");
+        assertTrue(lines.contains("14:00          2          144.78"), "The sales should be totalled per hour.");
+        assertTrue(lines.contains("1              2           67.02"), "The sales should be totalled per lane.");
+        assertTrue(lines.contains("10001          3           67.02"), "The quantity and revenue should be totalled per item.");
+    }
+
+    @Test
+    void testParallelScanOfManySegmentsCountsEverySale() throws Exception {
+        int saleCount = 400;
+        try (SaleJournal journal = SaleJournal.open(directory, 512, WINDOW)) {
+            for (int i = 0; i < saleCount; i++) {
+                journal.awaitDurable(append(journal, "SALE-" + i, i % 3, at(8 + i % 10, 0), 10001 + i % 5, 1, 100, 25, 20, 100));
+            }
+        }
+        StringWriter report = new StringWriter();
+
+        ZReportSummaryDTO summary = new ZReportGenerator(new ForkJoinPool(4)).writeReport(directory, DAY, ZoneOffset.UTC, report);
+
+        assertTrue(summary.scannedSegments() > 10, "The sales should be spread over many segments, were " + summary.scannedSegments() + ".");
+        assertEquals(saleCount, summary.saleCount(), "Every sale in every segment should be counted.");
+        assertEquals(new AmountDTO("400.00"), summary.totalRevenue(), "The revenue of every segment should be merged.");
+        assertTrue(report.toString().lines().map(String::strip).toList().contains("10001         80           80.00"),
+                "The item totals of every segment should be merged.");
+    }
+
+    @Test
+    void testDayWithoutSalesHasEmptyReport() throws IOException {
+        StringWriter report = new StringWriter();
+
+        ZReportSummaryDTO summary = new ZReportGenerator().writeReport(directory, DAY, ZoneOffset.UTC, report);
+
+        assertEquals(0, summary.saleCount(), "A day without sales should have no sales.");
+        assertEquals(new AmountDTO("0.00"), summary.totalRevenue(), "A day without sales should have no revenue.");
+        assertTrue(report.toString().lines().map(String::strip).toList().contains("Sales:                         0"),
+                "The report should still be written.");
+    }
+
+    private static long at(int hour, int minute) {
+        return LocalDateTime.of(DAY, LocalTime.of(hour, minute)).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long append(SaleJournal journal, String saleId, int laneId, long timestampMillis, int itemId,
+                               int quantity, long total, int vatRate, long vat, long paid) {
+        SaleRecord record = new SaleRecord();
+        record.setSale(saleId, laneId, timestampMillis, total, vat, paid);
+        record.addItem(itemId, quantity, total);
+        record.addVat(vatRate, vat);
+        ByteBuffer buffer = ByteBuffer.allocate(SaleRecordCodec.maxEncodedSize(record));
+        SaleRecordCodec.encode(record, buffer);
+        return journal.append(buffer.flip());
+    }
+}
@@ -0,0 +1,200 @@
+package se.kth.iv1350.rassjo.pos.model;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the {@code long} backed {@link Amount} against the results of the
+ * previous {@code BigDecimal} implementation.
+ */
+class AmountTest {
+
+    private static final int SAMPLES = 20_000;
+    private static final long SEED = 1350L;
+    private static final int[] VAT_RATES = {0, 6, 12, 25};
+
+    private static BigDecimal reference(String amount) {
+        return new BigDecimal(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal referenceIncrease(BigDecimal amount, int percentage) {
+        BigDecimal factor = BigDecimal.valueOf(100 + percentage, 2);
+        return amount.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal referenceDecrease(BigDecimal amount, int percentage) {
+        BigDecimal factor = BigDecimal.valueOf(100 - percentage, 2);
+        return amount.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal legacyIncrease(BigDecimal amount, int percentage) {
+        BigDecimal factor = BigDecimal.valueOf(1 + (double) percentage / 100);
+        return amount.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal legacyDecrease(BigDecimal amount, int percentage) {
+        BigDecimal factor = BigDecimal.valueOf(1 - (double) percentage / 100);
+        return amount.multiply(factor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static String randomAmount(Random random) {
+        long minorUnits = random.nextInt(20_000_000) - 10_000_000;
+        return BigDecimal.valueOf(minorUnits, 2).toPlainString();
+    }
+
+    @Nested
+    class ParsingTests {
+
+        @Test
+        void testParsingMatchesReference() {
+            String[] inputs = {"0", "0.0", "1000.0", "19.95", "-10.00", "0.005", "-0.005", "0.004", "-0.004",
+                    "12.345", "12.3449", "99.995", "+7.5", ".5", "5.", "449.00"};
+            for (String input : inputs) {
+                assertEquals(reference(input).toPlainString(), new Amount(input).getAmount(),
+                        "Parsing of '" + input + "' should match the BigDecimal result.");
+            }
+        }
+
+        @Test
+        void testRandomParsingMatchesReference() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                String input = BigDecimal.valueOf(random.nextLong() % 1_000_000_000L, random.nextInt(5)).toPlainString();
+                assertEquals(reference(input).toPlainString(), new Amount(input).getAmount(),
+                        "Parsing of '" + input + "' should match the BigDecimal result.");
+            }
+        }
+
+        @Test
+        void testInvalidAmountThrows() {
+            assertThrows(NumberFormatException.class, () -> new Amount("abc"), "A non-numeric amount should not be accepted.");
+            assertThrows(NumberFormatException.class, () -> new Amount(""), "An empty amount should not be accepted.");
+            assertThrows(NumberFormatException.class, () -> new Amount("-"), "A lone sign should not be accepted.");
+            assertThrows(NumberFormatException.class, () -> new Amount("1.2.3"), "Two decimal points should not be accepted.");
+        }
+    }
+
+    @Nested
+    class ArithmeticTests {
+
+        @Test
+        void testAddAndSubtractMatchReference() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                String first = randomAmount(random);
+                String second = randomAmount(random);
+
+                assertEquals(reference(first).add(reference(second)).toPlainString(),
+                        new Amount(first).add(new Amount(second)).getAmount(), "Addition should match the BigDecimal result.");
+                assertEquals(reference(first).subtract(reference(second)).toPlainString(),
+                        new Amount(first).subtract(new Amount(second)).getAmount(), "Subtraction should match the BigDecimal result.");
+            }
+        }
+
+        @Test
+        void testMultiplyByQuantityMatchesReference() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                String amount = randomAmount(random);
+                int quantity = random.nextInt(2_000) - 1_000;
+
+                assertEquals(reference(amount).multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP).toPlainString(),
+                        new Amount(amount).multiplyByQuantity(quantity).getAmount(), "Multiplication should match the BigDecimal result.");
+            }
+        }
+
+        @Test
+        void testPercentagesMatchReference() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                String amount = randomAmount(random);
+                int percentage = random.nextInt(101);
+
+                assertEquals(referenceIncrease(reference(amount), percentage).toPlainString(),
+                        new Amount(amount).increaseBy(new PercentageDTO(percentage)).getAmount(),
+                        "Increasing " + amount + " by " + percentage + "% should match the BigDecimal result.");
+                assertEquals(referenceDecrease(reference(amount), percentage).toPlainString(),
+                        new Amount(amount).decreaseBy(new PercentageDTO(percentage)).getAmount(),
+                        "Decreasing " + amount + " by " + percentage + "% should match the BigDecimal result.");
+            }
+        }
+
+        @Test
+        void testVatRatesMatchLegacyDoubleFactors() {
+            Random random = new Random(SEED);
+            for (int i = 0; i < SAMPLES; i++) {
+                String amount = randomAmount(random);
+                int vatRate = VAT_RATES[random.nextInt(VAT_RATES.length)];
+
+                assertEquals(legacyIncrease(reference(amount), vatRate).toPlainString(),
+                        new Amount(amount).increaseBy(new PercentageDTO(vatRate)).getAmount(),
+                        "Adding " + vatRate + "% VAT to " + amount + " should match the previous implementation.");
+                assertEquals(legacyDecrease(reference(amount), vatRate).toPlainString(),
+                        new Amount(amount).decreaseBy(new PercentageDTO(vatRate)).getAmount(),
+                        "Removing " + vatRate + "% from " + amount + " should match the previous implementation.");
+            }
+        }
+
+        @Test
+        void testHalfWayValuesRoundAwayFromZero() {
+            assertEquals("0.01", new Amount("0.04").increaseBy(new PercentageDTO(25)).subtract(new Amount("0.04")).getAmount(),
+                    "A VAT of exactly half an öre should be rounded up.");
+            assertEquals("-0.05", new Amount("-0.04").increaseBy(new PercentageDTO(25)).getAmount(),
+                    "Negative half-way values should be rounded away from zero.");
+        }
+    }
+
+    @Nested
+    class OverflowTests {
+
+        private final Amount largest = new Amount(String.valueOf(Long.MAX_VALUE / 100));
+
+        @Test
+        void testAddOverflowThrows() {
+            assertThrows(ArithmeticException.class, () -> largest.add(new Amount(1)), "Overflowing addition should be detected.");
+        }
+
+        @Test
+        void testSubtractOverflowThrows() {
+            Amount smallest = new Amount(0).subtract(largest);
+            assertThrows(ArithmeticException.class, () -> smallest.subtract(new Amount(1)), "Overflowing subtraction should be detected.");
+        }
+
+        @Test
+        void testMultiplyOverflowThrows() {
+            assertThrows(ArithmeticException.class, () -> largest.multiplyByQuantity(2), "Overflowing multiplication should be detected.");
+        }
+
+        @Test
+        void testIncreaseOverflowThrows() {
+            assertThrows(ArithmeticException.class, () -> largest.increaseBy(new PercentageDTO(25)), "Overflowing percentage increase should be detected.");
+        }
+
+        @Test
+        void testParseOverflowThrows() {
+            assertThrows(ArithmeticException.class, () -> new Amount("99999999999999999999.00"), "Amounts that can't be represented should be rejected.");
+        }
+    }
+
+    @Nested
+    class EqualityTests {
+
+        @Test
+        void testEqualsIgnoresTrailingZeros() {
+            assertEquals(new Amount("5"), new Amount("5.00"), "Amounts with the same value should be equal.");
+            assertEquals(new Amount("5").hashCode(), new Amount("5.000").hashCode(), "Equal amounts should have the same hash code.");
+        }
+
+        @Test
+        void testNotEqualsDifferentValue() {
+            assertNotEquals(new Amount("5.01"), new Amount("5.00"), "Amounts with different values should not be equal.");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package se.kth.iv1350.rassjo.pos.model;
+
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PercentageFactorTest {
+
+    @Test
+    void testFactorsAreCachedPerPercentage() {
+        assertSame(PercentageFactor.increaseOf(new PercentageDTO(12)), PercentageFactor.increaseOf(new PercentageDTO(12)),
+                "The same increase factor should be returned for equal percentages.");
+        assertSame(PercentageFactor.decreaseOf(new PercentageDTO(25)), PercentageFactor.decreaseOf(new PercentageDTO(25)),
+                "The same decrease factor should be returned for equal percentages.");
+    }
+
+    @Test
+    void testFactorsAreStoredInLowestTerms() {
+        assertEquals("28/25", PercentageFactor.increaseOf(new PercentageDTO(12)).toString(), "12% VAT should be 28/25.");
+        assertEquals("3/4", PercentageFactor.decreaseOf(new PercentageDTO(25)).toString(), "A 25% decrease should be 3/4.");
+        assertEquals("0/1", PercentageFactor.decreaseOf(new PercentageDTO(100)).toString(), "A 100% decrease should be zero.");
+    }
+
+    @Test
+    void testApplyToIsExact() {
+        assertEquals(2388101L, PercentageFactor.increaseOf(new PercentageDTO(59)).applyTo(1501950L),
+                "15019.50 increased by 59% is 23881.005 and should round up to 23881.01.");
+        assertEquals(2234L, PercentageFactor.increaseOf(new PercentageDTO(12)).applyTo(1995L),
+                "19.95 increased by 12% should be 22.34.");
+    }
+
+    @Test
+    void testPercentagesOutsideTableAreSupported() {
+        assertEquals(300L, PercentageFactor.increaseOf(new PercentageDTO(200)).applyTo(100L),
+                "A 200% increase should triple the amount.");
+        assertEquals(-20L, PercentageFactor.decreaseOf(new PercentageDTO(120)).applyTo(100L),
+                "A 120% decrease should result in a negative amount.");
+    }
+}
@@ -0,0 +1,61 @@
+package se.kth.iv1350.rassjo.pos.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.AmountDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.ItemIdentifierDTO;
+import se.kth.iv1350.rassjo.pos.integration.DTOs.PercentageDTO;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaleItemTableTest {
+
+    private SaleItemTable table;
+
+    private static SaleItem createItem(int id) {
+        ItemDTO item = new ItemDTO(new ItemIdentifierDTO(id), "Item " + id, "Description " + id,
+                new AmountDTO("10.00"), new PercentageDTO(25));
+        return new SaleItem(item, 1);
+    }
+
+    @BeforeEach
+    void setUp() {
+        table = new SaleItemTable();
+    }
+
+    @Test
+    void testGetReturnsAddedItem() {
+        SaleItem item = createItem(10001);
+        table.add(10001, item);
+
+        assertSame(item, table.get(10001), "The added item should be returned for its id.");
+        assertNull(table.get(10002), "No item should be returned for an id that hasn't been added.");
+    }
+
+    @Test
+    void testItemsKeepScanOrderWhenGrowing() {
+        int[] ids = new int[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (i * 7919) % 100_003 - 50_000;
+            table.add(ids[i], createItem(ids[i]));
+        }
+
+        List<SaleItem> items = table.toList();
+        assertEquals(ids.length, table.size(), "All items should be in the table.");
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], items.get(i).getId().id(), "Items should be listed in the order they were added.");
+            assertSame(items.get(i), table.get(ids[i]), "Every item should be found after the table has grown.");
+        }
+    }
+
+    @Test
+    void testAddingExistingIdThrows() {
+        table.add(10001, createItem(10001));
+
+        assertThrows(IllegalArgumentException.class, () -> table.add(10001, createItem(10001)),
+                "Adding an item with an existing id should throw an exception.");
+    }
+}